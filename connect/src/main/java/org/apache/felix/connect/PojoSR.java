@@ -35,6 +35,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
@@ -279,18 +282,69 @@ public class PojoSR implements PojoServiceRegistry
             bundles.add(bundle);
         }
 
-        for (Bundle bundle : bundles)
+        int threads = Math.min(getStartThreads(), bundles.size());
+        if (threads <= 1)
+        {
+            for (Bundle bundle : bundles)
+            {
+                startBundle(bundle);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            for (final Bundle bundle : bundles)
+            {
+                executor.execute(new Runnable()
+                {
+                    public void run()
+                    {
+                        startBundle(bundle);
+                    }
+                });
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void startBundle(Bundle bundle)
+    {
+        try
+        {
+            bundle.start();
+        }
+        catch (Throwable e)
+        {
+            System.out.println("Unable to start bundle: " + bundle);
+            e.printStackTrace();
+        }
+    }
+
+    private int getStartThreads()
+    {
+        Object threads = bundleConfig.get(PojoServiceRegistryFactory.BUNDLES_START_THREADS);
+        if (threads instanceof Number)
+        {
+            return ((Number) threads).intValue();
+        }
+        else if (threads != null)
         {
             try
             {
-                bundle.start();
+                return Integer.parseInt(threads.toString().trim());
             }
-            catch (Throwable e)
+            catch (NumberFormatException ex)
             {
-                System.out.println("Unable to start bundle: " + bundle);
-                e.printStackTrace();
+                System.out.println("Invalid number of start threads: " + threads);
             }
         }
+        return 1;
     }
 
     public Bundle registerBundle(BundleDescriptor desc) throws Exception
@@ -405,11 +459,10 @@ public class PojoSR implements PojoServiceRegistry
             }
         }
         Map<String, Object> config = new HashMap<String, Object>();
+        ClasspathScanner scanner = new ClasspathScanner(null, Runtime.getRuntime().availableProcessors());
         config.put(
                 PojoServiceRegistryFactory.BUNDLE_DESCRIPTORS,
-                (filter != null) ? new ClasspathScanner()
-                        .scanForBundles(filter.toString()) : new ClasspathScanner()
-                        .scanForBundles());
+                (filter != null) ? scanner.scanForBundles(filter.toString()) : scanner.scanForBundles());
         new PojoServiceRegistryFactoryImpl().newPojoServiceRegistry(config);
         if (main != null)
         {
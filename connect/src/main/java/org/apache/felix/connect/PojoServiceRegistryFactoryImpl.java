@@ -53,6 +53,18 @@ public class PojoServiceRegistryFactoryImpl implements PojoServiceRegistryFactor
         return new PojoSR(configuration);
     }
 
+    /**
+     * Configuration property naming the file in which the headers of the
+     * scanned manifests are kept between launches.
+     */
+    public static final String SCAN_INDEX = "pojosr.index";
+
+    /**
+     * Configuration property for the number of threads reading manifests,
+     * by default the number of available processors.
+     */
+    public static final String SCAN_THREADS = "pojosr.scan.threads";
+
     public Framework newFramework(Map<String, String> configuration)
     {
         return new FrameworkImpl(configuration.get("pojosr.filter"), configuration);
@@ -107,9 +119,7 @@ public class PojoServiceRegistryFactoryImpl implements PojoServiceRegistryFactor
         {
             try
             {
-                m_reg.startBundles((m_filter != null) ? new ClasspathScanner()
-                        .scanForBundles(m_filter)
-                        : new ClasspathScanner().scanForBundles());
+                m_reg.startBundles(createScanner().scanForBundles(m_filter));
             }
             catch (Exception e)
             {
@@ -117,6 +127,35 @@ public class PojoServiceRegistryFactoryImpl implements PojoServiceRegistryFactor
             }
         }
 
+        private ClasspathScanner createScanner()
+        {
+            Object index = m_configuration.get(SCAN_INDEX);
+            return new ClasspathScanner(
+                    (index != null) ? new File(index.toString()) : null,
+                    getScanThreads());
+        }
+
+        private int getScanThreads()
+        {
+            Object threads = m_configuration.get(SCAN_THREADS);
+            if (threads instanceof Number)
+            {
+                return ((Number) threads).intValue();
+            }
+            else if (threads != null)
+            {
+                try
+                {
+                    return Integer.parseInt(threads.toString().trim());
+                }
+                catch (NumberFormatException ex)
+                {
+                    System.out.println("Invalid number of scan threads: " + threads);
+                }
+            }
+            return Runtime.getRuntime().availableProcessors();
+        }
+
         public void stop(int options) throws BundleException
         {
             m_bundle.stop(options);
@@ -18,21 +18,70 @@
  */
 package org.apache.felix.connect.launch;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URI;
 import java.net.URL;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.osgi.framework.Filter;
 import org.osgi.framework.FrameworkUtil;
 
 import org.apache.felix.connect.felix.framework.util.MapToDictionary;
 
+/**
+ * Finds bundles on a class path by reading the main attributes of every
+ * {@code META-INF/MANIFEST.MF} resource.
+ * <p>
+ * Optionally the parsed headers are kept in an index file. On the next
+ * scan, the headers of manifests whose jar file or manifest file did not
+ * change since are taken from the index instead of being read again, and
+ * the remaining manifests can be read by several threads.
+ */
 public class ClasspathScanner
 {
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+
+    private static final int INDEX_MAGIC = 0x46434931;
+
+    private final File m_index;
+    private final int m_threads;
+
+    public ClasspathScanner()
+    {
+        this(null, 1);
+    }
+
+    /**
+     * @param index the file used to keep the parsed headers across scans, or
+     *              {@code null} to always read all manifests
+     * @param threads the number of threads used to read manifests that are
+     *                not in the index
+     */
+    public ClasspathScanner(File index, int threads)
+    {
+        m_index = index;
+        m_threads = Math.max(1, threads);
+    }
+
     public List<BundleDescriptor> scanForBundles() throws Exception
     {
         return scanForBundles(null, null);
@@ -57,20 +106,119 @@ public class ClasspathScanner
 
         loader = (loader != null) ? loader : getClass().getClassLoader();
 
+        List<URL> manifests = Collections.list(loader.getResources(MANIFEST));
+        Map<String, IndexEntry> index = (m_index != null)
+                ? readIndex() : Collections.<String, IndexEntry>emptyMap();
+
+        // Take what is up to date from the index, collect the rest
+        List<IndexEntry> entries = new ArrayList<IndexEntry>(manifests.size());
+        List<IndexEntry> missing = new ArrayList<IndexEntry>();
+        for (URL manifestURL : manifests)
+        {
+            String key = manifestURL.toExternalForm();
+            long[] stamp = getStamp(manifestURL);
+            IndexEntry entry = index.get(key);
+            if ((entry == null) || (stamp == null)
+                    || (entry.m_lastModified != stamp[0]) || (entry.m_size != stamp[1]))
+            {
+                entry = new IndexEntry(manifestURL, stamp);
+                missing.add(entry);
+            }
+            entries.add(entry);
+        }
+
+        parseManifests(missing);
+
+        if (m_index != null)
+        {
+            // Rewrite the index if it has stale entries or lacks some
+            boolean changed = (index.size() != entries.size() - missing.size());
+            for (IndexEntry entry : missing)
+            {
+                changed |= (entry.m_size >= 0);
+            }
+            if (changed)
+            {
+                writeIndex(entries);
+            }
+        }
+
         List<BundleDescriptor> bundles = new ArrayList<BundleDescriptor>();
+        for (IndexEntry entry : entries)
+        {
+            if ((filter == null)
+                    || filter.match(new MapToDictionary<String, String>(entry.m_headers)))
+            {
+                bundles.add(new BundleDescriptor(loader, getParentURL(entry.m_url).toExternalForm(), entry.m_headers));
+            }
+        }
+        return bundles;
+    }
+
+    private void parseManifests(final List<IndexEntry> entries) throws Exception
+    {
+        int threads = Math.min(m_threads, entries.size());
+        if (threads <= 1)
+        {
+            parseManifests(entries, 0, entries.size());
+            return;
+        }
+
+        // Each thread reads a contiguous part of the manifests, reusing its buffer
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(threads);
+            int chunk = (entries.size() + threads - 1) / threads;
+            for (int i = 0; i < entries.size(); i += chunk)
+            {
+                final int from = i;
+                final int to = Math.min(i + chunk, entries.size());
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        parseManifests(entries, from, to);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException ex)
+                {
+                    if (ex.getCause() instanceof Exception)
+                    {
+                        throw (Exception) ex.getCause();
+                    }
+                    throw ex;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void parseManifests(List<IndexEntry> entries, int from, int to) throws Exception
+    {
         byte[] bytes = new byte[1024 * 1024 * 2];
-        for (Enumeration<URL> e = loader.getResources(
-                "META-INF/MANIFEST.MF"); e.hasMoreElements(); )
+        for (int i = from; i < to; i++)
         {
-            URL manifestURL = e.nextElement();
+            IndexEntry entry = entries.get(i);
             InputStream input = null;
             try
             {
-                input = manifestURL.openStream();
+                input = entry.m_url.openStream();
                 int size = 0;
-                for (int i = input.read(bytes); i != -1; i = input.read(bytes, size, bytes.length - size))
+                for (int j = input.read(bytes); j != -1; j = input.read(bytes, size, bytes.length - size))
                 {
-                    size += i;
+                    size += j;
                     if (size == bytes.length)
                     {
                         byte[] tmp = new byte[size * 2];
@@ -78,103 +226,295 @@ public class ClasspathScanner
                         bytes = tmp;
                     }
                 }
+                entry.m_headers = parseManifest(bytes, size);
+            }
+            finally
+            {
+                if (input != null)
+                {
+                    input.close();
+                }
+            }
+        }
+    }
 
-                // Now parse the main attributes. The idea is to do that
-                // without creating new byte arrays. Therefore, we read through
-                // the manifest bytes inside the bytes array and write them back into
-                // the same array unless we don't need them (e.g., \r\n and \n are skipped).
-                // That allows us to create the strings from the bytes array without the skipped
-                // chars. We stopp as soon as we see a blankline as that denotes that the main
-                //attributes part is finished.
-                String key = null;
-                int last = 0;
-                int current = 0;
-
-                Map<String, String> headers = new HashMap<String, String>();
-                for (int i = 0; i < size; i++)
-                {
-                    // skip \r and \n if it is follows by another \n
-                    // (we catch the blank line case in the next iteration)
-                    if (bytes[i] == '\r')
-                    {
-                        if ((i + 1 < size) && (bytes[i + 1] == '\n'))
-                        {
-                            continue;
-                        }
-                    }
-                    if (bytes[i] == '\n')
-                    {
-                        if ((i + 1 < size) && (bytes[i + 1] == ' '))
-                        {
-                            i++;
-                            continue;
-                        }
-                    }
-                    // If we don't have a key yet and see the first : we parse it as the key
-                    // and skip the :<blank> that follows it.
-                    if ((key == null) && (bytes[i] == ':'))
-                    {
-                        key = new String(bytes, last, (current - last), "UTF-8");
-                        if ((i + 1 < size) && (bytes[i + 1] == ' '))
-                        {
-                            last = current + 1;
-                            continue;
-                        }
-                        else
-                        {
-                            throw new Exception(
-                                    "Manifest error: Missing space separator - " + key);
-                        }
-                    }
-                    // if we are at the end of a line
-                    if (bytes[i] == '\n')
-                    {
-                        // and it is a blank line stop parsing (main attributes are done)
-                        if ((last == current) && (key == null))
-                        {
-                            break;
-                        }
-                        // Otherwise, parse the value and add it to the map (we throw an
-                        // exception if we don't have a key or the key already exist.
-                        String value = new String(bytes, last, (current - last), "UTF-8");
-                        if (key == null)
-                        {
-                            throw new Exception("Manifst error: Missing attribute name - " + value);
-                        }
-                        else if (headers.put(key, value) != null)
-                        {
-                            throw new Exception("Manifst error: Duplicate attribute name - " + key);
-                        }
-                        last = current;
-                        key = null;
-                    }
-                    else
-                    {
-                        // write back the byte if it needs to be included in the key or the value.
-                        bytes[current++] = bytes[i];
-                    }
+    private static Map<String, String> parseManifest(byte[] bytes, int size) throws Exception
+    {
+        // Now parse the main attributes. The idea is to do that
+        // without creating new byte arrays. Therefore, we read through
+        // the manifest bytes inside the bytes array and write them back into
+        // the same array unless we don't need them (e.g., \r\n and \n are skipped).
+        // That allows us to create the strings from the bytes array without the skipped
+        // chars. We stopp as soon as we see a blankline as that denotes that the main
+        //attributes part is finished.
+        String key = null;
+        int last = 0;
+        int current = 0;
+
+        Map<String, String> headers = new HashMap<String, String>();
+        for (int i = 0; i < size; i++)
+        {
+            // skip \r and \n if it is follows by another \n
+            // (we catch the blank line case in the next iteration)
+            if (bytes[i] == '\r')
+            {
+                if ((i + 1 < size) && (bytes[i + 1] == '\n'))
+                {
+                    continue;
                 }
-                if ((filter == null)
-                        || filter.match(new MapToDictionary<String, String>(headers)))
+            }
+            if (bytes[i] == '\n')
+            {
+                if ((i + 1 < size) && (bytes[i + 1] == ' '))
                 {
-                    bundles.add(new BundleDescriptor(loader, getParentURL(manifestURL).toExternalForm(), headers));
+                    i++;
+                    continue;
                 }
             }
-            finally
+            // If we don't have a key yet and see the first : we parse it as the key
+            // and skip the :<blank> that follows it.
+            if ((key == null) && (bytes[i] == ':'))
             {
-                if (input != null)
+                key = new String(bytes, last, (current - last), "UTF-8");
+                if ((i + 1 < size) && (bytes[i + 1] == ' '))
                 {
-                    input.close();
+                    last = current + 1;
+                    continue;
+                }
+                else
+                {
+                    throw new Exception(
+                            "Manifest error: Missing space separator - " + key);
+                }
+            }
+            // if we are at the end of a line
+            if (bytes[i] == '\n')
+            {
+                // and it is a blank line stop parsing (main attributes are done)
+                if ((last == current) && (key == null))
+                {
+                    break;
                 }
+                // Otherwise, parse the value and add it to the map (we throw an
+                // exception if we don't have a key or the key already exist.
+                String value = new String(bytes, last, (current - last), "UTF-8");
+                if (key == null)
+                {
+                    throw new Exception("Manifst error: Missing attribute name - " + value);
+                }
+                else if (headers.put(key, value) != null)
+                {
+                    throw new Exception("Manifst error: Duplicate attribute name - " + key);
+                }
+                last = current;
+                key = null;
+            }
+            else
+            {
+                // write back the byte if it needs to be included in the key or the value.
+                bytes[current++] = bytes[i];
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * Returns the last modification time and size of the file a manifest
+     * is read from, or {@code null} if it can not be determined.
+     */
+    private static long[] getStamp(URL manifestURL)
+    {
+        try
+        {
+            File file = null;
+            if ("file".equals(manifestURL.getProtocol()))
+            {
+                file = new File(manifestURL.toURI());
+            }
+            else if ("jar".equals(manifestURL.getProtocol()))
+            {
+                String path = manifestURL.getPath();
+                int idx = path.indexOf("!/");
+                if ((idx > 0) && path.startsWith("file:"))
+                {
+                    file = new File(new URI(path.substring(0, idx)));
+                }
+            }
+            if ((file != null) && file.isFile())
+            {
+                return new long[] { file.lastModified(), file.length() };
+            }
+        }
+        catch (Exception ex)
+        {
+            // not a plain file, always read the manifest
+        }
+        return null;
+    }
+
+    private Map<String, IndexEntry> readIndex()
+    {
+        Map<String, IndexEntry> index = new HashMap<String, IndexEntry>();
+        if (!m_index.isFile())
+        {
+            return index;
+        }
+        // Every count and length read must fit in the file, anything else
+        // means the index is corrupted
+        long limit = m_index.length();
+        DataInputStream in = null;
+        try
+        {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(m_index)));
+            if (in.readInt() != INDEX_MAGIC)
+            {
+                return index;
+            }
+            for (int i = readLength(in, limit); i > 0; i--)
+            {
+                IndexEntry entry = new IndexEntry(new URL(readString(in, limit)), null);
+                entry.m_lastModified = in.readLong();
+                entry.m_size = in.readLong();
+                int nb = readLength(in, limit);
+                entry.m_headers = new HashMap<String, String>(nb * 2);
+                for (int j = 0; j < nb; j++)
+                {
+                    entry.m_headers.put(readString(in, limit), readString(in, limit));
+                }
+                index.put(entry.m_url.toExternalForm(), entry);
+            }
+            return index;
+        }
+        catch (IOException ex)
+        {
+            // unusable index, read all manifests
+            return new HashMap<String, IndexEntry>();
+        }
+        catch (RuntimeException ex)
+        {
+            // corrupted index, read all manifests
+            return new HashMap<String, IndexEntry>();
+        }
+        finally
+        {
+            close(in);
+        }
+    }
+
+    private void writeIndex(List<IndexEntry> entries)
+    {
+        File temp = new File(m_index.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try
+        {
+            File dir = m_index.getAbsoluteFile().getParentFile();
+            if ((dir != null) && !dir.isDirectory() && !dir.mkdirs())
+            {
+                return;
+            }
+            List<IndexEntry> stamped = new ArrayList<IndexEntry>(entries.size());
+            for (IndexEntry entry : entries)
+            {
+                if (entry.m_size >= 0)
+                {
+                    stamped.add(entry);
+                }
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(stamped.size());
+            for (IndexEntry entry : stamped)
+            {
+                writeString(out, entry.m_url.toExternalForm());
+                out.writeLong(entry.m_lastModified);
+                out.writeLong(entry.m_size);
+                out.writeInt(entry.m_headers.size());
+                for (Map.Entry<String, String> header : entry.m_headers.entrySet())
+                {
+                    writeString(out, header.getKey());
+                    writeString(out, header.getValue());
+                }
+            }
+            out.close();
+            out = null;
+            if (!temp.renameTo(m_index))
+            {
+                m_index.delete();
+                temp.renameTo(m_index);
+            }
+        }
+        catch (IOException ex)
+        {
+            // the index is only an optimization
+        }
+        finally
+        {
+            close(out);
+            temp.delete();
+        }
+    }
+
+    private static int readLength(DataInputStream in, long limit) throws IOException
+    {
+        int length = in.readInt();
+        if ((length < 0) || (length > limit))
+        {
+            throw new IOException("Invalid length in index: " + length);
+        }
+        return length;
+    }
+
+    private static String readString(DataInputStream in, long limit) throws IOException
+    {
+        byte[] bytes = new byte[readLength(in, limit)];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        byte[] bytes = value.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void close(Closeable closeable)
+    {
+        if (closeable != null)
+        {
+            try
+            {
+                closeable.close();
+            }
+            catch (IOException ex)
+            {
+                // ignore
             }
         }
-        return bundles;
     }
 
     private URL getParentURL(URL url) throws Exception
     {
         String externalForm = url.toExternalForm();
         return new URL(externalForm.substring(0, externalForm.length()
-                - "META-INF/MANIFEST.MF".length()));
+                - MANIFEST.length()));
+    }
+
+    private static class IndexEntry
+    {
+        final URL m_url;
+        long m_lastModified = -1;
+        long m_size = -1;
+        Map<String, String> m_headers;
+
+        IndexEntry(URL url, long[] stamp)
+        {
+            m_url = url;
+            if (stamp != null)
+            {
+                m_lastModified = stamp[0];
+                m_size = stamp[1];
+            }
+        }
     }
 }
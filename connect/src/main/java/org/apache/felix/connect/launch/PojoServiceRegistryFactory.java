@@ -28,5 +28,15 @@ public interface PojoServiceRegistryFactory
     public static final String BUNDLES_AUTOSTART =
             PojoServiceRegistry.class.getName().toLowerCase() + ".bundles.autostart";
 
+    /**
+     * The number of threads used to start the bundles given by
+     * {@link #BUNDLE_DESCRIPTORS}, as an {@code Integer} or a string. By
+     * default bundles are started one after the other, in the order of the
+     * descriptors. With more threads bundles are started concurrently, so
+     * bundles must not depend on the start order.
+     */
+    public static final String BUNDLES_START_THREADS =
+            PojoServiceRegistry.class.getName().toLowerCase() + ".bundles.start.threads";
+
     public PojoServiceRegistry newPojoServiceRegistry(Map<String, Object> configuration) throws Exception;
 }
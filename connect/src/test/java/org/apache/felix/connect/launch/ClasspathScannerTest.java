@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.connect.launch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ClasspathScannerTest
+{
+    @Rule
+    public TemporaryFolder m_folder = new TemporaryFolder();
+
+    private ClassLoader m_loader;
+    private File m_index;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        URL[] urls = new URL[] {
+                createBundle("bundle.a"),
+                createBundle("bundle.b"),
+                createBundle("bundle.c") };
+        m_loader = new URLClassLoader(urls, null);
+        m_index = new File(m_folder.getRoot(), "index");
+    }
+
+    @Test
+    public void testIndex() throws Exception
+    {
+        assertBundles(new ClasspathScanner(m_index, 1).scanForBundles(m_loader));
+        assertTrue(m_index.isFile());
+        assertBundles(new ClasspathScanner(m_index, 1).scanForBundles(m_loader));
+    }
+
+    @Test
+    public void testTruncatedIndex() throws Exception
+    {
+        new ClasspathScanner(m_index, 1).scanForBundles(m_loader);
+        for (long length = m_index.length() - 1; length > 0; length -= 7)
+        {
+            truncate(length);
+            assertBundles(new ClasspathScanner(m_index, 1).scanForBundles(m_loader));
+        }
+    }
+
+    @Test
+    public void testCorruptedLengths() throws Exception
+    {
+        // Entry count, then the length of the first url
+        for (int offset : new int[] { 4, 8 })
+        {
+            for (int length : new int[] { -1, Integer.MAX_VALUE })
+            {
+                new ClasspathScanner(m_index, 1).scanForBundles(m_loader);
+                RandomAccessFile file = new RandomAccessFile(m_index, "rw");
+                try
+                {
+                    file.seek(offset);
+                    file.writeInt(length);
+                }
+                finally
+                {
+                    file.close();
+                }
+                assertBundles(new ClasspathScanner(m_index, 1).scanForBundles(m_loader));
+            }
+        }
+    }
+
+    private void assertBundles(List<BundleDescriptor> bundles)
+    {
+        assertEquals(3, bundles.size());
+        assertEquals("bundle.a", bundles.get(0).getHeaders().get("Bundle-SymbolicName"));
+        assertEquals("bundle.b", bundles.get(1).getHeaders().get("Bundle-SymbolicName"));
+        assertEquals("bundle.c", bundles.get(2).getHeaders().get("Bundle-SymbolicName"));
+    }
+
+    private void truncate(long length) throws IOException
+    {
+        RandomAccessFile file = new RandomAccessFile(m_index, "rw");
+        try
+        {
+            file.setLength(length);
+        }
+        finally
+        {
+            file.close();
+        }
+    }
+
+    private URL createBundle(String symbolicName) throws IOException
+    {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Bundle-SymbolicName", symbolicName);
+        File file = m_folder.newFile(symbolicName + ".jar");
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest);
+        out.close();
+        return file.toURI().toURL();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.osgi.util.converter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The reflective information the converter needs about a class, computed
+ * once per class instead of on every conversion.
+ * <p>
+ * Plans are held in a {@link ClassValue}, so they are stored with the class
+ * itself and become unreachable together with the class and its class
+ * loader, for example when a bundle is updated or uninstalled. Each part of
+ * a plan is computed lazily; concurrent computation of the same part is
+ * harmless as the results are equal.
+ *
+ * @author $Id$
+ */
+final class ConversionPlan {
+	private static final ClassValue<ConversionPlan> PLANS = new ClassValue<ConversionPlan>() {
+		@Override
+		protected ConversionPlan computeValue(Class< ? > type) {
+			return new ConversionPlan(type);
+		}
+	};
+
+	private final Class< ? >									cls;
+
+	private volatile Boolean									dtoType;
+	private volatile Boolean									lenientDTOType;
+	private volatile Boolean									markerAnnotation;
+	private volatile String										prefix;
+	private volatile Method[]									methods;
+	private volatile DTOFields									dtoFields;
+	private volatile List<Map.Entry<String,Field>>				dtoKeys;
+	private volatile List<Map.Entry<String,Method>>				beanKeys;
+	private volatile Set<Class< ? >>							interfaces;
+	private volatile Set<Method>								setters;
+	private volatile Constructor< ? >							proxyConstructor;
+
+	private ConversionPlan(Class< ? > cls) {
+		this.cls = cls;
+	}
+
+	static ConversionPlan forClass(Class< ? > cls) {
+		return PLANS.get(cls);
+	}
+
+	boolean isDTOType(boolean ignorePublicNoArgsCtor) {
+		if (ignorePublicNoArgsCtor) {
+			Boolean b = lenientDTOType;
+			if (b == null)
+				lenientDTOType = b = Boolean.valueOf(
+						DTOUtil.computeDTOType(cls, true));
+			return b.booleanValue();
+		}
+
+		Boolean b = dtoType;
+		if (b == null)
+			dtoType = b = Boolean.valueOf(DTOUtil.computeDTOType(cls, false));
+		return b.booleanValue();
+	}
+
+	boolean isMarkerAnnotation() {
+		Boolean b = markerAnnotation;
+		if (b == null)
+			markerAnnotation = b = Boolean
+					.valueOf(ConvertingImpl.computeMarkerAnnotation(cls));
+		return b.booleanValue();
+	}
+
+	String getPrefix() {
+		String p = prefix;
+		if (p == null)
+			prefix = p = Util.computePrefix(cls);
+		return p;
+	}
+
+	/**
+	 * The public methods of the class. The returned array is shared and must
+	 * not be modified.
+	 */
+	Method[] getMethods() {
+		Method[] m = methods;
+		if (m == null)
+			methods = m = cls.getMethods();
+		return m;
+	}
+
+	/**
+	 * The name of the field a key maps to when converting to this DTO class,
+	 * or {@code null} if the key does not have the prefix of the class.
+	 */
+	String getFieldName(String key) {
+		String p = getPrefix();
+		if (!key.startsWith(p))
+			return null;
+
+		key = key.substring(p.length());
+		String name = getDTOFields().namesByKey.get(key);
+		if (name != null)
+			return name;
+		return Util.mangleKey(key);
+	}
+
+	/**
+	 * The public instance field with the given name, or {@code null} if the
+	 * name is not one of the DTO field names.
+	 */
+	Field getField(String name) {
+		return getDTOFields().fieldsByName.get(name);
+	}
+
+	/**
+	 * The keys and fields used to create a map from a DTO, in the order of
+	 * {@link Class#getFields()}. A key may occur more than once.
+	 */
+	List<Map.Entry<String,Field>> getDTOKeys() {
+		List<Map.Entry<String,Field>> keys = dtoKeys;
+		if (keys == null) {
+			keys = new ArrayList<>();
+			for (Field f : cls.getFields()) {
+				String key = Util.getDTOKey(f);
+				if (key != null)
+					keys.add(new SimpleImmutableEntry<>(key, f));
+			}
+			dtoKeys = keys = Collections.unmodifiableList(keys);
+		}
+		return keys;
+	}
+
+	/**
+	 * The keys and accessor methods used to create a map from a JavaBean, in
+	 * the order of {@link Class#getMethods()}. A key may occur more than once.
+	 */
+	List<Map.Entry<String,Method>> getBeanKeys() {
+		List<Map.Entry<String,Method>> keys = beanKeys;
+		if (keys == null) {
+			keys = new ArrayList<>();
+			for (Method md : getMethods()) {
+				String key = Util.getBeanKey(md);
+				if (key != null)
+					keys.add(new SimpleImmutableEntry<>(key, md));
+			}
+			beanKeys = keys = Collections.unmodifiableList(keys);
+		}
+		return keys;
+	}
+
+	Set<Class< ? >> getInterfaces() {
+		Set<Class< ? >> i = interfaces;
+		if (i == null)
+			interfaces = i = Collections
+					.unmodifiableSet(ConvertingImpl.computeInterfaces(cls));
+		return i;
+	}
+
+	Set<Method> getSetters() {
+		Set<Method> s = setters;
+		if (s == null)
+			setters = s = Collections
+					.unmodifiableSet(ConvertingImpl.computeSetters(cls));
+		return s;
+	}
+
+	/**
+	 * Create a dynamic proxy implementing this interface. The proxy class
+	 * constructor is looked up once.
+	 */
+	Object newProxyInstance(InvocationHandler handler) {
+		try {
+			Constructor< ? > ctor = proxyConstructor;
+			if (ctor == null) {
+				Class< ? > proxyClass = Proxy.getProxyClass(cls.getClassLoader(), cls);
+				proxyConstructor = ctor = proxyClass
+						.getConstructor(InvocationHandler.class);
+			}
+			return ctor.newInstance(handler);
+		} catch (Exception e) {
+			throw new ConversionException("Cannot create proxy for " + cls, e);
+		}
+	}
+
+	private DTOFields getDTOFields() {
+		DTOFields f = dtoFields;
+		if (f == null)
+			dtoFields = f = new DTOFields(cls);
+		return f;
+	}
+
+	private static class DTOFields {
+		final Map<String,String>	namesByKey		= new HashMap<>();
+		final Map<String,Field>		fieldsByName	= new HashMap<>();
+
+		DTOFields(Class< ? > cls) {
+			for (Field field : cls.getFields()) {
+				if (Modifier.isStatic(field.getModifiers()))
+					continue;
+
+				String name = field.getName();
+				if (fieldsByName.containsKey(name))
+					continue;
+
+				try {
+					// the most specific field with this name
+					fieldsByName.put(name, cls.getField(name));
+				} catch (NoSuchFieldException e) {
+					// cannot happen, it was returned by getFields()
+				}
+
+				String key = Util.unMangleName(name);
+				if (!namesByKey.containsKey(key))
+					namesByKey.put(key, name);
+			}
+		}
+	}
+}
@@ -28,7 +28,6 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
@@ -394,42 +393,43 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		Map m = mapView(object, sourceCls, c);
 
 		try {
-			String prefix = Util.getPrefix(targetAsCls);
+			ConversionPlan plan = ConversionPlan.forClass(targetAsCls);
 
 			T dto = (T) targetClass.newInstance();
 
-			List<String> names = getNames(targetAsClass);
 			for (Map.Entry entry : (Set<Map.Entry>) m.entrySet()) {
 				Object key = entry.getKey();
 				if (key == null)
 					continue;
 
-				String fieldName = Util.mangleName(prefix, key.toString(), names);
+				String fieldName = plan.getFieldName(key.toString());
 				if (fieldName == null)
 					continue;
 
-				Field f = null;
-				try {
-					f = targetAsCls.getField(fieldName);
-				} catch (NoSuchFieldException e) {
-					// There is no field with this name
-					if (keysIgnoreCase) {
-						// If enabled, try again but now ignore case
-						for (Field fs : targetAsCls.getFields()) {
-							if (fs.getName().equalsIgnoreCase(fieldName)) {
-								f = fs;
-								break;
-							}
-						}
-
-						if (f == null) {
+				Field f = plan.getField(fieldName);
+				if (f == null) {
+					try {
+						f = targetAsCls.getField(fieldName);
+					} catch (NoSuchFieldException e) {
+						// There is no field with this name
+						if (keysIgnoreCase) {
+							// If enabled, try again but now ignore case
 							for (Field fs : targetAsCls.getFields()) {
-								if (fs.getName()
-										.equalsIgnoreCase(fieldName)) {
+								if (fs.getName().equalsIgnoreCase(fieldName)) {
 									f = fs;
 									break;
 								}
 							}
+
+							if (f == null) {
+								for (Field fs : targetAsCls.getFields()) {
+									if (fs.getName()
+											.equalsIgnoreCase(fieldName)) {
+										f = fs;
+										break;
+									}
+								}
+							}
 						}
 					}
 				}
@@ -542,21 +542,6 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 		return typeToReify;
 	}
 
-	private List<String> getNames(Class< ? > cls) {
-		List<String> names = new ArrayList<>();
-		for (Field field : cls.getFields()) {
-			int modifiers = field.getModifiers();
-			if (Modifier.isStatic(modifiers))
-				continue;
-
-			String name = field.getName();
-			if (!names.contains(name))
-				names.add(name);
-
-		}
-		return names;
-	}
-
 	@SuppressWarnings({
 			"rawtypes", "unchecked"
 	})
@@ -761,9 +746,7 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	}
 
 	private Object createProxy(final Class< ? > cls, final Map< ? , ? > data, final InternalConverter c) {
-		return Proxy.newProxyInstance(cls.getClassLoader(), new Class[] {
-				cls
-		}, new InvocationHandler() {
+		return ConversionPlan.forClass(cls).newProxyInstance(new InvocationHandler() {
 			@SuppressWarnings("boxing")
 			@Override
 			public Object invoke(Object proxy, Method method, Object[] args)
@@ -986,7 +969,11 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	}
 
 	private static boolean isMarkerAnnotation(Class< ? > annClass) {
-		for (Method m : annClass.getMethods()) {
+		return ConversionPlan.forClass(annClass).isMarkerAnnotation();
+	}
+
+	static boolean computeMarkerAnnotation(Class< ? > annClass) {
+		for (Method m : ConversionPlan.forClass(annClass).getMethods()) {
 			if (m.getDeclaringClass() != annClass) {
 				// this is a base annotation or object method
 				continue;
@@ -1060,8 +1047,11 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 		Map result = new HashMap();
 		// Bean accessors must be public
-		for (Method md : sourceCls.getMethods()) {
-			handleBeanMethod(obj, md, invokedMethods, result);
+		for (Map.Entry<String,Method> accessor : ConversionPlan
+				.forClass(sourceCls)
+				.getBeanKeys()) {
+			handleBeanMethod(obj, accessor.getValue(), accessor.getKey(),
+					invokedMethods, result);
 		}
 
 		return result;
@@ -1073,8 +1063,11 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 		Map result = new HashMap();
 		// We only use public fields for mapping a DTO
-		for (Field f : obj.getClass().getFields()) {
-			handleDTOField(obj, f, handledFields, result, ic);
+		for (Map.Entry<String,Field> field : ConversionPlan
+				.forClass(obj.getClass())
+				.getDTOKeys()) {
+			handleDTOField(obj, field.getValue(), field.getKey(),
+					handledFields, result, ic);
 		}
 		return result;
 	}
@@ -1090,7 +1083,7 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 			return result;
 		} else {
 			for (Class i : getInterfaces(srcCls)) {
-				for (Method md : i.getMethods()) {
+				for (Method md : ConversionPlan.forClass(i).getMethods()) {
 					handleInterfaceMethod(obj, i, md, new HashSet<String>(),
 							result);
 				}
@@ -1149,13 +1142,21 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 
 	// Returns an ordered set
 	private static Set<Class< ? >> getInterfaces(Class< ? > cls) {
+		if (cls == null)
+			return Collections.emptySet();
+
+		return ConversionPlan.forClass(cls).getInterfaces();
+	}
+
+	// Returns an ordered set
+	static Set<Class< ? >> computeInterfaces(Class< ? > cls) {
 		if (NO_MAP_VIEW_TYPES.contains(cls))
 			return Collections.emptySet();
 
 		Set<Class< ? >> interfaces = getInterfaces0(cls);
 		outer: for (Iterator<Class< ? >> it = interfaces.iterator(); it.hasNext();) {
 			Class< ? > intf = it.next();
-			Method[] methods=intf.getMethods();
+			Method[] methods = ConversionPlan.forClass(intf).getMethods();
 			for (Method method : methods) {
 				if(method.getDeclaringClass() == intf) {
 					continue outer;
@@ -1193,12 +1194,8 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	@SuppressWarnings({
 			"rawtypes", "unchecked"
 	})
-	private void handleDTOField(Object obj, Field field,
+	private void handleDTOField(Object obj, Field field, String fn,
 			Set<String> handledFields, Map result, InternalConverter ic) {
-		String fn = Util.getDTOKey(field);
-		if (fn == null)
-			return;
-
 		if (handledFields.contains(fn))
 			return; // Field with this name was already handled
 
@@ -1214,12 +1211,8 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	@SuppressWarnings({
 			"rawtypes", "unchecked"
 	})
-	private static void handleBeanMethod(Object obj, Method md,
+	private static void handleBeanMethod(Object obj, Method md, String bp,
 			Set<String> invokedMethods, Map res) {
-		String bp = Util.getBeanKey(md);
-		if (bp == null)
-			return;
-
 		if (invokedMethods.contains(bp))
 			return; // method with this name already invoked
 
@@ -1319,11 +1312,15 @@ class ConvertingImpl extends AbstractSpecifying<Converting>
 	}
 
 	private static Set<Method> getSetters(Class< ? > cls) {
+		return ConversionPlan.forClass(cls).getSetters();
+	}
+
+	static Set<Method> computeSetters(Class< ? > cls) {
 		Set<Method> setters = new HashSet<>();
 		while (!Object.class.equals(cls)) {
 			Set<Method> methods = new HashSet<>();
 			// Only public methods can be Java Bean setters
-			methods.addAll(Arrays.asList(cls.getMethods()));
+			methods.addAll(Arrays.asList(ConversionPlan.forClass(cls).getMethods()));
 			for (Method md : methods) {
 				if (md.getParameterTypes().length != 1)
 					continue; // Only setters with a single argument
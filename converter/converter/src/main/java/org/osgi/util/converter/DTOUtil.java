@@ -29,6 +29,10 @@ class DTOUtil {
 	}
 
 	static boolean isDTOType(Class< ? > cls, boolean ignorePublicNoArgsCtor) {
+		return ConversionPlan.forClass(cls).isDTOType(ignorePublicNoArgsCtor);
+	}
+
+	static boolean computeDTOType(Class< ? > cls, boolean ignorePublicNoArgsCtor) {
 		if(!ignorePublicNoArgsCtor) {
 			try {
 				cls.getConstructor();
@@ -38,7 +42,7 @@ class DTOUtil {
 			}
 		}
 
-		for (Method m : cls.getMethods()) {
+		for (Method m : ConversionPlan.forClass(cls).getMethods()) {
 			try {
 				Object.class.getMethod(m.getName(), m.getParameterTypes());
 			} catch (NoSuchMethodException snme) {
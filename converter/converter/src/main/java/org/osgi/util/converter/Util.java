@@ -82,7 +82,7 @@ class Util {
 	static Map<String,Method> getBeanKeys(Class< ? > beanClass) {
 		Map<String,Method> keys = new LinkedHashMap<>();
 		// Bean methods must be public and can be on parent classes
-		for (Method md : beanClass.getMethods()) {
+		for (Method md : ConversionPlan.forClass(beanClass).getMethods()) {
 			String key = getBeanKey(md);
 			if (key != null && !keys.containsKey(key)) {
 				keys.put(key, md);
@@ -162,7 +162,7 @@ class Util {
 		Map<String,Set<Method>> keys = new LinkedHashMap<>();
 
 		String seank = getSingleElementAnnotationKey(intf, object);
-		for (Method md : intf.getMethods()) {
+		for (Method md : ConversionPlan.forClass(intf).getMethods()) {
 			String name = getInterfacePropertyName(md, seank, object);
 			if (name != null) {
 				Set<Method> set = keys.get(name);
@@ -204,7 +204,7 @@ class Util {
 
 		boolean valueFound = false;
 		// All annotation methods must be public
-		for (Method md : ann.getMethods()) {
+		for (Method md : ConversionPlan.forClass(ann).getMethods()) {
 			if(md.getDeclaringClass() != ann) {
 				// Ignore Object methods and Annotation methods
 				continue;
@@ -301,7 +301,7 @@ class Util {
 	}
 
 	private static boolean isInheritedMethodInProxy(Method md, Class< ? > cls) {
-		for (Method om : cls.getMethods()) {
+		for (Method om : ConversionPlan.forClass(cls).getMethods()) {
 			if (om.getName().equals(md.getName()) && Arrays
 					.equals(om.getParameterTypes(), md.getParameterTypes())) {
 				return true;
@@ -323,6 +323,10 @@ class Util {
 	}
 
 	static String getPrefix(Class< ? > cls) {
+		return ConversionPlan.forClass(cls).getPrefix();
+	}
+
+	static String computePrefix(Class< ? > cls) {
 		try {
 			// We can use getField as the PREFIX must be public (see spec erratum)
 			Field prefixField = cls.getField("PREFIX_");
@@ -370,6 +374,10 @@ class Util {
 		}
 
 		// Fallback if not found in the list - TODO maybe this can be removed.
+		return mangleKey(key);
+	}
+
+	static String mangleKey(String key) {
 		String res = key.replace("_", "__");
 		res = res.replace("$", "$$");
 		res = res.replace("-", "$_$");
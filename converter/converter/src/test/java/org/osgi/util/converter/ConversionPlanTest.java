@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.osgi.util.converter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ConversionPlanTest {
+    @Test
+    public void testPlanIsCachedPerClass() {
+        ConversionPlan plan = ConversionPlan.forClass(PrefixDTO.class);
+        assertSame(plan, ConversionPlan.forClass(PrefixDTO.class));
+        assertSame(plan.getMethods(), plan.getMethods());
+        assertSame(plan.getDTOKeys(), plan.getDTOKeys());
+    }
+
+    @Test
+    public void testPrefixedFieldNames() throws Exception {
+        ConversionPlan plan = ConversionPlan.forClass(PrefixDTO.class);
+        assertEquals("org.foo.bar.", plan.getPrefix());
+        assertEquals("width", plan.getFieldName("org.foo.bar.width"));
+        assertNull(plan.getFieldName("width"));
+        assertEquals(PrefixDTO.class.getField("length"), plan.getField("length"));
+        assertNull(plan.getField("PREFIX_"));
+        assertEquals(2, plan.getDTOKeys().size());
+    }
+
+    @Test
+    public void testDTOType() {
+        assertTrue(ConversionPlan.forClass(PrefixDTO.class).isDTOType(false));
+        assertFalse(ConversionPlan.forClass(String.class).isDTOType(true));
+        assertFalse(ConversionPlan.forClass(MyDTOWithMethods.class).isDTOType(false));
+    }
+
+    @Test
+    public void testRepeatedDTOConversion() {
+        Converter c = Converters.standardConverter();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> m = new HashMap<>();
+            m.put("org.foo.bar.width", i);
+            m.put("org.foo.bar.length", "" + i);
+            m.put("unknown", "x");
+            PrefixDTO dto = c.convert(m).to(PrefixDTO.class);
+            assertEquals(i, dto.width);
+            assertEquals(i, dto.length);
+
+            Map<String, Object> m2 = c.convert(dto).sourceAsDTO().to(new TypeReference<Map<String, Object>>() {});
+            assertEquals(2, m2.size());
+            assertEquals((long) i, m2.get("org.foo.bar.width"));
+        }
+    }
+}
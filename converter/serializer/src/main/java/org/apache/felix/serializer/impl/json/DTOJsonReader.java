@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.serializer.impl.json;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.felix.utils.json.JSONTokenizer;
+import org.apache.felix.utils.json.JSONTokenizer.Event;
+import org.osgi.util.converter.ConversionException;
+import org.osgi.util.converter.Converter;
+
+/**
+ * Binds JSON directly from a {@link JSONTokenizer} into DTOs, without
+ * parsing the document into a map first.
+ * <p>
+ * DTOs and lists are populated while reading; every other value is read
+ * into the generic JSON model and handed to the converter, which is also
+ * what the converter would do with the corresponding map entry.
+ */
+class DTOJsonReader {
+    private final Converter converter;
+
+    DTOJsonReader(Converter c) {
+        converter = c;
+    }
+
+    Object read(JSONTokenizer tokenizer, Type type) throws IOException {
+        Object result = read(tokenizer, tokenizer.next(), type);
+        tokenizer.requireEnd();
+        return result;
+    }
+
+    private Object read(JSONTokenizer tokenizer, Event event, Type type) throws IOException {
+        if (event == Event.START_OBJECT && type instanceof Class) {
+            DTOMetadata metadata = DTOMetadata.forClass((Class<?>) type);
+            if (metadata.isReadable())
+                return readDTO(tokenizer, metadata, (Class<?>) type);
+        } else if (event == Event.START_ARRAY && type instanceof ParameterizedType) {
+            ParameterizedType pt = (ParameterizedType) type;
+            Type raw = pt.getRawType();
+            if (raw == List.class || raw == Collection.class || raw == ArrayList.class) {
+                Type elementType = pt.getActualTypeArguments()[0];
+                List<Object> list = new ArrayList<>();
+                Event e;
+                while ((e = tokenizer.next()) != Event.END_ARRAY) {
+                    list.add(read(tokenizer, e, elementType));
+                }
+                return list;
+            }
+        }
+        return converter.convert(tokenizer.readValue(event)).to(type);
+    }
+
+    private Object readDTO(JSONTokenizer tokenizer, DTOMetadata metadata, Class<?> cls) throws IOException {
+        try {
+            Object dto = metadata.newInstance();
+            while (tokenizer.next() != Event.END_OBJECT) {
+                Field f = metadata.getField(tokenizer.getString());
+                Event e = tokenizer.next();
+                if (f == null) {
+                    tokenizer.skipValue(e);
+                    continue;
+                }
+                f.set(dto, read(tokenizer, e, f.getGenericType()));
+            }
+            return dto;
+        } catch (ReflectiveOperationException | ConversionException e) {
+            throw new ConversionException("Cannot create DTO " + cls, e);
+        }
+    }
+}
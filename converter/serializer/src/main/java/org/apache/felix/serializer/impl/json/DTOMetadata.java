@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.serializer.impl.json;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached reflective information about a DTO class, used to read and write
+ * DTOs directly instead of going through an intermediate map.
+ * <p>
+ * Only DTOs for which the direct path yields the same result as the
+ * converter are supported: field names must map one to one to keys, so
+ * classes with a {@code PREFIX_} field or field names that the converter
+ * mangles (containing {@code _} or {@code $}) are left to the converter.
+ */
+final class DTOMetadata {
+    private static final DTOMetadata NONE = new DTOMetadata(null, null);
+
+    private static final ClassValue<DTOMetadata> CACHE = new ClassValue<DTOMetadata>() {
+        @Override
+        protected DTOMetadata computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final Constructor<?> constructor;
+    private final List<Field> fields;
+    private final Map<String, Field> fieldsByName;
+
+    private DTOMetadata(Constructor<?> ctor, List<Field> fields) {
+        this.constructor = ctor;
+        this.fields = fields;
+        if (fields == null) {
+            fieldsByName = Collections.emptyMap();
+        } else {
+            fieldsByName = new HashMap<>();
+            for (Field f : fields) {
+                // final fields are written, but can not be set when reading
+                if (!Modifier.isFinal(f.getModifiers()))
+                    fieldsByName.put(f.getName(), f);
+            }
+        }
+    }
+
+    static DTOMetadata forClass(Class<?> cls) {
+        return CACHE.get(cls);
+    }
+
+    /**
+     * @return whether instances can be written field by field.
+     */
+    boolean isWritable() {
+        return fields != null;
+    }
+
+    /**
+     * @return whether instances can be created and populated field by field.
+     */
+    boolean isReadable() {
+        return constructor != null;
+    }
+
+    List<Field> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return the field to set for the key when reading, or {@code null} if
+     *         the key is unknown or the field is final.
+     */
+    Field getField(String key) {
+        return fieldsByName.get(key);
+    }
+
+    Object newInstance() throws ReflectiveOperationException {
+        return constructor.newInstance();
+    }
+
+    private static DTOMetadata create(Class<?> cls) {
+        if (cls.isInterface() || cls.isArray() || cls.isPrimitive() || cls.isEnum()
+                || Modifier.isAbstract(cls.getModifiers())) {
+            return NONE;
+        }
+        try {
+            cls.getField("PREFIX_");
+            return NONE;
+        } catch (NoSuchFieldException e) {
+            // no prefix, keys are the field names
+        }
+
+        List<Field> fields = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        boolean resolved = true;
+        for (Field f : cls.getFields()) {
+            if (Modifier.isStatic(f.getModifiers()))
+                continue;
+
+            String name = f.getName();
+            if (name.indexOf('_') >= 0 || name.indexOf('$') >= 0 || names.contains(name))
+                return NONE;
+
+            names.add(name);
+            fields.add(f);
+            resolved &= isResolved(f.getGenericType());
+        }
+        if (fields.isEmpty())
+            return NONE;
+
+        Constructor<?> ctor = null;
+        if (resolved && hasOnlyObjectMethods(cls)) {
+            try {
+                ctor = cls.getConstructor();
+            } catch (NoSuchMethodException e) {
+                // can be written, but not read
+            }
+        }
+        return new DTOMetadata(ctor, Collections.unmodifiableList(fields));
+    }
+
+    private static boolean hasOnlyObjectMethods(Class<?> cls) {
+        for (Method m : cls.getMethods()) {
+            try {
+                Object.class.getMethod(m.getName(), m.getParameterTypes());
+            } catch (NoSuchMethodException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isResolved(Type type) {
+        if (type instanceof Class) {
+            return true;
+        } else if (type instanceof ParameterizedType) {
+            for (Type arg : ((ParameterizedType) type).getActualTypeArguments()) {
+                if (!isResolved(arg))
+                    return false;
+            }
+            return true;
+        } else if (type instanceof GenericArrayType) {
+            return isResolved(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                if (!isResolved(bound))
+                    return false;
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -18,6 +18,8 @@ package org.apache.felix.serializer.impl.json;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -27,6 +29,7 @@ import java.util.Scanner;
 import org.apache.felix.serializer.Deserializing;
 import org.apache.felix.serializer.Parser;
 import org.apache.felix.serializer.impl.Util;
+import org.apache.felix.utils.json.JSONTokenizer;
 import org.osgi.util.converter.ConversionException;
 import org.osgi.util.converter.Converter;
 
@@ -34,16 +37,28 @@ public class JsonDeserializingImpl<T> implements Deserializing<T> {
     private final Type type;
     private volatile Converter converter;
     private volatile Parser parser;
+    private volatile boolean streaming;
 
     public JsonDeserializingImpl(Converter c, Parser p, Type t) {
         converter = c;
         parser = p;
         type = t;
+        // DTOs are bound directly from the token stream as long as the default parser and converter are used
+        streaming = p != null && p.getClass() == DefaultJsonParser.class && type instanceof Class
+                && DTOMetadata.forClass((Class<?>) type).isReadable();
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public T from(CharSequence in) {
+        if (streaming) {
+            try {
+                return (T) new DTOJsonReader(converter).read(new JSONTokenizer(in), type);
+            } catch (IOException e) {
+                throw new ConversionException("Error reading input", e);
+            }
+        }
+
         Map<?,?> m = parser.parse(in);
         if (type instanceof Class)
             if (m.getClass().isAssignableFrom((Class<?>) type))
@@ -59,6 +74,9 @@ public class JsonDeserializingImpl<T> implements Deserializing<T> {
 
     @Override
     public T from(InputStream in, Charset charset) {
+        if (streaming)
+            return from(new InputStreamReader(in, charset));
+
         try {
             byte[] bytes = Util.readStream(in);
             String s = new String(bytes, charset);
@@ -70,21 +88,36 @@ public class JsonDeserializingImpl<T> implements Deserializing<T> {
 
     @Override
     public T from(Readable in) {
+        if (streaming && in instanceof Reader)
+            return from((Reader) in);
+
         try (Scanner s = new Scanner(in)) {
             s.useDelimiter("\\Z");
             return from(s.next());
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private T from(Reader in) {
+        try (JSONTokenizer tokenizer = new JSONTokenizer(in)) {
+            return (T) new DTOJsonReader(converter).read(tokenizer, type);
+        } catch (IOException e) {
+            throw new ConversionException("Error reading input", e);
+        }
+    }
+
     @Override
     public Deserializing<T> convertWith(Converter c) {
         converter = c;
+        // custom rules may apply to the DTOs themselves
+        streaming = false;
         return this;
     }
 
     @Override
     public Deserializing<T> parseWith(Parser p) {
         parser = p;
+        streaming = false;
         return this;
     }
 }
@@ -16,8 +16,10 @@
  */
 package org.apache.felix.serializer.impl.json;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -42,7 +44,10 @@ public class JsonSerializingImpl extends AbstractSpecifying<Serializing> impleme
     @Override
     public Appendable to(Appendable out) {
         try {
-            out.append(writer.write(object));
+            if (writer instanceof DefaultJsonWriter)
+                ((DefaultJsonWriter) writer).write(object, out);
+            else
+                out.append(writer.write(object));
             return out;
         } catch (IOException e) {
             throw new ConversionException("Problem converting to JSON", e);
@@ -52,7 +57,14 @@ public class JsonSerializingImpl extends AbstractSpecifying<Serializing> impleme
     @Override
     public void to(OutputStream os, Charset charset) {
         try {
-            os.write(writer.write(object).getBytes(charset));
+            if (writer instanceof DefaultJsonWriter) {
+                // write through without building the whole document in memory, the stream is not closed
+                java.io.Writer w = new BufferedWriter(new OutputStreamWriter(os, charset));
+                ((DefaultJsonWriter) writer).write(object, w);
+                w.flush();
+            } else {
+                os.write(writer.write(object).getBytes(charset));
+            }
         } catch (IOException e) {
             throw new ConversionException("Problem converting to JSON", e);
         }
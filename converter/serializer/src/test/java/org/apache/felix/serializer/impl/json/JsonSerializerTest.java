@@ -16,7 +16,12 @@
  */
 package org.apache.felix.serializer.impl.json;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.felix.serializer.impl.json.MyDTO.Count;
@@ -26,6 +31,7 @@ import org.apache.sling.commons.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.osgi.dto.DTO;
 import org.osgi.util.converter.Converter;
 import org.osgi.util.converter.Converters;
 import org.osgi.util.converter.TypeReference;
@@ -133,6 +139,76 @@ public class JsonSerializerTest {
         assertEquals(327, embedded2.polo);
     }
 
+    @Test
+    public void testDTOStreaming() throws Exception {
+        MyListDTO dto = new MyListDTO();
+        dto.name = "list";
+        dto.items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MyEmbeddedDTO embedded = new MyEmbeddedDTO();
+            embedded.alpha = Alpha.C;
+            embedded.marco = "m" + i;
+            embedded.polo = i;
+            dto.items.add(embedded);
+        }
+
+        JsonSerializerImpl jsonCodec = new JsonSerializerImpl();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonCodec.serialize(dto).to(out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        // DTO fields are written in declaration order
+        assertEquals("{\"name\":\"list\",\"items\":[{\"alpha\":\"C\",\"marco\":\"m0\",\"polo\":0},"
+                + "{\"alpha\":\"C\",\"marco\":\"m1\",\"polo\":1},{\"alpha\":\"C\",\"marco\":\"m2\",\"polo\":2}]}",
+                json);
+
+        // unknown keys are ignored
+        String extended = json.substring(0, json.length() - 1) + ",\"unknown\":{\"x\":[1,{\"y\":2}]}}";
+        MyListDTO dto2 = jsonCodec.deserialize(MyListDTO.class).from(
+                new ByteArrayInputStream(extended.getBytes(StandardCharsets.UTF_8)));
+        assertEquals("list", dto2.name);
+        assertEquals(3, dto2.items.size());
+        for (int i = 0; i < 3; i++) {
+            MyEmbeddedDTO embedded = dto2.items.get(i);
+            assertEquals(Alpha.C, embedded.alpha);
+            assertEquals("m" + i, embedded.marco);
+            assertEquals(i, embedded.polo);
+        }
+    }
+
+    @Test
+    public void testDTOWithFinalField() throws Exception {
+        MyFinalDTO dto = new MyFinalDTO();
+        dto.name = "n";
+
+        JsonSerializerImpl jsonCodec = new JsonSerializerImpl();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        jsonCodec.serialize(dto).to(out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals("{\"id\":7,\"name\":\"n\"}", json);
+
+        // final fields are not set when reading
+        MyFinalDTO dto2 = jsonCodec.deserialize(MyFinalDTO.class).from(
+                new ByteArrayInputStream("{\"id\":8,\"name\":\"m\"}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("m", dto2.name);
+        assertEquals(7, dto2.id);
+    }
+
+    public static class MyFinalDTO extends DTO {
+        public final long id;
+
+        public String name;
+
+        public MyFinalDTO() {
+            id = 7;
+        }
+    }
+
+    public static class MyListDTO extends DTO {
+        public String name;
+
+        public List<MyEmbeddedDTO> items;
+    }
+
     static class Foo {
         private final String val;
 
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.benchmark.controller.impl;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Collects the benchmark measurements, and writes them in CSV format, so results of different runs 
+ * (or different DI frameworks) can be compared using any spreadsheet or diff tool.
+ * 
+ * Each line contains the tested bundle, the benchmark phase, the metric name and unit, the number
+ * of samples and the sorted samples at 0%, 25%, 50%, 75% and 100%.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class BenchmarkResults {
+    /**
+     * Header of the CSV file.
+     */
+    final static String HEADER = "bundle,phase,metric,unit,samples,min,p25,p50,p75,max";
+
+    /**
+     * Lines of the CSV file (without header).
+     */
+    private final List<String> m_lines = new ArrayList<>();
+
+    /**
+     * Returns the significant entries of sorted samples (first=fastest, middle=average, last=slowest).
+     */
+    static List<Long> percentiles(List<Long> sortedSamples) {
+        return Stream.of(0f, 24.99f, 49.99f, 74.99f, 99.99f)
+            .mapToInt(perc -> (int) (perc * sortedSamples.size() / 100))
+            .mapToObj(sortedSamples::get)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Records some sorted samples.
+     */
+    synchronized void add(String bundle, String phase, String metric, String unit, List<Long> sortedSamples) {
+        m_lines.add(Stream.concat(Stream.of(bundle, phase, metric, unit, sortedSamples.size()), percentiles(sortedSamples).stream())
+            .map(String::valueOf)
+            .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * Records a single value.
+     */
+    void add(String bundle, String phase, String metric, String unit, long value) {
+        List<Long> samples = new ArrayList<>();
+        samples.add(value);
+        add(bundle, phase, metric, unit, samples);
+    }
+
+    /**
+     * Writes all recorded results to a file.
+     */
+    synchronized void write(String file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println(HEADER);
+            m_lines.forEach(out::println);
+        }
+    }
+}
@@ -26,10 +26,14 @@ import static org.apache.felix.dm.benchmark.scenario.Artist.ARTISTS;
 import static org.apache.felix.dm.benchmark.scenario.Artist.TRACKS;
 import static org.apache.felix.dm.benchmark.scenario.Helper.debug;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -48,10 +52,24 @@ import org.apache.felix.dm.benchmark.scenario.Track;
 import org.apache.felix.dm.benchmark.scenario.Unchecked;
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
 /**
  * The controller which perform microbenchmarks on some scenario bundles.
  * 
+ * For each scenario bundle, the following is measured:
+ * <ul>
+ * <li>activation: time needed to start the bundle until all components are started.
+ * <li>deactivation: time needed to stop the bundle until all components are stopped.
+ * <li>churn: time needed to unbind all components when the ScenarioController service (which is required by all
+ * components) is unregistered, and time needed to rebind all components when the service is registered again.
+ * <li>rebinding throughput: number of components rebound per second, when the ScenarioController service comes back.
+ * <li>memory: the heap used per component, measured after a full GC.
+ * </ul>
+ * 
+ * Results are displayed, and if the {@link #RESULTS} system property is set, they are also written in CSV format
+ * to the file it designates (see {@link BenchmarkResults}).
+ * 
  * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
  */
 public class ScenarioControllerImpl implements Runnable, ScenarioController {
@@ -60,9 +78,21 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
      */
     final List<String> TESTS = Arrays.asList(
         "org.apache.felix.dependencymanager.benchmark.dependencymanager",
-        "org.apache.felix.dependencymanager.benchmark.dependencymanager.parallel"
+        "org.apache.felix.dependencymanager.benchmark.dependencymanager.parallel",
+        "org.apache.felix.dependencymanager.benchmark.scr",
+        "org.apache.felix.dependencymanager.benchmark.ipojo"
     );
     
+    /**
+     * System property giving the file where results are written in CSV format.
+     */
+    final static String RESULTS = "org.apache.felix.dependencymanager.benchmark.results";
+    
+    /**
+     * Number of components created by each scenario bundle.
+     */
+    final static int COMPONENTS = ARTISTS + (ARTISTS * (ALBUMS + (ALBUMS * TRACKS)));
+    
     /**
      * Our injected bundle context, used to lookup the bundles to benchmark.
      */
@@ -78,6 +108,16 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
      * attribute is true.
      */
     private volatile boolean m_doProcessingInStartStop;
+    
+    /**
+     * Registration of our ScenarioController service, unregistered and registered again when measuring churn.
+     */
+    private volatile ServiceRegistration<ScenarioController> m_registration;
+    
+    /**
+     * Collected measurements.
+     */
+    private final BenchmarkResults m_results = new BenchmarkResults();
         
     /**
      * Our component is starting: we'll first stop all bundles participating in the benchmark, then we'll 
@@ -96,7 +136,7 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
         // wait a bit in order to let the gogo banner be displayed before we start the bench.
         Unchecked.run(() -> Thread.sleep(500)); 
         
-        out.println("Starting benchmarks (each tested bundle will add/remove " + (ARTISTS + (ARTISTS * (ALBUMS + (ALBUMS * TRACKS)))) 
+        out.println("Starting benchmarks (each tested bundle will add/remove " + COMPONENTS 
            + " components during bundle activation).");
        
         // Stop all tested bundles.
@@ -106,17 +146,24 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
         }));
         
         // Register our controller service
-        m_bctx.registerService(ScenarioController.class.getName(), this, null);
+        m_registration = m_bctx.registerService(ScenarioController.class, this, null);
         
         // Start/stop several times the tested bundles. (no processing done in components start methods).
         m_doProcessingInStartStop = false;
         out.println("\n\t[Starting benchmarks with no processing done in components start methods]");
-        startStopScenarioBundles(TESTS, 50);
+        startStopScenarioBundles(TESTS, 50, "noprocessing");
        
         // Start/stop several times the tested bundles (processing is done in components start methods).
         m_doProcessingInStartStop = true;
         out.println("\n\t[Starting benchmarks with processing done in components start methods]");
-        startStopScenarioBundles(TESTS, 5);
+        startStopScenarioBundles(TESTS, 5, "processing");
+        
+        // Measure the memory used by the components of each tested bundle.
+        m_doProcessingInStartStop = false;
+        out.println("\n\t[Measuring memory footprint]");
+        measureMemory(TESTS);
+        
+        writeResults();
     }
 
     @Override
@@ -166,32 +213,113 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
             
     // ------------------- Private methods -----------------------------------------------------
         
-    private void startStopScenarioBundles(List<String> tests, int iterations) {
+    private void startStopScenarioBundles(List<String> tests, int iterations, String phase) {
         forEachScenarioBundle(tests, bundle -> {
-            out.print("\nBenchmarking bundle: " + bundle.getSymbolicName() + " ");            
+            String bsn = bundle.getSymbolicName();
+            out.print("\nBenchmarking bundle: " + bsn + " ");
+            List<Long> deactivations = new ArrayList<>();
             List<Long> sortedResults = LongStream.range(0, iterations)
                 .peek(i -> out.print("."))
                 .map(n -> durationOf(() -> start(bundle)))
-                .peek(n -> stop(bundle))
+                .peek(n -> deactivations.add(durationOf(() -> stop(bundle))))
                 .sorted().boxed().collect(toList());
             out.println();
-            displaySortedResults(sortedResults);
+            displaySortedResults("results in nanos", sortedResults);
+            m_results.add(bsn, phase, "activation", "ns", sortedResults);
+            
+            Collections.sort(deactivations);
+            displaySortedResults("deactivation in nanos", deactivations);
+            m_results.add(bsn, phase, "deactivation", "ns", deactivations);
+            
+            churn(bundle, iterations, phase);
             Unchecked.run(() -> Thread.sleep(500));
         });               
     }
+    
+    /**
+     * Starts the bundle, then unregisters and registers again our ScenarioController service several times.
+     * All components require the ScenarioController, so each framework has to unbind and rebind the whole
+     * graph of components.
+     */
+    private void churn(Bundle bundle, int iterations, String phase) {
+        String bsn = bundle.getSymbolicName();
+        List<Long> unbind = new ArrayList<>();
+        List<Long> rebind = new ArrayList<>();
+
+        start(bundle);
+        LongStream.range(0, iterations).forEach(i -> {
+            unbind.add(durationOf(this::unregisterController));
+            rebind.add(durationOf(this::registerController));
+        });
+        stop(bundle);
+        
+        Collections.sort(unbind);
+        Collections.sort(rebind);
+        displaySortedResults("churn unbind in nanos", unbind);
+        displaySortedResults("churn rebind in nanos", rebind);
+        m_results.add(bsn, phase, "churn.unbind", "ns", unbind);
+        m_results.add(bsn, phase, "churn.rebind", "ns", rebind);
+        
+        // the throughput is derived from the median rebinding time.
+        long median = BenchmarkResults.percentiles(rebind).get(2);
+        long throughput = median == 0 ? 0 : COMPONENTS * TimeUnit.SECONDS.toNanos(1) / median;
+        out.printf("-> rebinding throughput: %s components/sec%n", formatNano(throughput));
+        m_results.add(bsn, phase, "rebinding.throughput", "components/s", throughput);
+    }
+    
+    /**
+     * Measures the heap used by the components of each tested bundle.
+     * The heap is measured after a full GC, once with the bundle stopped, and once with the bundle started.
+     */
+    private void measureMemory(List<String> tests) {
+        forEachScenarioBundle(tests, bundle -> {
+            long before = usedHeap();
+            start(bundle);
+            long after = usedHeap();
+            stop(bundle);
+            long perComponent = Math.max(0, after - before) / COMPONENTS;
+            out.printf("%nBundle %s: -> memory per component: %s bytes%n", bundle.getSymbolicName(), formatNano(perComponent));
+            m_results.add(bundle.getSymbolicName(), "memory", "memory.per.component", "bytes", perComponent);
+        });
+    }
+    
+    /**
+     * Returns the used heap, after having requested a full GC.
+     */
+    private long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i ++) {
+            memory.gc();
+            Unchecked.run(() -> Thread.sleep(100));
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+    
+    /**
+     * Writes the results in CSV format, if the RESULTS system property is set.
+     */
+    private void writeResults() {
+        String file = m_bctx.getProperty(RESULTS);
+        if (file != null) {
+            try {
+                m_results.write(file);
+                out.println("\nResults written to " + file);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
     /**
      * Displays meaningful values in the sorted results (first=fastest, midle=average, last entry=slowest)
      * @param sortedResults
      */
-    private void displaySortedResults(List<Long> sortedResults) {
+    private void displaySortedResults(String title, List<Long> sortedResults) {
         // We don't display an average of the duration times; Instead, we sort the results,
         // and we display the significant results (the first entry is the fastest, the middle entry is the
         // average, the last entry is the slowest ...)
-        out.printf("-> results in nanos: [%s]%n",  
-            Stream.of(0f, 24.99f, 49.99f, 74.99f, 99.99f)
-                .mapToInt(perc -> (int) (perc * sortedResults.size() / 100))
-                .mapToObj(sortedResults::get)
+        out.printf("-> %s: [%s]%n", title,
+            BenchmarkResults.percentiles(sortedResults).stream()
                 .map(this::formatNano)
                 .collect(joining(" | ")));
     }
@@ -246,27 +374,32 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
      */
     void start(Bundle b) {
         try {
-            m_startLatch = new CountDownLatch(ARTISTS
-                + (ARTISTS * (ALBUMS + (ALBUMS * TRACKS))));
+            m_startLatch = new CountDownLatch(COMPONENTS);
             
             debug(() -> "starting bundle " + b.getSymbolicName());
             b.start();
-                                    
-            if (! m_startLatch.await(60, TimeUnit.SECONDS)) {
-                out.println("Could not start components timely: current start latch=" + m_startLatch.getCount() + ", stop latch=" + m_stopLatch.getCount());
-                Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE)); // FIXME
-            }
-            
-            // Make sure the threadpool is quiescent and has finished to register all components
-            if (! Helper.getThreadPool().awaitQuiescence(5, TimeUnit.SECONDS)) {
-                out.println("could not start components timely (thread pool is still active after 5 seconds)");
-                Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE)); // FIXME
-            }
+            awaitStarted();
         } catch (Throwable t) {
             t.printStackTrace();
         }
     }
     
+    /**
+     * Waits for all expected components to be fully started.
+     */
+    private void awaitStarted() throws InterruptedException {
+        if (! m_startLatch.await(60, TimeUnit.SECONDS)) {
+            out.println("Could not start components timely: current start latch=" + m_startLatch.getCount() + ", stop latch=" + m_stopLatch.getCount());
+            Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE)); // FIXME
+        }
+        
+        // Make sure the threadpool is quiescent and has finished to register all components
+        if (! Helper.getThreadPool().awaitQuiescence(5, TimeUnit.SECONDS)) {
+            out.println("could not start components timely (thread pool is still active after 5 seconds)");
+            Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE)); // FIXME
+        }
+    }
+    
     /**
      * This function stops the bundle and wait for all expected components to be fully stopped
      * 
@@ -274,23 +407,54 @@ public class ScenarioControllerImpl implements Runnable, ScenarioController {
      */
     void stop(Bundle b) {
         try {
-            m_stopLatch = new CountDownLatch(ARTISTS
-                + (ARTISTS * (ALBUMS + (ALBUMS * TRACKS))));
+            m_stopLatch = new CountDownLatch(COMPONENTS);
                         
             debug(() -> "stopping bundle " + b.getSymbolicName());
             b.stop();
-            
-            // Make sure the threadpool is quiescent and has finished to register all components
-            if (! Helper.getThreadPool().awaitQuiescence(5, TimeUnit.SECONDS)) {
-                out.println("could not start components timely (thread pool is still active after 5 seconds)");
-                Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE)); // FIXME
-            }
-            
-            // Wait for all component deactivations
-            if (! m_stopLatch.await(60, TimeUnit.SECONDS)) {
-                out.println("Could not stop components timely: current start latch=" + m_startLatch.getCount() + ", stop latch=" + m_stopLatch.getCount());
-                Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE));
-            }            
+            awaitStopped();
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+    }
+    
+    /**
+     * Waits for all expected components to be fully stopped.
+     */
+    private void awaitStopped() throws InterruptedException {
+        // Make sure the threadpool is quiescent and has finished to register all components
+        if (! Helper.getThreadPool().awaitQuiescence(5, TimeUnit.SECONDS)) {
+            out.println("could not start components timely (thread pool is still active after 5 seconds)");
+            Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE)); // FIXME
+        }
+        
+        // Wait for all component deactivations
+        if (! m_stopLatch.await(60, TimeUnit.SECONDS)) {
+            out.println("Could not stop components timely: current start latch=" + m_startLatch.getCount() + ", stop latch=" + m_stopLatch.getCount());
+            Unchecked.run(() -> Thread.sleep(Integer.MAX_VALUE));
+        }            
+    }
+    
+    /**
+     * Unregisters our ScenarioController service, and waits for all components to be stopped.
+     */
+    private void unregisterController() {
+        try {
+            m_stopLatch = new CountDownLatch(COMPONENTS);
+            m_registration.unregister();
+            awaitStopped();
+        } catch (Throwable t) {
+            t.printStackTrace();
+        }
+    }
+    
+    /**
+     * Registers our ScenarioController service, and waits for all components to be started.
+     */
+    private void registerController() {
+        try {
+            m_startLatch = new CountDownLatch(COMPONENTS);
+            m_registration = m_bctx.registerService(ScenarioController.class, this, null);
+            awaitStarted();
         } catch (Throwable t) {
             t.printStackTrace();
         }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.benchmark.ipojo;
+
+import static org.apache.felix.dm.benchmark.scenario.Artist.ALBUMS;
+import static org.apache.felix.dm.benchmark.scenario.Artist.ARTISTS;
+import static org.apache.felix.dm.benchmark.scenario.Artist.TRACKS;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+
+import org.apache.felix.dm.benchmark.scenario.Helper;
+import org.apache.felix.ipojo.ComponentInstance;
+import org.apache.felix.ipojo.Factory;
+
+/**
+ * Scenario based on iPOJO: we create many Artists, each one is depending on many Albums, 
+ * and each Album depends on many Tracks.
+ * 
+ * Instances are created from the iPOJO factories bottom-up (Tracks first), and each instance is bound 
+ * to its dependencies using the "id" service property, like in the Dependency Manager scenario.
+ * 
+ * This class is manipulated by iPOJO, so we don't use lambdas here.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class IpojoBenchmark {
+    /**
+     * Factories injected by iPOJO (see ipojo.xml).
+     */
+    private Factory m_artists, m_albums, m_tracks;
+
+    private final List<ComponentInstance> m_instances = new ArrayList<>();
+
+    void start() throws Exception {
+        for (int i = 0; i < ARTISTS; i ++) {
+            createArtist();
+        }
+    }
+
+    void stop() {
+        for (ComponentInstance instance : m_instances) {
+            instance.dispose();
+        }
+        m_instances.clear();
+    }
+
+    private String createArtist() throws Exception {
+        Hashtable<String, String> filters = new Hashtable<>();
+        for (int i = 0; i < ALBUMS; i ++) {
+            filters.put("album" + i, "(id=" + createAlbum() + ")");
+        }
+        return newInstance(m_artists, filters);
+    }
+
+    private String createAlbum() throws Exception {
+        Hashtable<String, String> filters = new Hashtable<>();
+        for (int i = 0; i < TRACKS; i ++) {
+            filters.put("track" + i, "(id=" + createTrack() + ")");
+        }
+        return newInstance(m_albums, filters);
+    }
+
+    private String createTrack() throws Exception {
+        return newInstance(m_tracks, null);
+    }
+
+    /**
+     * Creates a new component instance, and returns its id.
+     * @param factory the iPOJO factory
+     * @param filters the filters of the instance dependencies, by dependency id, or null
+     */
+    private String newInstance(Factory factory, Hashtable<String, String> filters) throws Exception {
+        String id = String.valueOf(Helper.generateId());
+        Hashtable<String, Object> conf = new Hashtable<>();
+        conf.put("id", id);
+        if (filters != null) {
+            conf.put("requires.filters", filters);
+        }
+        m_instances.add(factory.createComponentInstance(conf));
+        return id;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.benchmark.scr;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.felix.dm.benchmark.controller.ScenarioController;
+import org.apache.felix.dm.benchmark.scenario.Album;
+import org.apache.felix.dm.benchmark.scenario.Artist;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+
+/**
+ * One artist who depends on multiple Albums, declared as a Declarative Service factory component.
+ * The albums are selected using the "album.target" and "album.cardinality.minimum" instance properties.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+@Component(factory = ScrBenchmark.ARTIST)
+public class ScrArtist implements Artist {
+    final List<Album> m_albums = new ArrayList<>();
+    volatile ScenarioController m_controller;
+
+    @Reference
+    void bindController(ScenarioController controller) {
+        m_controller = controller;
+    }
+
+    @Reference(name = "album", cardinality = ReferenceCardinality.AT_LEAST_ONE)
+    void addAlbum(Album album) {
+        m_albums.add(album);
+    }
+
+    @Activate
+    void start() {
+        m_controller.artistAdded(this);
+    }
+
+    @Deactivate
+    void stop() {
+        m_controller.artistRemoved(this);
+    }
+
+    @Override
+    public List<Album> getAlbums() {
+        return m_albums;
+    }
+
+    @Override
+    public void play() {
+        for (Album album : m_albums) {
+            album.play();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.benchmark.scr;
+
+import static java.util.stream.Collectors.joining;
+import static org.apache.felix.dm.benchmark.scenario.Artist.ALBUMS;
+import static org.apache.felix.dm.benchmark.scenario.Artist.ARTISTS;
+import static org.apache.felix.dm.benchmark.scenario.Artist.TRACKS;
+
+import java.util.ArrayList;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.felix.dm.benchmark.scenario.Helper;
+import org.osgi.service.component.ComponentFactory;
+import org.osgi.service.component.ComponentInstance;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * Scenario based on Declarative Services: we create many Artists, each one is depending on many Albums, 
+ * and each Album depends on many Tracks.
+ * 
+ * Instances are created from the component factories bottom-up (Tracks first), and each instance is bound 
+ * to its dependencies using the "id" service property, like in the Dependency Manager scenario.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+@Component(immediate = true)
+public class ScrBenchmark {
+    final static String ARTIST = "org.apache.felix.dm.benchmark.scr.Artist";
+    final static String ALBUM = "org.apache.felix.dm.benchmark.scr.Album";
+    final static String TRACK = "org.apache.felix.dm.benchmark.scr.Track";
+
+    @Reference(target = "(component.factory=" + ARTIST + ")")
+    volatile ComponentFactory m_artists;
+
+    @Reference(target = "(component.factory=" + ALBUM + ")")
+    volatile ComponentFactory m_albums;
+
+    @Reference(target = "(component.factory=" + TRACK + ")")
+    volatile ComponentFactory m_tracks;
+
+    final List<ComponentInstance> m_instances = new ArrayList<>();
+
+    @Activate
+    void start() {
+        Helper.debug(() -> "ScrBenchmark.start");
+        IntStream.range(0, ARTISTS).forEach(i -> createArtist());
+    }
+
+    @Deactivate
+    void stop() {
+        // Instances may already have been disposed by SCR if their dependencies went away: dispose is then a no-op.
+        m_instances.forEach(ComponentInstance::dispose);
+        m_instances.clear();
+    }
+
+    private String createArtist() {
+        String albums = IntStream.range(0, ALBUMS).mapToObj(i -> createAlbum()).collect(joining());
+        return newInstance(m_artists, "album", "(|" + albums + ")", ALBUMS);
+    }
+
+    private String createAlbum() {
+        String tracks = IntStream.range(0, TRACKS).mapToObj(i -> createTrack()).collect(joining());
+        return "(id=" + newInstance(m_albums, "track", "(|" + tracks + ")", TRACKS) + ")";
+    }
+
+    private String createTrack() {
+        return "(id=" + newInstance(m_tracks, null, null, 0) + ")";
+    }
+
+    /**
+     * Creates a new component instance, and returns its id.
+     * @param factory the component factory
+     * @param reference the name of the reference to configure, or null
+     * @param target the target filter of the reference
+     * @param cardinality the minimum number of services the reference must be bound to
+     */
+    private String newInstance(ComponentFactory factory, String reference, String target, int cardinality) {
+        String id = String.valueOf(Helper.generateId());
+        Hashtable<String, Object> props = new Hashtable<>();
+        props.put("id", id);
+        if (reference != null) {
+            props.put(reference + ".target", target);
+            props.put(reference + ".cardinality.minimum", cardinality);
+        }
+        m_instances.add(factory.newInstance(props));
+        return id;
+    }
+}
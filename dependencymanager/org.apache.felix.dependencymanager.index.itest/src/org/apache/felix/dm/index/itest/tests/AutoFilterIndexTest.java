@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.index.itest.tests;
+
+import java.util.Hashtable;
+import java.util.function.Consumer;
+
+import org.apache.felix.dm.Component;
+import org.apache.felix.dm.DependencyManager;
+import org.apache.felix.dm.diagnostics.FilterIndexStatistics;
+import org.apache.felix.dm.diagnostics.FilterIndexStatistics.IndexStatistics;
+import org.junit.Assert;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+
+/**
+ * Validates that a multi property index is automatically created for a filter shape used by
+ * many service dependencies, when the "*auto*" index is configured.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class AutoFilterIndexTest extends TestBase {
+	
+	private final static String THRESHOLD = "org.apache.felix.dependencymanager.filterindex.auto.threshold";
+	
+	private final static int CLIENTS = 10;
+	
+	private String m_systemConf;
+
+    @SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+        // backup currently configured filter index
+        BundleContext context = FrameworkUtil.getBundle(this.getClass()).getBundleContext();
+        m_systemConf = context.getProperty(DependencyManager.SERVICEREGISTRY_CACHE_INDICES);
+    	
+    	// only use automatically created indices, and use the special DM backdoor in order to reinitialize filter indices
+        System.setProperty(THRESHOLD, "2");
+        Consumer<String> reset = (Consumer<String>) System.getProperties().get("org.apache.felix.dependencymanager.filterindex.reset");
+        reset.accept("*auto*");
+        
+        // now call super.setUp() method: the getDM() method will return a DependencyManager that will use the filter index.
+        super.setUp();    	
+    }
+    	
+    @SuppressWarnings("unchecked")
+	public void tearDown() throws Exception {
+        super.tearDown();
+        System.getProperties().remove(THRESHOLD);
+        Consumer<String> reset = (Consumer<String>) System.getProperties().get("org.apache.felix.dependencymanager.filterindex.reset");
+        reset.accept(m_systemConf);
+    }
+
+    public void testAutoIndex() throws Exception {
+        DependencyManager m = getDM();
+        // helper class that ensures certain steps get executed in sequence
+        Ensure e = new Ensure();
+        
+        for (int i = 0; i < CLIENTS; i ++) {
+            Hashtable<String, Object> props = new Hashtable<>();
+            props.put("id", String.valueOf(i));
+            Component p = m.createComponent()
+                .setInterface(Service.class.getName(), props)
+                .setImplementation(new Provider());
+            m.add(p);
+        }
+        
+        for (int i = 0; i < CLIENTS; i ++) {
+            Component c = m.createComponent()
+                .setImplementation(new Client(e))
+                .add(m.createServiceDependency()
+                    .setService(Service.class, "(id=" + i + ")")
+                    .setRequired(true));
+            m.add(c);
+        }
+        e.waitForStep(CLIENTS, 5000);
+        
+        FilterIndexStatistics statistics = FilterIndexStatistics.getStatistics();
+        Assert.assertNotNull(statistics);
+        Assert.assertEquals(2, statistics.getAutoIndexThreshold());
+        IndexStatistics auto = null;
+        for (IndexStatistics index : statistics.getIndices()) {
+        	if (index.isAuto() && index.getDescription().equals("id,objectclass")) {
+        		auto = index;
+        	}
+        }
+        Assert.assertNotNull(auto);
+        Assert.assertTrue(auto.getHits() > 0);
+        Assert.assertEquals(Long.valueOf(2), statistics.getShapeMisses().get("id,objectclass"));
+        
+        m.clear();
+        e.waitForStep(CLIENTS * 2, 5000);
+    }
+
+    public static class Client {
+        private final Ensure m_ensure;
+        
+        public Client(Ensure e) {
+            m_ensure = e;
+        }
+
+        public void start() {
+            m_ensure.step();
+        }
+        
+        public void stop() {
+            m_ensure.step();
+        }
+    }
+    
+    public static interface Service {
+    }
+    
+    public static class Provider implements Service {
+    }
+}
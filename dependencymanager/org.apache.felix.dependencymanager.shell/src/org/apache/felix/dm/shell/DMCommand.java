@@ -35,6 +35,9 @@ import org.apache.felix.dm.diagnostics.CircularDependency;
 import org.apache.felix.dm.diagnostics.DependencyGraph;
 import org.apache.felix.dm.diagnostics.DependencyGraph.ComponentState;
 import org.apache.felix.dm.diagnostics.DependencyGraph.DependencyState;
+import org.apache.felix.dm.diagnostics.ExecutorStatistics;
+import org.apache.felix.dm.diagnostics.FilterIndexStatistics;
+import org.apache.felix.dm.diagnostics.FilterIndexStatistics.IndexStatistics;
 import org.apache.felix.dm.diagnostics.MissingDependency;
 import org.apache.felix.service.command.CommandSession;
 import org.apache.felix.service.command.Descriptor;
@@ -126,6 +129,8 @@ public class DMCommand {
      *        set using the "dependencymanager.compact" gogo shell variable.
      * @param notavail only unregistered components / unavailable dependencies are displayed 
      * @param stats true means some statistics are displayed
+     * @param index true means the service registry cache filter indices usage is displayed
+     * @param executor true means the built-in component executor metrics are displayed
      * @param services an osgi filter used to filter on some given osgi service properties.  This parameter can also be 
      *        set using the "dependencymanager.services" gogo shell variable.
      * @param components a regular expression to match either component implementation class names.  This parameter can also be 
@@ -157,6 +162,14 @@ public class DMCommand {
             @Parameter(names = {"stats", "stat", "st"}, presentValue = "true", absentValue = "false") 
             boolean stats,
 
+            @Descriptor("Displays filter indices statistics (hits/misses)") 
+            @Parameter(names = {"index", "idx"}, presentValue = "true", absentValue = "false") 
+            boolean index,
+
+            @Descriptor("Displays built-in component executor metrics (queue depth, latency)") 
+            @Parameter(names = {"executor", "exec"}, presentValue = "true", absentValue = "false") 
+            boolean executor,
+
             @Descriptor("<OSGi filter used to filter some service properties>") 
             @Parameter(names = {"services", "s"}, absentValue = "") 
             String services,
@@ -223,6 +236,16 @@ public class DMCommand {
             return;
         }
         
+        if (index) {
+            showIndexStatistics();
+            return;
+        }
+        
+        if (executor) {
+            showExecutorStatistics();
+            return;
+        }
+        
         DependencyGraph graph = null;
         if(notavail) {
         	graph = DependencyGraph.getGraph(ComponentState.UNREGISTERED, DependencyState.ALL_UNAVAILABLE);
@@ -362,6 +385,56 @@ public class DMCommand {
         }
     }
 
+    /**
+     * Displays the number of service lookups served by each filter index of the service registry cache,
+     * and the lookups which could not be served by any index.
+     */
+    private void showIndexStatistics() {
+        FilterIndexStatistics statistics = FilterIndexStatistics.getStatistics();
+        if (statistics == null) {
+            System.out.println("Filter indices are not enabled (see \"" + DependencyManager.SERVICEREGISTRY_CACHE_INDICES + "\" property)");
+            return;
+        }
+        
+        System.out.printf("%-80s %10s%n%n", "Filter indices", "[hits]");
+        for (IndexStatistics index : statistics.getIndices()) {
+            System.out.printf("%-80s %10d%n", index.getDescription() + (index.isAuto() ? " (auto)" : ""), index.getHits());
+        }
+        
+        System.out.println();
+        System.out.println("Misses: " + statistics.getMisses());
+        if (statistics.getAutoIndexThreshold() > 0) {
+            System.out.println("Auto index threshold: " + statistics.getAutoIndexThreshold());
+        }
+        
+        Map<String, Long> shapeMisses = statistics.getShapeMisses();
+        if (shapeMisses.size() > 0) {
+            List<Map.Entry<String, Long>> shapes = new ArrayList<>(shapeMisses.entrySet());
+            Collections.sort(shapes, (s1, s2) -> Long.compare(s2.getValue(), s1.getValue()));
+            System.out.println();
+            System.out.printf("%-80s %10s%n%n", "Missed filter shapes", "[misses]");
+            for (Map.Entry<String, Long> shape : shapes) {
+                System.out.printf("%-80s %10d%n", shape.getKey(), shape.getValue());
+            }
+        }
+    }
+
+    /**
+     * Displays the metrics of the built-in component executor.
+     */
+    private void showExecutorStatistics() {
+        ExecutorStatistics statistics = ExecutorStatistics.getStatistics();
+        if (statistics == null) {
+            System.out.println("Built-in component executor is not enabled (see \"org.apache.felix.dependencymanager.threadpool\" property)");
+            return;
+        }
+        System.out.println("Threads: " + statistics.getPoolSize() + "/" + statistics.getParallelism() 
+            + " (active: " + statistics.getActiveThreads() + ", steals: " + statistics.getSteals() + ")");
+        System.out.println("Queue depth: " + statistics.getQueueDepth() + " (max: " + statistics.getMaxQueueDepth() + ")");
+        System.out.println("Executed: " + statistics.getExecuted());
+        System.out.println("Latency (us): average=" + statistics.getAverageLatency() + ", max=" + statistics.getMaxLatency());
+    }
+
     private boolean matchBundle(Bundle bundle, List<String> ids) {
         if (ids.size() == 0) {
             return true;
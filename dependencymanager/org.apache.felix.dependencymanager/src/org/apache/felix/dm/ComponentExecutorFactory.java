@@ -156,6 +156,14 @@ import java.util.concurrent.Executor;
  *      }
  *  }
  * </pre></blockquote>
+ * 
+ * <h3>Built-in ComponentExecutorFactory</h3>
+ * 
+ * Instead of registering your own ComponentExecutorFactory, you can also use the one provided by Dependency Manager,
+ * by setting the "org.apache.felix.dependencymanager.threadpool" OSGi system property to the number of threads to 
+ * use (0 means the number of available processors). Components are then managed by a shared work-stealing 
+ * threadpool, and the "dm exec" shell command displays the threadpool queue depth and latency.
+ * A ComponentExecutorFactory registered in the OSGi registry takes precedence over the built-in one.
  *
  * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
  * @since 4.0.0
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.diagnostics;
+
+import org.apache.felix.dm.impl.ComponentScheduler;
+import org.apache.felix.dm.impl.WorkStealingExecutorFactory;
+
+/**
+ * A snapshot of the metrics of the built-in component executor, which is enabled using the
+ * "org.apache.felix.dependencymanager.threadpool" OSGi system property: the number of component queues
+ * waiting for a thread, and the delay between the scheduling of a component queue and its execution.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class ExecutorStatistics {
+	private final int m_parallelism;
+	private final int m_poolSize;
+	private final int m_activeThreads;
+	private final long m_steals;
+	private final int m_queueDepth;
+	private final int m_maxQueueDepth;
+	private final long m_executed;
+	private final long m_totalLatency;
+	private final long m_maxLatency;
+	
+	private ExecutorStatistics(WorkStealingExecutorFactory executor) {
+		m_parallelism = executor.getParallelism();
+		m_poolSize = executor.getPoolSize();
+		m_activeThreads = executor.getActiveThreadCount();
+		m_steals = executor.getStealCount();
+		m_queueDepth = executor.getQueueDepth();
+		m_maxQueueDepth = executor.getMaxQueueDepth();
+		m_executed = executor.getExecutedCount();
+		m_totalLatency = executor.getTotalLatency();
+		m_maxLatency = executor.getMaxLatency();
+	}
+	
+	/**
+	 * Returns the current statistics, or null if the built-in component executor is not enabled.
+	 */
+	public static ExecutorStatistics getStatistics() {
+		WorkStealingExecutorFactory executor = ComponentScheduler.instance().getDefaultExecutorFactory();
+		return executor == null ? null : new ExecutorStatistics(executor);
+	}
+	
+	/**
+	 * Returns the configured number of threads.
+	 */
+	public int getParallelism() {
+		return m_parallelism;
+	}
+	
+	/**
+	 * Returns the number of threads currently started.
+	 */
+	public int getPoolSize() {
+		return m_poolSize;
+	}
+	
+	/**
+	 * Returns the number of threads currently executing components.
+	 */
+	public int getActiveThreads() {
+		return m_activeThreads;
+	}
+	
+	/**
+	 * Returns the number of component queues that have been stolen by a thread from another thread.
+	 */
+	public long getSteals() {
+		return m_steals;
+	}
+	
+	/**
+	 * Returns the number of component queues waiting for a thread.
+	 */
+	public int getQueueDepth() {
+		return m_queueDepth;
+	}
+	
+	/**
+	 * Returns the highest number of component queues that have been waiting for a thread.
+	 */
+	public int getMaxQueueDepth() {
+		return m_maxQueueDepth;
+	}
+	
+	/**
+	 * Returns the number of component queue executions.
+	 */
+	public long getExecuted() {
+		return m_executed;
+	}
+	
+	/**
+	 * Returns the average delay between the scheduling and the execution of a component queue, in microseconds.
+	 */
+	public long getAverageLatency() {
+		return m_executed == 0 ? 0 : m_totalLatency / m_executed / 1000;
+	}
+	
+	/**
+	 * Returns the highest delay between the scheduling and the execution of a component queue, in microseconds.
+	 */
+	public long getMaxLatency() {
+		return m_maxLatency / 1000;
+	}
+}
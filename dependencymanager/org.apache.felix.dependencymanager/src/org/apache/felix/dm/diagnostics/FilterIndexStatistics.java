@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.diagnostics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.felix.dm.FilterIndex;
+import org.apache.felix.dm.impl.index.AdapterFilterIndex;
+import org.apache.felix.dm.impl.index.AspectFilterIndex;
+import org.apache.felix.dm.impl.index.ServiceRegistryCache;
+import org.apache.felix.dm.impl.index.ServiceRegistryCacheManager;
+import org.apache.felix.dm.impl.index.multiproperty.MultiPropertyFilterIndex;
+
+/**
+ * A snapshot of the usage of the service registry cache filter indices: how many service lookups
+ * were served by each index, and how many lookups could not be served by any index. When the 
+ * "*auto*" index is configured, the number of misses per filter shape (the property keys used by a filter)
+ * is also tracked, and an index is automatically created for the shapes which are frequently used.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class FilterIndexStatistics {
+	
+	/**
+	 * Usage of a given filter index.
+	 */
+	public static class IndexStatistics {
+		private final String m_description;
+		private final boolean m_auto;
+		private final long m_hits;
+		
+		IndexStatistics(String description, boolean auto, long hits) {
+			m_description = description;
+			m_auto = auto;
+			m_hits = hits;
+		}
+		
+		/**
+		 * Returns the index definition, as specified in the "org.apache.felix.dependencymanager.filterindex" property.
+		 */
+		public String getDescription() {
+			return m_description;
+		}
+		
+		/**
+		 * Returns true if the index has been automatically created.
+		 */
+		public boolean isAuto() {
+			return m_auto;
+		}
+		
+		/**
+		 * Returns the number of service lookups served by the index.
+		 */
+		public long getHits() {
+			return m_hits;
+		}
+	}
+	
+	private final int m_autoIndexThreshold;
+	private final List<IndexStatistics> m_indices = new ArrayList<>();
+	private final long m_misses;
+	private final Map<String, Long> m_shapeMisses;
+	
+	private FilterIndexStatistics(ServiceRegistryCache cache) {
+		m_autoIndexThreshold = cache.getAutoIndexThreshold();
+		for (FilterIndex index : cache.getFilterIndices()) {
+			m_indices.add(new IndexStatistics(describe(index), cache.isAutoIndex(index), cache.getHits(index)));
+		}
+		m_misses = cache.getMisses();
+		m_shapeMisses = Collections.unmodifiableMap(cache.getShapeMisses());
+	}
+	
+	/**
+	 * Returns the current statistics, or null if the service registry cache is not enabled.
+	 */
+	public static FilterIndexStatistics getStatistics() {
+		ServiceRegistryCache cache = ServiceRegistryCacheManager.getCache();
+		return cache == null ? null : new FilterIndexStatistics(cache);
+	}
+	
+	/**
+	 * Returns the number of misses after which an index is automatically created for a filter shape,
+	 * or 0 if indices are not automatically created.
+	 */
+	public int getAutoIndexThreshold() {
+		return m_autoIndexThreshold;
+	}
+	
+	/**
+	 * Returns the usage of each filter index.
+	 */
+	public List<IndexStatistics> getIndices() {
+		return Collections.unmodifiableList(m_indices);
+	}
+	
+	/**
+	 * Returns the number of service lookups which could not be served by any index.
+	 */
+	public long getMisses() {
+		return m_misses;
+	}
+	
+	/**
+	 * Returns the number of missed service lookups for each filter shape that can be indexed. A shape 
+	 * has the syntax of a multi property index definition (for example "objectclass,!type,vendor").
+	 */
+	public Map<String, Long> getShapeMisses() {
+		return m_shapeMisses;
+	}
+	
+	private static String describe(FilterIndex index) {
+		if (index instanceof MultiPropertyFilterIndex) {
+			return ((MultiPropertyFilterIndex) index).getConfiguration();
+		} else if (index instanceof AspectFilterIndex) {
+			return "*aspect*";
+		} else if (index instanceof AdapterFilterIndex) {
+			return "*adapter*";
+		}
+		return index.getClass().getName();
+	}
+}
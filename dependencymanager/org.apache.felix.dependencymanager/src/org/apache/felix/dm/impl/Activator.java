@@ -39,6 +39,7 @@ public class Activator implements BundleActivator {
 	private BundleContext m_context;
 	private ServiceTracker<ComponentExecutorFactory, ComponentExecutorFactory> m_execTracker;
 	private ServiceTracker<FilterIndex, FilterIndex> m_indexTracker;
+	private WorkStealingExecutorFactory m_defaultExecutorFactory;
 
 	@Override
 	public void start(BundleContext context) throws Exception {		
@@ -46,6 +47,17 @@ public class Activator implements BundleActivator {
 		ServiceRegistryCacheManager.init(); 
 
 		m_context = context;
+		String threads = context.getProperty(WorkStealingExecutorFactory.THREADPOOL);
+		if (threads != null) {
+			try {
+				m_defaultExecutorFactory = new WorkStealingExecutorFactory(Integer.parseInt(threads.trim()));
+				ComponentScheduler.instance().setDefaultExecutorFactory(m_defaultExecutorFactory);
+			} catch (NumberFormatException e) {
+				// if the property is invalid, components are not handled in parallel
+				e.printStackTrace();
+			}
+		}
+
 		Filter execFilter = context.createFilter("(objectClass=" + ComponentExecutorFactory.class.getName() + ")");
 		m_execTracker = new ServiceTracker<>(context, execFilter, new ExecutorFactoryCustomizer());
 		m_execTracker.open();
@@ -63,6 +75,12 @@ public class Activator implements BundleActivator {
 		if (m_indexTracker != null) {
 			m_indexTracker.close();
 		}
+		if (m_defaultExecutorFactory != null) {
+			ComponentScheduler.instance().setDefaultExecutorFactory(null);
+			ComponentScheduler.instance().unbind(m_defaultExecutorFactory);
+			m_defaultExecutorFactory.shutdown();
+			m_defaultExecutorFactory = null;
+		}
 	}
 
 	private class ExecutorFactoryCustomizer implements ServiceTrackerCustomizer<ComponentExecutorFactory, ComponentExecutorFactory> {
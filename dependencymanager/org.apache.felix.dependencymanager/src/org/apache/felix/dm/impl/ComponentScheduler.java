@@ -31,7 +31,8 @@ import org.osgi.framework.BundleContext;
 /**
  * The Dependency Manager delegates all components addition/removal to this class.
  * If a ComponentExecutorFactory is registered in the OSGi registry, this class will use it to get an 
- * Executor used for components management and lifecycle callbacks.
+ * Executor used for components management and lifecycle callbacks. Otherwise, the built-in executor factory
+ * is used if it has been enabled (see {@link WorkStealingExecutorFactory}).
  * 
  * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
  */
@@ -39,6 +40,7 @@ public class ComponentScheduler {
     private final static ComponentScheduler m_instance = new ComponentScheduler();
     private final static String PARALLEL = "org.apache.felix.dependencymanager.parallel";
     private volatile ComponentExecutorFactory m_componentExecutorFactory;
+    private volatile WorkStealingExecutorFactory m_defaultExecutorFactory;
     private final Executor m_serial = new SerialExecutor(null);
     private ConcurrentMap<Component, Component> m_pending = new ConcurrentHashMap<>();
 
@@ -61,7 +63,31 @@ public class ComponentScheduler {
     }
 
     protected void unbind(ComponentExecutorFactory threadPool) {
-        m_componentExecutorFactory = null;
+        WorkStealingExecutorFactory defaultFactory = m_defaultExecutorFactory;
+        if (defaultFactory != null && defaultFactory != threadPool) {
+            // fall back to the built-in executor factory
+            bind(defaultFactory);
+        } else {
+            m_componentExecutorFactory = null;
+        }
+    }
+
+    /**
+     * Sets the built-in executor factory, which is used when no ComponentExecutorFactory is registered
+     * in the OSGi registry.
+     */
+    protected void setDefaultExecutorFactory(WorkStealingExecutorFactory factory) {
+        m_defaultExecutorFactory = factory;
+        if (factory != null && m_componentExecutorFactory == null) {
+            bind(factory);
+        }
+    }
+
+    /**
+     * Returns the built-in executor factory, or null if it is not enabled.
+     */
+    public WorkStealingExecutorFactory getDefaultExecutorFactory() {
+        return m_defaultExecutorFactory;
     }
 
     public void add(final Component c) {
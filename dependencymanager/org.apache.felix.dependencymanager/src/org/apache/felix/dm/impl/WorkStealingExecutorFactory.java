@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.dm.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.felix.dm.Component;
+import org.apache.felix.dm.ComponentExecutorFactory;
+
+/**
+ * Built-in ComponentExecutorFactory, enabled with the "org.apache.felix.dependencymanager.threadpool" OSGi
+ * system property, which specifies the number of threads (0 means the number of available processors).
+ * <p>
+ * All components are executed in a shared work-stealing pool. Each component keeps its own serial queue
+ * (see {@link DispatchExecutor}), so its events are still handled one at a time, in FIFO order. A component queue
+ * that is scheduled from one of our workers (typically when a component registers a service required by another
+ * component) is pushed to the local queue of that worker: the events stay on the same worker while it is busy,
+ * and are only moved to another worker when an idle one steals them.
+ * <p>
+ * The number of scheduled component queues waiting for a worker, and the latency between the scheduling of a queue
+ * and its execution, are measured and can be inspected using the {@link org.apache.felix.dm.diagnostics.ExecutorStatistics} class.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class WorkStealingExecutorFactory implements ComponentExecutorFactory, Executor {
+    /**
+     * OSGi system property used to enable this executor and to configure the number of threads.
+     */
+    public final static String THREADPOOL = "org.apache.felix.dependencymanager.threadpool";
+
+    private final ForkJoinPool m_pool;
+    private final AtomicInteger m_queued = new AtomicInteger();
+    private final AtomicInteger m_maxQueued = new AtomicInteger();
+    private final LongAdder m_executed = new LongAdder();
+    private final LongAdder m_totalLatency = new LongAdder();
+    private final AtomicLong m_maxLatency = new AtomicLong();
+
+    /**
+     * Creates a work-stealing pool.
+     * @param threads the number of threads, or 0 for the number of available processors
+     */
+    public WorkStealingExecutorFactory(int threads) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadId = new AtomicInteger();
+        m_pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("DependencyManager-" + threadId.incrementAndGet());
+            return thread;
+        }, null, true /* FIFO scheduling of local tasks */);
+    }
+
+    @Override
+    public Executor getExecutorFor(Component component) {
+        // each component wraps the shared executor in its own serial queue, see ComponentImpl.setThreadPool()
+        return this;
+    }
+
+    /**
+     * Schedules the execution of a component queue.
+     */
+    @Override
+    public void execute(Runnable task) {
+        final long scheduled = System.nanoTime();
+        int queued = m_queued.incrementAndGet();
+        m_maxQueued.accumulateAndGet(queued, Math::max);
+        Runnable measuredTask = () -> {
+            m_queued.decrementAndGet();
+            long latency = System.nanoTime() - scheduled;
+            m_executed.increment();
+            m_totalLatency.add(latency);
+            m_maxLatency.accumulateAndGet(latency, Math::max);
+            task.run();
+        };
+
+        Thread current = Thread.currentThread();
+        if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) current).getPool() == m_pool) {
+            // keep the task on this worker, unless another worker steals it.
+            ForkJoinTask.adapt(measuredTask).fork();
+        } else {
+            try {
+                m_pool.execute(measuredTask);
+            } catch (RuntimeException e) {
+                m_queued.decrementAndGet();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stops the pool. Tasks scheduled after this method has returned are rejected.
+     */
+    public void shutdown() {
+        m_pool.shutdown();
+        try {
+            m_pool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getParallelism() {
+        return m_pool.getParallelism();
+    }
+
+    public int getPoolSize() {
+        return m_pool.getPoolSize();
+    }
+
+    public int getActiveThreadCount() {
+        return m_pool.getActiveThreadCount();
+    }
+
+    public long getStealCount() {
+        return m_pool.getStealCount();
+    }
+
+    /**
+     * Returns the number of component queues waiting for a worker.
+     */
+    public int getQueueDepth() {
+        return m_queued.get();
+    }
+
+    /**
+     * Returns the highest number of component queues that have been waiting for a worker.
+     */
+    public int getMaxQueueDepth() {
+        return m_maxQueued.get();
+    }
+
+    /**
+     * Returns the number of component queues executed so far.
+     */
+    public long getExecutedCount() {
+        return m_executed.sum();
+    }
+
+    /**
+     * Returns the sum of the delays between the scheduling and the execution of the component queues, in nanoseconds.
+     */
+    public long getTotalLatency() {
+        return m_totalLatency.sum();
+    }
+
+    /**
+     * Returns the highest delay between the scheduling and the execution of a component queue, in nanoseconds.
+     */
+    public long getMaxLatency() {
+        return m_maxLatency.get();
+    }
+}
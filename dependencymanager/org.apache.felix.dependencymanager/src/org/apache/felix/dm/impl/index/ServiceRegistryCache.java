@@ -22,9 +22,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.felix.dm.FilterIndex;
+import org.apache.felix.dm.impl.index.multiproperty.MultiPropertyFilterIndex;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceEvent;
 import org.osgi.framework.ServiceListener;
@@ -39,6 +43,11 @@ public class ServiceRegistryCache implements ServiceListener/*, CommandProvider*
 	private final Map<BundleContext, BundleContextInterceptor> m_bundleContextInterceptorMap = new HashMap<>();
     private long m_currentVersion = 0;
     private long m_arrayVersion = -1;
+    private final Map<FilterIndex, AtomicLong> m_hits = new ConcurrentHashMap<>();
+    private final AtomicLong m_misses = new AtomicLong();
+    private final Map<String, AtomicLong> m_shapeMisses = new ConcurrentHashMap<>();
+    private final Set<FilterIndex> m_autoIndices = ConcurrentHashMap.newKeySet();
+    private volatile int m_autoIndexThreshold;
     
     public ServiceRegistryCache(BundleContext context) {
         m_context = context;
@@ -54,13 +63,52 @@ public class ServiceRegistryCache implements ServiceListener/*, CommandProvider*
     }
     
     public void addFilterIndex(FilterIndex index) {
-        m_filterIndexList.add(index);
+        // only publish the index once its tracker is filled, so that lookups never see an empty index
         index.open(m_filterIndexBundleContext);
+        m_filterIndexList.add(index);
     }
     
     public void removeFilterIndex(FilterIndex index) {
         index.close();
         m_filterIndexList.remove(index);
+        m_hits.remove(index);
+        m_autoIndices.remove(index);
+    }
+
+    /**
+     * Enables the automatic creation of multi property indices: once a filter shape (the set of
+     * property keys of a filter) misses the indices the given number of times, an index is
+     * created for it. A threshold of 0 disables the automatic creation.
+     */
+    public void setAutoIndexThreshold(int threshold) {
+        m_autoIndexThreshold = threshold;
+    }
+
+    public int getAutoIndexThreshold() {
+        return m_autoIndexThreshold;
+    }
+
+    /** Returns true if the given index has been created automatically. */
+    public boolean isAutoIndex(FilterIndex index) {
+        return m_autoIndices.contains(index);
+    }
+
+    /** Returns the number of lookups served by the given index. */
+    public long getHits(FilterIndex index) {
+        AtomicLong hits = m_hits.get(index);
+        return hits == null ? 0 : hits.get();
+    }
+
+    /** Returns the number of lookups which could not be served by any index. */
+    public long getMisses() {
+        return m_misses.get();
+    }
+
+    /** Returns the number of missed lookups for each indexable filter shape. */
+    public Map<String, Long> getShapeMisses() {
+        Map<String, Long> misses = new HashMap<>();
+        m_shapeMisses.forEach((shape, count) -> misses.put(shape, count.get()));
+        return misses;
     }
     
     public int getSize() {
@@ -100,12 +148,30 @@ public class ServiceRegistryCache implements ServiceListener/*, CommandProvider*
         while (iterator.hasNext()) {
             FilterIndex filterIndex = iterator.next();
             if (filterIndex.isApplicable(clazz, filter)) {
+                m_hits.computeIfAbsent(filterIndex, k -> new AtomicLong()).incrementAndGet();
                 return filterIndex;
             }
         }
+        filterIndexMissed(clazz, filter);
         return null;
     }
 
+    private void filterIndexMissed(String clazz, String filter) {
+        m_misses.incrementAndGet();
+        String shape = MultiPropertyFilterIndex.getConfiguration(clazz, filter);
+        if (shape == null) {
+            return;
+        }
+        long misses = m_shapeMisses.computeIfAbsent(shape, k -> new AtomicLong()).incrementAndGet();
+        int threshold = m_autoIndexThreshold;
+        if (threshold > 0 && misses == threshold) {
+            // the lookup that reaches the threshold still goes to the registry, the next ones use the index
+            MultiPropertyFilterIndex index = new MultiPropertyFilterIndex(shape);
+            m_autoIndices.add(index);
+            addFilterIndex(index);
+        }
+    }
+
     public void serviceChangedForFilterIndices(ServiceEvent event) {
         Iterator<FilterIndex> iterator = m_filterIndexList.iterator();
         while (iterator.hasNext()) {
@@ -118,6 +184,8 @@ public class ServiceRegistryCache implements ServiceListener/*, CommandProvider*
         StringBuffer sb = new StringBuffer();
         sb.append("ServiceRegistryCache[");
         sb.append("FilterIndices: " + m_filterIndexList.size());
+        sb.append(", Auto created: " + m_autoIndices.size());
+        sb.append(", Misses: " + m_misses.get());
         sb.append(", BundleContexts intercepted: " + m_bundleContextInterceptorMap.size());
         sb.append("]");
         return sb.toString();
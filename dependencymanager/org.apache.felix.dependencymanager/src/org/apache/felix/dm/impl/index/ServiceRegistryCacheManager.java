@@ -46,6 +46,17 @@ public class ServiceRegistryCacheManager {
 	 */
 	private final static String RESET = "org.apache.felix.dependencymanager.filterindex.reset";
 	
+	/**
+	 * Number of lookups that a filter must miss before an index is automatically created for its shape,
+	 * when the "*auto*" index is configured in the "org.apache.felix.dependencymanager.filterindex" system property.
+	 */
+	private final static String AUTO_THRESHOLD = "org.apache.felix.dependencymanager.filterindex.auto.threshold";
+	
+	/**
+	 * Default value for the AUTO_THRESHOLD property.
+	 */
+	private final static int DEFAULT_AUTO_THRESHOLD = 10;
+	
 	/**
 	 * the DependendencyManager bundle context used by the ServiceRegistryCache.
 	 */
@@ -171,6 +182,8 @@ public class ServiceRegistryCacheManager {
 						cache.addFilterIndex(new AspectFilterIndex());
 					} else if (props[i].equals("*adapter*")) {
 						cache.addFilterIndex(new AdapterFilterIndex());
+					} else if (props[i].equals("*auto*")) {
+						cache.setAutoIndexThreshold(getAutoIndexThreshold());
 					} else {
 						cache.addFilterIndex(new MultiPropertyFilterIndex(props[i]));
 					}
@@ -183,6 +196,21 @@ public class ServiceRegistryCacheManager {
 		}				
 	}
 		
+	/**
+	 * Returns the number of misses after which a filter index is automatically created.
+	 */
+	private static int getAutoIndexThreshold() {
+		String threshold = m_context.getProperty(AUTO_THRESHOLD);
+		if (threshold != null) {
+			try {
+				return Integer.parseInt(threshold.trim());
+			} catch (NumberFormatException e) {
+				e.printStackTrace();
+			}
+		}
+		return DEFAULT_AUTO_THRESHOLD;
+	}
+		
 	/**
 	 * Creates a custom index using its classname, that has been specified in the org.apache.felix.dependencymanager.filterindex system property.
 	 */
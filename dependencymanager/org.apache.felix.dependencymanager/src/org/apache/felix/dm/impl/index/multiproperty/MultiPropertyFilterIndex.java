@@ -54,10 +54,57 @@ public class MultiPropertyFilterIndex implements FilterIndex, ServiceTrackerCust
 
 	private final Map<ServiceListener, String> m_listenerToFilterMap = new HashMap<>();
 
+	private final String m_configuration;
+
 	public MultiPropertyFilterIndex(String configString) {
+		m_configuration = configString;
 		parseConfig(configString);
 	}
 
+	/**
+	 * Returns the configuration of this index (comma separated property keys).
+	 */
+	public String getConfiguration() {
+		return m_configuration;
+	}
+
+	/**
+	 * Returns the configuration of an index which is applicable to the given class and filter, or null if
+	 * no such index can be created. Filters using an OR, a range or approximate comparison, a substring, an
+	 * escaped value, a negation which is not a presence test, or only the objectClass, are not indexed.
+	 */
+	public static String getConfiguration(String clazz, String filterString) {
+		if (filterString == null && clazz == null) {
+			return null;
+		}
+		Filter filter = createFilter(clazz, filterString);
+		if (!filter.isValid()) {
+			return null;
+		}
+		StringBuilder configuration = new StringBuilder();
+		boolean objectClassOnly = true;
+		for (String key : new TreeSet<>(filter.getPropertyKeys())) {
+			Property property = filter.getProperty(key);
+			if (key.endsWith("<") || key.endsWith(">") || key.endsWith("~")) {
+				return null;
+			}
+			for (String value : property.getValues()) {
+				if (value.indexOf('\\') != -1 || (value.indexOf('*') != -1 && !(property.isNegate() && value.equals("*")))) {
+					return null;
+				}
+			}
+			if (property.isNegate() && !property.isWildcard()) {
+				return null;
+			}
+			if (configuration.length() > 0) {
+				configuration.append(",");
+			}
+			configuration.append(property.isNegate() ? "!" + key : key);
+			objectClassOnly &= key.equals("objectclass");
+		}
+		return objectClassOnly ? null : configuration.toString();
+	}
+
 	public boolean isApplicable(String clazz, String filterString) {
 		Filter filter = createFilter(clazz, filterString);
 
@@ -145,7 +192,7 @@ public class MultiPropertyFilterIndex implements FilterIndex, ServiceTrackerCust
 	}
 
 	//KEYS OF A FILTER
-	private Filter createFilter(String clazz, String filterString) {
+	private static Filter createFilter(String clazz, String filterString) {
 		String filterStringWithObjectClass = filterString;
 		if (clazz != null && !clazz.isEmpty()) {
 			if (filterString != null) {
@@ -287,14 +334,14 @@ public class MultiPropertyFilterIndex implements FilterIndex, ServiceTrackerCust
 		return kvc;
 	}
 
-	@SuppressWarnings("unchecked")
 	public Object addingService(ServiceReference reference) {
 		BundleContext context;
 		synchronized (m_lock) {
 			context = m_context;
 		}
 		if (context != null) {
-			return context.getService(reference);
+			// only the reference is indexed: we don't get the service, which could activate it
+			return reference;
 		} else {
 			throw new IllegalStateException("No valid bundle context.");
 		}
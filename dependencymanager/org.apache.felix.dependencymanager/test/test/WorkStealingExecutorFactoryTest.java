@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.felix.dm.Logger;
+import org.apache.felix.dm.impl.DispatchExecutor;
+import org.apache.felix.dm.impl.WorkStealingExecutorFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Validates the built-in work-stealing executor used to manage components concurrently.
+ * 
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class WorkStealingExecutorFactoryTest extends TestBase {
+    final static int QUEUES = 50;
+    final static int TASKS = 1000;
+
+    @Test
+    public void testSerialQueues() throws Exception {
+        info("Testing work-stealing executor");
+        WorkStealingExecutorFactory factory = new WorkStealingExecutorFactory(4);
+        ExecutorService producers = Executors.newFixedThreadPool(QUEUES);
+        try {
+            Assert.assertEquals(4, factory.getParallelism());
+            final CountDownLatch latch = new CountDownLatch(QUEUES * TASKS);
+            final AtomicBoolean failed = new AtomicBoolean();
+            List<DispatchExecutor> queues = new ArrayList<>();
+            for (int i = 0; i < QUEUES; i++) {
+                queues.add(new DispatchExecutor(factory.getExecutorFor(null), new Logger(null)));
+            }
+            
+            for (final DispatchExecutor queue : queues) {
+                // each queue is fed by one producer: tasks must be executed serially, in FIFO order
+                final AtomicInteger running = new AtomicInteger();
+                final AtomicInteger next = new AtomicInteger();
+                producers.execute(() -> {
+                    for (int j = 0; j < TASKS; j++) {
+                        final int order = j;
+                        queue.execute(() -> {
+                            if (running.incrementAndGet() != 1 || next.getAndIncrement() != order) {
+                                failed.set(true);
+                            }
+                            running.decrementAndGet();
+                            latch.countDown();
+                        });
+                    }
+                });
+            }
+            
+            Assert.assertTrue("Tasks did not complete timely", latch.await(20000, TimeUnit.MILLISECONDS));
+            Assert.assertFalse("Tasks of a queue were not executed serially and in order", failed.get());
+            Assert.assertTrue(factory.getExecutedCount() > 0);
+            Assert.assertTrue(factory.getMaxQueueDepth() > 0);
+            Assert.assertTrue(factory.getMaxLatency() >= 0);
+        }
+        finally {
+            producers.shutdown();
+            factory.shutdown();
+        }
+        Assert.assertEquals(0, factory.getQueueDepth());
+    }
+}
@@ -39,7 +39,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.regex.Pattern;
@@ -63,6 +72,7 @@ import org.osgi.framework.Version;
 import org.osgi.framework.startlevel.BundleStartLevel;
 import org.osgi.framework.startlevel.FrameworkStartLevel;
 import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.FrameworkWiring;
 
 /**
  * -DirectoryWatcher-
@@ -110,6 +120,9 @@ public class DirectoryWatcher extends Thread implements BundleListener
     public final static String FRAGMENT_SCOPE = "felix.fileinstall.fragmentRefreshScope";
     public final static String DISABLE_NIO2 = "felix.fileinstall.disableNio2";
     public final static String SUBDIR_MODE = "felix.fileinstall.subdir.mode";
+    public final static String RESCAN = "felix.fileinstall.rescan";
+    public final static String BATCH = "felix.fileinstall.batch";
+    public final static String INSTALL_THREADS = "felix.fileinstall.install.threads";
 
     public final static String SCOPE_NONE = "none";
     public final static String SCOPE_MANAGED = "managed";
@@ -139,6 +152,9 @@ public class DirectoryWatcher extends Thread implements BundleListener
     String fragmentScope;
     String optionalScope;
     boolean disableNio2;
+    long rescan;
+    boolean batch;
+    int installThreads;
     int frameworkStartLevel;
 
     // Map of all installed artifacts
@@ -159,6 +175,16 @@ public class DirectoryWatcher extends Thread implements BundleListener
     // Represents artifacts that could not be installed
     final Map<File, Artifact> installationFailures = new HashMap<File, Artifact>();
 
+    // Pool installing bundles concurrently, only used if more than one install thread is configured
+    ExecutorService installExecutor;
+
+    // Locks per bundle symbolic name, so that concurrent installs of the same bundle update it instead of installing it twice
+    final ConcurrentMap<String, Object> installLocks = new ConcurrentHashMap<String, Object>();
+
+    // In batch mode, the changes reported by the scanner which have not been processed yet
+    Set<File> stagedFiles = new HashSet<File>();
+    long stagingStart;
+
     // flag (acces to which must be synchronized) that indicates wheter there's a change in state of system,
     // which may result in an attempt to start the watched bundles
     private AtomicBoolean stateChanged = new AtomicBoolean();
@@ -188,13 +214,29 @@ public class DirectoryWatcher extends Thread implements BundleListener
         fragmentScope = properties.get(FRAGMENT_SCOPE);
         optionalScope = properties.get(OPTIONAL_SCOPE);
         disableNio2 = getBoolean(properties, DISABLE_NIO2, false);
+        rescan = getLong(properties, RESCAN, 300000); // with nio2, fall back to a full scan every 5 minutes
+        batch = getBoolean(properties, BATCH, false); // by default, process changes as soon as they are stable
+        installThreads = getInt(properties, INSTALL_THREADS, 1); // by default, install bundles sequentially
+        if (installThreads > 1) {
+            installExecutor = Executors.newFixedThreadPool(installThreads, new ThreadFactory()
+            {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, getName() + "-install-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
         this.context.addBundleListener(this);
 
         if (disableNio2) {
             scanner = new Scanner(watchedDirectory, filter, properties.get(SUBDIR_MODE));
         } else {
             try {
-                scanner = new WatcherScanner(context, watchedDirectory, filter, properties.get(SUBDIR_MODE));
+                scanner = new WatcherScanner(context, watchedDirectory, filter, properties.get(SUBDIR_MODE), rescan);
             } catch (Throwable t) {
                 scanner = new Scanner(watchedDirectory, filter, properties.get(SUBDIR_MODE));
             }
@@ -282,7 +324,10 @@ public class DirectoryWatcher extends Thread implements BundleListener
                             + START_NEW_BUNDLES + " = " + startBundles + ", "
                             + TMPDIR + " = " + tmpDir + ", "
                             + FILTER + " = " + filter + ", "
-                            + START_LEVEL + " = " + startLevel + "}", null
+                            + START_LEVEL + " = " + startLevel + ", "
+                            + RESCAN + " (ms) = " + rescan + ", "
+                            + BATCH + " = " + batch + ", "
+                            + INSTALL_THREADS + " = " + installThreads + "}", null
             );
 
             if (!noInitialDelay) {
@@ -309,6 +354,9 @@ public class DirectoryWatcher extends Thread implements BundleListener
                 if (startLevelSvc.getStartLevel() >= activeLevel
                         && systemBundle.getState() == Bundle.ACTIVE) {
                     Set<File> files = scanner.scan(false);
+                    if (files != null && batch) {
+                        files = stage(files);
+                    }
                     // Check that there is a result.  If not, this means that the directory can not be listed,
                     // so it's presumably not a valid directory (it may have been deleted by someone).
                     // In such case, just sleep
@@ -357,6 +405,35 @@ public class DirectoryWatcher extends Thread implements BundleListener
         }
     }
 
+    /**
+     * In batch mode, accumulate the changes reported by the scanner as long as
+     * new changes keep coming in, so that a large deployment is processed in a
+     * single pass with a single refresh.  A batch is released when a scan
+     * reports no new change, or at the latest after ten poll intervals.
+     *
+     * @param files the changes reported by the last scan
+     * @return the changes to process, or <code>null</code> while still collecting
+     */
+    Set<File> stage(Set<File> files)
+    {
+        if (!files.isEmpty())
+        {
+            if (stagedFiles.isEmpty())
+            {
+                stagingStart = System.currentTimeMillis();
+            }
+            stagedFiles.addAll(files);
+            if (System.currentTimeMillis() - stagingStart < 10 * poll)
+            {
+                log(Logger.LOG_DEBUG, "Staged " + stagedFiles.size() + " changes, waiting for more", null);
+                return null;
+            }
+        }
+        Set<File> staged = stagedFiles;
+        stagedFiles = new HashSet<File>();
+        return staged;
+    }
+
     private void process(Set<File> files) throws InterruptedException
     {
         fileInstall.lock.readLock().lockInterruptibly();
@@ -484,9 +561,12 @@ public class DirectoryWatcher extends Thread implements BundleListener
         // Handle deleted artifacts
         // We do the operations in the following order:
         // uninstall, update, install, refresh & start.
+        long t0 = System.nanoTime();
         Collection<Bundle> uninstalledBundles = uninstall(deleted);
         Collection<Bundle> updatedBundles = update(modified);
+        long t1 = System.nanoTime();
         Collection<Bundle> installedBundles = install(created);
+        long t2 = System.nanoTime();
 
         if (!uninstalledBundles.isEmpty() || !updatedBundles.isEmpty() || !installedBundles.isEmpty())
         {
@@ -503,7 +583,16 @@ public class DirectoryWatcher extends Thread implements BundleListener
                 // set the state to reattempt starting managed bundles which aren't already STARTING or ACTIVE
                 setStateChanged(true);
             }
+            if (batch)
+            {
+                // Resolve the whole batch at once instead of once per started bundle
+                Set<Bundle> toResolve = new HashSet<Bundle>(installedBundles);
+                toResolve.addAll(updatedBundles);
+                toResolve.removeAll(uninstalledBundles);
+                systemBundle.adapt(FrameworkWiring.class).resolveBundles(toResolve);
+            }
         }
+        long t3 = System.nanoTime();
 
         if (startBundles) {
             int startLevel = systemBundle.adapt(FrameworkStartLevel.class).getStartLevel();
@@ -525,6 +614,20 @@ public class DirectoryWatcher extends Thread implements BundleListener
                 setStateChanged(false);
             }
         }
+        long t4 = System.nanoTime();
+
+        if (batch && !files.isEmpty())
+        {
+            log(Logger.LOG_INFO, "Processed batch of " + files.size() + " changes ("
+                    + created.size() + " created, " + modified.size() + " modified, " + deleted.size() + " deleted) in "
+                    + millis(t0, t4) + " ms: uninstall/update " + millis(t0, t1) + " ms, install " + millis(t1, t2)
+                    + " ms, refresh/resolve " + millis(t2, t3) + " ms, start " + millis(t3, t4) + " ms", null);
+        }
+    }
+
+    private static long millis(long start, long end)
+    {
+        return (end - start) / 1000000L;
     }
 
     ArtifactListener findListener(File artifact, List<ArtifactListener> listeners)
@@ -799,6 +902,10 @@ public class DirectoryWatcher extends Thread implements BundleListener
         {
             // Ignore
         }
+        if (installExecutor != null)
+        {
+            installExecutor.shutdownNow();
+        }
     }
 
     /**
@@ -877,18 +984,79 @@ public class DirectoryWatcher extends Thread implements BundleListener
      * @param artifacts Collection of {@link Artifact}s to be installed
      * @return List of Bundles just installed
      */
-    private Collection<Bundle> install(Collection<Artifact> artifacts)
+    Collection<Bundle> install(Collection<Artifact> artifacts) throws InterruptedException
     {
         List<Bundle> bundles = new ArrayList<Bundle>();
+        List<Artifact> parallel = new ArrayList<Artifact>();
         for (Artifact artifact : artifacts) {
+            // Artifact installers are not required to be thread safe, only bundles are installed concurrently
+            if (installThreads > 1 && !(artifact.getListener() instanceof ArtifactInstaller)) {
+                parallel.add(artifact);
+                continue;
+            }
             Bundle bundle = install(artifact);
             if (bundle != null) {
                 bundles.add(bundle);
             }
         }
+        if (parallel.size() == 1) {
+            Bundle bundle = install(parallel.get(0));
+            if (bundle != null) {
+                bundles.add(bundle);
+            }
+        } else if (!parallel.isEmpty()) {
+            bundles.addAll(installConcurrently(parallel));
+        }
         return bundles;
     }
 
+    /**
+     * Installs bundle artifacts on the bounded pool of this watcher.  Installing
+     * a bundle is mostly copying it into the bundle cache, which is I/O bound.
+     */
+    private Collection<Bundle> installConcurrently(List<Artifact> artifacts) throws InterruptedException
+    {
+        List<Future<Bundle>> futures = new ArrayList<Future<Bundle>>();
+        try
+        {
+            for (final Artifact artifact : artifacts)
+            {
+                futures.add(installExecutor.submit(new Callable<Bundle>()
+                {
+                    public Bundle call()
+                    {
+                        return install(artifact);
+                    }
+                }));
+            }
+            List<Bundle> bundles = new ArrayList<Bundle>();
+            for (Future<Bundle> future : futures)
+            {
+                try
+                {
+                    Bundle bundle = future.get();
+                    if (bundle != null)
+                    {
+                        bundles.add(bundle);
+                    }
+                }
+                catch (ExecutionException e)
+                {
+                    log(Logger.LOG_ERROR, "Failed to install artifact", e.getCause());
+                }
+            }
+            return bundles;
+        }
+        finally
+        {
+            // Only has an effect if interrupted while waiting
+            for (Future<Bundle> future : futures)
+            {
+                future.cancel(true);
+            }
+        }
+    }
+
     /**
      * This method uninstalls a collection of artifacts.
      * @param artifacts Collection of {@link Artifact}s to be uninstalled
@@ -952,7 +1120,7 @@ public class DirectoryWatcher extends Thread implements BundleListener
             // if the listener is an url transformer
             else if (artifact.getListener() instanceof ArtifactUrlTransformer)
             {
-                Artifact badArtifact = installationFailures.get(path);
+                Artifact badArtifact = getInstallationFailure(path);
                 if (badArtifact != null && badArtifact.getChecksum() == artifact.getChecksum())
                 {
                     return null; // Don't attempt to install it; nothing has changed.
@@ -966,7 +1134,7 @@ public class DirectoryWatcher extends Thread implements BundleListener
             // if the listener is an artifact transformer
             else if (artifact.getListener() instanceof ArtifactTransformer)
             {
-                Artifact badArtifact = installationFailures.get(path);
+                Artifact badArtifact = getInstallationFailure(path);
                 if (badArtifact != null && badArtifact.getChecksum() == artifact.getChecksum())
                 {
                     return null; // Don't attempt to install it; nothing has changed.
@@ -977,7 +1145,10 @@ public class DirectoryWatcher extends Thread implements BundleListener
                 bundle = installOrUpdateBundle(location, in, artifact.getChecksum(), modified);
                 artifact.setBundleId(bundle.getBundleId());
             }
-            installationFailures.remove(path);
+            synchronized (installationFailures)
+            {
+                installationFailures.remove(path);
+            }
             setArtifact(path, artifact);
         }
         catch (Exception e)
@@ -987,11 +1158,22 @@ public class DirectoryWatcher extends Thread implements BundleListener
             // Add it our bad jars list, so that we don't
             // attempt to install it again and again until the underlying
             // jar has been modified.
-            installationFailures.put(path, artifact);
+            synchronized (installationFailures)
+            {
+                installationFailures.put(path, artifact);
+            }
         }
         return modified.get() ? bundle : null;
     }
 
+    private Artifact getInstallationFailure(File path)
+    {
+        synchronized (installationFailures)
+        {
+            return installationFailures.get(path);
+        }
+    }
+
     private Bundle installOrUpdateBundle(
         String bundleLocation, BufferedInputStream is, long checksum, AtomicBoolean modified)
         throws IOException, BundleException
@@ -1009,41 +1191,11 @@ public class DirectoryWatcher extends Thread implements BundleListener
             String sn = m.getMainAttributes().getValue(Constants.BUNDLE_SYMBOLICNAME);
             String vStr = m.getMainAttributes().getValue(Constants.BUNDLE_VERSION);
             Version v = vStr == null ? Version.emptyVersion : Version.parseVersion(vStr);
-            Bundle[] bundles = context.getBundles();
-            for (Bundle b : bundles) {
-                if (b.getSymbolicName() != null && b.getSymbolicName().equals(sn)) {
-                    vStr = b.getHeaders().get(Constants.BUNDLE_VERSION);
-                    Version bv = vStr == null ? Version.emptyVersion : Version.parseVersion(vStr);
-                    if (v.equals(bv)) {
-                        is.reset();
-                        if (Util.loadChecksum(b, context) != checksum) {
-                            log(Logger.LOG_WARNING,
-                                    "A bundle with the same symbolic name ("
-                                            + sn + ") and version (" + vStr
-                                            + ") is already installed.  Updating this bundle instead.", null
-                            );
-                            stopTransient(b);
-                            Util.storeChecksum(b, checksum, context);
-                            b.update(is);
-                            modified.set(true);
-                        }
-                        return b;
-                    }
-                }
-            }
-            is.reset();
-            Util.log(context, Logger.LOG_INFO, "Installing bundle " + sn
-                    + " / " + v, null);
-            Bundle b = context.installBundle(bundleLocation, is);
-            Util.storeChecksum(b, checksum, context);
-            modified.set(true);
-
-            // Set default start level at install time, the user can override it if he wants
-            if (startLevel != 0) {
-                b.adapt(BundleStartLevel.class).setStartLevel(startLevel);
+            // Bundles may be installed concurrently, so looking for an installed bundle
+            // and installing it must be atomic for a given symbolic name
+            synchronized (getInstallLock(sn)) {
+                return installOrUpdateBundle(bundleLocation, is, checksum, modified, sn, v);
             }
-
-            return b;
         }
         finally
         {
@@ -1054,6 +1206,61 @@ public class DirectoryWatcher extends Thread implements BundleListener
         }
     }
 
+    private Object getInstallLock(String symbolicName)
+    {
+        String key = symbolicName != null ? symbolicName : "";
+        Object lock = installLocks.get(key);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = installLocks.putIfAbsent(key, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
+    private Bundle installOrUpdateBundle(
+        String bundleLocation, BufferedInputStream is, long checksum, AtomicBoolean modified, String sn, Version v)
+        throws IOException, BundleException
+    {
+        Bundle[] bundles = context.getBundles();
+        for (Bundle b : bundles) {
+            if (b.getSymbolicName() != null && b.getSymbolicName().equals(sn)) {
+                String vStr = b.getHeaders().get(Constants.BUNDLE_VERSION);
+                Version bv = vStr == null ? Version.emptyVersion : Version.parseVersion(vStr);
+                if (v.equals(bv)) {
+                    is.reset();
+                    if (Util.loadChecksum(b, context) != checksum) {
+                        log(Logger.LOG_WARNING,
+                                "A bundle with the same symbolic name ("
+                                        + sn + ") and version (" + vStr
+                                        + ") is already installed.  Updating this bundle instead.", null
+                        );
+                        stopTransient(b);
+                        Util.storeChecksum(b, checksum, context);
+                        b.update(is);
+                        modified.set(true);
+                    }
+                    return b;
+                }
+            }
+        }
+        is.reset();
+        Util.log(context, Logger.LOG_INFO, "Installing bundle " + sn
+                + " / " + v, null);
+        Bundle b = context.installBundle(bundleLocation, is);
+        Util.storeChecksum(b, checksum, context);
+        modified.set(true);
+
+        // Set default start level at install time, the user can override it if he wants
+        if (startLevel != 0) {
+            b.adapt(BundleStartLevel.class).setStartLevel(startLevel);
+        }
+
+        return b;
+    }
+
     /**
      * Uninstall a jar file.
      */
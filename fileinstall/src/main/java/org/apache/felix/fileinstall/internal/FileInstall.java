@@ -114,6 +114,9 @@ public class FileInstall implements BundleActivator, ServiceTrackerCustomizer
             set(ht, DirectoryWatcher.FRAGMENT_SCOPE);
             set(ht, DirectoryWatcher.DISABLE_NIO2);
             set(ht, DirectoryWatcher.SUBDIR_MODE);
+            set(ht, DirectoryWatcher.RESCAN);
+            set(ht, DirectoryWatcher.BATCH);
+            set(ht, DirectoryWatcher.INSTALL_THREADS);
 
             // check if dir is an array of dirs
             String dirs = ht.get(DirectoryWatcher.DIR);
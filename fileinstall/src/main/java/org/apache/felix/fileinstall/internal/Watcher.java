@@ -181,7 +181,8 @@ public abstract class Watcher implements Closeable {
                 debug("Processing event {} on path {}", kind, child);
 
                 if (kind == OVERFLOW) {
-//                    rescan();
+                    // events have been lost, the keys cannot be re-registered while iterating
+                    onOverflow();
                     continue;
                 }
 
@@ -317,6 +318,14 @@ public abstract class Watcher implements Closeable {
         throw new IllegalArgumentException(message);
     }
 
+    /**
+     * Called when the watch service reports that events have been lost.
+     * Subclasses should arrange for a full {@link #rescan()} outside of
+     * {@link #processEvents()}.
+     */
+    protected void onOverflow() {
+    }
+
     protected abstract void debug(String message, Object... args);
     protected abstract void warn(String message, Object... args);
     protected abstract void process(Path path);
@@ -37,6 +37,11 @@ public class WatcherScanner extends Scanner {
 
     Set<File> changed = new HashSet<File>();
 
+    // Interval in milliseconds between full rescans, 0 or less to disable
+    final long rescanInterval;
+    long lastRescan;
+    volatile boolean rescanRequested;
+
     /**
      * Create a scanner for the specified directory and file filter
      *
@@ -45,7 +50,22 @@ public class WatcherScanner extends Scanner {
      * @param subdirMode to use when scanning
      */
     public WatcherScanner(BundleContext bundleContext, File directory, String filterString, String subdirMode) throws IOException {
+        this(bundleContext, directory, filterString, subdirMode, 0);
+    }
+
+    /**
+     * Create a scanner for the specified directory and file filter which
+     * periodically falls back to a full rescan of the directory, in case
+     * the watch service missed or dropped events.
+     *
+     * @param directory the directory to scan
+     * @param filterString a filter for file names
+     * @param subdirMode to use when scanning
+     * @param rescanInterval the interval in milliseconds between full rescans, 0 or less to disable
+     */
+    public WatcherScanner(BundleContext bundleContext, File directory, String filterString, String subdirMode, long rescanInterval) throws IOException {
         super(directory, filterString, subdirMode);
+        this.rescanInterval = rescanInterval;
         this.bundleContext = bundleContext;
         if (filterString != null) {
             this.fileMatcher = FileSystems.getDefault().getPathMatcher("regex:" + filterString);
@@ -57,10 +77,16 @@ public class WatcherScanner extends Scanner {
         this.watcher.setRootDirectory(this.directory);
         this.watcher.init();
         this.watcher.rescan();
+        this.lastRescan = System.currentTimeMillis();
     }
 
     public Set<File> scan(boolean reportImmediately) {
         watcher.processEvents();
+        long now = System.currentTimeMillis();
+        if (rescanRequested || (rescanInterval > 0 && now - lastRescan >= rescanInterval)) {
+            rescan();
+            lastRescan = now;
+        }
         synchronized (changed) {
             if (changed.isEmpty()) {
                 return new HashSet<File>();
@@ -108,6 +134,23 @@ public class WatcherScanner extends Scanner {
         }
     }
 
+    /**
+     * Walk the whole directory again, reporting every existing file as changed
+     * and checking every known file for removal.  The checksums filter out
+     * files which did not actually change.
+     */
+    void rescan() {
+        rescanRequested = false;
+        synchronized (changed) {
+            changed.addAll(storedChecksums.keySet());
+        }
+        try {
+            watcher.rescan();
+        } catch (IOException e) {
+            Util.log(bundleContext, Util.Logger.LOG_WARNING, "Unable to rescan directory " + directory, e);
+        }
+    }
+
     public void close() throws IOException {
         watcher.close();
     }
@@ -145,6 +188,12 @@ public class WatcherScanner extends Scanner {
             process(path);
         }
 
+        @Override
+        protected void onOverflow() {
+            debug("Watch service overflow for %s, scheduling a full rescan", directory);
+            rescanRequested = true;
+        }
+
         @Override
         protected void debug(String message, Object... args) {
             log(Util.Logger.LOG_DEBUG, message, args);
@@ -20,15 +20,25 @@ package org.apache.felix.fileinstall.internal;
 
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
 import junit.framework.TestCase;
 import org.apache.felix.fileinstall.ArtifactListener;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.easymock.IMocksControl;
 import org.junit.Assert;
 import org.osgi.framework.Bundle;
@@ -116,6 +126,30 @@ public class DirectoryWatcherTest extends TestCase
     }
 
 
+    public void testBatchStaging()
+    {
+        props.put( DirectoryWatcher.BATCH, "true" );
+        props.put( DirectoryWatcher.POLL, "60000" );
+
+        mockBundleContext.addBundleListener((BundleListener) org.easymock.EasyMock.anyObject());
+        EasyMock.replay(mockBundleContext, mockBundle, mockSysBundle, mockStartLevel);
+        dw = new DirectoryWatcher( new FileInstall(), props, mockBundleContext );
+        assertTrue( "batch mode is enabled", dw.batch );
+
+        Set<File> first = new HashSet<File>();
+        first.add( new File( "a.jar" ) );
+        Set<File> second = new HashSet<File>();
+        second.add( new File( "b.jar" ) );
+
+        assertNull( "changes are held back while new ones keep coming", dw.stage( first ) );
+        assertNull( "changes are held back while new ones keep coming", dw.stage( second ) );
+        Set<File> batch = dw.stage( new HashSet<File>() );
+        assertEquals( "the whole batch is released once the scan is quiet", 2, batch.size() );
+        assertTrue( dw.stage( new HashSet<File>() ).isEmpty() );
+        EasyMock.verify(mockBundleContext);
+    }
+
+
     public void testGetBooleanWithNonExistentProperty()
     {
         mockBundleContext.addBundleListener((BundleListener) org.easymock.EasyMock.anyObject());
@@ -448,4 +482,99 @@ public class DirectoryWatcherTest extends TestCase
         EasyMock.verify(mockBundleContext, mockBundle,mockServiceReference, mockArtifactListener);
     }
 
+    /**
+     * Two artifacts of a batch with the same symbolic name and version are
+     * installed concurrently.  The bundle must be installed once and then
+     * updated, as when installing sequentially.
+     */
+    public void testConcurrentInstallOfSameBundle() throws Exception
+    {
+        final File dir = new File("target/concurrent-install");
+        dir.mkdirs();
+        final List<Bundle> installed = new CopyOnWriteArrayList<Bundle>();
+        final Bundle bundle = EasyMock.createNiceMock(Bundle.class);
+        Hashtable<String, String> headers = new Hashtable<String, String>();
+        headers.put(Constants.BUNDLE_VERSION, "1.0.0");
+        EasyMock.expect(bundle.getSymbolicName()).andReturn("same.bundle").anyTimes();
+        EasyMock.expect(bundle.getHeaders()).andReturn(headers).anyTimes();
+        EasyMock.expect(bundle.getBundleId()).andReturn(1L).anyTimes();
+        bundle.update((InputStream) EasyMock.anyObject());
+        EasyMock.expectLastCall().once();
+
+        mockBundleContext.addBundleListener((BundleListener) org.easymock.EasyMock.anyObject());
+        EasyMock.expect(mockBundleContext.getBundles()).andAnswer(new IAnswer<Bundle[]>()
+        {
+            public Bundle[] answer()
+            {
+                return installed.toArray(new Bundle[installed.size()]);
+            }
+        }).anyTimes();
+        EasyMock.expect(mockBundleContext.getDataFile((String) EasyMock.anyObject())).andAnswer(new IAnswer<File>()
+        {
+            public File answer()
+            {
+                return new File(dir, (String) EasyMock.getCurrentArguments()[0]);
+            }
+        }).anyTimes();
+        EasyMock.expect(mockBundleContext.installBundle((String) EasyMock.anyObject(), (InputStream) EasyMock.anyObject()))
+                .andAnswer(new IAnswer<Bundle>()
+        {
+            public Bundle answer() throws Exception
+            {
+                // leave time for the other install to look for the bundle
+                Thread.sleep(200);
+                installed.add(bundle);
+                return bundle;
+            }
+        }).once();
+        EasyMock.replay(mockBundleContext, mockBundle, mockSysBundle, mockStartLevel, bundle);
+
+        List<Artifact> artifacts = new ArrayList<Artifact>();
+        for (int i = 0; i < 2; i++)
+        {
+            File jar = new File(dir, "same" + i + ".jar");
+            createBundle(jar, "same.bundle", "1.0.0", "content" + i);
+            Artifact artifact = new Artifact();
+            artifact.setPath(jar);
+            artifact.setChecksum(i + 1);
+            artifact.setListener(new BundleTransformer());
+            artifact.setTransformedUrl(jar.toURI().toURL());
+            artifacts.add(artifact);
+        }
+
+        props.put(DirectoryWatcher.INSTALL_THREADS, "2");
+        dw = new DirectoryWatcher(new FileInstall(), props, mockBundleContext);
+        dw.startBundles = false;
+        try
+        {
+            dw.install(artifacts);
+        }
+        finally
+        {
+            dw.installExecutor.shutdownNow();
+        }
+
+        assertEquals(1, installed.size());
+        EasyMock.verify(mockBundleContext, bundle);
+    }
+
+    private static void createBundle(File file, String symbolicName, String version, String content) throws Exception
+    {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_VERSION, version);
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest);
+        try
+        {
+            out.putNextEntry(new ZipEntry("content.txt"));
+            out.write(content.getBytes("UTF-8"));
+            out.closeEntry();
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
 }
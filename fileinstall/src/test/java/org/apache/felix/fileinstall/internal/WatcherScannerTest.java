@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.fileinstall.internal;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Set;
+
+import org.easymock.EasyMock;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class WatcherScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRescanReportsFilesRemovedWithoutEvent() throws Exception {
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+
+        File watchedDirectory = folder.getRoot().getCanonicalFile();
+        folder.newFile("present.cfg");
+        File ghost = new File(watchedDirectory, "ghost.cfg");
+
+        WatcherScanner scanner = new WatcherScanner(context, watchedDirectory, null, null, 0);
+        try {
+            // the ghost file was known from a previous run but no delete event will ever be delivered
+            scanner.initialize(Collections.singletonMap(ghost, 1L));
+
+            assertFalse(scanner.scan(false).contains(ghost));
+            assertFalse(scanner.scan(false).contains(ghost));
+
+            scanner.rescan();
+            Set<File> files = scanner.scan(false);
+            assertTrue(files.contains(ghost));
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Test
+    public void testPeriodicRescan() throws Exception {
+        BundleContext context = EasyMock.createNiceMock(BundleContext.class);
+        EasyMock.replay(context);
+
+        File watchedDirectory = folder.getRoot().getCanonicalFile();
+        File ghost = new File(watchedDirectory, "ghost.cfg");
+
+        WatcherScanner scanner = new WatcherScanner(context, watchedDirectory, null, null, 1);
+        try {
+            scanner.initialize(Collections.singletonMap(ghost, 1L));
+            Thread.sleep(5);
+            assertTrue(scanner.scan(false).contains(ghost));
+        } finally {
+            scanner.close();
+        }
+    }
+
+}
@@ -514,7 +514,8 @@ public class EventDispatcher
 
         // Fire synchronous bundle listeners immediately on the calling thread.
         fireEventImmediately(
-            this, Request.BUNDLE_EVENT, syncListeners, event, null);
+            this, Request.BUNDLE_EVENT, syncListeners, event, null,
+            felix.getStartupTracer());
 
         // The spec says that asynchronous bundle listeners do not get events
         // of types STARTING, STOPPING, or LAZY_ACTIVATION.
@@ -810,6 +811,14 @@ public class EventDispatcher
         EventDispatcher dispatcher, int type,
         Map<BundleContext, List<ListenerInfo>> listeners,
         EventObject event, Dictionary oldProps)
+    {
+        fireEventImmediately(dispatcher, type, listeners, event, oldProps, null);
+    }
+
+    private static void fireEventImmediately(
+        EventDispatcher dispatcher, int type,
+        Map<BundleContext, List<ListenerInfo>> listeners,
+        EventObject event, Dictionary oldProps, StartupTracer tracer)
     {
         if (!listeners.isEmpty())
         {
@@ -829,6 +838,21 @@ public class EventDispatcher
                         {
                             invokeFrameworkListenerCallback(bundle, l, event);
                         }
+                        else if ((type == Request.BUNDLE_EVENT) && (tracer != null))
+                        {
+                            long traceStart = tracer.begin();
+                            try
+                            {
+                                invokeBundleListenerCallback(bundle, l, event);
+                            }
+                            finally
+                            {
+                                tracer.end(StartupTracer.CAT_LISTENER,
+                                    getBundleEventName((BundleEvent) event) + " "
+                                    + ((BundleEvent) event).getBundle() + " -> " + bundle,
+                                    traceStart);
+                            }
+                        }
                         else if (type == Request.BUNDLE_EVENT)
                         {
                             invokeBundleListenerCallback(bundle, l, event);
@@ -917,6 +941,35 @@ public class EventDispatcher
         }
     }
 
+    private static String getBundleEventName(BundleEvent event)
+    {
+        switch (event.getType())
+        {
+            case BundleEvent.INSTALLED:
+                return "INSTALLED";
+            case BundleEvent.RESOLVED:
+                return "RESOLVED";
+            case BundleEvent.LAZY_ACTIVATION:
+                return "LAZY_ACTIVATION";
+            case BundleEvent.STARTING:
+                return "STARTING";
+            case BundleEvent.STARTED:
+                return "STARTED";
+            case BundleEvent.STOPPING:
+                return "STOPPING";
+            case BundleEvent.STOPPED:
+                return "STOPPED";
+            case BundleEvent.UPDATED:
+                return "UPDATED";
+            case BundleEvent.UNRESOLVED:
+                return "UNRESOLVED";
+            case BundleEvent.UNINSTALLED:
+                return "UNINSTALLED";
+            default:
+                return "BundleEvent " + event.getType();
+        }
+    }
+
     private static void invokeServiceListenerCallback(
         Bundle bundle, final EventListener l, Filter filter, Object acc,
         final EventObject event, final Dictionary oldProps)
@@ -84,7 +84,14 @@ import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The ExtensionManager class is used as content loader of the systembundle. Added extension
@@ -249,8 +256,7 @@ class ExtensionManager implements Content
 
         if (exports != null && (sysprops == null || "true".equalsIgnoreCase(felix._getProperty(FelixConstants.USE_PROPERTY_SUBSTITUTION_IN_SYSTEMPACKAGES))))
         {
-            java.nio.file.FileSystem fs = java.nio.file.FileSystems.getFileSystem(URI.create("jrt:/"));
-            final ClassParser classParser = new ClassParser();
+            final java.nio.file.FileSystem fs = java.nio.file.FileSystems.getFileSystem(URI.create("jrt:/"));
             final Set<String> imports = new HashSet<String>();
             for (Set<String> moduleImport : exports.values())
             {
@@ -262,23 +268,42 @@ class ExtensionManager implements Content
                     }
                 }
             }
+            boolean calculateUses = "true".equalsIgnoreCase(felix._getProperty(FelixConstants.CALCULATE_SYSTEMPACKAGES_USES));
+            File modulesDir = null;
+            if (calculateUses)
+            {
+                try
+                {
+                    modulesDir = getModulesDir(felix, exports.keySet());
+                }
+                catch (Throwable e)
+                {
+                    m_logger.log(Logger.LOG_WARNING, "Unable to access the JPMS module uses cache", e);
+                }
+            }
+
+            // Load the uses of the modules from the cache first and only
+            // scan the modules that are not cached yet, which is done
+            // concurrently since every module is scanned independently.
+            Map<String, SortedMap<String, SortedSet<String>>> referredByModule =
+                new LinkedHashMap<String, SortedMap<String, SortedSet<String>>>();
+            List<Callable<Void>> scans = new ArrayList<Callable<Void>>();
             for (final String moduleKey : exports.keySet())
             {
                 int idx = moduleKey.indexOf("@");
-                String module = idx == -1 ? moduleKey : moduleKey.substring(0, idx);
+                final String module = idx == -1 ? moduleKey : moduleKey.substring(0, idx);
                 if (felix._getProperty(module) == null && !exports.get(moduleKey).isEmpty() && defaultProperties.getProperty(module) == null)
                 {
                     final SortedMap<String, SortedSet<String>> referred = new TreeMap<String, SortedSet<String>>();
-                    if ("true".equalsIgnoreCase(felix._getProperty(FelixConstants.CALCULATE_SYSTEMPACKAGES_USES)))
+                    referredByModule.put(moduleKey, referred);
+                    if (calculateUses)
                     {
                         try
                         {
-                            Properties cachedProps = new Properties();
-                            File modulesDir = felix.getDataFile(felix, "modules");
-                            modulesDir.mkdirs();
-                            File cached = new File(modulesDir, moduleKey + ".properties");
-                            if (cached.isFile())
+                            final File cached = (modulesDir != null) ? new File(modulesDir, moduleKey + ".properties") : null;
+                            if ((cached != null) && cached.isFile())
                             {
+                                Properties cachedProps = new Properties();
                                 FileInputStream input = new FileInputStream(cached);
                                 cachedProps.load(new InputStreamReader(input, "UTF-8"));
                                 input.close();
@@ -290,20 +315,15 @@ class ExtensionManager implements Content
                             }
                             else
                             {
-                                java.nio.file.Path path = fs.getPath("modules", module.substring("felix.jpms.".length()));
-                                java.nio.file.Files.walkFileTree(path, (java.nio.file.FileVisitor) Felix.class.getClassLoader().loadClass("org.apache.felix.framework.util.ClassFileVisitor")
-                                    .getConstructor(Set.class, Set.class, ClassParser.class, SortedMap.class).newInstance(imports, exports.get(moduleKey), classParser, referred));
-                                for (String pkg : referred.keySet())
+                                scans.add(new Callable<Void>()
                                 {
-                                    SortedSet<String> uses = referred.get(pkg);
-                                    if (uses != null && !uses.isEmpty())
+                                    @Override
+                                    public Void call() throws Exception
                                     {
-                                        cachedProps.setProperty(pkg, String.join(",", uses));
+                                        scanModule(fs, module, imports, exports.get(moduleKey), referred, cached);
+                                        return null;
                                     }
-                                }
-                                OutputStream output = new FileOutputStream(cached);
-                                cachedProps.store(new OutputStreamWriter(output, "UTF-8"), null);
-                                output.close();
+                                });
                             }
                         }
                         catch (Throwable e)
@@ -311,28 +331,37 @@ class ExtensionManager implements Content
                             m_logger.log(Logger.LOG_WARNING, "Exception calculating JPMS module exports", e);
                         }
                     }
+                }
+            }
+
+            runModuleScans(scans);
 
-                    String pkgs = "";
+            for (Map.Entry<String, SortedMap<String, SortedSet<String>>> moduleEntry : referredByModule.entrySet())
+            {
+                String moduleKey = moduleEntry.getKey();
+                int idx = moduleKey.indexOf("@");
+                String module = idx == -1 ? moduleKey : moduleKey.substring(0, idx);
+                SortedMap<String, SortedSet<String>> referred = moduleEntry.getValue();
+                String pkgs = "";
 
-                    for (String pkg : exports.get(moduleKey))
+                for (String pkg : exports.get(moduleKey))
+                {
+                    pkgs += "," + pkg;
+                    SortedSet<String> uses = referred.get(pkg);
+                    if (uses != null && !uses.isEmpty())
                     {
-                        pkgs += "," + pkg;
-                        SortedSet<String> uses = referred.get(pkg);
-                        if (uses != null && !uses.isEmpty())
+                        pkgs += ";uses:=\"";
+                        String sep = "";
+                        for (String u : uses)
                         {
-                            pkgs += ";uses:=\"";
-                            String sep = "";
-                            for (String u : uses)
-                            {
-                                pkgs += sep + u;
-                                sep = ",";
-                            }
-                            pkgs += "\"";
+                            pkgs += sep + u;
+                            sep = ",";
                         }
-                        pkgs += ";version=\"" + defaultProperties.getProperty("felix.detect.java.version") + "\"";
+                        pkgs += "\"";
                     }
-                    defaultProperties.put(module, pkgs);
+                    pkgs += ";version=\"" + defaultProperties.getProperty("felix.detect.java.version") + "\"";
                 }
+                defaultProperties.put(module, pkgs);
             }
         }
 
@@ -378,6 +407,157 @@ class ExtensionManager implements Content
         m_systemBundleRevision.update(config);
     }
 
+    /**
+     * Returns the directory for the cached uses of the JPMS modules. This is
+     * the <tt>modules</tt> directory of the framework storage unless a cache
+     * directory is configured, which can be shared by frameworks and shipped
+     * with an installation. Since the uses only depend on the JDK, the shared
+     * cache has a sub directory per JDK vendor, version, and set of boot layer
+     * modules, as images created by jlink differ in their modules. Returns
+     * <tt>null</tt> if there is no directory to cache the uses in.
+     */
+    private static File getModulesDir(Felix felix, Set<String> modules)
+    {
+        File modulesDir;
+        String shared = felix._getProperty(FelixConstants.SYSTEMPACKAGES_USES_CACHE);
+        if ((shared != null) && (shared.trim().length() > 0))
+        {
+            String version = felix._getProperty("java.runtime.version");
+            if (version == null)
+            {
+                version = felix._getProperty("java.version");
+            }
+            List<String> sorted = new ArrayList<String>(modules);
+            Collections.sort(sorted);
+            String jdk = felix._getProperty("java.vendor") + "-" + version
+                + "-" + Integer.toHexString(sorted.toString().hashCode());
+            modulesDir = new File(shared.trim(), jdk.replaceAll("[^A-Za-z0-9._-]", "_"));
+        }
+        else
+        {
+            modulesDir = felix.getDataFile(felix, "modules");
+            if (modulesDir == null)
+            {
+                return null;
+            }
+        }
+        modulesDir.mkdirs();
+        return modulesDir;
+    }
+
+    @IgnoreJRERequirement
+    private static void scanModule(java.nio.file.FileSystem fs, String module, Set<String> imports,
+        Set<String> exports, SortedMap<String, SortedSet<String>> referred, File cached) throws Exception
+    {
+        // Every scan has its own class parser, since the parser is not thread safe.
+        java.nio.file.Path path = fs.getPath("modules", module.substring("felix.jpms.".length()));
+        java.nio.file.Files.walkFileTree(path, (java.nio.file.FileVisitor) Felix.class.getClassLoader().loadClass("org.apache.felix.framework.util.ClassFileVisitor")
+            .getConstructor(Set.class, Set.class, ClassParser.class, SortedMap.class).newInstance(imports, exports, new ClassParser(), referred));
+
+        if (cached == null)
+        {
+            return;
+        }
+        Properties cachedProps = new Properties();
+        for (String pkg : referred.keySet())
+        {
+            SortedSet<String> uses = referred.get(pkg);
+            if (uses != null && !uses.isEmpty())
+            {
+                cachedProps.setProperty(pkg, String.join(",", uses));
+            }
+        }
+
+        // Write to a temporary file first, so other frameworks sharing
+        // the cache never read a partially written file.
+        File tmp = File.createTempFile(cached.getName(), ".tmp", cached.getParentFile());
+        OutputStream output = new FileOutputStream(tmp);
+        try
+        {
+            cachedProps.store(new OutputStreamWriter(output, "UTF-8"), null);
+        }
+        finally
+        {
+            output.close();
+        }
+        if (!tmp.renameTo(cached))
+        {
+            tmp.delete();
+        }
+    }
+
+    private void runModuleScans(List<Callable<Void>> scans)
+    {
+        int parallelism = Math.min(scans.size(), Runtime.getRuntime().availableProcessors());
+        if (parallelism <= 1)
+        {
+            for (Callable<Void> scan : scans)
+            {
+                try
+                {
+                    scan.call();
+                }
+                catch (Throwable e)
+                {
+                    m_logger.log(Logger.LOG_WARNING, "Exception calculating JPMS module exports", e);
+                }
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory()
+        {
+            final AtomicInteger counter = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r)
+            {
+                Thread thread = new Thread(r, "FelixModuleScanner-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        boolean interrupted = false;
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>(scans.size());
+            for (Callable<Void> scan : scans)
+            {
+                futures.add(executor.submit(scan));
+            }
+            // Wait for all scans, even if interrupted, since the
+            // results are read once this method returns.
+            for (Future<Void> future : futures)
+            {
+                boolean done = false;
+                while (!done)
+                {
+                    try
+                    {
+                        future.get();
+                        done = true;
+                    }
+                    catch (InterruptedException e)
+                    {
+                        interrupted = true;
+                    }
+                    catch (ExecutionException e)
+                    {
+                        m_logger.log(Logger.LOG_WARNING, "Exception calculating JPMS module exports", e.getCause());
+                        done = true;
+                    }
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     public BundleRevisionImpl getRevision()
     {
         return m_systemBundleRevision;
@@ -30,6 +30,7 @@ import org.apache.felix.framework.util.ListenerInfo;
 import org.apache.felix.framework.util.MapToDictionary;
 import org.apache.felix.framework.util.SecureAction;
 import org.apache.felix.framework.util.ShrinkableCollection;
+import org.apache.felix.framework.util.StartupTracer;
 import org.apache.felix.framework.util.StringMap;
 import org.apache.felix.framework.util.ThreadGate;
 import org.apache.felix.framework.util.Util;
@@ -106,6 +107,7 @@ import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -123,6 +125,8 @@ public class Felix extends BundleImpl implements Framework
 
     // Logging related member variables.
     private final Logger m_logger;
+    // Startup tracer, null unless enabled in the configuration.
+    private final StartupTracer m_tracer;
     // Immutable config properties.
     private final Map<String, Object> m_configMap;
     // Mutable configuration properties passed into constructor.
@@ -395,6 +399,9 @@ public class Felix extends BundleImpl implements Framework
             // Ignore and just use the default logging level.
         }
 
+        // Create the startup tracer, if enabled.
+        m_tracer = StartupTracer.create(m_configMap);
+
         // Initialize framework properties.
         initializeFrameworkProperties();
 
@@ -440,7 +447,12 @@ public class Felix extends BundleImpl implements Framework
 
         // Create the extension manager, which we will use as the
         // revision for the system bundle.
+        long traceStart = (m_tracer != null) ? m_tracer.begin() : 0;
         m_extensionManager = new ExtensionManager(m_logger, m_configMap, this);
+        if (m_tracer != null)
+        {
+            m_tracer.end(StartupTracer.CAT_FRAMEWORK, "ExtensionManager", traceStart);
+        }
 
         try
         {
@@ -477,6 +489,11 @@ public class Felix extends BundleImpl implements Framework
         return m_resolver;
     }
 
+    StartupTracer getStartupTracer()
+    {
+        return m_tracer;
+    }
+
     BundleRevisionDependencies getDependencies()
     {
         return m_dependencies;
@@ -646,6 +663,8 @@ public class Felix extends BundleImpl implements Framework
     @Override
     public void init(final FrameworkListener... listeners) throws BundleException
     {
+        long traceStart = (m_tracer != null) ? m_tracer.begin() : 0;
+
         // The system bundle can only be initialized if it currently isn't started.
         acquireBundleLock(this,
             Bundle.INSTALLED | Bundle.RESOLVED | Bundle.STARTING | Bundle.ACTIVE);
@@ -700,7 +719,12 @@ public class Felix extends BundleImpl implements Framework
                 {
                        try
                        {
+                           long cacheStart = (m_tracer != null) ? m_tracer.begin() : 0;
                            m_cache = new BundleCache(m_logger, m_configMap);
+                           if (m_tracer != null)
+                           {
+                               m_tracer.end(StartupTracer.CAT_CACHE, "BundleCache", cacheStart);
+                           }
                        }
                        catch (Exception ex)
                        {
@@ -745,7 +769,13 @@ public class Felix extends BundleImpl implements Framework
                 {
                     getResolver().removeRevision(m_extensionManager.getRevision());
                     m_extensionManager.removeExtensionBundles();
+                    long updateStart = (m_tracer != null) ? m_tracer.begin() : 0;
                     m_extensionManager.updateRevision(this, m_configMap);
+                    if (m_tracer != null)
+                    {
+                        m_tracer.end(StartupTracer.CAT_FRAMEWORK,
+                            "ExtensionManager.updateRevision", updateStart);
+                    }
                     if (!m_configMutableMap.containsKey(Constants.FRAMEWORK_SYSTEMPACKAGES))
                     {
                         m_configMutableMap.put(Constants.FRAMEWORK_SYSTEMPACKAGES, m_extensionManager.getRevision().getHeaders().get(Constants.EXPORT_PACKAGE));
@@ -784,7 +814,13 @@ public class Felix extends BundleImpl implements Framework
                 // First get cached bundle identifiers.
                 try
                 {
+                    long archivesStart = (m_tracer != null) ? m_tracer.begin() : 0;
                     archives = m_cache.getArchives();
+                    if (m_tracer != null)
+                    {
+                        m_tracer.end(StartupTracer.CAT_CACHE,
+                            "BundleCache.getArchives", archivesStart);
+                    }
                 }
                 catch (Exception ex)
                 {
@@ -821,7 +857,13 @@ public class Felix extends BundleImpl implements Framework
                         else
                         {
                             // Install the cached bundle.
+                            long reloadStart = (m_tracer != null) ? m_tracer.begin() : 0;
                             reloadBundle(archives[i], javaVersionChanged);
+                            if (m_tracer != null)
+                            {
+                                m_tracer.end(StartupTracer.CAT_CACHE,
+                                    "reload " + archives[i].getLocation(), reloadStart);
+                            }
                         }
                     }
                     catch (Exception ex)
@@ -877,10 +919,26 @@ public class Felix extends BundleImpl implements Framework
                 m_fwkWiring.start();
                 m_fwkStartLevel.start();
 
+                // Make the startup timeline available, if enabled.
+                if (m_tracer != null)
+                {
+                    Map<String, Object> props = new HashMap<String, Object>();
+                    props.put(FelixConstants.STARTUP_TRACE_PROP, "chrome");
+                    m_registry.registerService(this,
+                        new String[] { Callable.class.getName() },
+                        m_tracer,
+                        new MapToDictionary(props));
+                }
+
                 try
                 {
+                    long activatorStart = (m_tracer != null) ? m_tracer.begin() : 0;
                     Felix.m_secureAction.startActivator(
                         getActivator(), _getBundleContext());
+                    if (m_tracer != null)
+                    {
+                        m_tracer.end(StartupTracer.CAT_ACTIVATOR, toString(), activatorStart);
+                    }
                 }
                 catch (Throwable ex)
                 {
@@ -959,6 +1017,11 @@ public class Felix extends BundleImpl implements Framework
                     removeFrameworkListener(this, fl);
                 }
             }
+
+            if (m_tracer != null)
+            {
+                m_tracer.end(StartupTracer.CAT_FRAMEWORK, "Felix.init", traceStart);
+            }
         }
     }
 
@@ -1072,6 +1135,7 @@ public class Felix extends BundleImpl implements Framework
     @Override
     public void start() throws BundleException
     {
+        long traceStart = (m_tracer != null) ? m_tracer.begin() : 0;
         int startLevel = FelixConstants.FRAMEWORK_DEFAULT_STARTLEVEL;
 
         acquireBundleLock(this,
@@ -1117,6 +1181,13 @@ public class Felix extends BundleImpl implements Framework
 
         // Send a framework event to indicate the framework has started.
         fireFrameworkEvent(FrameworkEvent.STARTED, this, null);
+
+        if (m_tracer != null)
+        {
+            m_tracer.end(StartupTracer.CAT_FRAMEWORK, "Felix.start", traceStart);
+            // The launch is over, keep its timeline.
+            m_tracer.close();
+        }
     }
 
     @Override
@@ -1536,7 +1607,14 @@ public class Felix extends BundleImpl implements Framework
                                 options = (tuple.m_bundle.getPersistentState() == Bundle.STARTING)
                                     ? options | Bundle.START_ACTIVATION_POLICY
                                     : options;
+                                long traceStart = (m_tracer != null) ? m_tracer.begin() : 0;
                                 startBundle(tuple.m_bundle, options);
+                                if (m_tracer != null)
+                                {
+                                    m_tracer.end(StartupTracer.CAT_FRAMEWORK,
+                                        "start " + tuple.m_bundle + " (level " + tuple.m_level + ")",
+                                        traceStart);
+                                }
                             }
                             catch (Throwable th)
                             {
@@ -2399,8 +2477,13 @@ public class Felix extends BundleImpl implements Framework
                 // Activate the bundle if it has an activator.
                 if (bundle.getActivator() != null)
                 {
+                    long traceStart = (m_tracer != null) ? m_tracer.begin() : 0;
                     m_secureAction.startActivator(
                         bundle.getActivator(), bundle._getBundleContext());
+                    if (m_tracer != null)
+                    {
+                        m_tracer.end(StartupTracer.CAT_ACTIVATOR, bundle.toString(), traceStart);
+                    }
                 }
 
                 setBundleStateAndNotify(bundle, Bundle.ACTIVE);
@@ -5127,8 +5210,15 @@ public class Felix extends BundleImpl implements Framework
             {
                 try
                 {
+                    BundleActivator activator = iter.next();
+                    long traceStart = (m_tracer != null) ? m_tracer.begin() : 0;
                     Felix.m_secureAction.startActivator(
-                        iter.next(), context);
+                        activator, context);
+                    if (m_tracer != null)
+                    {
+                        m_tracer.end(StartupTracer.CAT_ACTIVATOR,
+                            activator.getClass().getName(), traceStart);
+                    }
                 }
                 catch (Throwable throwable)
                 {
@@ -44,6 +44,7 @@ import org.apache.felix.framework.resolver.CandidateComparator;
 import org.apache.felix.framework.resolver.ResolveException;
 import org.apache.felix.framework.util.FelixConstants;
 import org.apache.felix.framework.util.ShrinkableCollection;
+import org.apache.felix.framework.util.StartupTracer;
 import org.apache.felix.framework.util.Util;
 import org.apache.felix.framework.util.manifestparser.NativeLibrary;
 import org.apache.felix.framework.wiring.BundleRequirementImpl;
@@ -472,6 +473,8 @@ class StatefulResolver
             // Catch any resolve exception to rethrow later because
             // we may need to call end() on resolver hooks.
             ResolutionException rethrow = null;
+            StartupTracer tracer = m_felix.getStartupTracer();
+            long traceStart = (tracer != null) ? tracer.begin() : 0;
             try
             {
                 // Resolve the revision.
@@ -488,6 +491,11 @@ class StatefulResolver
             {
                 rethrow = ex;
             }
+            if (tracer != null)
+            {
+                tracer.end(StartupTracer.CAT_RESOLVER, "resolve " + mandatory.size()
+                    + " mandatory, " + optional.size() + " optional", traceStart);
+            }
 
             // Release resolver hooks, if any.
             releaseResolverHooks(record);
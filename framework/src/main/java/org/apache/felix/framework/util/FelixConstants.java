@@ -56,6 +56,8 @@ public interface FelixConstants extends org.osgi.framework.Constants
     String USE_CACHEDURLS_PROPS = "felix.bundlecodesource.usecachedurls";
     String RESOLVER_PARALLELISM = "felix.resolver.parallelism";
     String USE_PROPERTY_SUBSTITUTION_IN_SYSTEMPACKAGES = "felix.systempackages.substitution";
+    String STARTUP_TRACE_PROP = "felix.startup.trace";
+    String STARTUP_TRACE_SIZE_PROP = "felix.startup.trace.size";
 
     // Missing OSGi constant for resolution directive.
     String RESOLUTION_DYNAMIC = "dynamic";
@@ -73,4 +75,5 @@ public interface FelixConstants extends org.osgi.framework.Constants
     String FELIX_EXTENSIONS_DISABLE = "felix.extensions.disable";
     String FRAMEWORK_UUID_SECURE = "felix.uuid.secure";
     String CALCULATE_SYSTEMPACKAGES_USES = "felix.systempackages.calculate.uses";
+    String SYSTEMPACKAGES_USES_CACHE = "felix.systempackages.uses.cache";
 }
@@ -0,0 +1,265 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.framework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Records the timeline of the framework launch, i.e., the time spent
+ * in the bundle cache, the resolver, the bundle activators, and the
+ * synchronous bundle listeners of extenders. The tracer only exists if
+ * it is enabled with the <tt>felix.startup.trace</tt> configuration
+ * property, so callers check for <tt>null</tt> before recording anything.
+ * Spans are kept in a fixed size ring buffer, so only the most recent
+ * spans are retained, and can be dumped in the Chrome trace event format
+ * to be loaded into <tt>chrome://tracing</tt> or similar viewers. The
+ * tracer is closed once the framework has started, so that later activity
+ * does not overwrite the launch timeline.
+**/
+public class StartupTracer implements Callable<String>
+{
+    public static final int DEFAULT_SIZE = 8192;
+
+    public static final String CAT_FRAMEWORK = "framework";
+    public static final String CAT_CACHE = "cache";
+    public static final String CAT_RESOLVER = "resolver";
+    public static final String CAT_ACTIVATOR = "activator";
+    public static final String CAT_LISTENER = "listener";
+
+    private final AtomicReferenceArray<Span> m_spans;
+    private final AtomicLong m_count = new AtomicLong();
+    private final long m_origin = System.nanoTime();
+    private volatile boolean m_closed;
+
+    public StartupTracer(int size)
+    {
+        m_spans = new AtomicReferenceArray<Span>(Math.max(1, size));
+    }
+
+    /**
+     * Creates a tracer if it is enabled in the given configuration.
+     *
+     * @param configMap the framework configuration.
+     * @return the tracer or <tt>null</tt> if tracing is disabled.
+    **/
+    public static StartupTracer create(Map<String, Object> configMap)
+    {
+        Object enabled = configMap.get(FelixConstants.STARTUP_TRACE_PROP);
+        if ((enabled == null) || !"true".equalsIgnoreCase(enabled.toString().trim()))
+        {
+            return null;
+        }
+        int size = DEFAULT_SIZE;
+        Object s = configMap.get(FelixConstants.STARTUP_TRACE_SIZE_PROP);
+        if (s != null)
+        {
+            try
+            {
+                size = Integer.parseInt(s.toString().trim());
+            }
+            catch (NumberFormatException ex)
+            {
+                // Ignore and use the default size.
+            }
+        }
+        return new StartupTracer(size);
+    }
+
+    /**
+     * Returns the start time to pass to {@link #end(String, String, long)}.
+    **/
+    public long begin()
+    {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a span that started at the given time and ends now
+     * on the current thread.
+    **/
+    public void end(String category, String name, long start)
+    {
+        if (m_closed)
+        {
+            return;
+        }
+        long end = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        Span span = new Span(category, name, start - m_origin, end - start,
+            thread.getId(), thread.getName());
+        long index = m_count.getAndIncrement();
+        m_spans.set((int) (index % m_spans.length()), span);
+    }
+
+    /**
+     * Stops recording spans, the spans recorded so far are kept.
+    **/
+    public void close()
+    {
+        m_closed = true;
+    }
+
+    /**
+     * Returns the number of spans that were recorded but no longer
+     * fit into the ring buffer.
+    **/
+    public long getDropped()
+    {
+        return Math.max(0, m_count.get() - m_spans.length());
+    }
+
+    /**
+     * Returns the recorded spans in the Chrome trace event format.
+    **/
+    @Override
+    public String call()
+    {
+        return toChromeTrace();
+    }
+
+    public String toChromeTrace()
+    {
+        List<Span> spans = new ArrayList<Span>(m_spans.length());
+        for (int i = 0; i < m_spans.length(); i++)
+        {
+            Span span = m_spans.get(i);
+            if (span != null)
+            {
+                spans.add(span);
+            }
+        }
+        Collections.sort(spans, new Comparator<Span>()
+        {
+            @Override
+            public int compare(Span s1, Span s2)
+            {
+                return (s1.m_start < s2.m_start) ? -1 : ((s1.m_start == s2.m_start) ? 0 : 1);
+            }
+        });
+
+        StringBuilder sb = new StringBuilder(128 + spans.size() * 128);
+        sb.append("{\"traceEvents\":[");
+        List<Long> threads = new ArrayList<Long>();
+        boolean first = true;
+        for (Span span : spans)
+        {
+            if (!threads.contains(span.m_tid))
+            {
+                threads.add(span.m_tid);
+                first = appendSeparator(sb, first);
+                sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":")
+                    .append(span.m_tid).append(",\"args\":{\"name\":");
+                appendString(sb, span.m_thread);
+                sb.append("}}");
+            }
+            first = appendSeparator(sb, first);
+            sb.append("{\"name\":");
+            appendString(sb, span.m_name);
+            sb.append(",\"cat\":");
+            appendString(sb, span.m_category);
+            sb.append(",\"ph\":\"X\",\"ts\":");
+            appendMicros(sb, span.m_start);
+            sb.append(",\"dur\":");
+            appendMicros(sb, span.m_duration);
+            sb.append(",\"pid\":1,\"tid\":").append(span.m_tid).append('}');
+        }
+        sb.append("],\"displayTimeUnit\":\"ms\",\"otherData\":{\"dropped\":")
+            .append(getDropped()).append("}}");
+        return sb.toString();
+    }
+
+    private static boolean appendSeparator(StringBuilder sb, boolean first)
+    {
+        if (!first)
+        {
+            sb.append(',');
+        }
+        return false;
+    }
+
+    private static void appendMicros(StringBuilder sb, long nanos)
+    {
+        sb.append(nanos / 1000).append('.');
+        long fraction = nanos % 1000;
+        if (fraction < 100)
+        {
+            sb.append('0');
+        }
+        if (fraction < 10)
+        {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    private static void appendString(StringBuilder sb, String s)
+    {
+        sb.append('"');
+        for (int i = 0; (s != null) && (i < s.length()); i++)
+        {
+            char c = s.charAt(i);
+            if ((c == '"') || (c == '\\'))
+            {
+                sb.append('\\').append(c);
+            }
+            else if (c < 0x20)
+            {
+                String hex = Integer.toHexString(c);
+                sb.append("\\u");
+                for (int j = hex.length(); j < 4; j++)
+                {
+                    sb.append('0');
+                }
+                sb.append(hex);
+            }
+            else
+            {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    private static class Span
+    {
+        private final String m_category;
+        private final String m_name;
+        private final long m_start;
+        private final long m_duration;
+        private final long m_tid;
+        private final String m_thread;
+
+        Span(String category, String name, long start, long duration, long tid, String thread)
+        {
+            m_category = category;
+            m_name = name;
+            m_start = start;
+            m_duration = duration;
+            m_tid = tid;
+            m_thread = thread;
+        }
+    }
+}
@@ -32,6 +32,7 @@ import org.osgi.framework.namespace.NativeNamespace;
 import org.osgi.framework.wiring.BundleCapability;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -40,12 +41,16 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 /**
  *
@@ -188,6 +193,87 @@ public class ExtensionManagerTest {
         assert(framework.getHeaders().get(Constants.EXPORT_PACKAGE).contains("java.lang; version=\"" + versionString + "\""));
     }
 
+    @Test
+    public void testSharedUsesCache() throws Exception
+    {
+        assumeTrue(new Version(System.getProperty("java.specification.version")).getMajor() >= 9);
+        File shared = new File(testDir, "uses");
+
+        String exports = getSystemExports(new File(testDir, "cache1"), shared);
+        File[] jdks = shared.listFiles();
+        assertNotNull(jdks);
+        assertEquals(1, jdks.length);
+
+        // Every module is written completely, without leftover temporary files
+        File[] files = jdks[0].listFiles();
+        assertTrue(files.length > 0);
+        File cached = null;
+        for (File file : files)
+        {
+            assertTrue(file.getName(), file.getName().endsWith(".properties"));
+            Properties props = load(file);
+            if (cached == null && !props.isEmpty())
+            {
+                cached = file;
+            }
+        }
+        assertNotNull(cached);
+        assertTrue(exports.contains("uses:="));
+
+        // A framework with another storage reuses the cached uses
+        Properties props = load(cached);
+        String pkg = props.stringPropertyNames().iterator().next();
+        props.setProperty(pkg, "org.acme.cached");
+        OutputStream out = new FileOutputStream(cached);
+        try
+        {
+            props.store(out, null);
+        }
+        finally
+        {
+            out.close();
+        }
+        exports = getSystemExports(new File(testDir, "cache2"), shared);
+        assertTrue(exports, exports.contains("uses:=\"org.acme.cached\""));
+        assertEquals(files.length, jdks[0].listFiles().length);
+        assertFalse(new File(new File(testDir, "cache2"), "bundle0/data/modules").exists());
+    }
+
+    private static String getSystemExports(File cacheDir, File shared) throws Exception
+    {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(Constants.FRAMEWORK_STORAGE, cacheDir.getAbsolutePath());
+        params.put(FelixConstants.CALCULATE_SYSTEMPACKAGES_USES, "true");
+        params.put(FelixConstants.SYSTEMPACKAGES_USES_CACHE, shared.getAbsolutePath());
+
+        Framework framework = new Felix(params);
+        framework.init();
+        try
+        {
+            return framework.getHeaders().get(Constants.EXPORT_PACKAGE);
+        }
+        finally
+        {
+            framework.stop();
+            framework.waitForStop(10000);
+        }
+    }
+
+    private static Properties load(File file) throws IOException
+    {
+        Properties props = new Properties();
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            props.load(in);
+        }
+        finally
+        {
+            in.close();
+        }
+        return props;
+    }
+
     private File createExtensionBundle() throws IOException {
         File f = File.createTempFile("felix-bundle" + counter++, ".jar", testDir);
 
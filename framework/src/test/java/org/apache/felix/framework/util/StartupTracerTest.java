@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.framework.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import junit.framework.TestCase;
+
+import org.apache.felix.framework.Felix;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.SynchronousBundleListener;
+
+public class StartupTracerTest extends TestCase
+{
+    public void testDisabledByDefault()
+    {
+        Map<String, Object> config = new HashMap<String, Object>();
+        assertNull(StartupTracer.create(config));
+        config.put(FelixConstants.STARTUP_TRACE_PROP, "false");
+        assertNull(StartupTracer.create(config));
+        config.put(FelixConstants.STARTUP_TRACE_PROP, "true");
+        assertNotNull(StartupTracer.create(config));
+    }
+
+    public void testChromeTrace()
+    {
+        StartupTracer tracer = new StartupTracer(16);
+        long start = tracer.begin();
+        tracer.end(StartupTracer.CAT_ACTIVATOR, "a \"quoted\"\nname", start);
+
+        String json = tracer.toChromeTrace();
+        assertTrue(json, json.startsWith("{\"traceEvents\":["));
+        assertTrue(json, json.contains("\"name\":\"a \\\"quoted\\\"\\u000aname\""));
+        assertTrue(json, json.contains("\"cat\":\"activator\",\"ph\":\"X\""));
+        assertTrue(json, json.contains("\"ph\":\"M\""));
+        assertTrue(json, json.contains("\"tid\":" + Thread.currentThread().getId()));
+        assertTrue(json, json.endsWith("\"otherData\":{\"dropped\":0}}"));
+    }
+
+    public void testRingBuffer()
+    {
+        StartupTracer tracer = new StartupTracer(2);
+        for (int i = 0; i < 5; i++)
+        {
+            tracer.end(StartupTracer.CAT_FRAMEWORK, "span" + i, tracer.begin());
+        }
+
+        String json = tracer.toChromeTrace();
+        assertFalse(json, json.contains("\"span2\""));
+        assertTrue(json, json.indexOf("\"span3\"") < json.indexOf("\"span4\""));
+        assertEquals(3, tracer.getDropped());
+    }
+
+    public void testClose()
+    {
+        StartupTracer tracer = new StartupTracer(2);
+        tracer.end(StartupTracer.CAT_FRAMEWORK, "span0", tracer.begin());
+        tracer.close();
+        tracer.end(StartupTracer.CAT_FRAMEWORK, "span1", tracer.begin());
+        tracer.end(StartupTracer.CAT_FRAMEWORK, "span2", tracer.begin());
+
+        String json = tracer.toChromeTrace();
+        assertTrue(json, json.contains("\"span0\""));
+        assertFalse(json, json.contains("\"span1\""));
+        assertFalse(json, json.contains("\"span2\""));
+        assertEquals(0, tracer.getDropped());
+    }
+
+    public void testFrameworkLaunch() throws Exception
+    {
+        File cacheDir = File.createTempFile("felix-cache", ".dir");
+        cacheDir.delete();
+        cacheDir.mkdirs();
+
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put(Constants.FRAMEWORK_STORAGE, cacheDir.getPath());
+        params.put(FelixConstants.STARTUP_TRACE_PROP, "true");
+
+        Felix felix = new Felix(params);
+        try
+        {
+            felix.start();
+
+            Collection<ServiceReference<Callable>> refs = felix.getBundleContext()
+                .getServiceReferences(Callable.class, "(felix.startup.trace=chrome)");
+            assertEquals(1, refs.size());
+            Callable<?> trace = felix.getBundleContext().getService(refs.iterator().next());
+            String json = (String) trace.call();
+            assertTrue(json, json.contains("\"Felix.init\""));
+            assertTrue(json, json.contains("\"Felix.start\""));
+            assertTrue(json, json.contains("\"ExtensionManager.updateRevision\""));
+            assertTrue(json, json.contains("\"cat\":\"resolver\""));
+
+            // Activity after the launch is not recorded.
+            felix.getBundleContext().addBundleListener(new SynchronousBundleListener()
+            {
+                @Override
+                public void bundleChanged(BundleEvent event)
+                {
+                }
+            });
+            felix.getBundleContext().installBundle("test:bundle", createBundle());
+            assertEquals(json, trace.call());
+        }
+        finally
+        {
+            felix.stop();
+            felix.waitForStop(10000);
+            deleteDir(cacheDir);
+        }
+    }
+
+    private static InputStream createBundle() throws Exception
+    {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        manifest.getMainAttributes().putValue(Constants.BUNDLE_SYMBOLICNAME, "startup.tracer.test");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new JarOutputStream(bytes, manifest).close();
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    private static void deleteDir(File file)
+    {
+        File[] files = file.listFiles();
+        for (int i = 0; (files != null) && (i < files.length); i++)
+        {
+            deleteDir(files[i]);
+        }
+        file.delete();
+    }
+}
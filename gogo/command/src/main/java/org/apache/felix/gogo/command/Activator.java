@@ -35,7 +35,7 @@ public class Activator implements BundleActivator
         props.put("osgi.command.function", new String[] {
             "bundlelevel", "frameworklevel", "headers",
             "help", "install", "lb", "log", "refresh",
-            "resolve", "start", "stop", "uninstall", "update",
+            "resolve", "start", "startuptrace", "stop", "uninstall", "update",
             "which" });
         bc.registerService(
             Basic.class.getName(), new Basic(systemBundleContext), props);
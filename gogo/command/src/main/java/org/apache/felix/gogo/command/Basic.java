@@ -29,6 +29,7 @@ import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.Dictionary;
 import java.util.Enumeration;
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import org.apache.felix.service.command.CommandSession;
 import org.apache.felix.service.command.Descriptor;
@@ -58,6 +60,8 @@ import org.osgi.service.log.LogService;
 
 public class Basic
 {
+    private static final String STARTUP_TRACE_PROP = "felix.startup.trace";
+
     private final BundleContext m_bc;
     private final Bundle m_b0;
 
@@ -720,6 +724,32 @@ public class Basic
         }
     }
 
+    @Descriptor("display the framework startup timeline in Chrome trace format")
+    public String startuptrace() throws Exception
+    {
+        Collection<ServiceReference<Callable>> refs = m_bc.getServiceReferences(
+            Callable.class, "(" + STARTUP_TRACE_PROP + "=chrome)");
+        if (refs.isEmpty())
+        {
+            return "Startup trace is unavailable, launch the framework with "
+                + STARTUP_TRACE_PROP + "=true.";
+        }
+        ServiceReference<Callable> ref = refs.iterator().next();
+        Callable<?> trace = m_bc.getService(ref);
+        if (trace == null)
+        {
+            return "Startup trace is unavailable.";
+        }
+        try
+        {
+            return String.valueOf(trace.call());
+        }
+        finally
+        {
+            m_bc.ungetService(ref);
+        }
+    }
+
     @Descriptor("stop bundles")
     public String stop(@Descriptor("stop bundle transiently") @Parameter(names = { "-t",
             "--transient" }, presentValue = "true", absentValue = "false") boolean trans,
@@ -55,6 +55,21 @@ public class Closure implements Function, Evaluate
 
     private static final ThreadLocal<String> location = new ThreadLocal<>();
 
+    // parsed programs of the most recently executed command lines, programs are immutable and can be shared
+    private static final int PROGRAM_CACHE_SIZE = 256;
+    private static final int PROGRAM_CACHE_MAX_LENGTH = 8192;
+    private static final Map<String, Program> programs = Collections.synchronizedMap(
+        new LinkedHashMap<String, Program>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, Program> eldest)
+            {
+                return size() > PROGRAM_CACHE_SIZE;
+            }
+        });
+
     private final CommandSessionImpl session;
     private final Closure parent;
     private final CharSequence source;
@@ -81,7 +96,7 @@ public class Closure implements Function, Evaluate
         {
             try
             {
-                this.program = new Parser(source).program();
+                this.program = parse(source);
             }
             catch (Exception e)
             {
@@ -99,6 +114,22 @@ public class Closure implements Function, Evaluate
         this.program = program;
     }
 
+    private static Program parse(CharSequence source)
+    {
+        if (source.length() > PROGRAM_CACHE_MAX_LENGTH)
+        {
+            return new Parser(source).program();
+        }
+        String key = source.toString();
+        Program program = programs.get(key);
+        if (program == null)
+        {
+            program = new Parser(key).program();
+            programs.put(key, program);
+        }
+        return program;
+    }
+
     public CommandSessionImpl session()
     {
         return session;
@@ -257,6 +257,7 @@ public class CommandProcessorImpl implements CommandProcessor
             cmdMap = commands.get(key);
         }
         cmdMap.put(target, ranking);
+        Reflective.clearCache();
     }
 
     public void removeCommand(String scope, String function)
@@ -264,6 +265,7 @@ public class CommandProcessorImpl implements CommandProcessor
         // TODO: WARNING: this method does remove all mapping for scope:function
         String key = (scope + ":" + function).toLowerCase();
         commands.remove(key);
+        Reflective.clearCache();
     }
 
     public void removeCommand(String scope, String function, Object target)
@@ -275,6 +277,7 @@ public class CommandProcessorImpl implements CommandProcessor
         {
             cmdMap.remove(target);
         }
+        Reflective.clearCache();
     }
 
     public void removeCommand(Object target)
@@ -283,6 +286,7 @@ public class CommandProcessorImpl implements CommandProcessor
         {
             cmdMap.remove(target);
         }
+        Reflective.clearCache();
     }
 
     private String[] getFunctions(Class<?> target)
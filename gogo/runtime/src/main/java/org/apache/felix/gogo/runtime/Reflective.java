@@ -32,6 +32,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.felix.service.command.CommandSession;
 import org.apache.felix.service.command.Parameter;
@@ -50,6 +52,31 @@ public final class Reflective
                 "finally", "long", "strictfp", "volatile", "const", "float", "native",
                 "super", "while"));
 
+    // maximum number of cached dispatch decisions per class
+    private final static int DISPATCH_CACHE_SIZE = 256;
+
+    private static volatile ClassValue<MethodCache> methodCaches = newMethodCaches();
+
+    /**
+     * Discards the cached methods and dispatch decisions, so that classes of removed commands are not retained.
+     */
+    static void clearCache()
+    {
+        methodCaches = newMethodCaches();
+    }
+
+    private static ClassValue<MethodCache> newMethodCaches()
+    {
+        return new ClassValue<MethodCache>()
+        {
+            @Override
+            protected MethodCache computeValue(Class<?> type)
+            {
+                return new MethodCache(type);
+            }
+        };
+    }
+
     /**
      * invokes the named method on the given target using the supplied args,
      * which are converted if necessary.
@@ -63,75 +90,79 @@ public final class Reflective
     public static Object invoke(CommandSession session, Object target, String name,
         List<Object> args) throws Exception
     {
-        Method[] methods = target.getClass().getMethods();
         name = name.toLowerCase(Locale.ENGLISH);
-
         String org = name;
-        String get = "get" + name;
-        String is = "is" + name;
-        String set = "set" + name;
+
+        MethodCache cache = null;
+        List<Candidate> candidates = null;
+        if (target instanceof Class<?>)
+        {
+            cache = methodCaches.get((Class<?>) target);
+            candidates = cache.getCandidates(org);
+        }
+        if (candidates == null || candidates.isEmpty())
+        {
+            cache = methodCaches.get(target.getClass());
+            candidates = cache.getCandidates(org);
+        }
 
         if (KEYWORDS.contains(name))
         {
             name = "_" + name;
         }
 
-        if (target instanceof Class<?>)
+        Method bestMethod = null;
+        Object[] bestArgs = null;
+
+        // the method selected by a previous call with the same argument types is tried first:
+        // if it needs no conversion, no other method can be a better match.
+        String dispatchKey = MethodCache.getDispatchKey(org, args);
+        Candidate cached = cache.getDispatch(dispatchKey);
+        if (cached != null)
         {
-            Method[] staticMethods = ((Class<?>) target).getMethods();
-            for (Method m : staticMethods)
+            Object[] parms = new Object[cached.types.length];
+            if (coerce(session, target, cached, org, parms, args) == 0)
             {
-                String mname = m.getName().toLowerCase(Locale.ENGLISH);
-                if (mname.equals(name) || mname.equals(get) || mname.equals(set)
-                    || mname.equals(is) || mname.equals(MAIN))
-                {
-                    methods = staticMethods;
-                    break;
-                }
+                bestMethod = cached.method;
+                bestArgs = parms;
             }
         }
 
-        Method bestMethod = null;
-        Object[] bestArgs = null;
         int lowestMatch = Integer.MAX_VALUE;
+        Candidate bestCandidate = null;
         ArrayList<Class<?>[]> possibleTypes = new ArrayList<>();
 
-        for (Method m : methods)
+        for (int c = 0; bestMethod == null && c < candidates.size(); c++)
         {
-            String mname = m.getName().toLowerCase(Locale.ENGLISH);
-            if (mname.equals(name) || mname.equals(get) || mname.equals(set)
-                || mname.equals(is) || mname.equals(MAIN))
-            {
-                Class<?>[] types = m.getParameterTypes();
-                ArrayList<Object> xargs = new ArrayList<>(args);
+            Candidate candidate = candidates.get(c);
+            Object[] parms = new Object[candidate.types.length];
+            int match = coerce(session, target, candidate, org, parms, args);
 
-                // pass command name as argv[0] to main, so it can handle
-                // multiple commands
-                if (mname.equals(MAIN))
+            if (match < 0)
+            {
+                // coerce failed
+                possibleTypes.add(candidate.types);
+            }
+            else
+            {
+                if (match < lowestMatch)
                 {
-                    xargs.add(0, org);
+                    lowestMatch = match;
+                    bestCandidate = candidate;
+                    bestArgs = parms;
                 }
 
-                Object[] parms = new Object[types.length];
-                int match = coerce(session, target, m, types, parms, xargs);
-
-                if (match < 0)
-                {
-                    // coerce failed
-                    possibleTypes.add(types);
-                }
-                else
-                {
-                    if (match < lowestMatch)
-                    {
-                        lowestMatch = match;
-                        bestMethod = m;
-                        bestArgs = parms;
-                    }
+                if (match == 0)
+                    break; // can't get better score
+            }
+        }
 
-                    if (match == 0)
-                        break; // can't get better score
-                }
+        if (bestCandidate != null)
+        {
+            bestMethod = bestCandidate.method;
+            if (lowestMatch == 0)
+            {
+                cache.putDispatch(dispatchKey, bestCandidate);
             }
         }
 
@@ -212,46 +243,37 @@ public final class Reflective
      * args: true, value2, arg3
      * @return new ordered list of args.
      */
-    private static List<Object> transformParameters(Method method, List<Object> in)
+    private static List<Object> transformParameters(Parameter[] parameters, List<Object> in)
     {
-        Annotation[][] pas = method.getParameterAnnotations();
         ArrayList<Object> out = new ArrayList<>();
         ArrayList<Object> parms = new ArrayList<>(in);
 
-        for (Annotation as[] : pas)
+        for (Parameter p : parameters)
         {
-            for (Annotation a : as)
+            int i = -1;
+            for (String name : p.names())
             {
-                if (a instanceof Parameter)
-                {
-                    int i = -1;
-                    Parameter p = (Parameter) a;
-                    for (String name : p.names())
-                    {
-                        i = parms.indexOf(name);
-                        if (i >= 0)
-                            break;
-                    }
-
-                    if (i >= 0)
-                    {
-                        // parameter present
-                        parms.remove(i);
-                        Object value = p.presentValue();
-                        if (Parameter.UNSPECIFIED.equals(value))
-                        {
-                            if (i >= parms.size())
-                                return null; // missing parameter, so try other methods
-                            value = parms.remove(i);
-                        }
-                        out.add(value);
-                    }
-                    else
-                    {
-                        out.add(p.absentValue());
-                    }
+                i = parms.indexOf(name);
+                if (i >= 0)
+                    break;
+            }
 
+            if (i >= 0)
+            {
+                // parameter present
+                parms.remove(i);
+                Object value = p.presentValue();
+                if (Parameter.UNSPECIFIED.equals(value))
+                {
+                    if (i >= parms.size())
+                        return null; // missing parameter, so try other methods
+                    value = parms.remove(i);
                 }
+                out.add(value);
+            }
+            else
+            {
+                out.add(p.absentValue());
             }
         }
 
@@ -260,6 +282,21 @@ public final class Reflective
         return out;
     }
 
+    /**
+     * Converts the arguments for a candidate method, passing the command name as argv[0]
+     * to a _main method, so it can handle multiple commands.
+     */
+    private static int coerce(CommandSession session, Object target, Candidate candidate,
+        String command, Object out[], List<Object> args)
+    {
+        ArrayList<Object> xargs = new ArrayList<>(args);
+        if (candidate.main)
+        {
+            xargs.add(0, command);
+        }
+        return coerce(session, target, candidate.parameters, candidate.types, out, xargs);
+    }
+
     /**
      * Complex routein to convert the arguments given from the command line to
      * the arguments of the method call. First, an attempt is made to convert
@@ -268,7 +305,7 @@ public final class Reflective
      * @return -1 if arguments can't be coerced; 0 if no coercion was necessary;
      *          > 0 if coercion was needed.
      */
-    private static int coerce(CommandSession session, Object target, Method m,
+    private static int coerce(CommandSession session, Object target, Parameter[] parameters,
         Class<?> types[], Object out[], List<Object> in)
     {
         List<Object> cnvIn = new ArrayList<>();
@@ -290,10 +327,10 @@ public final class Reflective
             }
         }
 
-        cnvIn = transformParameters(m, cnvIn);
+        cnvIn = transformParameters(parameters, cnvIn);
         if (different != 0)
         {
-            cnvIn2 = transformParameters(m, cnvIn2);
+            cnvIn2 = transformParameters(parameters, cnvIn2);
         }
         if (cnvIn == null || cnvIn2 == null)
         {
@@ -303,17 +340,17 @@ public final class Reflective
 
         int res;
 
-        res = docoerce(session, target, m, types, out, cnvIn);
+        res = docoerce(session, target, types, out, cnvIn);
         // Without conversion
         if (different != 0 && res < 0)
         {
-            res = docoerce(session, target, m, types, out, cnvIn2);
+            res = docoerce(session, target, types, out, cnvIn2);
         }
         else if (different != 0 && res > 0)
         {
             int res2;
             Object[] out2 = out.clone();
-            res2 = docoerce(session, target, m, types, out2, cnvIn2) + different * 2;
+            res2 = docoerce(session, target, types, out2, cnvIn2) + different * 2;
             if (res >= 0 && res2 <= res)
             {
                 res = res2;
@@ -325,18 +362,18 @@ public final class Reflective
                     && types[0].isAssignableFrom(session.getClass()))
         {
             cnvIn.add(0, session);
-            res = docoerce(session, target, m, types, out, cnvIn);
+            res = docoerce(session, target, types, out, cnvIn);
             if (different != 0 && res < 0)
             {
                 cnvIn2.add(0, session);
-                res = docoerce(session, target, m, types, out, cnvIn2);
+                res = docoerce(session, target, types, out, cnvIn2);
             }
             else if (different != 0 && res > 0)
             {
                 int res2;
                 cnvIn2.add(0, session);
                 Object[] out2 = out.clone();
-                res2 = docoerce(session, target, m, types, out2, cnvIn2) + different * 2;
+                res2 = docoerce(session, target, types, out2, cnvIn2) + different * 2;
                 if (res >= 0 && res2 <= res)
                 {
                     res = res2;
@@ -347,7 +384,7 @@ public final class Reflective
         return res;
     }
 
-    private static int docoerce(CommandSession session, Object target, Method m,
+    private static int docoerce(CommandSession session, Object target,
                               Class<?> types[], Object out[], List<Object> in)
     {
         int[] convert = { 0 };
@@ -639,4 +676,98 @@ public final class Reflective
         return null;
     }
 
+    /**
+     * A public method matching a command name, with the information needed to coerce arguments.
+     */
+    private static final class Candidate
+    {
+        final Method method;
+        final Class<?>[] types;
+        final Parameter[] parameters;
+        final boolean main;
+
+        Candidate(Method method, boolean main)
+        {
+            this.method = method;
+            this.types = method.getParameterTypes();
+            this.main = main;
+            List<Parameter> params = new ArrayList<>();
+            for (Annotation as[] : method.getParameterAnnotations())
+            {
+                for (Annotation a : as)
+                {
+                    if (a instanceof Parameter)
+                    {
+                        params.add((Parameter) a);
+                    }
+                }
+            }
+            this.parameters = params.toArray(new Parameter[params.size()]);
+        }
+    }
+
+    /**
+     * The candidate methods of a class for each command name, and the methods selected for
+     * previous invocations which did not need any argument conversion.
+     */
+    private static final class MethodCache
+    {
+        private final Class<?> type;
+        private final ConcurrentMap<String, List<Candidate>> candidates = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, Candidate> dispatch = new ConcurrentHashMap<>();
+
+        MethodCache(Class<?> type)
+        {
+            this.type = type;
+        }
+
+        List<Candidate> getCandidates(String command)
+        {
+            List<Candidate> list = candidates.get(command);
+            if (list == null)
+            {
+                String name = KEYWORDS.contains(command) ? "_" + command : command;
+                String get = "get" + command;
+                String is = "is" + command;
+                String set = "set" + command;
+                list = new ArrayList<>();
+                for (Method m : type.getMethods())
+                {
+                    String mname = m.getName().toLowerCase(Locale.ENGLISH);
+                    if (mname.equals(name) || mname.equals(get) || mname.equals(set)
+                        || mname.equals(is) || mname.equals(MAIN))
+                    {
+                        list.add(new Candidate(m, mname.equals(MAIN)));
+                    }
+                }
+                candidates.putIfAbsent(command, list);
+            }
+            return list;
+        }
+
+        Candidate getDispatch(String key)
+        {
+            return dispatch.get(key);
+        }
+
+        void putDispatch(String key, Candidate candidate)
+        {
+            if (dispatch.size() >= DISPATCH_CACHE_SIZE)
+            {
+                dispatch.clear();
+            }
+            dispatch.put(key, candidate);
+        }
+
+        static String getDispatchKey(String command, List<Object> args)
+        {
+            StringBuilder key = new StringBuilder(command).append('/').append(args.size());
+            for (Object arg : args)
+            {
+                key.append(',').append(arg == null ? "null" : arg.getClass().getName());
+            }
+            return key.toString();
+        }
+    }
+
 }
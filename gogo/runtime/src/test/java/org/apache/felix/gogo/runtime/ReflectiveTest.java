@@ -26,6 +26,7 @@ import java.util.*;
 
 import org.apache.felix.service.command.CommandSession;
 import org.apache.felix.service.command.Converter;
+import org.apache.felix.service.command.Parameter;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -49,6 +50,17 @@ public class ReflectiveTest {
         assertEquals(new Object[] { new Object[] { 1, 2 }, "ab" }, invoke("test1", Arrays.<Object>asList(new Object[] { 1, 2 }, "ab")));
     }
 
+    @Test
+    public void testRepeatedInvocation() throws Exception {
+        // the method selected for the first invocation must not be reused when other arguments match another method better
+        for (int i = 0; i < 3; i++) {
+            assertEquals("string:ab", invoke("test5", Arrays.<Object>asList("ab")));
+            assertEquals("long:1", invoke("test5", Arrays.<Object>asList(1L)));
+            assertEquals("flag:true:ab", invoke("test6", Arrays.<Object>asList("-f", "ab")));
+            assertEquals("flag:false:ab", invoke("test6", Arrays.<Object>asList("ab")));
+        }
+    }
+
     @Test
     public void testAddConverter() throws Exception {
         InputStream in = new ByteArrayInputStream(new byte[0]);
@@ -84,6 +96,18 @@ public class ReflectiveTest {
         public Object test4(CommandSession session, List<String> argv) {
             return argv;
         }
+
+        public Object test5(String s) {
+            return "string:" + s;
+        }
+
+        public Object test5(long l) {
+            return "long:" + l;
+        }
+
+        public Object test6(@Parameter(names = "-f", presentValue = "true", absentValue = "false") boolean flag, String s) {
+            return "flag:" + flag + ":" + s;
+        }
     }
 
     static Object invoke(String method, List<Object> args) throws Exception {
@@ -20,6 +20,7 @@ package org.apache.felix.hc.core.impl.executor;
 import static org.apache.felix.hc.api.FormattingResultLog.msHumanReadable;
 import static org.apache.felix.hc.core.impl.executor.HealthCheckExecutorImplConfiguration.LONGRUNNING_FUTURE_THRESHOLD_CRITICAL_DEFAULT_MS;
 import static org.apache.felix.hc.core.impl.executor.HealthCheckExecutorImplConfiguration.RESULT_CACHE_TTL_DEFAULT_MS;
+import static org.apache.felix.hc.core.impl.executor.HealthCheckExecutorImplConfiguration.STALE_WHILE_REVALIDATE_DEFAULT_MS;
 import static org.apache.felix.hc.core.impl.executor.HealthCheckExecutorImplConfiguration.TIMEOUT_DEFAULT_MS;
 
 import java.text.DateFormat;
@@ -50,7 +51,7 @@ import org.apache.felix.hc.api.execution.HealthCheckExecutor;
 import org.apache.felix.hc.api.execution.HealthCheckMetadata;
 import org.apache.felix.hc.api.execution.HealthCheckSelector;
 import org.apache.felix.hc.core.impl.executor.async.AsyncHealthCheckExecutor;
-import org.apache.felix.hc.core.impl.util.HealthCheckFilter;
+import org.apache.felix.hc.core.impl.util.HealthCheckIndex;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.framework.InvalidSyntaxException;
@@ -84,6 +85,8 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
 
     private long resultCacheTtlInMs;
 
+    private long staleWhileRevalidateInMs;
+
     private String[] defaultTags;
 
     private HealthCheckResultCache healthCheckResultCache = new HealthCheckResultCache();
@@ -100,6 +103,8 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
 
     private BundleContext bundleContext;
 
+    private HealthCheckIndex healthCheckIndex;
+
     @Activate
     protected final void activate(final HealthCheckExecutorImplConfiguration configuration, final BundleContext bundleContext) {
         this.bundleContext = bundleContext;
@@ -114,6 +119,9 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
             throw new RuntimeException("Unexpected problem with filter syntax", ise);
         }
 
+        this.healthCheckIndex = new HealthCheckIndex(bundleContext);
+        this.healthCheckIndex.open();
+
         logger.info("HealthCheckExecutor active at start level {}", getCurrentStartLevel());
     }
 
@@ -125,6 +133,7 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
     @Deactivate
     protected final void deactivate() {
         this.bundleContext.removeServiceListener(this);
+        this.healthCheckIndex.close();
         this.healthCheckResultCache.clear();
         logger.info("HealthCheckExecutor shutdown at start level {}", getCurrentStartLevel());
     }
@@ -149,6 +158,11 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
             this.resultCacheTtlInMs = RESULT_CACHE_TTL_DEFAULT_MS;
         }
 
+        this.staleWhileRevalidateInMs = configuration.staleWhileRevalidateInMs();
+        if (this.staleWhileRevalidateInMs < 0L) {
+            this.staleWhileRevalidateInMs = STALE_WHILE_REVALIDATE_DEFAULT_MS;
+        }
+
         this.defaultTags = configuration.defaultTags();
 
         tempUnavailableGracePeriodEvaluator = new TempUnavailableGracePeriodEvaluator(configuration.temporarilyAvailableGracePeriodInMs());
@@ -179,19 +193,17 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
             selector.withTags(defaultTags);
         }
 
-        final ServiceReference<HealthCheck>[] healthCheckReferences = selectHealthCheckReferences(selector, options);
-        List<HealthCheckExecutionResult> results = this.execute(healthCheckReferences, options);
-        return results;
-
+        // the cached list of the index is shared, the descriptors are consumed while creating the results
+        final List<HealthCheckMetadata> healthCheckDescriptors = new LinkedList<HealthCheckMetadata>(
+                healthCheckIndex.getHealthCheckMetadata(selector, options.isCombineTagsWithOr()));
+        return this.execute(healthCheckDescriptors, options);
     }
 
     /** @see org.apache.felix.hc.core.impl.executor.ExtendedHealthCheckExecutor#selectHealthCheckReferences(HealthCheckSelector,
      *      HealthCheckExecutionOptions) */
     @Override
     public ServiceReference<HealthCheck>[] selectHealthCheckReferences(HealthCheckSelector selector, HealthCheckExecutionOptions options) {
-        final HealthCheckFilter filter = new HealthCheckFilter(this.bundleContext);
-        final ServiceReference<HealthCheck>[] healthCheckReferences = filter.getHealthCheckServiceReferences(selector, options.isCombineTagsWithOr());
-        return healthCheckReferences;
+        return healthCheckIndex.getHealthCheckServiceReferences(selector, options.isCombineTagsWithOr());
     }
 
     /** @see org.apache.felix.hc.core.impl.executor.ExtendedHealthCheckExecutor#execute(org.osgi.framework.ServiceReference) */
@@ -205,10 +217,14 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
     @Override
     public List<HealthCheckExecutionResult> execute(final ServiceReference<HealthCheck>[] healthCheckReferences,
             HealthCheckExecutionOptions options) {
+        return execute(getHealthCheckMetadata(healthCheckReferences), options);
+    }
+
+    private List<HealthCheckExecutionResult> execute(final List<HealthCheckMetadata> healthCheckDescriptors,
+            HealthCheckExecutionOptions options) {
         final long startTime = System.currentTimeMillis();
 
         final List<HealthCheckExecutionResult> results = new ArrayList<HealthCheckExecutionResult>();
-        final List<HealthCheckMetadata> healthCheckDescriptors = getHealthCheckMetadata(healthCheckReferences);
 
         createResultsForDescriptors(healthCheckDescriptors, results, options);
 
@@ -262,8 +278,19 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
             healthCheckResultCache.useValidCacheResults(healthCheckDescriptors, results, resultCacheTtlInMs);
         }
 
-        // everything else is executed in parallel via futures
-        List<HealthCheckFuture> futures = createOrReuseFutures(healthCheckDescriptors);
+        // return outdated results right away if configured, the checks are executed again in the background
+        if (!options.isForceInstantExecution() && staleWhileRevalidateInMs > 0) {
+            final List<HealthCheckMetadata> staleDescriptors = healthCheckResultCache.useStaleCacheResults(healthCheckDescriptors, results,
+                    resultCacheTtlInMs, staleWhileRevalidateInMs);
+            if (!staleDescriptors.isEmpty()) {
+                logger.debug("Revalidating {} outdated results in the background", staleDescriptors.size());
+                createOrReuseFutures(staleDescriptors, null);
+            }
+        }
+
+        // everything else is executed in parallel via futures (concurrent calls for the same check share one execution)
+        List<HealthCheckFuture> futures = createOrReuseFutures(healthCheckDescriptors,
+                options.isForceInstantExecution() ? null : results);
 
         // wait for futures at most until timeout (but will return earlier if all futures are finished)
         waitForFuturesRespectingTimeout(futures, options);
@@ -303,17 +330,34 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
 
     /** Create the health check meta data */
     private HealthCheckMetadata getHealthCheckMetadata(final ServiceReference healthCheckReference) {
+        if (healthCheckIndex != null) {
+            return healthCheckIndex.getHealthCheckMetadata(healthCheckReference);
+        }
         final HealthCheckMetadata descriptor = new HealthCheckMetadata(healthCheckReference);
         return descriptor;
     }
 
-    /** Create or reuse future for the list of health checks */
-    private List<HealthCheckFuture> createOrReuseFutures(final List<HealthCheckMetadata> healthCheckDescriptors) {
+    /** Create or reuse future for the list of health checks
+     * 
+     * @param healthCheckDescriptors The health checks to execute
+     * @param cachedResults If not null, the cache is checked again for each health check and valid results are added to this collection
+     *            instead of creating a future */
+    private List<HealthCheckFuture> createOrReuseFutures(final List<HealthCheckMetadata> healthCheckDescriptors,
+            final Collection<HealthCheckExecutionResult> cachedResults) {
         final List<HealthCheckFuture> futuresForResultOfThisCall = new LinkedList<HealthCheckFuture>();
 
         synchronized (this.stillRunningFutures) {
             for (final HealthCheckMetadata md : healthCheckDescriptors) {
 
+                // an execution of this check may have finished (and updated the cache) since the cache was checked
+                if (cachedResults != null) {
+                    final HealthCheckExecutionResult cachedResult = healthCheckResultCache.getValidCacheResult(md, resultCacheTtlInMs);
+                    if (cachedResult != null) {
+                        cachedResults.add(cachedResult);
+                        continue;
+                    }
+                }
+
                 futuresForResultOfThisCall.add(createOrReuseFuture(md));
 
             }
@@ -477,6 +521,10 @@ public class HealthCheckExecutorImpl implements ExtendedHealthCheckExecutor, Ser
         this.timeoutInMs = timeoutInMs;
     }
 
+    public void setStaleWhileRevalidateInMs(final long staleWhileRevalidateInMs) {
+        this.staleWhileRevalidateInMs = staleWhileRevalidateInMs;
+    }
+
     public void setLongRunningFutureThresholdForRedMs(
             final long longRunningFutureThresholdForRedMs) {
         this.longRunningFutureThresholdForRedMs = longRunningFutureThresholdForRedMs;
@@ -29,6 +29,8 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
     long RESULT_CACHE_TTL_DEFAULT_MS = 1000L * 2;
 
+    long STALE_WHILE_REVALIDATE_DEFAULT_MS = 0L; // disabled by default
+
     long TEMPORARILY_UNAVAILABLE_GRACE_PERIOD_DEFAULT_MS = 1000L * 60 * 10; // 10 min default
 
     @AttributeDefinition(name = "Timeout", description = "Timeout in ms until a check is marked as timed out")
@@ -40,6 +42,9 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
     @AttributeDefinition(name = "Results Cache TTL in Ms", description = "Result Cache time to live - results will be cached for the given time")
     long resultCacheTtlInMs() default RESULT_CACHE_TTL_DEFAULT_MS;
 
+    @AttributeDefinition(name = "Stale While Revalidate in Ms", description = "Period in ms after the result cache TTL during which an outdated result is returned immediately while the check is executed again in the background (0 to disable)")
+    long staleWhileRevalidateInMs() default STALE_WHILE_REVALIDATE_DEFAULT_MS;
+
     @AttributeDefinition(name = "TEMPORARILY_UNAVAILABLE Grace Period", description = "Grace period in ms until a continuously reported TEMPORARILY_UNAVAILABLE check becomes CRITICAL")
     long temporarilyAvailableGracePeriodInMs() default TEMPORARILY_UNAVAILABLE_GRACE_PERIOD_DEFAULT_MS;
 
@@ -85,13 +85,37 @@ public class HealthCheckResultCache {
         results.addAll(cachedResults);
     }
 
+    /** Get the outdated cache results that are still within the given period after their TTL. The checks of the used results are removed
+     * from metadatas and returned, they are expected to be executed again in the background.
+     * 
+     * @return the metadata of the checks an outdated result was used for */
+    public List<HealthCheckMetadata> useStaleCacheResults(final List<HealthCheckMetadata> metadatas,
+            final Collection<HealthCheckExecutionResult> results,
+            final long resultCacheTtlInMs, final long staleWhileRevalidateInMs) {
+        final List<HealthCheckMetadata> staleChecks = new ArrayList<HealthCheckMetadata>();
+        final Set<HealthCheckExecutionResult> staleResults = new TreeSet<HealthCheckExecutionResult>();
+        final Iterator<HealthCheckMetadata> checksIt = metadatas.iterator();
+        while (checksIt.hasNext()) {
+            final HealthCheckMetadata md = checksIt.next();
+            final HealthCheckExecutionResult result = get(md, resultCacheTtlInMs, staleWhileRevalidateInMs);
+            if (result != null) {
+                staleResults.add(result);
+                staleChecks.add(md);
+                checksIt.remove();
+            }
+        }
+        logger.debug("Adding {} outdated results from cache", staleResults.size());
+        results.addAll(staleResults);
+        return staleChecks;
+    }
+
     /** Return the cached result if it's still valid. */
     public HealthCheckExecutionResult getValidCacheResult(final HealthCheckMetadata metadata,
             final long resultCacheTtlInMs) {
-        return get(metadata, resultCacheTtlInMs);
+        return get(metadata, resultCacheTtlInMs, 0L);
     }
 
-    private HealthCheckExecutionResult get(final HealthCheckMetadata metadata, final long globalResultCacheTtlInMs) {
+    private HealthCheckExecutionResult get(final HealthCheckMetadata metadata, final long globalResultCacheTtlInMs, final long staleMs) {
         final Long key = metadata.getServiceId();
         final HealthCheckExecutionResult cachedResult = cache.get(key);
         if (cachedResult != null) {
@@ -102,7 +126,10 @@ public class HealthCheckResultCache {
                 return null;
             }
 
-            long effectiveTtl = getEffectiveTtl(metadata, globalResultCacheTtlInMs);
+            long effectiveTtl = getEffectiveTtl(metadata, globalResultCacheTtlInMs) + staleMs;
+            if (effectiveTtl < 0) { // if Long.MAX_VALUE is configured, this can become negative
+                effectiveTtl = Long.MAX_VALUE;
+            }
             long validUntilLong = finishedAt.getTime() + effectiveTtl;
             if (validUntilLong < 0) { // if Long.MAX_VALUE is configured, this can become negative
                 validUntilLong = Long.MAX_VALUE;
@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The SF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.apache.felix.hc.core.impl.util;
+
+import static org.apache.felix.hc.api.execution.HealthCheckSelector.empty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.felix.hc.api.HealthCheck;
+import org.apache.felix.hc.api.execution.HealthCheckMetadata;
+import org.apache.felix.hc.api.execution.HealthCheckSelector;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Live index of the available {@link HealthCheck} services by tag and name, kept up to date by a service tracker.
+ *
+ * Selecting the health checks for a {@link HealthCheckSelector} is a set operation on the index (instead of a service registry query
+ * with an LDAP filter) and the resulting {@link HealthCheckMetadata} lists are cached per selector until a health check service is
+ * registered, modified or unregistered. The selection rules are the same as for {@link HealthCheckFilter}, selectors using tags with
+ * LDAP filter wildcards are delegated to {@link HealthCheckFilter}.
+ *
+ * This class is thread safe. */
+public class HealthCheckIndex {
+
+    /** Selectors are provided by clients, the number of cached selections is bounded */
+    static final int MAX_CACHED_SELECTIONS = 100;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final BundleContext bundleContext;
+
+    private final ServiceTracker<Object, ServiceReference<Object>> tracker;
+
+    /** metadata of the tracked services, guarded by this */
+    private final Map<ServiceReference<?>, HealthCheckMetadata> trackedServices = new HashMap<>();
+
+    /** index of the tracked services, replaced as a whole for every change */
+    private volatile Index index = new Index(Collections.<ServiceReference<?>, HealthCheckMetadata> emptyMap());
+
+    public HealthCheckIndex(final BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+        try {
+            this.tracker = new ServiceTracker<>(bundleContext, bundleContext.createFilter(HealthCheckFilter.HC_FILTER_OBJECT_CLASS),
+                    new HealthCheckServiceCustomizer());
+        } catch (final InvalidSyntaxException ise) {
+            // this should really never happen as the expression above is constant
+            throw new IllegalStateException("Unexpected problem with filter syntax", ise);
+        }
+    }
+
+    public void open() {
+        tracker.open();
+    }
+
+    public void close() {
+        tracker.close();
+    }
+
+    /** Returns the references of the health check services matching the given selector.
+     *
+     * @param selector the selector, <code>null</code> selects all health checks
+     * @param combineTagsWithOr whether the tags of the selector are combined with or instead of and
+     * @return the service references, never <code>null</code> */
+    public ServiceReference<HealthCheck>[] getHealthCheckServiceReferences(final HealthCheckSelector selector, boolean combineTagsWithOr) {
+        return select(selector, combineTagsWithOr).references.clone();
+    }
+
+    /** Returns the metadata of the health check services matching the given selector.
+     *
+     * @param selector the selector, <code>null</code> selects all health checks
+     * @param combineTagsWithOr whether the tags of the selector are combined with or instead of and
+     * @return the (unmodifiable) list of metadata, never <code>null</code> */
+    public List<HealthCheckMetadata> getHealthCheckMetadata(final HealthCheckSelector selector, boolean combineTagsWithOr) {
+        return select(selector, combineTagsWithOr).metadata;
+    }
+
+    /** Returns the metadata of the given health check service, reusing the metadata of the index if the service is tracked. */
+    public HealthCheckMetadata getHealthCheckMetadata(final ServiceReference<?> reference) {
+        final HealthCheckMetadata metadata = index.metadata.get(reference);
+        return metadata != null ? metadata : new HealthCheckMetadata(reference);
+    }
+
+    private Selection select(final HealthCheckSelector selector, boolean combineTagsWithOr) {
+        final Index current = this.index;
+        final SelectionKey key = new SelectionKey(selector != null ? selector : empty(), combineTagsWithOr);
+        Selection selection = current.selections.get(key);
+        if (selection == null) {
+            final ServiceReference<?>[] references;
+            if (key.requiresServiceFilter()) {
+                references = new HealthCheckFilter(bundleContext).getHealthCheckServiceReferences(key.toSelector(), combineTagsWithOr);
+            } else {
+                references = current.select(key);
+                log.debug("Found {} HealthCheck services in index for {}", references.length, key);
+            }
+            selection = new Selection(current, references);
+            if (current.selections.size() >= MAX_CACHED_SELECTIONS) {
+                current.selections.clear();
+            }
+            current.selections.put(key, selection);
+        }
+        return selection;
+    }
+
+    private synchronized void update(final ServiceReference<?> reference, final HealthCheckMetadata metadata) {
+        if (metadata != null) {
+            trackedServices.put(reference, metadata);
+        } else {
+            trackedServices.remove(reference);
+        }
+        index = new Index(new HashMap<>(trackedServices));
+    }
+
+    private HealthCheckMetadata createMetadata(final ServiceReference<?> reference) {
+        try {
+            return new HealthCheckMetadata(reference);
+        } catch (final RuntimeException e) {
+            log.warn("Invalid properties for health check service {}, ignoring it", reference, e);
+            return null;
+        }
+    }
+
+    private final class HealthCheckServiceCustomizer implements ServiceTrackerCustomizer<Object, ServiceReference<Object>> {
+
+        @Override
+        public ServiceReference<Object> addingService(final ServiceReference<Object> reference) {
+            final HealthCheckMetadata metadata = createMetadata(reference);
+            if (metadata == null) {
+                return null;
+            }
+            update(reference, metadata);
+            return reference;
+        }
+
+        @Override
+        public void modifiedService(final ServiceReference<Object> reference, final ServiceReference<Object> tracked) {
+            update(reference, createMetadata(reference));
+        }
+
+        @Override
+        public void removedService(final ServiceReference<Object> reference, final ServiceReference<Object> tracked) {
+            update(reference, null);
+        }
+    }
+
+    /** Immutable view of the tracked services with the selections computed from it */
+    private static final class Index {
+
+        private final Map<ServiceReference<?>, HealthCheckMetadata> metadata;
+
+        private final Map<String, Set<ServiceReference<?>>> byTag = new HashMap<>();
+
+        private final Map<String, Set<ServiceReference<?>>> byName = new HashMap<>();
+
+        private final ConcurrentMap<SelectionKey, Selection> selections = new ConcurrentHashMap<>();
+
+        Index(final Map<ServiceReference<?>, HealthCheckMetadata> metadata) {
+            this.metadata = metadata;
+            for (final Map.Entry<ServiceReference<?>, HealthCheckMetadata> entry : metadata.entrySet()) {
+                for (final String tag : entry.getValue().getTags()) {
+                    add(byTag, tag, entry.getKey());
+                }
+                if (entry.getValue().getName() != null) {
+                    add(byName, entry.getValue().getName(), entry.getKey());
+                }
+            }
+        }
+
+        private static void add(final Map<String, Set<ServiceReference<?>>> map, final String key, final ServiceReference<?> reference) {
+            Set<ServiceReference<?>> references = map.get(key);
+            if (references == null) {
+                references = new HashSet<>();
+                map.put(key, references);
+            }
+            references.add(reference);
+        }
+
+        private static Set<ServiceReference<?>> get(final Map<String, Set<ServiceReference<?>>> map, final String key) {
+            final Set<ServiceReference<?>> references = map.get(key);
+            return references != null ? references : Collections.<ServiceReference<?>> emptySet();
+        }
+
+        /** Same rules as {@link HealthCheckFilter#getServiceFilter(HealthCheckSelector, boolean)}: names are always ORed, tags are ANDed
+         * (or ORed if requested) and form one more OR clause if names are given, omitted tags and names are always excluded. */
+        ServiceReference<?>[] select(final SelectionKey key) {
+            final int prefixLen = HealthCheckFilter.OMIT_PREFIX.length();
+            final Set<ServiceReference<?>> omitted = new HashSet<>();
+
+            Set<ServiceReference<?>> tagMatches = null;
+            for (String tag : key.tags) {
+                tag = tag.trim();
+                if (tag.length() == 0) {
+                    continue;
+                }
+                if (tag.startsWith(HealthCheckFilter.OMIT_PREFIX)) {
+                    omitted.addAll(get(byTag, tag.substring(prefixLen)));
+                } else if (tagMatches == null) {
+                    tagMatches = new HashSet<>(get(byTag, tag));
+                } else if (key.combineTagsWithOr) {
+                    tagMatches.addAll(get(byTag, tag));
+                } else {
+                    tagMatches.retainAll(get(byTag, tag));
+                }
+            }
+
+            Set<ServiceReference<?>> nameMatches = null;
+            for (String name : key.names) {
+                name = name.trim();
+                if (name.length() == 0) {
+                    continue;
+                }
+                if (name.startsWith(HealthCheckFilter.OMIT_PREFIX)) {
+                    omitted.addAll(get(byName, name.substring(prefixLen)));
+                } else {
+                    if (nameMatches == null) {
+                        nameMatches = new HashSet<>();
+                    }
+                    nameMatches.addAll(get(byName, name));
+                }
+            }
+
+            final Set<ServiceReference<?>> result;
+            if (nameMatches != null) {
+                result = nameMatches;
+                if (tagMatches != null) {
+                    result.addAll(tagMatches);
+                }
+            } else if (tagMatches != null) {
+                result = tagMatches;
+            } else {
+                result = new HashSet<>(metadata.keySet());
+            }
+            result.removeAll(omitted);
+            return result.toArray(new ServiceReference<?>[result.size()]);
+        }
+    }
+
+    /** The selected health checks */
+    private static final class Selection {
+
+        private final ServiceReference<HealthCheck>[] references;
+
+        private final List<HealthCheckMetadata> metadata;
+
+        @SuppressWarnings("unchecked")
+        Selection(final Index index, final ServiceReference<?>[] references) {
+            this.references = (ServiceReference<HealthCheck>[]) references;
+            final List<HealthCheckMetadata> list = new ArrayList<>(references.length);
+            for (final ServiceReference<?> reference : references) {
+                final HealthCheckMetadata metadata = index.metadata.get(reference);
+                list.add(metadata != null ? metadata : new HealthCheckMetadata(reference));
+            }
+            this.metadata = Collections.unmodifiableList(list);
+        }
+    }
+
+    /** Copy of a (mutable) selector used as cache key */
+    private static final class SelectionKey {
+
+        private final String[] tags;
+
+        private final String[] names;
+
+        private final boolean combineTagsWithOr;
+
+        SelectionKey(final HealthCheckSelector selector, final boolean combineTagsWithOr) {
+            this.tags = selector.tags() != null ? selector.tags().clone() : new String[0];
+            this.names = selector.names() != null ? selector.names().clone() : new String[0];
+            this.combineTagsWithOr = combineTagsWithOr;
+        }
+
+        /** Tags are not escaped in the LDAP filter and may contain wildcards, these (and escaped names) are left to the filter */
+        boolean requiresServiceFilter() {
+            for (final String tag : tags) {
+                if (tag.indexOf('*') >= 0 || tag.indexOf('(') >= 0 || tag.indexOf(')') >= 0 || tag.indexOf('\\') >= 0) {
+                    return true;
+                }
+            }
+            for (final String name : names) {
+                if (name.indexOf('\\') >= 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        HealthCheckSelector toSelector() {
+            return empty().withTags(tags).withNames(names);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * Arrays.hashCode(tags) + Arrays.hashCode(names)) + (combineTagsWithOr ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof SelectionKey)) {
+                return false;
+            }
+            final SelectionKey other = (SelectionKey) obj;
+            return combineTagsWithOr == other.combineTagsWithOr && Arrays.equals(tags, other.tags) && Arrays.equals(names, other.names);
+        }
+
+        @Override
+        public String toString() {
+            return "tags=" + Arrays.toString(tags) + ", names=" + Arrays.toString(names) + ", combineTagsWithOr=" + combineTagsWithOr;
+        }
+    }
+}
@@ -140,6 +140,35 @@ public class HealthCheckResultCacheTest {
 
     }
 
+    @Test
+    public void testUseStaleCacheResults() {
+
+        HealthCheckMetadata hc1 = setupHealthCheckMetadata(1, HC_TIMEOUT_NOT_SET);
+        ExecutionResult executionResult1 = spy(new ExecutionResult(hc1, new Result(Result.Status.OK, "result for hc1"), 1));
+        doReturn(new Date(new Date().getTime() - DUR_2_MIN)).when(executionResult1).getFinishedAt();
+        healthCheckResultCache.updateWith(executionResult1);
+
+        HealthCheckMetadata hc2 = setupHealthCheckMetadata(2, HC_TIMEOUT_NOT_SET);
+        ExecutionResult executionResult2 = spy(new ExecutionResult(hc2, new Result(Result.Status.OK, "result for hc2"), 1));
+        doReturn(new Date(new Date().getTime() - DUR_4_MIN)).when(executionResult2).getFinishedAt();
+        healthCheckResultCache.updateWith(executionResult2);
+
+        List<HealthCheckMetadata> hcList = new ArrayList<HealthCheckMetadata>(Arrays.asList(hc1, hc2));
+        List<HealthCheckExecutionResult> results = new ArrayList<HealthCheckExecutionResult>();
+
+        // TTL 1min, outdated results up to 3min old are used
+        healthCheckResultCache.useValidCacheResults(hcList, results, DUR_1_MIN);
+        assertEquals(0, results.size());
+        List<HealthCheckMetadata> staleChecks = healthCheckResultCache.useStaleCacheResults(hcList, results, DUR_1_MIN, DUR_2_MIN);
+
+        assertEquals(Arrays.asList(hc1), staleChecks); // to be executed again in the background
+        assertEquals(Arrays.asList(executionResult1), results);
+        assertEquals(Arrays.asList(hc2), hcList); // result too old even for the stale period
+
+        // stale results are not valid results
+        assertNull(healthCheckResultCache.getValidCacheResult(hc1, DUR_1_MIN));
+    }
+
     private HealthCheckMetadata setupHealthCheckMetadataWithStickyResults(long id, long nonOkStickyForSec) {
         reset(serviceRef);
         doReturn(id).when(serviceRef).getProperty(Constants.SERVICE_ID);
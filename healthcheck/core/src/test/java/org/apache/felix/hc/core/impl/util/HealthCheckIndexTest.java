@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The SF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ */
+package org.apache.felix.hc.core.impl.util;
+
+import static org.apache.felix.hc.api.execution.HealthCheckSelector.empty;
+import static org.apache.felix.hc.api.execution.HealthCheckSelector.names;
+import static org.apache.felix.hc.api.execution.HealthCheckSelector.tags;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.felix.hc.api.HealthCheck;
+import org.apache.felix.hc.api.execution.HealthCheckMetadata;
+import org.apache.felix.hc.api.execution.HealthCheckSelector;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.Filter;
+import org.osgi.framework.ServiceReference;
+
+public class HealthCheckIndexTest {
+
+    @Mock
+    private BundleContext bundleContext;
+
+    @Mock
+    private Filter filter;
+
+    private ServiceReference<?> hc1;
+    private ServiceReference<?> hc2;
+    private ServiceReference<?> hc3;
+
+    private HealthCheckIndex index;
+
+    @Before
+    public void setup() throws Exception {
+        initMocks(this);
+
+        hc1 = reference(1L, "hc1", "foo", "bar");
+        hc2 = reference(2L, "hc2", "foo");
+        hc3 = reference(3L, "hc3", "baz");
+
+        when(bundleContext.createFilter(anyString())).thenReturn(filter);
+        when(bundleContext.getServiceReferences(isNull(String.class), anyString()))
+                .thenReturn(new ServiceReference[] { hc1, hc2, hc3 });
+
+        index = new HealthCheckIndex(bundleContext);
+        index.open();
+    }
+
+    @After
+    public void teardown() {
+        index.close();
+    }
+
+    private static ServiceReference<?> reference(long serviceId, String name, String... tags) {
+        final ServiceReference<?> reference = mock(ServiceReference.class);
+        when(reference.getProperty(Constants.SERVICE_ID)).thenReturn(serviceId);
+        when(reference.getProperty(HealthCheck.NAME)).thenReturn(name);
+        when(reference.getProperty(HealthCheck.TAGS)).thenReturn(tags);
+        return reference;
+    }
+
+    private Set<String> select(HealthCheckSelector selector, boolean combineTagsWithOr) {
+        final Set<String> selected = new TreeSet<>();
+        for (HealthCheckMetadata metadata : index.getHealthCheckMetadata(selector, combineTagsWithOr)) {
+            selected.add(metadata.getName());
+        }
+        return selected;
+    }
+
+    private static Set<String> set(String... names) {
+        final Set<String> set = new TreeSet<>();
+        for (String name : names) {
+            set.add(name);
+        }
+        return set;
+    }
+
+    @Test
+    public void testEmptySelectorSelectsAll() {
+        assertEquals(set("hc1", "hc2", "hc3"), select(empty(), false));
+        assertEquals(set("hc1", "hc2", "hc3"), select(null, false));
+    }
+
+    @Test
+    public void testTags() {
+        assertEquals(set("hc1", "hc2"), select(tags("foo"), false));
+        assertEquals(set("hc1"), select(tags("foo", "bar"), false));
+        assertEquals(set("hc1", "hc2", "hc3"), select(tags("bar", "baz", "foo"), true));
+        assertEquals(set(), select(tags("unknown"), false));
+    }
+
+    @Test
+    public void testOmittedTags() {
+        assertEquals(set("hc2"), select(tags("foo", "-bar"), false));
+        assertEquals(set("hc2", "hc3"), select(tags("-bar"), false));
+    }
+
+    @Test
+    public void testNames() {
+        assertEquals(set("hc1", "hc3"), select(names("hc1", "hc3"), false));
+        assertEquals(set("hc1", "hc2"), select(names("hc1", "hc3", "-hc3").withTags("foo"), false));
+        assertEquals(set("hc1", "hc3"), select(names("hc3").withTags("foo", "bar"), false));
+        assertEquals(set("hc2"), select(names("-hc1").withTags("foo"), false));
+    }
+
+    @Test
+    public void testSelectionIsCached() {
+        final List<HealthCheckMetadata> first = index.getHealthCheckMetadata(tags("foo"), false);
+        assertSame(first, index.getHealthCheckMetadata(tags("foo"), false));
+        assertSame(index.getHealthCheckMetadata(hc1), index.getHealthCheckMetadata(names("hc1"), false).get(0));
+    }
+
+    @Test
+    public void testWildcardTagsUseServiceFilter() throws Exception {
+        when(bundleContext.getServiceReferences(isNull(String.class), eq("(&" + HealthCheckFilter.HC_FILTER_OBJECT_CLASS + "(hc.tags=ba*))")))
+                .thenReturn(new ServiceReference[] { hc1, hc3 });
+
+        assertEquals(set("hc1", "hc3"), select(tags("ba*"), false));
+    }
+}
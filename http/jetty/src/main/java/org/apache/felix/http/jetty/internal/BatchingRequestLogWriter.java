@@ -0,0 +1,447 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.http.jetty.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+import org.apache.felix.http.base.internal.logger.SystemLogger;
+import org.eclipse.jetty.server.RequestLog;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+
+/**
+ * A request log writer which decouples request threads from file I/O.
+ * <p>
+ * Request threads publish log lines into a bounded, lock-free multi-producer
+ * ring buffer. A single background thread drains the buffer in batches and
+ * writes each batch through a {@link FileChannel} in as few calls as the
+ * encoding buffer allows. The log file is rotated once it exceeds a configured size or age. When the
+ * buffer is full, lines are either dropped (and counted) or the request
+ * thread waits for free space, depending on configuration.
+ * <p>
+ * Like the unbatched request log, a {@code yyyy_mm_dd} placeholder in the
+ * file name is replaced with the current date in the configured file name
+ * date format and a new file is started when the date changes. If the file
+ * cannot be opened, batches are dropped (and counted) until opening it
+ * succeeds again.
+ */
+class BatchingRequestLogWriter extends AbstractLifeCycle implements RequestLog.Writer {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final long DROP_REPORT_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private static final long REOPEN_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    private static final String FILENAME_DATE_PLACEHOLDER = "yyyy_mm_dd";
+
+    private static final String DEFAULT_FILENAME_DATE_FORMAT = "yyyy_MM_dd";
+
+    private final Path template;
+    private final String datePrefix;
+    private final String dateSuffix;
+    private final SimpleDateFormat filenameDateFormat;
+    private final boolean append;
+    private final int batchSize;
+    private final boolean blockWhenFull;
+    private final long maxSize;
+    private final long rotateInterval;
+    private final int retainDays;
+
+    /* ring buffer: slot i is writable for position p when sequences[i] == p and readable when sequences[i] == p + 1 */
+    private final int mask;
+    private final String[] entries;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+    private long lastDropReport;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder batch = new StringBuilder();
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(64 * 1024);
+
+    private volatile Thread writerThread;
+    private volatile boolean idle;
+    private volatile boolean running;
+
+    private Path file;
+    private FileChannel channel;
+    private long fileSize;
+    private long openedAt;
+    private long openFailedAt;
+
+    BatchingRequestLogWriter(JettyConfig config) {
+        this(new File(config.getRequestLogFilePath()).getAbsoluteFile().toPath(), config.isRequestLogFileAppend(),
+                config.getRequestLogFileBufferSize(), config.getRequestLogFileBatchSize(),
+                config.isRequestLogFileBlockWhenFull(), config.getRequestLogFileMaxSize(),
+                TimeUnit.SECONDS.toMillis(config.getRequestLogFileRotateInterval()), config.getRequestLogFileRetainDays(),
+                config.getRequestLogFilenameDateFormat());
+    }
+
+    BatchingRequestLogWriter(Path file, boolean append, int bufferSize, int batchSize, boolean blockWhenFull,
+            long maxSize, long rotateInterval, int retainDays, String filenameDateFormat) {
+        this.template = file;
+        String name = file.getFileName().toString();
+        int index = name.toLowerCase(Locale.ENGLISH).indexOf(FILENAME_DATE_PLACEHOLDER);
+        if (index < 0) {
+            this.datePrefix = null;
+            this.dateSuffix = null;
+            this.filenameDateFormat = null;
+        } else {
+            this.datePrefix = name.substring(0, index);
+            this.dateSuffix = name.substring(index + FILENAME_DATE_PLACEHOLDER.length());
+            this.filenameDateFormat = new SimpleDateFormat(
+                    filenameDateFormat != null ? filenameDateFormat : DEFAULT_FILENAME_DATE_FORMAT);
+        }
+        this.file = resolveFile();
+        this.append = append;
+        this.batchSize = Math.max(1, batchSize);
+        this.blockWhenFull = blockWhenFull;
+        this.maxSize = maxSize;
+        this.rotateInterval = rotateInterval;
+        this.retainDays = retainDays;
+
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize) - 1) << 1;
+        this.mask = capacity - 1;
+        this.entries = new String[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public void write(String line) throws IOException {
+        while (!offer(line)) {
+            if (!blockWhenFull || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        if (idle) {
+            wakeWriter();
+        }
+    }
+
+    /**
+     * Number of log lines discarded so far because the buffer was full.
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Publishes a line into the ring buffer without blocking.
+     *
+     * @return {@code false} if the buffer is full
+     */
+    boolean offer(String line) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    entries[index] = line;
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the next line from the ring buffer. Must only be called by the
+     * single consumer.
+     *
+     * @return the next line or {@code null} if the buffer is empty
+     */
+    String poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        String line = entries[index];
+        entries[index] = null;
+        sequences.lazySet(index, head + mask + 1);
+        head++;
+        return line;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        Files.createDirectories(template.getParent());
+        file = resolveFile();
+        openFile(append);
+        running = true;
+        Thread thread = new Thread(this::drainLoop, "RequestLog-" + template.getFileName());
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+            writerThread = null;
+        }
+        closeFile();
+        if (dropped.get() > 0) {
+            SystemLogger.info("Request log " + file + " dropped " + dropped.get() + " entries because the buffer was full");
+        }
+        super.doStop();
+    }
+
+    private void wakeWriter() {
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void drainLoop() {
+        for (;;) {
+            boolean stopping = !running;
+            int count = drainBatch();
+            if (count == 0) {
+                if (stopping) {
+                    return;
+                }
+                idle = true;
+                // re-check after publishing the idle flag so a concurrent write cannot be missed
+                if (sequences.get((int) head & mask) != head + 1 && running) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                idle = false;
+                try {
+                    rotateIfNeeded();
+                    reportDropped();
+                } catch (RuntimeException e) {
+                    SystemLogger.error("Error rotating request log " + file, e);
+                }
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        String line;
+        while (count < batchSize && (line = poll()) != null) {
+            batch.append(line).append(LINE_SEPARATOR);
+            count++;
+        }
+        if (count > 0) {
+            try {
+                rotateIfNeeded();
+                if (channel == null) {
+                    reopenFile();
+                }
+                if (channel == null) {
+                    dropped.addAndGet(count);
+                } else {
+                    writeBatch();
+                }
+            } catch (IOException | RuntimeException e) {
+                SystemLogger.error("Error writing request log " + file, e);
+            } finally {
+                batch.setLength(0);
+            }
+        }
+        return count;
+    }
+
+    private void writeBatch() throws IOException {
+        CharBuffer chars = CharBuffer.wrap(batch);
+        encoder.reset();
+        while (encoder.encode(chars, bytes, true).isOverflow()) {
+            flushBytes();
+        }
+        while (encoder.flush(bytes).isOverflow()) {
+            flushBytes();
+        }
+        flushBytes();
+    }
+
+    private void flushBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            fileSize += channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void rotateIfNeeded() {
+        if (channel == null) {
+            return;
+        }
+        Path current = resolveFile();
+        if (!current.equals(file)) {
+            // the date in the file name has changed, continue in a new file
+            try {
+                closeFile();
+                purgeRotatedFiles();
+            } catch (IOException e) {
+                SystemLogger.error("Error rotating request log " + file, e);
+            }
+            reopenFile();
+            return;
+        }
+        boolean tooLarge = maxSize > 0 && fileSize >= maxSize;
+        boolean tooOld = rotateInterval > 0 && System.currentTimeMillis() - openedAt >= rotateInterval && fileSize > 0;
+        if (tooLarge || tooOld) {
+            try {
+                closeFile();
+                String rotatedName = file.getFileName() + "."
+                        + new SimpleDateFormat("yyyy_MM_dd_HHmmss_SSS").format(new Date());
+                Path target = file.resolveSibling(rotatedName);
+                for (int i = 1; Files.exists(target); i++) {
+                    target = file.resolveSibling(rotatedName + "_" + i);
+                }
+                Files.move(file, target);
+                purgeRotatedFiles();
+            } catch (IOException e) {
+                SystemLogger.error("Error rotating request log " + file, e);
+            }
+            reopenFile();
+        }
+    }
+
+    /**
+     * Opens the log file again after it has been closed or could not be
+     * opened. Failed attempts are retried at most once per second.
+     */
+    private void reopenFile() {
+        long now = System.currentTimeMillis();
+        if (openFailedAt != 0 && now - openFailedAt < REOPEN_INTERVAL) {
+            return;
+        }
+        try {
+            file = resolveFile();
+            openFile(true);
+            openFailedAt = 0;
+        } catch (IOException | RuntimeException e) {
+            if (openFailedAt == 0) {
+                SystemLogger.error("Error opening request log " + file, e);
+            }
+            openFailedAt = now;
+        }
+    }
+
+    /**
+     * Returns the log file, with the date placeholder replaced if the
+     * configured file name contains one.
+     */
+    private Path resolveFile() {
+        if (filenameDateFormat == null) {
+            return template;
+        }
+        return template.resolveSibling(datePrefix + filenameDateFormat.format(new Date()) + dateSuffix);
+    }
+
+    private void purgeRotatedFiles() throws IOException {
+        if (retainDays <= 0) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retainDays);
+        Pattern pattern;
+        if (filenameDateFormat != null) {
+            // dated files and their size or age rotated files
+            int dateLength = filenameDateFormat.format(new Date()).length();
+            pattern = Pattern.compile(Pattern.quote(datePrefix) + ".{" + dateLength + "}"
+                    + Pattern.quote(dateSuffix) + "(\\..+)?");
+        } else {
+            pattern = Pattern.compile(Pattern.quote(file.getFileName() + ".") + ".+");
+        }
+        String current = file.getFileName().toString();
+        File[] rotated = file.getParent().toFile().listFiles(
+                (dir, name) -> pattern.matcher(name).matches() && !name.equals(current));
+        if (rotated != null) {
+            for (File f : rotated) {
+                if (f.lastModified() < cutoff) {
+                    Files.deleteIfExists(f.toPath());
+                }
+            }
+        }
+    }
+
+    private void reportDropped() {
+        long current = dropped.get();
+        long now = System.currentTimeMillis();
+        if (current != droppedReported && now - lastDropReport >= DROP_REPORT_INTERVAL) {
+            SystemLogger.warning("Request log " + file + " dropped " + (current - droppedReported)
+                    + " entries because the buffer was full", null);
+            droppedReported = current;
+            lastDropReport = now;
+        }
+    }
+
+    private void openFile(boolean appendToFile) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                appendToFile ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+        fileSize = channel.size();
+        openedAt = System.currentTimeMillis();
+    }
+
+    private void closeFile() throws IOException {
+        if (channel != null) {
+            try {
+                channel.force(false);
+                channel.close();
+            } finally {
+                channel = null;
+            }
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.util.Dictionary;
 import java.util.Hashtable;
 
 import org.apache.felix.http.base.internal.logger.SystemLogger;
+import org.eclipse.jetty.server.AbstractNCSARequestLog;
 import org.eclipse.jetty.server.AsyncNCSARequestLog;
 import org.eclipse.jetty.server.NCSARequestLog;
 import org.eclipse.jetty.server.RequestLog;
@@ -36,7 +37,7 @@ class FileRequestLog {
     public static final String DEFAULT_NAME = "file";
     public static final String SVC_PROP_FILEPATH = "filepath";
 
-    private final NCSARequestLog delegate;
+    private final AbstractNCSARequestLog delegate;
     private final String logFilePath;
     private final String serviceName;
     private ServiceRegistration<RequestLog> registration = null;
@@ -44,15 +45,21 @@ class FileRequestLog {
     FileRequestLog(JettyConfig config) {
         logFilePath = config.getRequestLogFilePath();
         serviceName = config.getRequestLogFileServiceName() != null ? config.getRequestLogFileServiceName() : DEFAULT_NAME;
-        if (config.isRequestLogFileAsync()) {
-            delegate = new AsyncNCSARequestLog(logFilePath, null);
+        if (config.isRequestLogFileBatched()) {
+            delegate = new BatchingNCSARequestLog(new BatchingRequestLogWriter(config));
         } else {
-            delegate = new NCSARequestLog(logFilePath);
+            NCSARequestLog ncsaLog;
+            if (config.isRequestLogFileAsync()) {
+                ncsaLog = new AsyncNCSARequestLog(logFilePath, null);
+            } else {
+                ncsaLog = new NCSARequestLog(logFilePath);
+            }
+            ncsaLog.setAppend(config.isRequestLogFileAppend());
+            ncsaLog.setRetainDays(config.getRequestLogFileRetainDays());
+            ncsaLog.setFilenameDateFormat(config.getRequestLogFilenameDateFormat());
+            delegate = ncsaLog;
         }
 
-        delegate.setAppend(config.isRequestLogFileAppend());
-        delegate.setRetainDays(config.getRequestLogFileRetainDays());
-        delegate.setFilenameDateFormat(config.getRequestLogFilenameDateFormat());
         delegate.setExtended(config.isRequestLogFileExtended());
         delegate.setIgnorePaths(config.getRequestLogFileIgnorePaths());
         delegate.setLogCookies(config.isRequestLogFileLogCookies());
@@ -101,4 +108,20 @@ class FileRequestLog {
         }
     }
 
+    /**
+     * NCSA formatting on the request thread, file output through the
+     * {@link BatchingRequestLogWriter}, whose lifecycle is managed as a bean.
+     */
+    private static class BatchingNCSARequestLog extends AbstractNCSARequestLog {
+
+        BatchingNCSARequestLog(BatchingRequestLogWriter writer) {
+            super(writer);
+            addBean(writer);
+        }
+
+        @Override
+        protected boolean isEnabled() {
+            return true;
+        }
+    }
 }
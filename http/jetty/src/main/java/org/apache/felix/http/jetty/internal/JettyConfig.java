@@ -222,6 +222,24 @@ public final class JettyConfig
     /** Felix specific property to specify the timezone used for the logging timestamps*/
     public static final String FELIX_HTTP_REQUEST_LOG_FILE_TIMEZONE = "org.apache.felix.http.requestlog.file.timezone";
 
+    /** Felix specific property to enable the batching file request log writer, which hands log lines to a background thread through a lock-free ring buffer. Takes precedence over the async setting. */
+    public static final String FELIX_HTTP_REQUEST_LOG_FILE_BATCHED = "org.apache.felix.http.requestlog.file.batched";
+
+    /** Felix specific property to specify the capacity (number of log lines) of the batching request log ring buffer. Rounded up to a power of two, default is 8192. */
+    public static final String FELIX_HTTP_REQUEST_LOG_FILE_BUFFER_SIZE = "org.apache.felix.http.requestlog.file.buffersize";
+
+    /** Felix specific property to specify the maximum number of log lines written to the file in a single batch, default is 512. */
+    public static final String FELIX_HTTP_REQUEST_LOG_FILE_BATCH_SIZE = "org.apache.felix.http.requestlog.file.batchsize";
+
+    /** Felix specific property to specify what happens when the batching request log buffer is full: "drop" (default) discards the line, "block" waits for free space. */
+    public static final String FELIX_HTTP_REQUEST_LOG_FILE_FULL_POLICY = "org.apache.felix.http.requestlog.file.fullpolicy";
+
+    /** Felix specific property to specify the size in bytes after which the batching request log file is rotated, default is 0 meaning no size based rotation. */
+    public static final String FELIX_HTTP_REQUEST_LOG_FILE_MAX_SIZE = "org.apache.felix.http.requestlog.file.maxsize";
+
+    /** Felix specific property to specify the interval in seconds after which the batching request log file is rotated, default is 0 meaning no time based rotation. */
+    public static final String FELIX_HTTP_REQUEST_LOG_FILE_ROTATE_INTERVAL = "org.apache.felix.http.requestlog.file.rotateinterval";
+
     /** Felix specific property to define custom properties for the http runtime service. */
     public static final String FELIX_CUSTOM_HTTP_RUNTIME_PROPERTY_PREFIX = "org.apache.felix.http.runtime.init.";
 
@@ -612,6 +630,30 @@ public final class JettyConfig
         return getProperty(FELIX_HTTP_REQUEST_LOG_FILE_TIMEZONE, null);
     }
 
+    public boolean isRequestLogFileBatched() {
+        return getBooleanProperty(FELIX_HTTP_REQUEST_LOG_FILE_BATCHED, false);
+    }
+
+    public int getRequestLogFileBufferSize() {
+        return getIntProperty(FELIX_HTTP_REQUEST_LOG_FILE_BUFFER_SIZE, 8192);
+    }
+
+    public int getRequestLogFileBatchSize() {
+        return getIntProperty(FELIX_HTTP_REQUEST_LOG_FILE_BATCH_SIZE, 512);
+    }
+
+    public boolean isRequestLogFileBlockWhenFull() {
+        return "block".equalsIgnoreCase(getProperty(FELIX_HTTP_REQUEST_LOG_FILE_FULL_POLICY, "drop"));
+    }
+
+    public long getRequestLogFileMaxSize() {
+        return getLongProperty(FELIX_HTTP_REQUEST_LOG_FILE_MAX_SIZE, 0L);
+    }
+
+    public long getRequestLogFileRotateInterval() {
+        return getLongProperty(FELIX_HTTP_REQUEST_LOG_FILE_ROTATE_INTERVAL, 0L);
+    }
+
     public boolean isStatisticsHandlerEnabled() {
         return getBooleanProperty(FELIX_JETTY_STATISTICS_HANDLER_ENABLE, false);
     }
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.http.jetty.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchingRequestLogWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRingBufferFullAndDrain() {
+        BatchingRequestLogWriter writer = new BatchingRequestLogWriter(folder.getRoot().toPath().resolve("r.log"),
+                true, 3, 16, false, 0, 0, 0, null);
+
+        // capacity is rounded up to 4
+        for (int i = 0; i < 4; i++) {
+            assertTrue(writer.offer("line" + i));
+        }
+        assertFalse(writer.offer("overflow"));
+
+        assertEquals("line0", writer.poll());
+        assertTrue(writer.offer("line4"));
+        for (int i = 1; i < 5; i++) {
+            assertEquals("line" + i, writer.poll());
+        }
+        assertNull(writer.poll());
+    }
+
+    @Test
+    public void testDropWhenNotRunning() throws Exception {
+        BatchingRequestLogWriter writer = new BatchingRequestLogWriter(folder.getRoot().toPath().resolve("r.log"),
+                true, 2, 16, true, 0, 0, 0, null);
+        writer.write("a");
+        writer.write("b");
+        writer.write("c");
+        assertEquals(1, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testConcurrentWritersAllLinesWritten() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("logs/request.log");
+        BatchingRequestLogWriter writer = new BatchingRequestLogWriter(file, true, 64, 8, true, 0, 0, 0, null);
+        writer.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        writer.write(id + "-" + i);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.stop();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(4000, lines.size());
+        assertEquals(4000, new HashSet<>(lines).size());
+        assertEquals(0, writer.getDroppedCount());
+    }
+
+    @Test
+    public void testRotateBySize() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("request.log");
+        BatchingRequestLogWriter writer = new BatchingRequestLogWriter(file, false, 16, 1, true, 10, 0, 0, null);
+        writer.start();
+        for (int i = 0; i < 5; i++) {
+            writer.write("0123456789");
+        }
+        writer.stop();
+
+        // with a batch size of one, every line after the first rotates the file
+        File[] files = folder.getRoot().listFiles((dir, name) -> name.startsWith("request.log"));
+        assertEquals(5, files.length);
+        Set<String> content = new HashSet<>();
+        int total = 0;
+        for (File f : files) {
+            List<String> lines = Files.readAllLines(f.toPath(), StandardCharsets.UTF_8);
+            total += lines.size();
+            content.addAll(lines);
+        }
+        assertEquals(5, total);
+        assertEquals(1, content.size());
+    }
+
+    @Test
+    public void testFilenameDate() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("request-yyyy_mm_dd.log");
+        BatchingRequestLogWriter writer = new BatchingRequestLogWriter(file, true, 16, 8, true, 0, 0, 0, "yyyyMMdd");
+        writer.start();
+        writer.write("line");
+        writer.stop();
+
+        Path dated = folder.getRoot().toPath().resolve(
+                "request-" + new SimpleDateFormat("yyyyMMdd").format(new Date()) + ".log");
+        assertEquals(Collections.singletonList("line"), Files.readAllLines(dated, StandardCharsets.UTF_8));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testWriterSurvivesFailedReopen() throws Exception {
+        Path dir = folder.getRoot().toPath().resolve("logs");
+        Path file = dir.resolve("request.log");
+        BatchingRequestLogWriter writer = new BatchingRequestLogWriter(file, true, 16, 1, true, 1, 0, 0, null);
+        writer.start();
+        try {
+            writer.write("first");
+
+            // rotating and reopening the file fails while the directory is gone
+            deleteRecursively(dir.toFile());
+            writer.write("lost");
+            waitFor(() -> writer.getDroppedCount() == 1);
+
+            // once the directory is back, the file is opened again
+            Files.createDirectories(dir);
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!Files.exists(file) && System.currentTimeMillis() < deadline) {
+                writer.write("retry");
+                Thread.sleep(50);
+            }
+            assertTrue(Files.exists(file));
+        } finally {
+            writer.stop();
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
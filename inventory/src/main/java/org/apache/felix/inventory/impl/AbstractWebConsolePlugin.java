@@ -139,7 +139,17 @@ public abstract class AbstractWebConsolePlugin extends HttpServlet
             response.setContentType(type);
 
             final ZipConfigurationWriter pw = ZipConfigurationWriter.create(response.getOutputStream());
-            printConfigurationInventory(pw, null, handler);
+            final int threads = this.inventoryPrinterManager.getZipThreads();
+            if (handler == null && threads > 1)
+            {
+                // stream the output of the printers run concurrently
+                pw.printInventories(this.inventoryPrinterManager.getHandlers(null), threads,
+                    this.inventoryPrinterManager.getZipTimeout());
+            }
+            else
+            {
+                printConfigurationInventory(pw, null, handler);
+            }
             pw.finish();
         }
         else if (request.getPathInfo().endsWith(".nfo"))
@@ -38,6 +38,7 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceFactory;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.log.LogService;
 import org.osgi.util.tracker.ServiceTracker;
 import org.osgi.util.tracker.ServiceTrackerCustomizer;
 
@@ -49,6 +50,22 @@ import org.osgi.util.tracker.ServiceTrackerCustomizer;
 public class InventoryPrinterManagerImpl implements ServiceTrackerCustomizer
 {
 
+    /**
+     * Framework property setting the number of inventory printers run
+     * concurrently when creating a ZIP file of all printers. The printers
+     * are run one after the other if not set or lower than 2.
+     */
+    static final String PROP_ZIP_THREADS = "felix.inventory.zip.threads";
+
+    /**
+     * Framework property setting the time limit in milliseconds for a single
+     * inventory printer when the printers are run concurrently. Defaults to
+     * {@link #DEFAULT_ZIP_TIMEOUT}, zero or a negative value disables the limit.
+     */
+    static final String PROP_ZIP_TIMEOUT = "felix.inventory.zip.timeout";
+
+    static final long DEFAULT_ZIP_TIMEOUT = 5 * 60 * 1000;
+
     /** Bundle Context . */
     private final BundleContext bundleContext;
 
@@ -67,6 +84,12 @@ public class InventoryPrinterManagerImpl implements ServiceTrackerCustomizer
     /** Registration for the web console. */
     private final ServiceRegistration pluginRegistration;
 
+    /** Number of printers run concurrently for a ZIP file. */
+    private final int zipThreads;
+
+    /** Time limit per printer for a ZIP file. */
+    private final long zipTimeout;
+
     /**
      * Create the inventory printer manager
      *
@@ -77,6 +100,8 @@ public class InventoryPrinterManagerImpl implements ServiceTrackerCustomizer
     public InventoryPrinterManagerImpl(final BundleContext btx) throws InvalidSyntaxException
     {
         this.bundleContext = btx;
+        this.zipThreads = (int) getLongProperty(btx, PROP_ZIP_THREADS, 0);
+        this.zipTimeout = getLongProperty(btx, PROP_ZIP_TIMEOUT, DEFAULT_ZIP_TIMEOUT);
         this.cfgPrinterTracker = new ServiceTracker(this.bundleContext, InventoryPrinter.SERVICE, this);
         this.cfgPrinterTracker.open();
 
@@ -98,6 +123,41 @@ public class InventoryPrinterManagerImpl implements ServiceTrackerCustomizer
         }, props);
     }
 
+    private static long getLongProperty(final BundleContext btx, final String name, final long defaultValue)
+    {
+        final String value = btx.getProperty(name);
+        if (value != null)
+        {
+            try
+            {
+                return Long.parseLong(value.trim());
+            }
+            catch (final NumberFormatException nfe)
+            {
+                Activator.log(null, LogService.LOG_WARNING, "Ignoring invalid value for " + name + ": " + value, null);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns the number of inventory printers to run concurrently when
+     * creating a ZIP file, values lower than 2 meaning one after the other.
+     */
+    public int getZipThreads()
+    {
+        return this.zipThreads;
+    }
+
+    /**
+     * Returns the time limit in milliseconds for a single inventory printer
+     * run concurrently for a ZIP file, no limit if zero or negative.
+     */
+    public long getZipTimeout()
+    {
+        return this.zipTimeout;
+    }
+
     /**
      * Dispose this service
      */
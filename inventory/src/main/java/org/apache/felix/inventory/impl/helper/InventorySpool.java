@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.inventory.impl.helper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.felix.inventory.Format;
+import org.apache.felix.inventory.impl.InventoryPrinterHandler;
+
+/**
+ * The inventory spool holds the output of a single inventory printer
+ * for the ZIP file: the plain text output, the JSON output and the
+ * attachments are written to a temporary ZIP file with the final entry
+ * names. This allows running several printers concurrently while the
+ * finished spools are copied to the ZIP file one after the other.
+ */
+class InventorySpool implements Callable<InventorySpool>
+{
+
+    private final InventoryPrinterHandler handler;
+
+    private final String baseName;
+
+    private File file;
+
+    private volatile long startTime;
+
+    private long duration;
+
+    private boolean finished;
+
+    private boolean discarded;
+
+    InventorySpool(final InventoryPrinterHandler handler, final String baseName)
+    {
+        this.handler = handler;
+        this.baseName = baseName;
+    }
+
+    InventoryPrinterHandler getHandler()
+    {
+        return this.handler;
+    }
+
+    String getBaseName()
+    {
+        return this.baseName;
+    }
+
+    String getTextEntryName()
+    {
+        return this.baseName.concat(".txt");
+    }
+
+    String getJsonEntryName()
+    {
+        return "json/" + this.baseName + ".json";
+    }
+
+    File getFile()
+    {
+        return this.file;
+    }
+
+    /** The time spent by the printer in milliseconds. */
+    long getDuration()
+    {
+        return this.duration;
+    }
+
+    /**
+     * Returns {@code true} if the printer has been started more than
+     * {@code timeout} milliseconds ago and is still running.
+     */
+    boolean isOverdue(final long timeout)
+    {
+        final long started = this.startTime;
+        return started > 0 && System.currentTimeMillis() - started > timeout;
+    }
+
+    /**
+     * Runs the printer, writing its output to the temporary file.
+     *
+     * @return this spool
+     * @throws IOException if the temporary file cannot be written
+     */
+    public InventorySpool call() throws IOException
+    {
+        this.startTime = System.currentTimeMillis();
+        final File spoolFile = File.createTempFile("inventory", ".zip");
+        synchronized (this)
+        {
+            this.file = spoolFile;
+        }
+        boolean success = false;
+        try
+        {
+            final ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(spoolFile));
+            try
+            {
+                zip.setLevel(Deflater.BEST_SPEED);
+                final PrintWriter pw = new PrintWriter(new OutputStreamWriter(zip, "UTF-8"));
+
+                if (this.handler.supports(Format.TEXT))
+                {
+                    zip.putNextEntry(newEntry(this.getTextEntryName()));
+                    this.handler.print(pw, Format.TEXT, true);
+                    pw.flush();
+                    zip.closeEntry();
+                }
+
+                if (this.handler.supports(Format.JSON))
+                {
+                    zip.putNextEntry(newEntry(this.getJsonEntryName()));
+                    this.handler.print(pw, Format.JSON, true);
+                    pw.flush();
+                    zip.closeEntry();
+                }
+
+                this.handler.addAttachments(zip, this.baseName.concat("/"));
+            }
+            finally
+            {
+                zip.close();
+            }
+            success = true;
+        }
+        finally
+        {
+            this.duration = System.currentTimeMillis() - this.startTime;
+            synchronized (this)
+            {
+                this.finished = true;
+                if (!success || this.discarded)
+                {
+                    this.delete();
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Discards the output of the printer. If the printer is still running
+     * the temporary file is removed once it is finished.
+     */
+    synchronized void discard()
+    {
+        this.discarded = true;
+        if (this.finished)
+        {
+            this.delete();
+        }
+    }
+
+    private void delete()
+    {
+        if (this.file != null)
+        {
+            this.file.delete();
+            this.file = null;
+        }
+    }
+
+    private static ZipEntry newEntry(final String name)
+    {
+        final ZipEntry entry = new ZipEntry(name);
+        entry.setTime(System.currentTimeMillis());
+        return entry;
+    }
+}
@@ -18,19 +18,39 @@
  */
 package org.apache.felix.inventory.impl.helper;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.felix.inventory.Format;
+import org.apache.felix.inventory.impl.Activator;
 import org.apache.felix.inventory.impl.InventoryPrinterHandler;
+import org.osgi.service.log.LogService;
 
 /**
  * The ZIP configuration writer creates a zip with
@@ -41,6 +61,9 @@ import org.apache.felix.inventory.impl.InventoryPrinterHandler;
 public class ZipConfigurationWriter extends ConfigurationWriter
 {
 
+    /** Interval in milliseconds to check for printers exceeding their time limit. */
+    private static final long POLL_INTERVAL = 500;
+
     private final ZipConfigurationWriter.ConfigZipOutputStream zip;
 
     private int entryCounter;
@@ -117,6 +140,205 @@ public class ZipConfigurationWriter extends ConfigurationWriter
         this.zip.endHandler();
     }
 
+    /**
+     * Writes the output of all handlers like
+     * {@link #printInventory(Format, InventoryPrinterHandler)} but runs up to
+     * {@code threads} inventory printers concurrently. Each printer writes
+     * to its own temporary spool file which is copied to the ZIP file as
+     * soon as the printer has finished, so the output is never held in
+     * memory. The entries of the printers are named in the order of the
+     * handlers, regardless of the order in which the printers finish.
+     * <p>
+     * Printers still running {@code timeout} milliseconds after they have
+     * been started are interrupted and a note is written instead of their
+     * output. The same applies to printers failing with an exception.
+     * Since a printer ignoring the interrupt keeps its thread busy, there
+     * is also an overall time limit of {@code timeout} milliseconds per
+     * round of {@code threads} printers, counted from the submission of
+     * the printers. Once it has passed, a note is written for all printers
+     * not finished yet, whether they have been started or not.
+     *
+     * @param handlers The handlers to be called to generate the output
+     * @param threads The maximum number of printers running concurrently
+     * @param timeout The time limit per printer in milliseconds, no limit
+     *            if zero or negative
+     *
+     * @throws IOException if an error occurrs writing to the ZIP file.
+     */
+    public void printInventories(final InventoryPrinterHandler[] handlers, final int threads, final long timeout)
+        throws IOException
+    {
+        if (handlers.length == 0)
+        {
+            return;
+        }
+
+        final int poolSize = Math.max(1, Math.min(threads, handlers.length));
+        final int rounds = (handlers.length + poolSize - 1) / poolSize;
+        final long deadline = System.currentTimeMillis() + timeout * rounds;
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize, new PrinterThreadFactory());
+        try
+        {
+            final CompletionService<InventorySpool> completionService = new ExecutorCompletionService<InventorySpool>(
+                executor);
+            final Map<Future<InventorySpool>, InventorySpool> pending = new LinkedHashMap<Future<InventorySpool>, InventorySpool>();
+            for (int i = 0; i < handlers.length; i++)
+            {
+                final InventorySpool spool = new InventorySpool(handlers[i], getBaseName(handlers[i]));
+                pending.put(completionService.submit(spool), spool);
+            }
+
+            int written = 0;
+            while (!pending.isEmpty())
+            {
+                final Future<InventorySpool> done = completionService.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                final InventorySpool spool = done == null ? null : pending.remove(done);
+                if (spool != null)
+                {
+                    written++;
+                    try
+                    {
+                        done.get();
+                        this.copySpool(spool);
+                        log(LogService.LOG_DEBUG, "Inventory printer " + spool.getHandler().getTitle() + " written in "
+                            + spool.getDuration() + "ms (" + written + "/" + handlers.length + ")");
+                    }
+                    catch (final ExecutionException ee)
+                    {
+                        final StringWriter trace = new StringWriter();
+                        ee.getCause().printStackTrace(new PrintWriter(trace));
+                        this.printNote(spool, "Inventory printer failed: " + trace);
+                        log(LogService.LOG_WARNING, "Inventory printer " + spool.getHandler().getTitle() + " failed ("
+                            + written + "/" + handlers.length + ")");
+                    }
+                    finally
+                    {
+                        spool.discard();
+                    }
+                }
+
+                if (timeout > 0)
+                {
+                    // once the overall deadline has passed, give up on all
+                    // printers, including those still waiting for a thread
+                    final boolean expired = System.currentTimeMillis() > deadline;
+                    final Iterator<Map.Entry<Future<InventorySpool>, InventorySpool>> i = pending.entrySet().iterator();
+                    while (i.hasNext())
+                    {
+                        final Map.Entry<Future<InventorySpool>, InventorySpool> entry = i.next();
+                        if (expired || entry.getValue().isOverdue(timeout))
+                        {
+                            i.remove();
+                            written++;
+                            entry.getKey().cancel(true);
+                            entry.getValue().discard();
+                            this.printNote(entry.getValue(), "Inventory printer did not finish within " + timeout + "ms");
+                            log(LogService.LOG_WARNING, "Inventory printer " + entry.getValue().getHandler().getTitle()
+                                + " did not finish within " + timeout + "ms (" + written + "/" + handlers.length + ")");
+                        }
+                    }
+                }
+            }
+        }
+        catch (final InterruptedException ie)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for inventory printers");
+        }
+        finally
+        {
+            // interrupt printers still running if writing the ZIP file failed
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Copies the entries of a finished spool to the ZIP file.
+     */
+    private void copySpool(final InventorySpool spool) throws IOException
+    {
+        this.flush();
+        this.zip.handler(spool.getHandler());
+
+        boolean attachments = false;
+        final byte[] buffer = new byte[8192];
+        final ZipInputStream in = new ZipInputStream(new FileInputStream(spool.getFile()));
+        try
+        {
+            ZipEntry spooled;
+            while ((spooled = in.getNextEntry()) != null)
+            {
+                final ZipEntry entry = new ZipEntry(spooled.getName());
+                entry.setTime(spooled.getTime());
+                if (entry.getName().equals(spool.getTextEntryName()))
+                {
+                    this.zip.putNextEntry(entry, Format.TEXT);
+                }
+                else if (entry.getName().equals(spool.getJsonEntryName()))
+                {
+                    this.zip.putNextEntry(entry, Format.JSON);
+                }
+                else
+                {
+                    if (!attachments)
+                    {
+                        this.zip.attachements();
+                        attachments = true;
+                    }
+                    this.zip.putNextEntry(entry);
+                }
+                copy(in, this.zip, buffer);
+                this.zip.closeEntry();
+            }
+        }
+        finally
+        {
+            in.close();
+        }
+
+        if (!attachments)
+        {
+            this.zip.attachements();
+        }
+        this.zip.endAttachements();
+        this.zip.endHandler();
+    }
+
+    /**
+     * Writes a plain text entry with the given message instead of the
+     * output of the printer of the spool.
+     */
+    private void printNote(final InventorySpool spool, final String message) throws IOException
+    {
+        this.flush();
+        this.zip.handler(spool.getHandler());
+
+        final ZipEntry entry = new ZipEntry(spool.getTextEntryName());
+        entry.setTime(System.currentTimeMillis());
+        this.zip.putNextEntry(entry, Format.TEXT);
+        this.println(message);
+        this.flush();
+        this.zip.closeEntry();
+
+        this.zip.attachements();
+        this.zip.endAttachements();
+        this.zip.endHandler();
+    }
+
+    private static void copy(final InputStream in, final OutputStream out, final byte[] buffer) throws IOException
+    {
+        int l;
+        while ((l = in.read(buffer)) >= 0)
+        {
+            out.write(buffer, 0, l);
+        }
+    }
+
+    private static void log(final int level, final String message)
+    {
+        Activator.log(null, level, message, null);
+    }
+
     private String getBaseName(final InventoryPrinterHandler handler)
     {
         final String title = handler.getTitle();
@@ -139,6 +361,19 @@ public class ZipConfigurationWriter extends ConfigurationWriter
             { new Integer(this.entryCounter), name });
     }
 
+    private static class PrinterThreadFactory implements ThreadFactory
+    {
+
+        private static final AtomicInteger counter = new AtomicInteger();
+
+        public Thread newThread(final Runnable r)
+        {
+            final Thread thread = new Thread(r, "Apache Felix Inventory Printer #" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
     private static class ConfigZipOutputStream extends ZipOutputStream
     {
 
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.inventory.impl.helper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.apache.felix.inventory.Format;
+import org.apache.felix.inventory.impl.InventoryPrinterHandler;
+
+public class ZipConfigurationWriterTest extends TestCase
+{
+
+    public void test_printInventories() throws IOException
+    {
+        final InventoryPrinterHandler[] handlers = new InventoryPrinterHandler[]
+            { new TestHandler("slow", 200, null), new TestHandler("fast", 0, null),
+                new TestHandler("attachments", 0, "file.txt") };
+
+        final Map entries = zip(handlers, 3, 0);
+
+        assertEquals("slow output", entries.get("000_slow.txt"));
+        assertEquals("{\"name\":\"slow\"}", entries.get("json/000_slow.json"));
+        assertEquals("fast output", entries.get("001_fast.txt"));
+        assertEquals("attachments output", entries.get("002_attachments.txt"));
+        assertEquals("attached", entries.get("002_attachments/file.txt"));
+
+        final String index = (String) entries.get("index.json");
+        assertTrue(index.indexOf("\"000_slow.txt\"") > 0);
+        assertTrue(index.indexOf("\"json/001_fast.json\"") > 0);
+        assertTrue(index.indexOf("\"002_attachments/file.txt\"") > 0);
+    }
+
+    public void test_printInventories_failure() throws IOException
+    {
+        final InventoryPrinterHandler[] handlers = new InventoryPrinterHandler[]
+            { new TestHandler("failing", -1, null), new TestHandler("fast", 0, null) };
+
+        final Map entries = zip(handlers, 2, 0);
+
+        assertTrue(((String) entries.get("000_failing.txt")).startsWith("Inventory printer failed"));
+        assertFalse(entries.containsKey("json/000_failing.json"));
+        assertEquals("fast output", entries.get("001_fast.txt"));
+    }
+
+    public void test_printInventories_timeout() throws IOException
+    {
+        final InventoryPrinterHandler[] handlers = new InventoryPrinterHandler[]
+            { new TestHandler("blocking", 60000, null), new TestHandler("fast", 0, null) };
+
+        final long start = System.currentTimeMillis();
+        final Map entries = zip(handlers, 2, 100);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+
+        assertTrue(((String) entries.get("000_blocking.txt")).startsWith("Inventory printer did not finish"));
+        assertEquals("fast output", entries.get("001_fast.txt"));
+    }
+
+    public void test_printInventories_timeout_ignoring_interrupt() throws IOException
+    {
+        // the stuck printer keeps the single thread, so the second
+        // printer is never started and must still time out
+        final InventoryPrinterHandler[] handlers = new InventoryPrinterHandler[]
+            { new TestHandler("stuck", 5000, null, true), new TestHandler("queued", 0, null) };
+
+        final long start = System.currentTimeMillis();
+        final Map entries = zip(handlers, 1, 100);
+        assertTrue(System.currentTimeMillis() - start < 4000);
+
+        assertTrue(((String) entries.get("000_stuck.txt")).startsWith("Inventory printer did not finish"));
+        assertTrue(((String) entries.get("001_queued.txt")).startsWith("Inventory printer did not finish"));
+    }
+
+    private Map zip(final InventoryPrinterHandler[] handlers, final int threads, final long timeout)
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ZipConfigurationWriter writer = ZipConfigurationWriter.create(out);
+        writer.printInventories(handlers, threads, timeout);
+        writer.finish();
+
+        final Map entries = new LinkedHashMap();
+        final ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
+        ZipEntry entry;
+        while ((entry = in.getNextEntry()) != null)
+        {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[1024];
+            int l;
+            while ((l = in.read(buffer)) >= 0)
+            {
+                content.write(buffer, 0, l);
+            }
+            entries.put(entry.getName(), new String(content.toByteArray(), "UTF-8").trim());
+        }
+        return entries;
+    }
+
+    private static class TestHandler implements InventoryPrinterHandler
+    {
+
+        private final String name;
+
+        private final long sleep;
+
+        private final String attachment;
+
+        private final boolean ignoreInterrupt;
+
+        TestHandler(final String name, final long sleep, final String attachment)
+        {
+            this(name, sleep, attachment, false);
+        }
+
+        TestHandler(final String name, final long sleep, final String attachment, final boolean ignoreInterrupt)
+        {
+            this.name = name;
+            this.sleep = sleep;
+            this.attachment = attachment;
+            this.ignoreInterrupt = ignoreInterrupt;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public String getTitle()
+        {
+            return this.name;
+        }
+
+        public Format[] getFormats()
+        {
+            return new Format[]
+                { Format.TEXT, Format.JSON };
+        }
+
+        public boolean supports(final Format format)
+        {
+            return format == Format.TEXT || format == Format.JSON;
+        }
+
+        public void print(final PrintWriter printWriter, final Format format, final boolean isZip)
+        {
+            if (this.sleep < 0)
+            {
+                throw new IllegalStateException("expected");
+            }
+            if (this.ignoreInterrupt)
+            {
+                final long end = System.currentTimeMillis() + this.sleep;
+                while (System.currentTimeMillis() < end)
+                {
+                    try
+                    {
+                        Thread.sleep(10);
+                    }
+                    catch (final InterruptedException ie)
+                    {
+                        // keep running
+                    }
+                }
+                return;
+            }
+            try
+            {
+                Thread.sleep(this.sleep);
+            }
+            catch (final InterruptedException ie)
+            {
+                return;
+            }
+            if (format == Format.JSON)
+            {
+                printWriter.print("{\"name\":\"" + this.name + "\"}");
+            }
+            else
+            {
+                printWriter.print(this.name + " output");
+            }
+        }
+
+        public void addAttachments(final ZipOutputStream zos, final String namePrefix) throws IOException
+        {
+            if (this.attachment != null)
+            {
+                zos.putNextEntry(new ZipEntry(namePrefix + this.attachment));
+                zos.write("attached".getBytes("UTF-8"));
+                zos.closeEntry();
+            }
+        }
+    }
+}
@@ -175,4 +175,18 @@ public @interface Component {
      * </pre>
      */
     String version() default "";
+
+    /**
+     * Set how the service objects used by a method flow are tracked by the service dependencies.
+     * By default ({@literal thread}), they are stored in thread locals. With {@literal invocation}, they are
+     * stored in a context only kept while a component method is running on the thread, so no thread local is
+     * used. This suits components called from many short-lived (or virtual) threads.
+     * <pre>
+     *     {@code @Component(serviceUsage = "invocation")}
+     *     public class MyComponent {
+     *         // ...
+     *     }
+     * </pre>
+     */
+    String serviceUsage() default "";
 }
@@ -58,6 +58,11 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
      */
     public static final  String FIELD_FLAG_PREFIX = "__F";
 
+    /**
+     * Field slots field, holding the slot of each field in the instance manager, indexed by field id.
+     */
+    public static final  String FIELD_SLOTS = "__FIELD_SLOTS";
+
     /**
      * Method flag prefix.
      */
@@ -104,6 +109,12 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
      */
     private Set<String> m_fields;
 
+    /**
+     * Fields detected in the class, ordered by field id.
+     * The id of a field is its index in this list.
+     */
+    private List<String> m_fieldIds;
+
     /**
      * List of methods contained in the class.
      * This set contains method id.
@@ -144,6 +155,7 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
         super(Opcodes.ASM5, visitor);
         m_manipulator = manipulator;
         m_fields = manipulator.getFields().keySet();
+        m_fieldIds = new ArrayList<String>(m_fields);
         m_visitedMethods = manipulator.getMethods();
     }
 
@@ -599,6 +611,8 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
     private void addIMField() {
         FieldVisitor fv = super.visitField(0, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;", null, null);
         fv.visitEnd();
+        fv = super.visitField(ACC_PRIVATE, FIELD_SLOTS, "[I", null, null);
+        fv.visitEnd();
     }
 
     /**
@@ -736,6 +750,24 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
             mv.visitFieldInsn(PUTFIELD, m_owner, FIELD_FLAG_PREFIX + field, "Z");
             mv.visitLabel(l3);
         }
+
+        // Get the slots of the fields, indexed by field id
+        if (! m_fieldIds.isEmpty()) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
+            pushInt(mv, m_fieldIds.size());
+            mv.visitTypeInsn(ANEWARRAY, "java/lang/String");
+            for (int i = 0; i < m_fieldIds.size(); i++) {
+                mv.visitInsn(DUP);
+                pushInt(mv, i);
+                mv.visitLdcInsn(m_fieldIds.get(i));
+                mv.visitInsn(AASTORE);
+            }
+            mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager", "getRegistredFieldSlots",
+                    "([Ljava/lang/String;)[I", false);
+            mv.visitFieldInsn(PUTFIELD, m_owner, FIELD_SLOTS, "[I");
+        }
         mv.visitLabel(endif);
 
         mv.visitVarInsn(ALOAD, 0);
@@ -769,6 +801,35 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
         mv.visitEnd();
     }
 
+    /**
+     * Pushes the slot of a field on the stack, read from the field slots array at the index given by the field id.
+     * @param mv : the method visitor
+     * @param name : the field name
+     */
+    private void loadFieldSlot(MethodVisitor mv, String name) {
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitFieldInsn(GETFIELD, m_owner, FIELD_SLOTS, "[I");
+        pushInt(mv, m_fieldIds.indexOf(name));
+        mv.visitInsn(IALOAD);
+    }
+
+    /**
+     * Pushes an int constant on the stack using the shortest instruction.
+     * @param mv : the method visitor
+     * @param value : the value to push
+     */
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value >= -1 && value <= 5) {
+            mv.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            mv.visitIntInsn(SIPUSH, value);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+
     /**
      * Create the getComponentInstance method.
      */
@@ -812,8 +873,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
         mv.visitVarInsn(ALOAD, 0);
         mv.visitLdcInsn(name);
         mv.visitVarInsn(ALOAD, 1);
+        loadFieldSlot(mv, name);
         mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager", SET,
-                "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;)V", false);
+                "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;I)V", false);
 
         mv.visitInsn(RETURN);
 
@@ -847,8 +909,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
         mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
         mv.visitVarInsn(ALOAD, 0);
         mv.visitLdcInsn(name);
+        loadFieldSlot(mv, name);
         mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager", GET,
-                "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                "(Ljava/lang/Object;Ljava/lang/String;I)Ljava/lang/Object;", false);
         mv.visitTypeInsn(CHECKCAST, internalType);
         mv.visitInsn(ARETURN);
 
@@ -896,8 +959,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager",
-                        GET, "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                        GET, "(Ljava/lang/Object;Ljava/lang/String;I)Ljava/lang/Object;", false);
                 mv.visitVarInsn(ASTORE, 1);
 
                 mv.visitVarInsn(ALOAD, 1);
@@ -929,8 +993,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager",
-                        GET, "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                        GET, "(Ljava/lang/Object;Ljava/lang/String;I)Ljava/lang/Object;", false);
                 mv.visitVarInsn(ASTORE, 1);
 
                 mv.visitVarInsn(ALOAD, 1);
@@ -963,8 +1028,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager",
-                        GET, "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                        GET, "(Ljava/lang/Object;Ljava/lang/String;I)Ljava/lang/Object;", false);
                 mv.visitVarInsn(ASTORE, 1);
 
                 mv.visitVarInsn(ALOAD, 1);
@@ -997,8 +1063,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager",
-                        GET, "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                        GET, "(Ljava/lang/Object;Ljava/lang/String;I)Ljava/lang/Object;", false);
                 mv.visitVarInsn(ASTORE, 1);
 
                 mv.visitVarInsn(ALOAD, 1);
@@ -1027,8 +1094,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitFieldInsn(GETFIELD, m_owner, IM_FIELD, "Lorg/apache/felix/ipojo/InstanceManager;");
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager",
-                        GET, "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;", false);
+                        GET, "(Ljava/lang/Object;Ljava/lang/String;I)Ljava/lang/Object;", false);
                 mv.visitTypeInsn(CHECKCAST, type.getInternalName());
                 mv.visitInsn(ARETURN);
 
@@ -1090,8 +1158,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
                 mv.visitVarInsn(ALOAD, 2);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager", SET,
-                        "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;)V", false);
+                        "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;I)V", false);
 
                 Label l3 = new Label();
                 mv.visitLabel(l3);
@@ -1130,8 +1199,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
                 mv.visitVarInsn(ALOAD, 3);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager",
-                        SET, "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;)V", false);
+                        SET, "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;I)V", false);
 
                 l3 = new Label();
                 mv.visitLabel(l3);
@@ -1155,8 +1225,9 @@ public class ClassManipulator extends ClassVisitor implements Opcodes {
                 mv.visitVarInsn(ALOAD, 0);
                 mv.visitLdcInsn(name);
                 mv.visitVarInsn(ALOAD, 1);
+                loadFieldSlot(mv, name);
                 mv.visitMethodInsn(INVOKEVIRTUAL, "org/apache/felix/ipojo/InstanceManager", SET,
-                        "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;)V", false);
+                        "(Ljava/lang/Object;Ljava/lang/String;Ljava/lang/Object;I)V", false);
 
                 mv.visitInsn(RETURN);
                 break;
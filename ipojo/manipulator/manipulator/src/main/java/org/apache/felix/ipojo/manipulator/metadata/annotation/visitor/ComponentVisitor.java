@@ -101,6 +101,10 @@ public class ComponentVisitor extends AnnotationVisitor {
         }
         if (name.equals("version") && (value != null)) {
             component.addAttribute(new Attribute("version", value.toString()));
+            return;
+        }
+        if (name.equals("serviceUsage") && (value != null)) {
+            component.addAttribute(new Attribute("service-usage", value.toString()));
         }
     }
 
@@ -32,10 +32,22 @@ public class InstanceManager {
         return null;
     }
 
+    public int[] getRegistredFieldSlots(String[] fields) {
+        return null;
+    }
+
     public Set getRegistredMethods() {
         return null;
     }
 
+    public Object onGet(Object pojo, String fieldName, int slot) {
+        return null;
+    }
+
+    public void onSet(Object pojo, String fieldName, Object value, int slot) {
+
+    }
+
     public void onEntry(Object pojo, String methodId, Object[] args) {
 
     }
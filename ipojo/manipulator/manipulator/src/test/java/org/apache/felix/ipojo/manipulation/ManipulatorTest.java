@@ -24,6 +24,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collections;
 
 import junit.framework.Assert;
 import junit.framework.TestCase;
@@ -149,6 +150,31 @@ public class ManipulatorTest extends TestCase {
 
     }
 
+    public void testFieldAccessUsesFieldSlots() throws Exception {
+        Manipulator manipulator = new Manipulator(this.getClass().getClassLoader());
+        byte[] origin = getBytesFromFile(new File("target/test-classes/test/SimplePojo.class"));
+        manipulator.prepare(origin);
+        byte[] clazz = manipulator.manipulate(origin);
+        ManipulatedClassLoader classloader = new ManipulatedClassLoader("test.SimplePojo", clazz);
+        Class cl = classloader.findClass("test.SimplePojo");
+
+        Field slots = cl.getDeclaredField(ClassManipulator.FIELD_SLOTS);
+        Assert.assertEquals(int[].class, slots.getType());
+
+        InstanceManager im = (InstanceManager) Mockito.mock(InstanceManager.class);
+        Mockito.when(im.getRegistredFields()).thenReturn(Collections.singleton("m_result"));
+        Mockito.when(im.getRegistredFieldSlots(new String[] {"m_result"})).thenReturn(new int[] {7});
+        Mockito.when(im.onGet(Mockito.any(), Mockito.eq("m_result"), Mockito.eq(7))).thenReturn(Boolean.FALSE);
+
+        Constructor cst = cl.getDeclaredConstructor(new Class[] {InstanceManager.class});
+        cst.setAccessible(true);
+        Object pojo = cst.newInstance(new Object[] {im});
+
+        Method method = cl.getMethod("doSomething", new Class[0]);
+        Assert.assertFalse(((Boolean) method.invoke(pojo, new Object[0])).booleanValue());
+        Mockito.verify(im).onGet(pojo, "m_result", 7);
+    }
+
     public void testManipulatingTheNonSunPOJO() throws Exception {
         Manipulator manipulator = new Manipulator(this.getClass().getClassLoader());
         byte[] origin = getBytesFromFile(new File("target/test-classes/test/NonSunClass.class"));
@@ -71,6 +71,18 @@ public class ComponentVisitorTestCase extends TestCase {
         assertEquals("false", root.getAttribute("public"));
     }
 
+    public void testServiceUsageAttribute() throws Exception {
+        Reporter reporter = mock(Reporter.class);
+        ComponentWorkbench workbench = new ComponentWorkbench(null, clazz());
+        ComponentVisitor visitor = new ComponentVisitor(workbench, reporter);
+        visitor.visit("serviceUsage", "invocation");
+        visitor.visitEnd();
+
+        Element root = workbench.getRoot();
+        assertNotNull(root);
+        assertEquals("invocation", root.getAttribute("service-usage"));
+    }
+
     public void testFactoryMethodDeprecationSupport() throws Exception {
         Reporter reporter = mock(Reporter.class);
         ComponentWorkbench workbench = new ComponentWorkbench(null, clazz());
@@ -100,6 +100,20 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
      */
     private Map m_fieldRegistration;
 
+    /**
+     * The map [field, slot] giving the index of each registered field
+     * in the {@link InstanceManager#m_fieldInterceptors} and
+     * {@link InstanceManager#m_fieldValues} arrays.
+     * Once configured, this map can't change.
+     */
+    private Map m_fieldSlots;
+
+    /**
+     * The {@link FieldInterceptor} lists indexed by field slot.
+     * Once configured, this array can't change.
+     */
+    private FieldInterceptor[][] m_fieldInterceptors = new FieldInterceptor[0][];
+
     /**
      * the map [method identifier, {@link MethodInterceptor} list] interested
      * by the method.
@@ -138,11 +152,16 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
     private List m_stateQueue = new ArrayList();
 
     /**
-     * The map of [field, value], storing POJO managed
-     * field value.
+     * The map of [field, value], storing the value of fields
+     * set without being registered.
      */
     private Map m_fields = new HashMap();
 
+    /**
+     * The values of the registered fields, indexed by field slot.
+     */
+    private Object[] m_fieldValues = new Object[0];
+
     /**
      * The Map storing the Method objects by ids.
      * [id=>{@link Method}].
@@ -369,7 +388,7 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
         Object setByContainer = null;
 
         if (m_fields != null) {
-            setByContainer = m_fields.get(fieldName);
+            setByContainer = getManagedValue(fieldName);
         }
 
         if (setByContainer == null && pojo != null) { // In the case of no given pojo, return null.
@@ -1060,25 +1079,43 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
      * @param interceptor the field interceptor object
      */
     public void register(FieldMetadata field, FieldInterceptor interceptor) {
+        String name = field.getFieldName();
         if (m_fieldRegistration == null) {
             m_fieldRegistration = new HashMap();
-            m_fieldRegistration.put(field.getFieldName(), new FieldInterceptor[]{interceptor});
+            m_fieldSlots = new HashMap();
+        }
+        FieldInterceptor[] list = (FieldInterceptor[]) m_fieldRegistration.get(name);
+        if (list == null) {
+            list = new FieldInterceptor[]{interceptor};
         } else {
-            FieldInterceptor[] list = (FieldInterceptor[]) m_fieldRegistration.get(field.getFieldName());
-            if (list == null) {
-                m_fieldRegistration.put(field.getFieldName(), new FieldInterceptor[]{interceptor});
-            } else {
-                for (int j = 0; j < list.length; j++) {
-                    if (list[j] == interceptor) {
-                        return;
-                    }
+            for (int j = 0; j < list.length; j++) {
+                if (list[j] == interceptor) {
+                    return;
                 }
-                FieldInterceptor[] newList = new FieldInterceptor[list.length + 1];
-                System.arraycopy(list, 0, newList, 0, list.length);
-                newList[list.length] = interceptor;
-                m_fieldRegistration.put(field.getFieldName(), newList);
+            }
+            FieldInterceptor[] newList = new FieldInterceptor[list.length + 1];
+            System.arraycopy(list, 0, newList, 0, list.length);
+            newList[list.length] = interceptor;
+            list = newList;
+        }
+        m_fieldRegistration.put(name, list);
+
+        Integer slot = (Integer) m_fieldSlots.get(name);
+        if (slot == null) {
+            slot = new Integer(m_fieldInterceptors.length);
+            m_fieldSlots.put(name, slot);
+            FieldInterceptor[][] interceptors = new FieldInterceptor[slot.intValue() + 1][];
+            System.arraycopy(m_fieldInterceptors, 0, interceptors, 0, m_fieldInterceptors.length);
+            m_fieldInterceptors = interceptors;
+            synchronized (this) {
+                // Move the value already set under the field name (if any) to the slot.
+                Object[] values = new Object[slot.intValue() + 1];
+                System.arraycopy(m_fieldValues, 0, values, 0, m_fieldValues.length);
+                values[slot.intValue()] = m_fields.remove(name);
+                m_fieldValues = values;
             }
         }
+        m_fieldInterceptors[slot.intValue()] = list;
     }
 
     /**
@@ -1180,15 +1217,36 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
      * @return the value decided by the last asked handler (throws a warning if two fields decide two different values)
      */
     public Object onGet(Object pojo, String fieldName) {
+        Integer slot = getFieldSlot(fieldName);
+        if (slot == null) {
+            // Not monitored, no interceptor to ask.
+            synchronized (this) {
+                return m_fields.get(fieldName);
+            }
+        }
+        return onGet(pojo, fieldName, slot.intValue());
+    }
+
+    /**
+     * Same as {@link InstanceManager#onGet(Object, String)}, but the field is identified by its slot, avoiding
+     * the lookup by name. This method is called by the manipulated class, which gets the slots of its fields from
+     * {@link InstanceManager#getRegistredFieldSlots(String[])}.
+     *
+     * @param pojo      the pojo object on which the field was get
+     * @param fieldName the field name on which the GETFIELD instruction is called
+     * @param slot      the slot of the field
+     * @return the value decided by the last asked handler (throws a warning if two fields decide two different values)
+     */
+    public Object onGet(Object pojo, String fieldName, int slot) {
         Object initialValue = null;
         synchronized (this) { // Stack confinement.
-            initialValue = m_fields.get(fieldName);
+            initialValue = m_fieldValues[slot];
         }
         Object result = initialValue;
         boolean hasChanged = false;
         // Get the list of registered handlers
-        FieldInterceptor[] list = (FieldInterceptor[]) m_fieldRegistration.get(fieldName); // Immutable list.
-        for (int i = 0; list != null && i < list.length; i++) {
+        FieldInterceptor[] list = m_fieldInterceptors[slot]; // Immutable list.
+        for (int i = 0; i < list.length; i++) {
             // Call onGet outside of a synchronized block.
             Object handlerResult = list[i].onGet(pojo, fieldName, initialValue);
             if (handlerResult == initialValue) {
@@ -1212,10 +1270,10 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
             // A change occurs => notify the change
             //TODO consider just changing the reference, however multiple thread can be an issue
             synchronized (this) {
-                m_fields.put(fieldName, result);
+                m_fieldValues[slot] = result;
             }
             // Call onset outside of a synchronized block.
-            for (int i = 0; list != null && i < list.length; i++) {
+            for (int i = 0; i < list.length; i++) {
                 list[i].onSet(pojo, fieldName, result);
             }
         }
@@ -1388,22 +1446,70 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
      * @param objectValue the new value of the field
      */
     public void onSet(final Object pojo, final String fieldName, final Object objectValue) {
+        Integer slot = getFieldSlot(fieldName);
+        if (slot == null) {
+            // Not monitored, just store the value.
+            synchronized (this) {
+                m_fields.put(fieldName, objectValue);
+            }
+            return;
+        }
+        onSet(pojo, fieldName, objectValue, slot.intValue());
+    }
+
+    /**
+     * Same as {@link InstanceManager#onSet(Object, String, Object)}, but the field is identified by its slot,
+     * avoiding the lookup by name. This method is called by the manipulated class, which gets the slots of its
+     * fields from {@link InstanceManager#getRegistredFieldSlots(String[])}.
+     *
+     * @param pojo        the pojo object on which the field was set
+     * @param fieldName   the field name on which the PUTFIELD instruction is called
+     * @param objectValue the new value of the field
+     * @param slot        the slot of the field
+     */
+    public void onSet(final Object pojo, final String fieldName, final Object objectValue, final int slot) {
         synchronized (this) {
             // First, store the new value.
             // This must be done in a synchronized block to avoid
             // concurrent modification
-            m_fields.put(fieldName, objectValue);
+            m_fieldValues[slot] = objectValue;
         }
         // The registrations cannot be modified, so we can directly access
         // the interceptor list.
-        FieldInterceptor[] list = (FieldInterceptor[]) m_fieldRegistration
-                .get(fieldName);
-        for (int i = 0; list != null && i < list.length; i++) {
+        FieldInterceptor[] list = m_fieldInterceptors[slot];
+        for (int i = 0; i < list.length; i++) {
             // The callback must be call outside the synchronization block.
             list[i].onSet(pojo, fieldName, objectValue);
         }
     }
 
+    /**
+     * Gets the slot of a registered field.
+     *
+     * @param fieldName the field name
+     * @return the slot, <code>null</code> if the field is not registered.
+     */
+    private Integer getFieldSlot(String fieldName) {
+        if (m_fieldSlots == null) { // Immutable once configured.
+            return null;
+        }
+        return (Integer) m_fieldSlots.get(fieldName);
+    }
+
+    /**
+     * Gets the value stored by the container for the given field.
+     *
+     * @param fieldName the field name
+     * @return the value, <code>null</code> if not set.
+     */
+    private synchronized Object getManagedValue(String fieldName) {
+        Integer slot = getFieldSlot(fieldName);
+        if (slot == null) {
+            return m_fields.get(fieldName);
+        }
+        return m_fieldValues[slot.intValue()];
+    }
+
 
     /**
      * Gets the bundle context used by this component instance.
@@ -1550,6 +1656,29 @@ public class InstanceManager implements ComponentInstance, InstanceStateListener
         return m_fieldRegistration.keySet();
     }
 
+    /**
+     * Gets the slots of the given fields, to be passed to {@link InstanceManager#onGet(Object, String, int)} and
+     * {@link InstanceManager#onSet(Object, String, Object, int)}.
+     * This method is invoked by the POJO itself during its initialization, the given array contains the fields of
+     * the POJO class ordered by the field ids assigned by the manipulator.
+     *
+     * @param fields the field names.
+     * @return the slot of each field, <code>-1</code> for fields which are not registered, <code>null</code> if no
+     * field is registered.
+     */
+    public int[] getRegistredFieldSlots(String[] fields) {
+        // IMPORTANT - method used by the manipulator
+        if (m_fieldSlots == null) {
+            return null;
+        }
+        int[] slots = new int[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Integer slot = (Integer) m_fieldSlots.get(fields[i]);
+            slots[i] = slot == null ? -1 : slot.intValue();
+        }
+        return slots;
+    }
+
     /**
      * Gets the list of registered methods (containing method ids).
      * This method is invoked by the POJO itself during its
@@ -19,16 +19,21 @@
 
 package org.apache.felix.ipojo.extender.internal;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.ThreadFactory;
 
 import org.apache.felix.ipojo.ConfigurationTracker;
 import org.apache.felix.ipojo.EventDispatcher;
 import org.apache.felix.ipojo.extender.internal.declaration.service.DeclarationServiceFactory;
 import org.apache.felix.ipojo.extender.internal.linker.DeclarationLinker;
+import org.apache.felix.ipojo.extender.internal.linker.ManagedType;
 import org.apache.felix.ipojo.extender.internal.processor.*;
 import org.apache.felix.ipojo.extender.internal.queue.ExecutorQueueService;
 import org.apache.felix.ipojo.extender.internal.queue.GroupThreadFactory;
+import org.apache.felix.ipojo.extender.internal.queue.JobTimingStatistics;
 import org.apache.felix.ipojo.extender.internal.queue.NamingThreadFactory;
+import org.apache.felix.ipojo.extender.internal.queue.ParallelQueueService;
 import org.apache.felix.ipojo.extender.internal.queue.PrefixedThreadFactory;
 import org.apache.felix.ipojo.extender.internal.queue.SynchronousQueueService;
 import org.apache.felix.ipojo.extender.internal.queue.debug.ReplayQueueEventProxy;
@@ -102,6 +107,11 @@ public class Extender implements BundleActivator {
 
     private LifecycleQueueService m_queueService;
 
+    /**
+     * Job timings collected when the parallel queue is used, {@literal null} otherwise.
+     */
+    private JobTimingStatistics m_timings;
+
     /**
      * Track ACTIVE bundles.
      */
@@ -168,10 +178,26 @@ public class Extender implements BundleActivator {
 
             // Create the queue services
             SynchronousQueueService sync = new SynchronousQueueService(context);
-            ExecutorQueueService async = new ExecutorQueueService(context,
-                                                                  Integer.getInteger(ExecutorQueueService.THREADPOOL_SIZE_PROPERTY,
-                                                                                     1), // default to 1 if no system property is set
-                                                                  threadFactory);
+            LifecycleQueueService async;
+            if (Boolean.getBoolean(ParallelQueueService.PARALLEL_QUEUE_PROPERTY)) {
+                // Process bundles concurrently: activations are kept in order per bundle,
+                // and factories are built before instances are created
+                async = new ParallelQueueService(context,
+                                                 Integer.getInteger(ExecutorQueueService.THREADPOOL_SIZE_PROPERTY,
+                                                                    Runtime.getRuntime().availableProcessors()),
+                                                 threadFactory,
+                                                 Arrays.asList(QueuingActivationProcessor.BUNDLE_ACTIVATION_JOB_TYPE,
+                                                               ManagedType.FACTORY_CREATION_JOB_TYPE,
+                                                               ManagedType.INSTANCE_STARTUP_JOB_TYPE),
+                                                 Collections.singleton(QueuingActivationProcessor.BUNDLE_ACTIVATION_JOB_TYPE));
+                m_timings = new JobTimingStatistics();
+                async.addQueueListener(m_timings);
+            } else {
+                async = new ExecutorQueueService(context,
+                                                 Integer.getInteger(ExecutorQueueService.THREADPOOL_SIZE_PROPERTY,
+                                                                    1), // default to 1 if no system property is set
+                                                 threadFactory);
+            }
             m_queueService = new PreferenceQueueService(new HeaderPreferenceSelection(), sync, async);
 
             extensionBundleProcessor = new QueuingActivationProcessor(extensionBundleProcessor, m_queueService);
@@ -249,6 +275,10 @@ public class Extender implements BundleActivator {
         m_linker.stop();
         m_queueService.stop();
 
+        if (m_timings != null) {
+            m_logger.log(Logger.DEBUG, m_timings.toString());
+        }
+
         m_logger.log(Logger.INFO, "iPOJO Main Extender stopped");
         m_context = null;
     }
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.felix.ipojo.extender.internal.queue;
+
+import org.apache.felix.ipojo.extender.queue.JobInfo;
+import org.apache.felix.ipojo.extender.queue.QueueListener;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link QueueListener} aggregating the waiting and execution times of the processed jobs per job type.
+ * Only completed jobs (successful or not) are taken into account.
+ */
+public class JobTimingStatistics implements QueueListener {
+
+    /**
+     * Job type -> timings.
+     */
+    private final ConcurrentMap<String, Timings> m_timings = new ConcurrentHashMap<String, Timings>();
+
+    public void enlisted(JobInfo info) {
+        // Nothing to record yet
+    }
+
+    public void started(JobInfo info) {
+        // Nothing to record yet
+    }
+
+    public void executed(JobInfo info, Object result) {
+        getOrCreate(info.getJobType()).record(info, false);
+    }
+
+    public void failed(JobInfo info, Throwable throwable) {
+        getOrCreate(info.getJobType()).record(info, true);
+    }
+
+    /**
+     * @param type the job type
+     * @return the timings of the given job type, {@literal null} if no job of this type has completed.
+     */
+    public Timings getTimings(String type) {
+        return m_timings.get(type);
+    }
+
+    /**
+     * @return a snapshot of the timings, sorted by job type.
+     */
+    public Map<String, Timings> getTimings() {
+        return new TreeMap<String, Timings>(m_timings);
+    }
+
+    private Timings getOrCreate(String type) {
+        Timings timings = m_timings.get(type);
+        if (timings == null) {
+            Timings created = new Timings();
+            timings = m_timings.putIfAbsent(type, created);
+            if (timings == null) {
+                timings = created;
+            }
+        }
+        return timings;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Queue job timings (ms):");
+        for (Map.Entry<String, Timings> entry : getTimings().entrySet()) {
+            builder.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Timings of the jobs of a given type. All durations are in milliseconds.
+     */
+    public static class Timings {
+        private final AtomicInteger m_count = new AtomicInteger();
+        private final AtomicInteger m_failures = new AtomicInteger();
+        private final AtomicLong m_totalWait = new AtomicLong();
+        private final AtomicLong m_maxWait = new AtomicLong();
+        private final AtomicLong m_totalExecution = new AtomicLong();
+        private final AtomicLong m_maxExecution = new AtomicLong();
+
+        private void record(JobInfo info, boolean failed) {
+            long wait = info.getWaitDuration();
+            long execution = Math.max(info.getExecutionDuration(), 0);
+            m_count.incrementAndGet();
+            if (failed) {
+                m_failures.incrementAndGet();
+            }
+            m_totalWait.addAndGet(wait);
+            m_totalExecution.addAndGet(execution);
+            max(m_maxWait, wait);
+            max(m_maxExecution, execution);
+        }
+
+        private static void max(AtomicLong max, long value) {
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        /**
+         * @return the number of completed jobs, including the failed ones.
+         */
+        public int getCount() {
+            return m_count.get();
+        }
+
+        /**
+         * @return the number of failed jobs.
+         */
+        public int getFailures() {
+            return m_failures.get();
+        }
+
+        public long getTotalWaitDuration() {
+            return m_totalWait.get();
+        }
+
+        public long getMaxWaitDuration() {
+            return m_maxWait.get();
+        }
+
+        public long getTotalExecutionDuration() {
+            return m_totalExecution.get();
+        }
+
+        public long getMaxExecutionDuration() {
+            return m_maxExecution.get();
+        }
+
+        @Override
+        public String toString() {
+            int count = getCount();
+            return String.format("%d jobs (%d failed), wait total=%d max=%d avg=%d, execution total=%d max=%d avg=%d",
+                                 count,
+                                 getFailures(),
+                                 getTotalWaitDuration(),
+                                 getMaxWaitDuration(),
+                                 count == 0 ? 0 : getTotalWaitDuration() / count,
+                                 getTotalExecutionDuration(),
+                                 getMaxExecutionDuration(),
+                                 count == 0 ? 0 : getTotalExecutionDuration() / count);
+        }
+    }
+}
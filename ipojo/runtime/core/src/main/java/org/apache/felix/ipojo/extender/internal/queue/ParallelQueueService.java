@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.felix.ipojo.extender.internal.queue;
+
+import org.apache.felix.ipojo.extender.internal.LifecycleQueueService;
+import org.apache.felix.ipojo.extender.queue.Callback;
+import org.apache.felix.ipojo.extender.queue.Job;
+import org.apache.felix.ipojo.extender.queue.JobInfo;
+import org.apache.felix.ipojo.extender.queue.QueueService;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An asynchronous implementation of the queue service processing the jobs of different bundles concurrently.
+ * <p/>
+ * Jobs of an <em>ordered</em> type (typically the bundle activation jobs) are executed one at a time per bundle, in
+ * submission order. The other jobs are executed as soon as a thread is available. When several jobs are waiting,
+ * the jobs whose type comes first in the priority list are executed first (so factories are built before the
+ * instances are created), and jobs of the same priority are executed in submission order.
+ */
+public class ParallelQueueService extends AbstractQueueService implements LifecycleQueueService {
+
+    /**
+     * System property enabling the parallel queue service in the extender.
+     * Possible value are either {@literal true} or {@literal false}.
+     */
+    public static final String PARALLEL_QUEUE_PROPERTY = "org.apache.felix.ipojo.extender.ParallelQueue";
+
+    /**
+     * The executor service.
+     */
+    private final ThreadPoolExecutor m_executorService;
+
+    /**
+     * The statistics populated by this queue service.
+     */
+    private final Statistic m_statistic = new Statistic();
+
+    /**
+     * The job types, from the highest priority to the lowest.
+     */
+    private final List<String> m_priorities;
+
+    /**
+     * The job types executed one at a time per bundle.
+     */
+    private final Set<String> m_orderedTypes;
+
+    /**
+     * Bundle id -> jobs waiting for the currently executed job of this bundle.
+     * A bundle has an entry as long as one of its ordered jobs is scheduled or executed.
+     * Access must be guarded by the map itself.
+     */
+    private final Map<Long, Queue<Task<?>>> m_lanes = new HashMap<Long, Queue<Task<?>>>();
+
+    /**
+     * Sequence number of the next submitted job.
+     */
+    private final AtomicLong m_sequence = new AtomicLong();
+
+    /**
+     * Creates the queue service.
+     *
+     * @param bundleContext the bundle context
+     * @param size          the thread pool size
+     * @param threadFactory the thread factory
+     * @param priorities    the job types, from the highest priority to the lowest, types not listed have
+     *                      the lowest priority
+     * @param orderedTypes  the job types executed one at a time per bundle
+     */
+    public ParallelQueueService(BundleContext bundleContext,
+                                int size,
+                                ThreadFactory threadFactory,
+                                List<String> priorities,
+                                Collection<String> orderedTypes) {
+        super(bundleContext, QueueService.class);
+        m_executorService = new ThreadPoolExecutor(size, size,
+                                                   0L, TimeUnit.MILLISECONDS,
+                                                   new PriorityBlockingQueue<Runnable>(),
+                                                   threadFactory);
+        m_priorities = new ArrayList<String>(priorities);
+        m_orderedTypes = new HashSet<String>(orderedTypes);
+    }
+
+    /**
+     * Stops the service.
+     */
+    public void stop() {
+        m_executorService.shutdown();
+        // Wait for potential executed tasks to finish their executions
+        try {
+            m_executorService.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            // Ignored
+        }
+        super.stop();
+    }
+
+    @Override
+    protected Dictionary<String, ?> getServiceProperties() {
+        Hashtable<String, Object> properties = new Hashtable<String, Object>();
+        properties.put(QueueService.QUEUE_MODE_PROPERTY, QueueService.ASYNCHRONOUS_QUEUE_MODE);
+        properties.put(ExecutorQueueService.THREADPOOL_SIZE_PROPERTY, m_executorService.getMaximumPoolSize());
+        return properties;
+    }
+
+    public int getFinished() {
+        return m_statistic.getFinishedCounter().get();
+    }
+
+    public int getWaiters() {
+        return m_statistic.getWaiters().size();
+    }
+
+    public int getCurrents() {
+        return m_statistic.getCurrentsCounter().get();
+    }
+
+    public List<JobInfo> getWaitersInfo() {
+        List<JobInfo> snapshot;
+        synchronized (m_statistic.getWaiters()) {
+            snapshot = new ArrayList<JobInfo>(m_statistic.getWaiters());
+        }
+        return Collections.unmodifiableList(snapshot);
+    }
+
+    /**
+     * Submits a job to the queue. The submitted job is wrapped into a {@link JobInfoCallable} to collect the
+     * statistics.
+     *
+     * @param callable    the job
+     * @param callback    callback called when the job is processed
+     * @param description a description of the job
+     * @return the reference on the submitted job
+     */
+    public <T> Future<T> submit(Job<T> callable, Callback<T> callback, String description) {
+        Bundle bundle = callable.getBundle();
+        Long lane = null;
+        if (bundle != null && m_orderedTypes.contains(callable.getJobType())) {
+            lane = bundle.getBundleId();
+        }
+        Task<T> task = new Task<T>(new JobInfoCallable<T>(this, m_statistic, callable, callback, description),
+                                   getPriority(callable.getJobType()),
+                                   m_sequence.getAndIncrement(),
+                                   lane);
+        if (lane == null) {
+            m_executorService.execute(task);
+        } else {
+            enqueue(lane, task);
+        }
+        return task;
+    }
+
+    public <T> Future<T> submit(Job<T> callable, String description) {
+        return submit(callable, null, description);
+    }
+
+    public <T> Future<T> submit(Job<T> callable) {
+        return submit(callable, "No description");
+    }
+
+    /**
+     * Computes the priority of a job type, lower values being executed first.
+     *
+     * @param type the job type
+     * @return the priority
+     */
+    private int getPriority(String type) {
+        int index = m_priorities.indexOf(type);
+        if (index == -1) {
+            return m_priorities.size();
+        }
+        return index;
+    }
+
+    /**
+     * Schedules the task immediately if no other job of the bundle is scheduled, or appends it to the bundle's
+     * waiting jobs.
+     */
+    private void enqueue(Long lane, Task<?> task) {
+        synchronized (m_lanes) {
+            Queue<Task<?>> waiting = m_lanes.get(lane);
+            if (waiting != null) {
+                waiting.add(task);
+                return;
+            }
+            m_lanes.put(lane, new LinkedList<Task<?>>());
+        }
+        m_executorService.execute(task);
+    }
+
+    /**
+     * Schedules the next waiting job of the bundle, if any.
+     */
+    private void next(Long lane) {
+        Task<?> task;
+        synchronized (m_lanes) {
+            Queue<Task<?>> waiting = m_lanes.get(lane);
+            task = waiting.poll();
+            if (task == null) {
+                m_lanes.remove(lane);
+                return;
+            }
+        }
+        try {
+            m_executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            // The service is stopped, drop the remaining jobs of the bundle
+            synchronized (m_lanes) {
+                m_lanes.remove(lane);
+            }
+        }
+    }
+
+    /**
+     * A future executed by the thread pool, ordered by priority and then by submission.
+     */
+    private class Task<T> extends FutureTask<T> implements Comparable<Task<?>> {
+
+        private final int m_priority;
+        private final long m_sequence;
+        private final Long m_lane;
+
+        public Task(Callable<T> callable, int priority, long sequence, Long lane) {
+            super(callable);
+            m_priority = priority;
+            m_sequence = sequence;
+            m_lane = lane;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                if (m_lane != null) {
+                    next(m_lane);
+                }
+            }
+        }
+
+        public int compareTo(Task<?> other) {
+            if (m_priority != other.m_priority) {
+                return m_priority < other.m_priority ? -1 : 1;
+            }
+            if (m_sequence != other.m_sequence) {
+                return m_sequence < other.m_sequence ? -1 : 1;
+            }
+            return 0;
+        }
+    }
+}
@@ -80,6 +80,11 @@ public class Dependency extends DependencyModel implements FieldInterceptor, Met
      * Thread Local.
      */
     private ServiceUsage m_usage;
+    /**
+     * Are the service objects used by a method flow tracked in a per invocation
+     * context instead of thread locals?
+     */
+    private boolean m_invocationUsage;
     /**
      * Type of the object to inject in aggregate dependency. This value is used to determine what kind of object need
      * to be injected for fields and constructor parameter for aggregate dependencies.
@@ -200,10 +205,40 @@ public class Dependency extends DependencyModel implements FieldInterceptor, Met
 
     protected void addConstructorInjection(int index) throws ConfigurationException {
         m_index = index;
-        m_usage = new ServiceUsage();
+        m_usage = createServiceUsage();
         m_handler.getInstanceManager().register(index, this);
     }
 
+    /**
+     * Tracks the service objects used by a method flow in a per invocation context
+     * instead of thread locals.
+     * This method is called during the configuration.
+     *
+     * @see InvocationServiceUsage
+     */
+    protected void setInvocationServiceUsage() {
+        m_invocationUsage = true;
+        if (m_usage != null) {
+            m_usage = createServiceUsage();
+        }
+    }
+
+    /**
+     * Are the service objects used by a method flow tracked in a per invocation context ?
+     *
+     * @return true if the dependency does not use thread locals.
+     */
+    public boolean isInvocationServiceUsage() {
+        return m_invocationUsage;
+    }
+
+    private ServiceUsage createServiceUsage() {
+        if (m_invocationUsage) {
+            return new InvocationServiceUsage();
+        }
+        return new ServiceUsage();
+    }
+
     /**
      * Stop the current dependency.
      *
@@ -892,8 +927,8 @@ public class Dependency extends DependencyModel implements FieldInterceptor, Met
             usage.incComponentStack(); // Increment the number of component access.
             if (usage.m_stack > 0) {
                 usage.inc();
-                m_usage.set(usage); // Set the Thread local as value has been modified
             }
+            m_usage.set(usage); // Set the Thread local as value has been modified
         }
     }
 
@@ -932,7 +967,7 @@ public class Dependency extends DependencyModel implements FieldInterceptor, Met
     public void onFinally(Object pojo, Member method) {
         if (m_usage != null) {
             Usage usage = m_usage.get();
-            usage.decComponentStack();
+            boolean outermost = usage.decComponentStack();
             if (usage.m_stack > 0) {
                 if (usage.dec()) {
                     // Exit the method flow => Release all objects
@@ -940,6 +975,9 @@ public class Dependency extends DependencyModel implements FieldInterceptor, Met
                     // Also remove the thread local object.
                     m_usage.remove();
                 }
+            } else if (outermost) {
+                // Exit a method flow which has not used the service.
+                m_usage.release(usage);
             }
         }
     }
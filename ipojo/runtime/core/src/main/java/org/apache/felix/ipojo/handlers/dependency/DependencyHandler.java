@@ -62,6 +62,18 @@ public class DependencyHandler extends PrimitiveHandler implements DependencySta
      * Proxy settings value: disabled.
      */
     public static final String PROXY_DISABLED = "disabled";
+    /**
+     * Component type attribute setting how the service objects used by a method flow are tracked.
+     */
+    public static final String SERVICE_USAGE_ATTRIBUTE = "service-usage";
+    /**
+     * Service usage value: thread (thread locals, the default).
+     */
+    public static final String THREAD_SERVICE_USAGE = "thread";
+    /**
+     * Service usage value: invocation (per invocation context, no thread locals).
+     */
+    public static final String INVOCATION_SERVICE_USAGE = "invocation";
     /**
      * List of dependencies of the component.
      */
@@ -201,6 +213,8 @@ public class DependencyHandler extends PrimitiveHandler implements DependencySta
         Dictionary filtersConfiguration = getRequiresFilters(configuration.get("requires.filters"));
         Dictionary fromConfiguration = (Dictionary) configuration.get("requires.from");
 
+        boolean invocationUsage = isInvocationServiceUsage(componentMetadata);
+
         for (int i = 0; deps != null && i < deps.length; i++) {
             // Create the dependency metadata
             final Element dependencyElement = deps[i];
@@ -243,6 +257,9 @@ public class DependencyHandler extends PrimitiveHandler implements DependencySta
             Dependency dep = new Dependency(this, field, spec, fil, optional, aggregate, nullable, isProxy, identity,
                     context, policy, cmp, defaultImpl, exception);
             dep.setTimeout(timeout);
+            if (invocationUsage) {
+                dep.setInvocationServiceUsage();
+            }
 
             // Look for dependency callback :
             addCallbacksToDependency(dependencyElement, dep);
@@ -369,6 +386,17 @@ public class DependencyHandler extends PrimitiveHandler implements DependencySta
         return isProxy;
     }
 
+    private boolean isInvocationServiceUsage(Element componentMetadata) throws ConfigurationException {
+        String usage = componentMetadata.getAttribute(SERVICE_USAGE_ATTRIBUTE);
+        if (usage == null || usage.length() == 0 || THREAD_SERVICE_USAGE.equalsIgnoreCase(usage)) {
+            return false;
+        } else if (INVOCATION_SERVICE_USAGE.equalsIgnoreCase(usage)) {
+            return true;
+        }
+        throw new ConfigurationException("Unknown " + SERVICE_USAGE_ATTRIBUTE + " value : " + usage
+                + " (expected " + THREAD_SERVICE_USAGE + " or " + INVOCATION_SERVICE_USAGE + ")");
+    }
+
     private String getProxySetting() {
         // Detect proxy default value.
         String setting = getInstanceManager().getContext().getProperty(PROXY_SETTINGS_PROPERTY);
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.ipojo.handlers.dependency;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Object managing the copy of required services used by the method flows
+ * without thread locals.
+ * The usage object of a thread only exists while a component method runs on this
+ * thread: it is created when the outermost component method is entered, and
+ * dropped when this method exits. Service accesses from outside of a component
+ * method are not cached.
+ * This mode is selected with the <code>service-usage="invocation"</code> attribute
+ * of the component type.
+ *
+ * @author <a href="mailto:dev@felix.apache.org">Felix Project Team</a>
+ */
+public class InvocationServiceUsage extends ServiceUsage {
+
+    /**
+     * The usage objects of the threads running a component method.
+     */
+    private final Map<Thread, Usage> m_usages = new ConcurrentHashMap<Thread, Usage>();
+
+    /**
+     * Gets the usage object of the current thread.
+     * @return the usage object of the current method flow, a new usage object
+     * if the current thread does not run a component method.
+     * @see java.lang.ThreadLocal#get()
+     */
+    public Usage get() {
+        Usage usage = m_usages.get(Thread.currentThread());
+        if (usage == null) {
+            return new Usage();
+        }
+        return usage;
+    }
+
+    /**
+     * Sets the usage object of the current thread.
+     * The usage object is only kept if the current thread runs a component method.
+     * @param usage the usage object.
+     * @see java.lang.ThreadLocal#set(Object)
+     */
+    public void set(Usage usage) {
+        if (usage.m_componentStack > 0) {
+            m_usages.put(Thread.currentThread(), usage);
+        }
+    }
+
+    /**
+     * Removes the usage object of the current thread, unless a component method
+     * is still running on the current thread.
+     * @see java.lang.ThreadLocal#remove()
+     */
+    public void remove() {
+        Thread thread = Thread.currentThread();
+        Usage usage = m_usages.get(thread);
+        if (usage != null && usage.m_componentStack <= 0) {
+            m_usages.remove(thread);
+        }
+    }
+
+    /**
+     * The outermost component method has exited, drops the usage object.
+     * @param usage the usage object of the current thread.
+     * @see org.apache.felix.ipojo.handlers.dependency.ServiceUsage#release(org.apache.felix.ipojo.handlers.dependency.ServiceUsage.Usage)
+     */
+    public void release(Usage usage) {
+        m_usages.remove(Thread.currentThread());
+    }
+
+    /**
+     * Gets the number of threads running a component method.
+     * @return the number of tracked method flows.
+     */
+    int size() {
+        return m_usages.size();
+    }
+
+}
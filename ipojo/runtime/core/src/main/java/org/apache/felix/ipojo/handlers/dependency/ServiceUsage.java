@@ -97,4 +97,14 @@ public class ServiceUsage extends ThreadLocal<ServiceUsage.Usage> {
         return new Usage();
     }   
 
+    /**
+     * Called when the outermost component method of a method flow
+     * exits without having used the service.
+     * The thread local keeps the usage object for the next method flow.
+     * @param usage the usage object of the current thread.
+     */
+    public void release(Usage usage) {
+        // Nothing to do.
+    }
+
 }
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.ipojo;
+
+import org.apache.felix.ipojo.parser.FieldMetadata;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import java.util.Hashtable;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the cost of field accesses in a component with injected fields, when the manipulated class goes
+ * through the name based {@link InstanceManager#onGet(Object, String)} and
+ * {@link InstanceManager#onSet(Object, String, Object)} methods (classes manipulated before field slots), and
+ * when it goes through the slot based methods.
+ * <p>
+ * The two component classes contain the accessors the manipulator generates, written by hand. The components
+ * read three injected service fields and update a managed counter field in a tight loop.
+ * <p>
+ * This is not run as part of the build, as the class name does not match the surefire includes. Run it with
+ * <code>mvn test -Dtest=FieldAccessBenchmark</code>.
+ */
+public class FieldAccessBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    private static final int ITERATIONS = 2000000;
+
+    private static final String[] FIELDS = new String[] {"m_log", "m_http", "m_config", "m_count"};
+
+    @Test
+    public void compareFieldAccess() throws Exception {
+        InstanceManager manager = createInstanceManager();
+        // The service fields are injected like the dependency handler does, the counter is only monitored.
+        for (int i = 0; i < 3; i++) {
+            manager.register(new FieldMetadata(FIELDS[i], "java.lang.Object"), new ServiceInjector(new Object()));
+        }
+        manager.register(new FieldMetadata(FIELDS[3], "java.lang.Integer"), new ServiceInjector(null));
+
+        ByNameComponent byName = new ByNameComponent(manager);
+        BySlotComponent bySlot = new BySlotComponent(manager);
+
+        long bestByName = Long.MAX_VALUE;
+        long bestBySlot = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long begin = System.nanoTime();
+            byName.work(ITERATIONS);
+            bestByName = Math.min(bestByName, System.nanoTime() - begin);
+
+            begin = System.nanoTime();
+            bySlot.work(ITERATIONS);
+            bestBySlot = Math.min(bestBySlot, System.nanoTime() - begin);
+        }
+
+        // Each iteration does three reads, one read and one write of the counter.
+        int accesses = ITERATIONS * 5;
+        System.out.println("Field access by name: " + format(bestByName, accesses) + " ns/access");
+        System.out.println("Field access by slot: " + format(bestBySlot, accesses) + " ns/access");
+
+        assertThat(manager.onGet(null, "m_count")).isEqualTo(2 * ROUNDS * ITERATIONS);
+    }
+
+    private static String format(long nanos, int accesses) {
+        return String.valueOf(Math.round(nanos * 100.0 / accesses) / 100.0);
+    }
+
+    private static InstanceManager createInstanceManager() throws ConfigurationException, ClassNotFoundException {
+        ComponentFactory factory = mock(ComponentFactory.class);
+        when(factory.loadClass(anyString())).thenReturn(BySlotComponent.class);
+        when(factory.getClassName()).thenReturn(BySlotComponent.class.getName());
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getHeaders()).thenReturn(new Hashtable<String, String>());
+        BundleContext context = mock(BundleContext.class);
+        when(context.getBundle()).thenReturn(bundle);
+        return new InstanceManager(factory, context, new HandlerManager[0]);
+    }
+
+    /**
+     * Injects a service object, or keeps the stored value if there is none.
+     */
+    private static class ServiceInjector implements FieldInterceptor {
+
+        private final Object m_service;
+
+        ServiceInjector(Object service) {
+            m_service = service;
+        }
+
+        public void onSet(Object pojo, String fieldName, Object value) {
+            // Nothing to do.
+        }
+
+        public Object onGet(Object pojo, String fieldName, Object value) {
+            return (m_service != null) ? m_service : value;
+        }
+    }
+
+    /**
+     * A component with the accessors generated before field slots.
+     */
+    private static class ByNameComponent {
+
+        private final InstanceManager __IM;
+
+        ByNameComponent(InstanceManager manager) {
+            __IM = manager;
+        }
+
+        Object __getm_log() {
+            return __IM.onGet(this, "m_log");
+        }
+
+        Object __getm_http() {
+            return __IM.onGet(this, "m_http");
+        }
+
+        Object __getm_config() {
+            return __IM.onGet(this, "m_config");
+        }
+
+        Integer __getm_count() {
+            return (Integer) __IM.onGet(this, "m_count");
+        }
+
+        void __setm_count(Integer value) {
+            __IM.onSet(this, "m_count", value);
+        }
+
+        void work(int iterations) {
+            for (int i = 0; i < iterations; i++) {
+                if (__getm_log() != null && __getm_http() != null && __getm_config() != null) {
+                    Integer count = __getm_count();
+                    __setm_count(count == null ? 1 : count + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * A component with the accessors generated with field slots.
+     */
+    private static class BySlotComponent {
+
+        private final InstanceManager __IM;
+
+        private final int[] __FIELD_SLOTS;
+
+        BySlotComponent(InstanceManager manager) {
+            __IM = manager;
+            __FIELD_SLOTS = manager.getRegistredFieldSlots(FIELDS);
+        }
+
+        Object __getm_log() {
+            return __IM.onGet(this, "m_log", __FIELD_SLOTS[0]);
+        }
+
+        Object __getm_http() {
+            return __IM.onGet(this, "m_http", __FIELD_SLOTS[1]);
+        }
+
+        Object __getm_config() {
+            return __IM.onGet(this, "m_config", __FIELD_SLOTS[2]);
+        }
+
+        Integer __getm_count() {
+            return (Integer) __IM.onGet(this, "m_count", __FIELD_SLOTS[3]);
+        }
+
+        void __setm_count(Integer value) {
+            __IM.onSet(this, "m_count", value, __FIELD_SLOTS[3]);
+        }
+
+        void work(int iterations) {
+            for (int i = 0; i < iterations; i++) {
+                if (__getm_log() != null && __getm_http() != null && __getm_config() != null) {
+                    Integer count = __getm_count();
+                    __setm_count(count == null ? 1 : count + 1);
+                }
+            }
+        }
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.felix.ipojo;
 
 import org.apache.felix.ipojo.metadata.Attribute;
 import org.apache.felix.ipojo.metadata.Element;
+import org.apache.felix.ipojo.parser.FieldMetadata;
 import org.apache.felix.ipojo.parser.MethodMetadata;
 import org.junit.Test;
 import org.osgi.framework.Bundle;
@@ -125,6 +126,78 @@ public class InstanceManagerTest {
         assertThat(error.get()).isEqualTo(0);
     }
 
+    @Test
+    public void testFieldSlots() throws ConfigurationException, ClassNotFoundException {
+        InstanceManager manager = createInstanceManager();
+        FieldInterceptor interceptor = new FieldInterceptor() {
+            public void onSet(Object pojo, String fieldName, Object value) {
+            }
+
+            public Object onGet(Object pojo, String fieldName, Object value) {
+                return value;
+            }
+        };
+
+        // Value set before the registration of the field
+        manager.onSet(null, "bar", "early");
+        manager.register(new FieldMetadata("foo", "java.lang.String"), interceptor);
+        manager.register(new FieldMetadata("bar", "java.lang.String"), interceptor);
+
+        int[] slots = manager.getRegistredFieldSlots(new String[] {"bar", "baz", "foo"});
+        assertThat(slots[1]).isEqualTo(-1);
+        assertThat(slots[0]).isNotEqualTo(slots[2]);
+
+        assertThat(manager.onGet(null, "bar", slots[0])).isEqualTo("early");
+        manager.onSet(null, "foo", "value");
+        assertThat(manager.onGet(null, "foo", slots[2])).isEqualTo("value");
+        manager.onSet(null, "foo", "other", slots[2]);
+        assertThat(manager.onGet(null, "foo")).isEqualTo("other");
+        assertThat(manager.getFieldValue("foo", null)).isEqualTo("other");
+
+        // Fields not registered are still stored by name
+        manager.onSet(null, "baz", "unmanaged");
+        assertThat(manager.onGet(null, "baz")).isEqualTo("unmanaged");
+    }
+
+    @Test
+    public void testFieldAccessByNameAndBySlot() throws ConfigurationException, ClassNotFoundException {
+        InstanceManager manager = createInstanceManager();
+        FieldInterceptor interceptor = new FieldInterceptor() {
+            public void onSet(Object pojo, String fieldName, Object value) {
+            }
+
+            public Object onGet(Object pojo, String fieldName, Object value) {
+                return value;
+            }
+        };
+        String[] fields = new String[20];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = "m_field" + i;
+            manager.register(new FieldMetadata(fields[i], "java.lang.String"), interceptor);
+            manager.onSet(null, fields[i], fields[i]);
+        }
+        int[] slots = manager.getRegistredFieldSlots(fields);
+
+        for (int i = 0; i < fields.length; i++) {
+            assertThat(manager.onGet(null, fields[i], slots[i])).isEqualTo(fields[i]);
+            manager.onSet(null, fields[i], "new" + i, slots[i]);
+        }
+        for (int i = 0; i < fields.length; i++) {
+            assertThat(manager.onGet(null, fields[i])).isEqualTo("new" + i);
+        }
+    }
+
+    private InstanceManager createInstanceManager() throws ConfigurationException, ClassNotFoundException {
+        ComponentFactory factory = mock(ComponentFactory.class);
+        when(factory.loadClass(anyString())).thenReturn(MyComponent.class);
+        when(factory.getClassName()).thenReturn(MyComponent.class.getName());
+        Bundle bundle = mock(Bundle.class);
+        when(bundle.getHeaders()).thenReturn(new Hashtable<String, String>());
+        BundleContext context = mock(BundleContext.class);
+        when(context.getBundle()).thenReturn(bundle);
+        return new InstanceManager(factory, context, new HandlerManager[0]);
+    }
+
     private class Caller implements Runnable {
 
         private final CountDownLatch startSignal;
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.felix.ipojo.extender.internal.queue;
+
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.ipojo.extender.internal.queue.callable.EmptyJob;
+import org.apache.felix.ipojo.extender.internal.queue.callable.ExceptionCallable;
+import org.apache.felix.ipojo.extender.internal.queue.callable.StringCallable;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the Parallel Queue Service.
+ */
+public class ParallelQueueServiceTestCase extends TestCase {
+
+    private static final String ACTIVATION = "activation";
+    private static final String FACTORY = "factory";
+    private static final String INSTANCE = "instance";
+
+    @Mock
+    private BundleContext m_bundleContext;
+
+    @Mock
+    private Bundle m_bundle1;
+
+    @Mock
+    private Bundle m_bundle2;
+
+    private final List<String> m_executions = Collections.synchronizedList(new ArrayList<String>());
+
+    @Override
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(m_bundle1.getBundleId()).thenReturn(1L);
+        when(m_bundle2.getBundleId()).thenReturn(2L);
+    }
+
+    private ParallelQueueService createQueueService(int size) {
+        return new ParallelQueueService(m_bundleContext,
+                                        size,
+                                        Executors.defaultThreadFactory(),
+                                        Arrays.asList(ACTIVATION, FACTORY, INSTANCE),
+                                        Collections.singleton(ACTIVATION));
+    }
+
+    public void testJobsOfABundleAreExecutedInOrder() throws Exception {
+        ParallelQueueService queueService = createQueueService(4);
+        queueService.start();
+
+        Future<String> one = queueService.submit(new RecordingJob(m_bundle1, ACTIVATION, "1", 50));
+        Future<String> two = queueService.submit(new RecordingJob(m_bundle1, ACTIVATION, "2", 10));
+        Future<String> three = queueService.submit(new RecordingJob(m_bundle1, ACTIVATION, "3", 0));
+
+        assertEquals("3", three.get(5, TimeUnit.SECONDS));
+        assertEquals("1", one.get());
+        assertEquals("2", two.get());
+        assertEquals(Arrays.asList("1", "2", "3"), m_executions);
+
+        queueService.stop();
+    }
+
+    public void testBundlesAreProcessedConcurrently() throws Exception {
+        ParallelQueueService queueService = createQueueService(2);
+        queueService.start();
+
+        // Each job waits for the other one to be started
+        CountDownLatch latch = new CountDownLatch(2);
+        Future<Boolean> one = queueService.submit(new RendezVousJob(m_bundle1, latch));
+        Future<Boolean> two = queueService.submit(new RendezVousJob(m_bundle2, latch));
+
+        assertTrue(one.get(5, TimeUnit.SECONDS));
+        assertTrue(two.get(5, TimeUnit.SECONDS));
+
+        queueService.stop();
+    }
+
+    public void testFactoriesAreBuiltBeforeInstances() throws Exception {
+        ParallelQueueService queueService = createQueueService(1);
+        queueService.start();
+
+        // Keep the only thread busy while the other jobs are submitted
+        CountDownLatch latch = new CountDownLatch(2);
+        Future<Boolean> blocker = queueService.submit(new RendezVousJob(m_bundle1, latch));
+        Future<String> instance = queueService.submit(new RecordingJob(m_bundle2, INSTANCE, "instance", 0));
+        Future<String> factory = queueService.submit(new RecordingJob(m_bundle2, FACTORY, "factory", 0));
+        latch.countDown();
+
+        assertTrue(blocker.get(5, TimeUnit.SECONDS));
+        instance.get(5, TimeUnit.SECONDS);
+        factory.get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList("factory", "instance"), m_executions);
+
+        queueService.stop();
+    }
+
+    public void testStatistics() throws Exception {
+        ParallelQueueService queueService = createQueueService(2);
+        JobTimingStatistics timings = new JobTimingStatistics();
+        queueService.addQueueListener(timings);
+        queueService.start();
+
+        Future<String> one = queueService.submit(new RecordingJob(m_bundle1, ACTIVATION, "1", 20));
+        Future<String> two = queueService.submit(new RecordingJob(m_bundle1, ACTIVATION, "2", 0));
+        Future<String> three = queueService.submit(new StringCallable());
+        Future<String> four = queueService.submit(new ExceptionCallable(new Exception("expected")));
+
+        two.get(5, TimeUnit.SECONDS);
+        one.get();
+        three.get(5, TimeUnit.SECONDS);
+        try {
+            four.get(5, TimeUnit.SECONDS);
+            fail("Exception expected");
+        } catch (Exception e) {
+            // Expected
+        }
+
+        assertEquals(4, queueService.getFinished());
+        assertEquals(0, queueService.getCurrents());
+        assertEquals(0, queueService.getWaiters());
+
+        JobTimingStatistics.Timings activation = timings.getTimings(ACTIVATION);
+        assertEquals(2, activation.getCount());
+        assertEquals(0, activation.getFailures());
+        assertTrue(activation.getMaxExecutionDuration() >= 15);
+        // The second job waited for the first one
+        assertTrue(activation.getMaxWaitDuration() >= 15);
+
+        JobTimingStatistics.Timings test = timings.getTimings("test");
+        assertEquals(2, test.getCount());
+        assertEquals(1, test.getFailures());
+
+        queueService.stop();
+    }
+
+    /**
+     * A job recording its execution.
+     */
+    private class RecordingJob extends EmptyJob<String> {
+        private final String m_value;
+        private final int m_time;
+
+        public RecordingJob(Bundle bundle, String type, String value, int time) {
+            super(bundle, type);
+            m_value = value;
+            m_time = time;
+        }
+
+        public String call() throws Exception {
+            Thread.sleep(m_time);
+            m_executions.add(m_value);
+            return m_value;
+        }
+    }
+
+    /**
+     * A job waiting for the latch to be released.
+     */
+    private class RendezVousJob extends EmptyJob<Boolean> {
+        private final CountDownLatch m_latch;
+
+        public RendezVousJob(Bundle bundle, CountDownLatch latch) {
+            super(bundle, ACTIVATION);
+            m_latch = latch;
+        }
+
+        public Boolean call() throws Exception {
+            m_latch.countDown();
+            return m_latch.await(5, TimeUnit.SECONDS);
+        }
+    }
+}
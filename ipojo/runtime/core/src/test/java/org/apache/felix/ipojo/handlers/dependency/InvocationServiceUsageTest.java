@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.ipojo.handlers.dependency;
+
+import java.lang.reflect.Field;
+
+import org.apache.felix.ipojo.InstanceManager;
+import org.apache.felix.ipojo.handlers.providedservice.ComponentTestWithSuperClass;
+import org.mockito.Mockito;
+import org.osgi.framework.BundleContext;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class InvocationServiceUsageTest extends TestCase {
+
+    public void testServiceObjectIsStableWithinAMethodFlow() {
+        Dependency dependency = createDependency();
+        InvocationServiceUsage usage = getUsage(dependency);
+
+        dependency.onEntry(null, null, null);
+        Object service = dependency.onGet(null, null, null);
+        Assert.assertEquals(1, usage.size());
+
+        // Nested method
+        dependency.onEntry(null, null, null);
+        Assert.assertSame(service, dependency.onGet(null, null, null));
+        dependency.onFinally(null, null);
+
+        Assert.assertSame(service, dependency.onGet(null, null, null));
+        dependency.onFinally(null, null);
+
+        Assert.assertEquals(0, usage.size());
+    }
+
+    public void testMethodFlowWithoutServiceAccessIsDropped() {
+        Dependency dependency = createDependency();
+        InvocationServiceUsage usage = getUsage(dependency);
+
+        dependency.onEntry(null, null, null);
+        Assert.assertEquals(1, usage.size());
+        dependency.onFinally(null, null);
+
+        Assert.assertEquals(0, usage.size());
+    }
+
+    public void testAccessOutsideOfAMethodFlowIsNotTracked() {
+        Dependency dependency = createDependency();
+        InvocationServiceUsage usage = getUsage(dependency);
+
+        Assert.assertNotNull(dependency.onGet(null, null, null));
+        Assert.assertEquals(0, usage.size());
+    }
+
+    private Dependency createDependency() {
+        BundleContext context = Mockito.mock(BundleContext.class);
+        InstanceManager im = Mockito.mock(InstanceManager.class);
+        Mockito.when(im.getClazz()).thenReturn(ComponentTestWithSuperClass.class);
+        DependencyHandler handler = Mockito.mock(DependencyHandler.class);
+        Mockito.when(handler.getInstanceManager()).thenReturn(im);
+        Dependency dependency = new Dependency(handler, "a_field", TestSpecification.class, null, true, false, true,
+                false, "dep", context, Dependency.DYNAMIC_BINDING_POLICY, null, null, null);
+        dependency.setInvocationServiceUsage();
+        dependency.start();
+        Assert.assertTrue(dependency.isInvocationServiceUsage());
+        return dependency;
+    }
+
+    private InvocationServiceUsage getUsage(Dependency dependency) {
+        try {
+            Field field = Dependency.class.getDeclaredField("m_usage");
+            field.setAccessible(true);
+            return (InvocationServiceUsage) field.get(dependency);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -139,6 +139,7 @@ public final class Activator implements BundleActivator
 
         // register the listeners
         context.addBundleListener(m_log);
+        context.addBundleListener(m_loggerAdmin);
         context.addFrameworkListener(m_log);
         context.addServiceListener(m_log);
 
@@ -18,7 +18,11 @@
  */
 package org.apache.felix.log;
 
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleEvent;
@@ -41,14 +45,14 @@ import org.osgi.service.log.LogListener;
  */
 final class Log implements BundleListener, FrameworkListener, ServiceListener
 {
-    /** The first log entry. */
-    private LogNode m_head;
-    /** The last log entry. */
-    private LogNode m_tail;
-    /** The log size. */
-    private int m_size;
+    /** The historic log as a ring buffer, or <code>null</code> if the size is unbounded or zero. */
+    private final AtomicReferenceArray<LogNode> m_nodes;
+    /** The position of the next entry written to the ring buffer. */
+    private final AtomicLong m_position = new AtomicLong();
+    /** The historic log if its size is unbounded, most recent first. */
+    private final ConcurrentLinkedDeque<LogEntry> m_unbounded;
     /** The log listener thread. */
-    private LogListenerThread listenerThread;
+    private volatile LogListenerThread listenerThread;
     /** The maximum size for the log. */
     private final int m_maxSize;
     /** Whether or not to store debug messages. */
@@ -63,12 +67,14 @@ final class Log implements BundleListener, FrameworkListener, ServiceListener
     {
         this.m_maxSize = maxSize;
         this.m_storeDebug = storeDebug;
+        this.m_nodes = maxSize > 0 ? new AtomicReferenceArray<LogNode>(maxSize) : null;
+        this.m_unbounded = maxSize == -1 ? new ConcurrentLinkedDeque<LogEntry>() : null;
     }
 
     /**
      * Close the log.
      */
-    void close()
+    synchronized void close()
     {
         if (listenerThread != null)
         {
@@ -76,9 +82,17 @@ final class Log implements BundleListener, FrameworkListener, ServiceListener
             listenerThread = null;
         }
 
-        m_head = null;
-        m_tail = null;
-        m_size = 0;
+        if (m_nodes != null)
+        {
+            for (int i = 0; i < m_nodes.length(); i++)
+            {
+                m_nodes.set(i, null);
+            }
+        }
+        if (m_unbounded != null)
+        {
+            m_unbounded.clear();
+        }
     }
 
     void log(
@@ -92,57 +106,44 @@ final class Log implements BundleListener, FrameworkListener, ServiceListener
         addEntry(new LogEntryImpl(name, bundle, sr, level, message, exception, getStackTraceElement()));
     }
 
+    void log(
+        final String name,
+        final Bundle bundle,
+        final LogLevel level,
+        final String format,
+        final LoggerImpl.LogParameters logParameters,
+        final LoggerImpl formatter) {
+
+        addEntry(new LogEntryImpl(name, bundle, level, format, logParameters, formatter, getStackTraceElement()));
+    }
+
     /**
-     * Adds the entry to the log.
+     * Adds the entry to the log.  This method never blocks: concurrent
+     * writers claim distinct slots of the ring buffer.
      * @param entry the entry to add to the log
      */
-    synchronized void addEntry(final LogEntry entry)
+    void addEntry(final LogEntry entry)
     {
-        if (m_maxSize != 0)
+        // add the entry to the historic log
+        if (m_maxSize != 0 && (m_storeDebug || entry.getLogLevel() != LogLevel.DEBUG))
         {
-            // add the entry to the historic log
-            if (m_storeDebug || entry.getLogLevel() != LogLevel.DEBUG)
+            if (m_nodes != null)
             {
-                // create a new node for the entry
-                LogNode node = new LogNode(entry);
-
-                // add to the front of the linked list
-                node.setNextNode(m_head);
-                if (m_head != null)
-                {
-                    m_head.setPreviousNode(node);
-                }
-
-                // and store the node
-                m_head = node;
-
-                // bump the size of the list
-                ++m_size;
-
-                // if no tail node - add the node to the tail
-                if (m_tail == null)
-                {
-                    m_tail = node;
-                }
+                // the oldest entry is overwritten once the ring buffer is full
+                long position = m_position.getAndIncrement();
+                m_nodes.set((int) (position % m_maxSize), new LogNode(position, entry));
             }
-
-            // ensure the historic log doesn't grow beyond a certain size
-            if (m_maxSize != -1)
+            else if (m_unbounded != null)
             {
-                if (m_size > m_maxSize)
-                {
-                    LogNode last = m_tail.getPreviousNode();
-                    last.setNextNode(null);
-                    m_tail = last;
-                    --m_size;
-                }
+                m_unbounded.addFirst(entry);
             }
         }
 
         // notify any listeners
-        if (listenerThread != null)
+        LogListenerThread thread = listenerThread;
+        if (thread != null)
         {
-            listenerThread.addEntry(entry);
+            thread.addEntry(entry);
         }
     }
 
@@ -156,8 +157,9 @@ final class Log implements BundleListener, FrameworkListener, ServiceListener
         {
             // create a new listener thread if necessary:
             // the listener thread only runs if there are any registered listeners
-            listenerThread = new LogListenerThread();
-            listenerThread.start();
+            LogListenerThread thread = new LogListenerThread();
+            thread.start();
+            listenerThread = thread;
         }
         listenerThread.addListener(listener);
     }
@@ -185,9 +187,18 @@ final class Log implements BundleListener, FrameworkListener, ServiceListener
      * Returns an enumeration of all the entries in the log most recent first.
      * @return an enumeration of all the entries in the log most recent first
      */
-    synchronized Enumeration<LogEntry> getEntries()
+    Enumeration<LogEntry> getEntries()
     {
-        return new LogNodeEnumeration(m_head, m_tail);
+        if (m_nodes != null)
+        {
+            long newest = m_position.get() - 1;
+            return new LogNodeEnumeration(m_nodes, newest, Math.max(0, newest - m_maxSize + 1));
+        }
+        if (m_unbounded != null)
+        {
+            return Collections.enumeration(m_unbounded);
+        }
+        return Collections.emptyEnumeration();
     }
 
     /** The messages returned for the framework events. */
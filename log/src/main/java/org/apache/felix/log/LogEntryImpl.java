@@ -55,8 +55,14 @@ final class LogEntryImpl implements LogEntry
     /** The severity level of this LogEntry object. */
     private final LogLevel m_level;
     private final int m_legacyLevel;
-    /** The message associated with this LogEntry object. */
-    private final String m_message;
+    /** The message associated with this LogEntry object, formatted on first access for parameterized messages. */
+    private volatile String m_message;
+    /** The format of a parameterized message, <code>null</code> once formatted. */
+    private String m_format;
+    /** The arguments of a parameterized message, <code>null</code> once formatted. */
+    private LoggerImpl.LogParameters m_logParameters;
+    /** The logger formatting a parameterized message, <code>null</code> once formatted. */
+    private LoggerImpl m_formatter;
     /** The service reference associated with this LogEntry object. */
     private final ServiceReference<?> m_serviceReference;
     /** The system time in milliseconds when this LogEntry object was created. */
@@ -101,6 +107,31 @@ final class LogEntryImpl implements LogEntry
         this.m_stackTraceElement = stackTraceElement;
     }
 
+    /**
+     * Create a new instance for a parameterized message.  The message is
+     * formatted by the given logger when it is first requested.
+     * @param name the name of the logger used to create the LogEntry
+     * @param bundle the bundle that created the LogEntry object
+     * @param level the severity level for this LogEntry object
+     * @param format the format of the message to associate with this LogEntry object
+     * @param logParameters the arguments, service reference and exception of the message
+     * @param formatter the logger used to format the message
+     */
+    LogEntryImpl(
+        final String name,
+        final Bundle bundle,
+        final LogLevel level,
+        final String format,
+        final LoggerImpl.LogParameters logParameters,
+        final LoggerImpl formatter,
+        final StackTraceElement stackTraceElement)
+    {
+        this(name, bundle, logParameters.sr, level, null, logParameters.t, stackTraceElement);
+        this.m_format = format;
+        this.m_logParameters = logParameters;
+        this.m_formatter = formatter;
+    }
+
     @SuppressWarnings("deprecation")
     LogEntryImpl(
         final String name,
@@ -186,7 +217,12 @@ final class LogEntryImpl implements LogEntry
      */
     public String getMessage()
     {
-        return m_message;
+        String message = m_message;
+        if (message == null)
+        {
+            message = formatMessage();
+        }
+        return message;
     }
 
     /**
@@ -249,12 +285,25 @@ final class LogEntryImpl implements LogEntry
             _toString = m_time + "#" + m_sequence + " [" + m_threadInfo + "] " + m_level +
                 " (" + m_legacyLevel + ") [" + m_bundle.getBundleId() + ":" + m_name + "] " +
                     m_stackTraceElement.getClassName() + ":" +
-                    m_stackTraceElement.getLineNumber() + " > " + m_message +
+                    m_stackTraceElement.getLineNumber() + " > " + getMessage() +
                         (m_exception != null ? "\n" + exceptionString(m_exception) : "");
         }
         return _toString;
     }
 
+    private synchronized String formatMessage()
+    {
+        if (m_message == null && m_formatter != null)
+        {
+            m_message = m_formatter.format(m_format, m_logParameters);
+            // release the arguments, they may reference large objects
+            m_format = null;
+            m_logParameters = null;
+            m_formatter = null;
+        }
+        return m_message;
+    }
+
     String exceptionString(Throwable t) {
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw);
@@ -21,6 +21,9 @@ package org.apache.felix.log;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 import org.osgi.service.log.LogEntry;
 import org.osgi.service.log.LogListener;
@@ -33,8 +36,10 @@ import org.osgi.service.log.LogListener;
  */
 final class LogListenerThread extends Thread
 {
-    // The list of entries waiting to be delivered to the log listeners.
-    private final List<LogEntry> m_entriesToDeliver = new ArrayList<>();
+    // The queue of entries waiting to be delivered to the log listeners.
+    private final Queue<LogEntry> m_entriesToDeliver = new ConcurrentLinkedQueue<>();
+    // Whether the thread is waiting for new entries.
+    private volatile boolean m_waiting;
     // The list of listeners.
     private final List<LogListener> m_listeners = new ArrayList<>();
 
@@ -48,10 +53,10 @@ final class LogListenerThread extends Thread
      */
     void addEntry(final LogEntry entry)
     {
-        synchronized (m_entriesToDeliver)
+        m_entriesToDeliver.offer(entry);
+        if (m_waiting)
         {
-            m_entriesToDeliver.add(entry);
-            m_entriesToDeliver.notifyAll();
+            LockSupport.unpark(this);
         }
     }
 
@@ -96,10 +101,7 @@ final class LogListenerThread extends Thread
      */
     void shutdown()
     {
-        synchronized (m_entriesToDeliver)
-        {
-            interrupt();
-        }
+        interrupt();
     }
 
     /**
@@ -111,26 +113,24 @@ final class LogListenerThread extends Thread
         while (!isInterrupted())
         {
             List<LogEntry> entriesToDeliver = new ArrayList<>();
-            synchronized (m_entriesToDeliver)
+            if (m_entriesToDeliver.isEmpty())
             {
+                m_waiting = true;
+                // check again after publishing the flag so a concurrent addEntry cannot be missed;
+                // an interrupt also ends the park and is picked up by the loop condition
                 if (m_entriesToDeliver.isEmpty())
                 {
-                    try
-                    {
-                        m_entriesToDeliver.wait();
-                    }
-                    catch (InterruptedException e)
-                    {
-                        // the interrupt-flag is cleared; so, let's play nice and
-                        // interrupt this thread again to stop it...
-                        interrupt();
-                    }
+                    LockSupport.park(this);
                 }
-                else
+                m_waiting = false;
+            }
+            else
+            {
+                // Copy all current entries and deliver them in a single go...
+                LogEntry entry;
+                while ((entry = m_entriesToDeliver.poll()) != null)
                 {
-                    // Copy all current entries and deliver them in a single go...
-                    entriesToDeliver.addAll(m_entriesToDeliver);
-                    m_entriesToDeliver.clear();
+                    entriesToDeliver.add(entry);
                 }
             }
 
@@ -21,23 +21,25 @@ package org.apache.felix.log;
 import org.osgi.service.log.LogEntry;
 
 /**
- * The class used as a doubly linked list node in the log.
+ * The class used as a slot value in the log's ring buffer.  The position
+ * identifies which lap of the ring buffer the entry was written in, so that
+ * readers can detect slots that have been overwritten in the meantime.
  */
 final class LogNode
 {
-    /** The previous node. */
-    private LogNode m_previous;
-    /** The next node. */
-    private LogNode m_next;
+    /** The position of the node in the log. */
+    private final long m_position;
     /** The log entry. */
     private final LogEntry m_entry;
 
     /**
      * Create a new instance.
+     * @param position the position of the node in the log.
      * @param entry the log entry.
      */
-    LogNode(final LogEntry entry)
+    LogNode(final long position, final LogEntry entry)
     {
+        m_position = position;
         m_entry = entry;
     }
 
@@ -51,38 +53,11 @@ final class LogNode
     }
 
     /**
-     * Get the next node.
-     * @return the next node
+     * Returns the position of the node in the log.
+     * @return the position of the node
      */
-    LogNode getNextNode()
+    long getPosition()
     {
-        return m_next;
+        return m_position;
     }
-
-    /**
-     * Set the next node.
-     * @param next the next node
-     */
-    void setNextNode(final LogNode next)
-    {
-        m_next = next;
-    }
-
-    /**
-     * Get the previous node.
-     * @return the previous node
-     */
-    LogNode getPreviousNode()
-    {
-        return m_previous;
-    }
-
-    /**
-     * Set the previous node.
-     * @param previous the previous node
-     */
-    void setPreviousNode(final LogNode previous)
-    {
-        m_previous = previous;
-    }
-}
\ No newline at end of file
+}
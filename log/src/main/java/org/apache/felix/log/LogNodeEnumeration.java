@@ -19,28 +19,37 @@
 package org.apache.felix.log;
 
 import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.osgi.service.log.LogEntry;
 
 /**
- * Implementation of the {@link Enumeration} interface for a linked list of
- * {@link LogNode} entries.
+ * Implementation of the {@link Enumeration} interface for the log's ring
+ * buffer.  Entries are returned most recent first.  Slots which are
+ * overwritten by concurrent writers while the enumeration is in progress
+ * terminate the enumeration, as all older entries are gone as well.
  */
 final class LogNodeEnumeration implements Enumeration<LogEntry>
 {
+    /** The ring buffer. */
+    private final AtomicReferenceArray<LogNode> m_nodes;
+    /** The position of the oldest node to return. */
+    private final long m_last;
+    /** The position of the next node to look at. */
+    private long m_position;
     /** The next node. */
     private LogNode m_next;
-    /** The last node. */
-    private final LogNode m_last;
 
     /**
      * Creates a new instance.
-     * @param start the first node to return
-     * @param end the last node to return
+     * @param nodes the ring buffer
+     * @param start the position of the first (most recent) node to return
+     * @param end the position of the last (oldest) node to return
      */
-    LogNodeEnumeration(final LogNode start, final LogNode end)
+    LogNodeEnumeration(final AtomicReferenceArray<LogNode> nodes, final long start, final long end)
     {
-        m_next = start;
+        m_nodes = nodes;
+        m_position = start;
         m_last = end;
     }
 
@@ -50,6 +59,24 @@ final class LogNodeEnumeration implements Enumeration<LogEntry>
      */
     public boolean hasMoreElements()
     {
+        while (m_next == null && m_position >= m_last)
+        {
+            LogNode node = m_nodes.get((int) (m_position % m_nodes.length()));
+            if (node != null && node.getPosition() > m_position)
+            {
+                // overwritten since the enumeration was created
+                m_position = m_last - 1;
+            }
+            else
+            {
+                if (node != null && node.getPosition() == m_position)
+                {
+                    m_next = node;
+                }
+                // otherwise the writer has claimed the slot but not published it yet
+                m_position--;
+            }
+        }
         return m_next != null;
     }
 
@@ -61,17 +88,12 @@ final class LogNodeEnumeration implements Enumeration<LogEntry>
     {
         LogEntry result = null;
 
-        if (m_next == m_last)
+        if (hasMoreElements())
         {
             result = m_next.getEntry();
             m_next = null;
         }
-        else if (m_next != null)
-        {
-            result = m_next.getEntry();
-            m_next = m_next.getNextNode();
-        }
 
         return result;
     }
-}
\ No newline at end of file
+}
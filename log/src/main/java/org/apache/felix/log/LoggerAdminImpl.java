@@ -23,19 +23,23 @@ import java.util.Dictionary;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
 import org.osgi.service.log.FormatterLogger;
 import org.osgi.service.log.Logger;
 import org.osgi.service.log.admin.LoggerAdmin;
 import org.osgi.service.log.admin.LoggerContext;
 
-public class LoggerAdminImpl implements LoggerAdmin {
+public class LoggerAdminImpl implements LoggerAdmin, BundleListener {
 
     private final Log m_log;
     private final LoggerContext m_rootContext;
     private final ConcurrentMap<String, LoggerContext> m_contexts = new ConcurrentHashMap<>();
     private final ConcurrentMap<LoggerKey, Logger> _loggers = new ConcurrentHashMap<>();
+    private final AtomicLong m_logLevelGeneration = new AtomicLong();
 
     public LoggerAdminImpl(final String defaultLogLevelString, final Log log) {
         m_rootContext = new RootLoggerContextImpl(defaultLogLevelString, this);
@@ -78,6 +82,29 @@ public class LoggerAdminImpl implements LoggerAdmin {
         m_contexts.put(name, loggerContext);
     }
 
+    long getLogLevelGeneration() {
+        return m_logLevelGeneration.get();
+    }
+
+    /**
+     * Drops the effective log levels cached by the loggers. Called whenever
+     * the levels of a logger context change or a bundle is updated, since
+     * either may change which context applies to a logger.
+     */
+    void logLevelsChanged() {
+        m_logLevelGeneration.incrementAndGet();
+        for (Logger logger : _loggers.values()) {
+            ((LoggerImpl)logger).invalidateEffectiveLogLevel();
+        }
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        if (event.getType() == BundleEvent.UPDATED) {
+            logLevelsChanged();
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public <L extends Logger> L getLogger(
         final Bundle bundle, final String name, final Class<L> loggerType) {
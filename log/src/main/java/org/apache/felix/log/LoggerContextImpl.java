@@ -96,6 +96,7 @@ public class LoggerContextImpl implements LoggerContext {
         finally {
             _lock.unlock();
         }
+        _loggerAdminImpl.logLevelsChanged();
     }
 
     public void clear() {
@@ -106,6 +107,7 @@ public class LoggerContextImpl implements LoggerContext {
         finally {
             _lock.unlock();
         }
+        _loggerAdminImpl.logLevelsChanged();
     }
 
     public boolean isEmpty() {
@@ -142,6 +144,7 @@ public class LoggerContextImpl implements LoggerContext {
         finally {
             _lock.unlock();
         }
+        _loggerAdminImpl.logLevelsChanged();
     }
 
     @Override
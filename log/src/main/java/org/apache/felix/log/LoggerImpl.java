@@ -33,12 +33,16 @@ public class LoggerImpl implements Logger {
     private static final String MAX_CHAR = "\uFFFF";
     private static final String BRACE_CLOSE = "}";
     private static final String BRACE_OPEN = "{";
+    private static final Object[] NO_ARGS = new Object[0];
 
     protected final String m_name;
     protected final Bundle m_bundle;
     protected final Log m_log;
     protected final LoggerAdminImpl m_loggerAdmin;
 
+    /** The cached effective log level, <code>null</code> until computed or after the levels changed. */
+    private volatile LogLevel m_effectiveLevel;
+
     public LoggerImpl(final String name, final Bundle bundle, final Log log, final LoggerAdminImpl loggerAdmin) {
         m_name = name;
         m_bundle = bundle;
@@ -53,7 +57,7 @@ public class LoggerImpl implements Logger {
 
     @Override
     public boolean isTraceEnabled() {
-        return m_loggerAdmin.getLoggerContext(m_bundle, m_name).getEffectiveLogLevel(m_name).implies(LogLevel.TRACE);
+        return getEffectiveLogLevel().implies(LogLevel.TRACE);
     }
 
     void trace(String message, ServiceReference<?> serviceReference, Throwable t) {
@@ -68,20 +72,20 @@ public class LoggerImpl implements Logger {
 
     @Override
     public void trace(String format, Object arg) {
-        LogParameters logParameters = getLogParameters(arg);
-        trace(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isTraceEnabled()) return;
+        log(LogLevel.TRACE, format, getLogParameters(arg));
     }
 
     @Override
     public void trace(String format, Object arg1, Object arg2) {
-        LogParameters logParameters = getLogParameters(arg1, arg2);
-        trace(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isTraceEnabled()) return;
+        log(LogLevel.TRACE, format, getLogParameters(arg1, arg2));
     }
 
     @Override
     public void trace(String format, Object... arguments) {
-        LogParameters logParameters = getLogParameters(arguments);
-        trace(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isTraceEnabled()) return;
+        log(LogLevel.TRACE, format, getLogParameters(arguments));
     }
 
     @Override
@@ -93,7 +97,7 @@ public class LoggerImpl implements Logger {
 
     @Override
     public boolean isDebugEnabled() {
-        return m_loggerAdmin.getLoggerContext(m_bundle, m_name).getEffectiveLogLevel(m_name).implies(LogLevel.DEBUG);
+        return getEffectiveLogLevel().implies(LogLevel.DEBUG);
     }
 
     void debug(String message, ServiceReference<?> serviceReference, Throwable t) {
@@ -108,20 +112,20 @@ public class LoggerImpl implements Logger {
 
     @Override
     public void debug(String format, Object arg) {
-        LogParameters logParameters = getLogParameters(arg);
-        debug(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isDebugEnabled()) return;
+        log(LogLevel.DEBUG, format, getLogParameters(arg));
     }
 
     @Override
     public void debug(String format, Object arg1, Object arg2) {
-        LogParameters logParameters = getLogParameters(arg1, arg2);
-        debug(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isDebugEnabled()) return;
+        log(LogLevel.DEBUG, format, getLogParameters(arg1, arg2));
     }
 
     @Override
     public void debug(String format, Object... arguments) {
-        LogParameters logParameters = getLogParameters(arguments);
-        debug(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isDebugEnabled()) return;
+        log(LogLevel.DEBUG, format, getLogParameters(arguments));
     }
 
     @Override
@@ -133,7 +137,7 @@ public class LoggerImpl implements Logger {
 
     @Override
     public boolean isInfoEnabled() {
-        return m_loggerAdmin.getLoggerContext(m_bundle, m_name).getEffectiveLogLevel(m_name).implies(LogLevel.INFO);
+        return getEffectiveLogLevel().implies(LogLevel.INFO);
     }
 
     void info(String message, ServiceReference<?> serviceReference, Throwable t) {
@@ -148,20 +152,20 @@ public class LoggerImpl implements Logger {
 
     @Override
     public void info(String format, Object arg) {
-        LogParameters logParameters = getLogParameters(arg);
-        info(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isInfoEnabled()) return;
+        log(LogLevel.INFO, format, getLogParameters(arg));
     }
 
     @Override
     public void info(String format, Object arg1, Object arg2) {
-        LogParameters logParameters = getLogParameters(arg1, arg2);
-        info(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isInfoEnabled()) return;
+        log(LogLevel.INFO, format, getLogParameters(arg1, arg2));
     }
 
     @Override
     public void info(String format, Object... arguments) {
-        LogParameters logParameters = getLogParameters(arguments);
-        info(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isInfoEnabled()) return;
+        log(LogLevel.INFO, format, getLogParameters(arguments));
     }
 
     @Override
@@ -173,7 +177,7 @@ public class LoggerImpl implements Logger {
 
     @Override
     public boolean isWarnEnabled() {
-        return m_loggerAdmin.getLoggerContext(m_bundle, m_name).getEffectiveLogLevel(m_name).implies(LogLevel.WARN);
+        return getEffectiveLogLevel().implies(LogLevel.WARN);
     }
 
     void warn(String message, ServiceReference<?> serviceReference, Throwable t) {
@@ -188,20 +192,20 @@ public class LoggerImpl implements Logger {
 
     @Override
     public void warn(String format, Object arg) {
-        LogParameters logParameters = getLogParameters(arg);
-        warn(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isWarnEnabled()) return;
+        log(LogLevel.WARN, format, getLogParameters(arg));
     }
 
     @Override
     public void warn(String format, Object arg1, Object arg2) {
-        LogParameters logParameters = getLogParameters(arg1, arg2);
-        warn(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isWarnEnabled()) return;
+        log(LogLevel.WARN, format, getLogParameters(arg1, arg2));
     }
 
     @Override
     public void warn(String format, Object... arguments) {
-        LogParameters logParameters = getLogParameters(arguments);
-        warn(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isWarnEnabled()) return;
+        log(LogLevel.WARN, format, getLogParameters(arguments));
     }
 
     @Override
@@ -213,7 +217,7 @@ public class LoggerImpl implements Logger {
 
     @Override
     public boolean isErrorEnabled() {
-        return m_loggerAdmin.getLoggerContext(m_bundle, m_name).getEffectiveLogLevel(m_name).implies(LogLevel.ERROR);
+        return getEffectiveLogLevel().implies(LogLevel.ERROR);
     }
 
     void error(String message, ServiceReference<?> serviceReference, Throwable t) {
@@ -228,20 +232,20 @@ public class LoggerImpl implements Logger {
 
     @Override
     public void error(String format, Object arg) {
-        LogParameters logParameters = getLogParameters(arg);
-        error(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isErrorEnabled()) return;
+        log(LogLevel.ERROR, format, getLogParameters(arg));
     }
 
     @Override
     public void error(String format, Object arg1, Object arg2) {
-        LogParameters logParameters = getLogParameters(arg1, arg2);
-        error(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isErrorEnabled()) return;
+        log(LogLevel.ERROR, format, getLogParameters(arg1, arg2));
     }
 
     @Override
     public void error(String format, Object... arguments) {
-        LogParameters logParameters = getLogParameters(arguments);
-        error(format(format, logParameters), logParameters.sr, logParameters.t);
+        if (!isErrorEnabled()) return;
+        log(LogLevel.ERROR, format, getLogParameters(arguments));
     }
 
     @Override
@@ -262,20 +266,17 @@ public class LoggerImpl implements Logger {
 
     @Override
     public void audit(String format, Object arg) {
-        LogParameters logParameters = getLogParameters(arg);
-        audit(format(format, logParameters), logParameters.sr, logParameters.t);
+        log(LogLevel.AUDIT, format, getLogParameters(arg));
     }
 
     @Override
     public void audit(String format, Object arg1, Object arg2) {
-        LogParameters logParameters = getLogParameters(arg1, arg2);
-        audit(format(format, logParameters), logParameters.sr, logParameters.t);
+        log(LogLevel.AUDIT, format, getLogParameters(arg1, arg2));
     }
 
     @Override
     public void audit(String format, Object... arguments) {
-        LogParameters logParameters = getLogParameters(arguments);
-        audit(format(format, logParameters), logParameters.sr, logParameters.t);
+        log(LogLevel.AUDIT, format, getLogParameters(arguments));
     }
 
     public void log(
@@ -287,6 +288,37 @@ public class LoggerImpl implements Logger {
         m_log.addEntry(new LogEntryImpl(m_name, m_bundle, sr, level, message, exception, Log.getStackTraceElement()));
     }
 
+    /**
+     * Returns the effective log level of this logger.  The level is resolved
+     * through the logger contexts once and cached until the log levels of any
+     * logger context change.
+     */
+    LogLevel getEffectiveLogLevel() {
+        LogLevel level = m_effectiveLevel;
+        if (level == null) {
+            long generation = m_loggerAdmin.getLogLevelGeneration();
+            level = m_loggerAdmin.getLoggerContext(m_bundle, m_name).getEffectiveLogLevel(m_name);
+            m_effectiveLevel = level;
+            if (generation != m_loggerAdmin.getLogLevelGeneration()) {
+                // the levels changed while resolving, do not keep a possibly stale value
+                m_effectiveLevel = null;
+            }
+        }
+        return level;
+    }
+
+    void invalidateEffectiveLogLevel() {
+        m_effectiveLevel = null;
+    }
+
+    /**
+     * Logs a parameterized message.  The message is not formatted here but
+     * only when {@link LogEntryImpl#getMessage()} is first called.
+     */
+    void log(LogLevel level, String format, LogParameters logParameters) {
+        m_log.log(m_name, m_bundle, level, format, logParameters, this);
+    }
+
     LogParameters getLogParameters(Object arg) {
         return getLogParameters0(arg);
     }
@@ -301,7 +333,7 @@ public class LoggerImpl implements Logger {
 
     LogParameters getLogParameters0(Object... arguments) {
         if (arguments == null || arguments.length == 0) {
-            return new LogParameters(null, null, null);
+            return new LogParameters(NO_ARGS, null, null);
         }
         ServiceReference<?> sr = null;
         Throwable t = null;
@@ -0,0 +1,192 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.ServiceReference;
+import org.osgi.framework.Version;
+import org.osgi.service.log.FormatterLogger;
+import org.osgi.service.log.LogEntry;
+
+public class LogEntryImplTest {
+
+    private Log m_log;
+    private LoggerAdminImpl m_loggerAdmin;
+    private Bundle m_bundle;
+
+    @Before
+    public void setUp() {
+        m_log = new Log(100, true);
+        m_loggerAdmin = new LoggerAdminImpl("INFO", m_log);
+        m_bundle = mock(Bundle.class);
+        when(m_bundle.getSymbolicName()).thenReturn("test.bundle");
+        when(m_bundle.getVersion()).thenReturn(new Version(1, 0, 0));
+        when(m_bundle.getLocation()).thenReturn("test:location");
+    }
+
+    @Test
+    public void testDisabledLevelSkipsArguments() {
+        CountingLogger logger = new CountingLogger(m_bundle, m_log, m_loggerAdmin);
+        CountingArgument argument = new CountingArgument("argument");
+
+        logger.debug("message {}", argument);
+        logger.debug("message {} {}", argument, argument);
+        logger.debug("message {} {} {}", argument, argument, argument);
+        logger.trace("message {}", argument);
+
+        assertEquals(0, logger.m_parameters.get());
+        assertEquals(0, logger.m_formats.get());
+        assertEquals(0, argument.m_calls.get());
+        assertFalse(m_log.getEntries().hasMoreElements());
+    }
+
+    @Test
+    public void testMessageFormattedOnce() {
+        CountingLogger logger = new CountingLogger(m_bundle, m_log, m_loggerAdmin);
+        CountingArgument argument = new CountingArgument("argument");
+
+        logger.info("message {}", argument);
+        assertEquals(1, logger.m_parameters.get());
+        assertEquals(0, logger.m_formats.get());
+        assertEquals(0, argument.m_calls.get());
+
+        LogEntry entry = m_log.getEntries().nextElement();
+        assertEquals("message argument", entry.getMessage());
+        assertEquals("message argument", entry.getMessage());
+        assertEquals(1, logger.m_formats.get());
+        assertEquals(1, argument.m_calls.get());
+    }
+
+    @Test
+    public void testMessageFormat() {
+        LoggerImpl logger = new LoggerImpl("test.logger", m_bundle, m_log, m_loggerAdmin);
+
+        assertMessage("no arguments", "no arguments", logger, new Object[0]);
+        assertMessage("one a", "one {}", logger, "a");
+        assertMessage("two a b", "two {} {}", logger, "a", "b");
+        assertMessage("three a b c", "three {} {} {}", logger, "a", "b", "c");
+        assertMessage("missing a {}", "missing {} {}", logger, "a");
+        assertMessage("escaped {} a", "escaped \\{} {}", logger, "a");
+    }
+
+    @Test
+    public void testTrailingThrowable() {
+        LoggerImpl logger = new LoggerImpl("test.logger", m_bundle, m_log, m_loggerAdmin);
+        Exception exception = new IllegalStateException("failure");
+
+        LogEntry entry = assertMessage("failed a", "failed {}", logger, "a", exception);
+        assertSame(exception, entry.getException());
+        assertNull(entry.getServiceReference());
+
+        entry = assertMessage("failed {}", "failed {}", logger, exception);
+        assertSame(exception, entry.getException());
+    }
+
+    @Test
+    public void testTrailingServiceReference() {
+        LoggerImpl logger = new LoggerImpl("test.logger", m_bundle, m_log, m_loggerAdmin);
+        ServiceReference<?> reference = mock(ServiceReference.class);
+        Exception exception = new IllegalStateException("failure");
+
+        LogEntry entry = assertMessage("service a", "service {}", logger, "a", reference);
+        assertSame(reference, entry.getServiceReference());
+        assertNull(entry.getException());
+
+        entry = assertMessage("service a b", "service {} {}", logger, "a", "b", reference, exception);
+        assertSame(reference, entry.getServiceReference());
+        assertSame(exception, entry.getException());
+    }
+
+    @Test
+    public void testFormatterLogger() {
+        FormatterLogger logger = m_loggerAdmin.getLogger(m_bundle, "test.logger", FormatterLogger.class);
+        ServiceReference<?> reference = mock(ServiceReference.class);
+
+        logger.info("%s=%d", "a", 1);
+        assertEquals("a=1", m_log.getEntries().nextElement().getMessage());
+
+        logger.warn("%s=%d %s", "b", 2, "c", reference);
+        LogEntry entry = m_log.getEntries().nextElement();
+        assertEquals("b=2 c", entry.getMessage());
+        assertSame(reference, entry.getServiceReference());
+    }
+
+    /**
+     * Logs the arguments and checks the message of the entry is what was
+     * formatted eagerly before the message was formatted lazily.
+     */
+    private LogEntry assertMessage(String expected, String format, LoggerImpl logger, Object... arguments) {
+        assertEquals(expected, logger.format(format, logger.getLogParameters(arguments)));
+        logger.info(format, arguments);
+        LogEntry entry = m_log.getEntries().nextElement();
+        assertEquals(expected, entry.getMessage());
+        assertTrue(entry.toString().contains(expected));
+        return entry;
+    }
+
+    private static class CountingLogger extends LoggerImpl {
+
+        final AtomicInteger m_parameters = new AtomicInteger();
+        final AtomicInteger m_formats = new AtomicInteger();
+
+        CountingLogger(Bundle bundle, Log log, LoggerAdminImpl loggerAdmin) {
+            super("test.logger", bundle, log, loggerAdmin);
+        }
+
+        @Override
+        LogParameters getLogParameters0(Object... arguments) {
+            m_parameters.incrementAndGet();
+            return super.getLogParameters0(arguments);
+        }
+
+        @Override
+        String format(String format, LogParameters logParameters) {
+            m_formats.incrementAndGet();
+            return super.format(format, logParameters);
+        }
+    }
+
+    private static class CountingArgument {
+
+        final AtomicInteger m_calls = new AtomicInteger();
+        private final String m_value;
+
+        CountingArgument(String value) {
+            m_value = value;
+        }
+
+        @Override
+        public String toString() {
+            m_calls.incrementAndGet();
+            return m_value;
+        }
+    }
+}
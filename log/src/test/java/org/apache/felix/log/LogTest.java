@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+import org.osgi.service.log.LogEntry;
+import org.osgi.service.log.LogLevel;
+
+public class LogTest
+{
+    @Test
+    public void testRingBufferWrapAround()
+    {
+        Log log = new Log(3, false);
+        for (int i = 0; i < 2; i++)
+        {
+            log.addEntry(entry(LogLevel.INFO, "message " + i));
+        }
+        assertEquals(messages("message 1", "message 0"), getMessages(log));
+
+        for (int i = 2; i < 8; i++)
+        {
+            log.addEntry(entry(LogLevel.INFO, "message " + i));
+        }
+        assertEquals(messages("message 7", "message 6", "message 5"), getMessages(log));
+    }
+
+    @Test
+    public void testGetLogMostRecentFirst()
+    {
+        Log log = new Log(100, false);
+        LogReaderServiceImpl reader = new LogReaderServiceImpl(log);
+        for (int i = 0; i < 10; i++)
+        {
+            log.addEntry(entry(LogLevel.INFO, "message " + i));
+        }
+
+        Enumeration<LogEntry> entries = reader.getLog();
+        LogEntry previous = null;
+        int count = 0;
+        while (entries.hasMoreElements())
+        {
+            LogEntry entry = entries.nextElement();
+            if (previous != null)
+            {
+                assertTrue(entry.getSequence() < previous.getSequence());
+            }
+            previous = entry;
+            count++;
+        }
+        assertEquals(10, count);
+        assertEquals("message 0", previous.getMessage());
+        assertNull(entries.nextElement());
+    }
+
+    @Test
+    public void testUnboundedLog()
+    {
+        Log log = new Log(-1, false);
+        for (int i = 0; i < 5; i++)
+        {
+            log.addEntry(entry(LogLevel.INFO, "message " + i));
+        }
+        assertEquals(
+            messages("message 4", "message 3", "message 2", "message 1", "message 0"),
+            getMessages(log));
+    }
+
+    @Test
+    public void testDebugEntries()
+    {
+        Log log = new Log(3, false);
+        log.addEntry(entry(LogLevel.DEBUG, "debug"));
+        log.addEntry(entry(LogLevel.INFO, "info"));
+        assertEquals(messages("info"), getMessages(log));
+
+        log = new Log(3, true);
+        log.addEntry(entry(LogLevel.DEBUG, "debug"));
+        log.addEntry(entry(LogLevel.INFO, "info"));
+        assertEquals(messages("info", "debug"), getMessages(log));
+
+        log = new Log(0, true);
+        log.addEntry(entry(LogLevel.INFO, "info"));
+        assertFalse(log.getEntries().hasMoreElements());
+    }
+
+    @Test
+    public void testConcurrentAddEntry() throws Exception
+    {
+        final int threads = 8;
+        final int entries = 5000;
+        assertConcurrentAddEntry(new Log(threads * entries, false), threads, entries, threads * entries);
+        // every slot of the ring buffer is overwritten many times
+        assertConcurrentAddEntry(new Log(100, false), threads, entries, 100);
+    }
+
+    private void assertConcurrentAddEntry(final Log log, int threads, final int entries, int expected)
+        throws Exception
+    {
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+        {
+            final String prefix = "thread " + t + " message ";
+            Thread writer = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        start.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        return;
+                    }
+                    for (int i = 0; i < entries; i++)
+                    {
+                        log.addEntry(entry(LogLevel.INFO, prefix + i));
+                    }
+                }
+            };
+            writer.start();
+            writers.add(writer);
+        }
+        start.countDown();
+        for (Thread writer : writers)
+        {
+            writer.join();
+        }
+
+        List<String> messages = getMessages(log);
+        assertEquals(expected, messages.size());
+        Set<String> unique = new HashSet<>(messages);
+        assertEquals("duplicated entries", expected, unique.size());
+        if (expected == threads * entries)
+        {
+            for (int t = 0; t < threads; t++)
+            {
+                for (int i = 0; i < entries; i++)
+                {
+                    assertTrue("lost entry", unique.contains("thread " + t + " message " + i));
+                }
+            }
+        }
+    }
+
+    private static LogEntry entry(LogLevel level, String message)
+    {
+        return new LogEntryImpl("test", null, null, level, message, null, null);
+    }
+
+    private static List<String> getMessages(Log log)
+    {
+        List<String> messages = new ArrayList<>();
+        for (LogEntry entry : Collections.list(log.getEntries()))
+        {
+            messages.add(entry.getMessage());
+        }
+        return messages;
+    }
+
+    private static List<String> messages(String... messages)
+    {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, messages);
+        return list;
+    }
+}
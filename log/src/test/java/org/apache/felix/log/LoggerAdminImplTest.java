@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Version;
+import org.osgi.service.log.LogLevel;
+import org.osgi.service.log.Logger;
+import org.osgi.service.log.admin.LoggerContext;
+
+public class LoggerAdminImplTest {
+
+    private Log m_log;
+    private LoggerAdminImpl m_loggerAdmin;
+    private Bundle m_bundle;
+
+    @Before
+    public void setUp() {
+        m_log = new Log(100, true);
+        m_loggerAdmin = new LoggerAdminImpl("WARN", m_log);
+        m_bundle = mock(Bundle.class);
+        when(m_bundle.getSymbolicName()).thenReturn("test.bundle");
+        when(m_bundle.getVersion()).thenReturn(new Version(1, 0, 0));
+        when(m_bundle.getLocation()).thenReturn("test:location");
+    }
+
+    @Test
+    public void testRootContextLevelChange() {
+        Logger logger = m_loggerAdmin.getLogger(m_bundle, "test.logger", Logger.class);
+        logger.debug("first");
+        assertFalse(logger.isDebugEnabled());
+
+        LoggerContext root = m_loggerAdmin.getLoggerContext(null);
+        root.setLogLevels(Collections.singletonMap("test", LogLevel.DEBUG));
+        assertTrue(logger.isDebugEnabled());
+        assertFalse(logger.isTraceEnabled());
+        logger.debug("second");
+
+        root.clear();
+        assertFalse(logger.isDebugEnabled());
+        logger.debug("third");
+
+        assertEquals("second", m_log.getEntries().nextElement().getMessage());
+        assertEquals(1, Collections.list(m_log.getEntries()).size());
+    }
+
+    @Test
+    public void testBundleContextLevelChange() {
+        Logger logger = m_loggerAdmin.getLogger(m_bundle, "test.logger", Logger.class);
+        assertFalse(logger.isInfoEnabled());
+
+        LoggerContext context = m_loggerAdmin.getLoggerContext("test.bundle");
+        context.setLogLevels(Collections.singletonMap("test.logger", LogLevel.TRACE));
+        assertTrue(logger.isTraceEnabled());
+
+        // a more specific context takes precedence once it has levels
+        LoggerContext versioned = m_loggerAdmin.getLoggerContext("test.bundle|1.0.0");
+        versioned.setLogLevels(Collections.singletonMap("ROOT", LogLevel.ERROR));
+        assertFalse(logger.isWarnEnabled());
+        assertTrue(logger.isErrorEnabled());
+
+        versioned.clear();
+        assertTrue(logger.isTraceEnabled());
+    }
+
+    @Test
+    public void testBundleUpdated() {
+        LoggerContext context = m_loggerAdmin.getLoggerContext("test.bundle|1.0.0");
+        context.setLogLevels(Collections.singletonMap("ROOT", LogLevel.DEBUG));
+        Logger logger = m_loggerAdmin.getLogger(m_bundle, "test.logger", Logger.class);
+        assertTrue(logger.isDebugEnabled());
+
+        // the new version of the bundle no longer matches the context
+        when(m_bundle.getVersion()).thenReturn(new Version(2, 0, 0));
+        m_loggerAdmin.bundleChanged(new BundleEvent(BundleEvent.UPDATED, m_bundle));
+        assertFalse(logger.isDebugEnabled());
+    }
+}
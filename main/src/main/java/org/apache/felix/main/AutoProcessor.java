@@ -20,6 +20,10 @@ package org.apache.felix.main;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.osgi.framework.*;
 import org.osgi.service.startlevel.*;
 
@@ -80,6 +84,13 @@ public class AutoProcessor
      * The property name prefix for the launcher's auto-start property.
     **/
     public static final String AUTO_START_PROP = "felix.auto.start";
+    /**
+     * The property name used to specify the number of threads installing
+     * and starting bundles concurrently. Bundles are processed one after
+     * the other if not set or lower than 2, otherwise the time spent in
+     * each phase is reported.
+    **/
+    public static final String AUTO_THREADS_PROPERTY = "felix.auto.threads";
 
     /**
      * Used to instigate auto-deploy directory process and auto-install/auto-start
@@ -90,8 +101,35 @@ public class AutoProcessor
     public static void process(Map configMap, BundleContext context)
     {
         configMap = (configMap == null) ? new HashMap() : configMap;
-        processAutoDeploy(configMap, context);
-        processAutoProperties(configMap, context);
+
+        int threads = 0;
+        if (configMap.get(AUTO_THREADS_PROPERTY) != null)
+        {
+            try
+            {
+                threads = Integer.parseInt(
+                    configMap.get(AUTO_THREADS_PROPERTY).toString().trim());
+            }
+            catch (NumberFormatException ex)
+            {
+                System.err.println("Invalid property: " + AUTO_THREADS_PROPERTY);
+            }
+        }
+
+        ExecutorService executor = (threads > 1)
+            ? Executors.newFixedThreadPool(threads) : null;
+        try
+        {
+            processAutoDeploy(configMap, context, executor);
+            processAutoProperties(configMap, context, executor);
+        }
+        finally
+        {
+            if (executor != null)
+            {
+                executor.shutdown();
+            }
+        }
     }
 
     /**
@@ -100,7 +138,8 @@ public class AutoProcessor
      * specified deploy actions.
      * </p>
      */
-    private static void processAutoDeploy(Map configMap, BundleContext context)
+    private static void processAutoDeploy(
+        Map configMap, final BundleContext context, ExecutorService executor)
     {
         // Determine if auto deploy actions to perform.
         String action = (String) configMap.get(AUTO_DEPLOY_ACTION_PROPERTY);
@@ -124,16 +163,16 @@ public class AutoProcessor
         {
             // Retrieve the Start Level service, since it will be needed
             // to set the start level of the installed bundles.
-            StartLevel sl = (StartLevel) context.getService(
+            final StartLevel sl = (StartLevel) context.getService(
                 context.getServiceReference(org.osgi.service.startlevel.StartLevel.class.getName()));
 
             // Get start level for auto-deploy bundles.
-            int startLevel = sl.getInitialBundleStartLevel();
+            int initialStartLevel = sl.getInitialBundleStartLevel();
             if (configMap.get(AUTO_DEPLOY_STARTLEVEL_PROPERTY) != null)
             {
                 try
                 {
-                    startLevel = Integer.parseInt(
+                    initialStartLevel = Integer.parseInt(
                         configMap.get(AUTO_DEPLOY_STARTLEVEL_PROPERTY).toString());
                 }
                 catch (NumberFormatException ex)
@@ -170,44 +209,64 @@ public class AutoProcessor
             }
 
             // Install bundle JAR files and remember the bundle objects.
-            final List startBundleList = new ArrayList();
+            final int startLevel = initialStartLevel;
+            final boolean install = actionList.contains(AUTO_DEPLOY_INSTALL_VALUE);
+            final boolean update = actionList.contains(AUTO_DEPLOY_UPDATE_VALUE);
+            final Bundle[] startBundles = new Bundle[jarList.size()];
+            List tasks = new ArrayList();
             for (int i = 0; i < jarList.size(); i++)
             {
                 // Look up the bundle by location, removing it from
                 // the map of installed bundles so the remaining bundles
                 // indicate which bundles may need to be uninstalled.
-                Bundle b = (Bundle) installedBundleMap.remove(
-                    ((File) jarList.get(i)).toURI().toString());
+                final String location = ((File) jarList.get(i)).toURI().toString();
+                final Bundle installed = (Bundle) installedBundleMap.remove(location);
+                final int index = i;
 
-                try
-                {
-                    // If the bundle is not already installed, then install it
-                    // if the 'install' action is present.
-                    if ((b == null) && actionList.contains(AUTO_DEPLOY_INSTALL_VALUE))
-                    {
-                        b = context.installBundle(
-                            ((File) jarList.get(i)).toURI().toString());
-                    }
-                    // If the bundle is already installed, then update it
-                    // if the 'update' action is present.
-                    else if ((b != null) && actionList.contains(AUTO_DEPLOY_UPDATE_VALUE))
+                tasks.add(new Runnable() {
+                    public void run()
                     {
-                        b.update();
-                    }
+                        Bundle b = installed;
+                        try
+                        {
+                            // If the bundle is not already installed, then install it
+                            // if the 'install' action is present.
+                            if ((b == null) && install)
+                            {
+                                b = context.installBundle(location);
+                            }
+                            // If the bundle is already installed, then update it
+                            // if the 'update' action is present.
+                            else if ((b != null) && update)
+                            {
+                                b.update();
+                            }
 
-                    // If we have found and/or successfully installed a bundle,
-                    // then add it to the list of bundles to potentially start
-                    // and also set its start level accordingly.
-                    if ((b != null) && !isFragment(b))
-                    {
-                        startBundleList.add(b);
-                        sl.setBundleStartLevel(b, startLevel);
+                            // If we have found and/or successfully installed a bundle,
+                            // then add it to the list of bundles to potentially start
+                            // and also set its start level accordingly.
+                            if ((b != null) && !isFragment(b))
+                            {
+                                startBundles[index] = b;
+                                sl.setBundleStartLevel(b, startLevel);
+                            }
+                        }
+                        catch (BundleException ex)
+                        {
+                            System.err.println("Auto-deploy install: "
+                                + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : ""));
+                        }
                     }
-                }
-                catch (BundleException ex)
+                });
+            }
+            runTasks(executor, "Auto-deploy install", tasks);
+
+            final List startBundleList = new ArrayList();
+            for (int i = 0; i < startBundles.length; i++)
+            {
+                if (startBundles[i] != null)
                 {
-                    System.err.println("Auto-deploy install: "
-                        + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : ""));
+                    startBundleList.add(startBundles[i]);
                 }
             }
 
@@ -238,18 +297,27 @@ public class AutoProcessor
             // action is present.
             if (actionList.contains(AUTO_DEPLOY_START_VALUE))
             {
+                tasks = new ArrayList();
                 for (int i = 0; i < startBundleList.size(); i++)
                 {
-                    try
-                    {
-                        ((Bundle) startBundleList.get(i)).start();
-                    }
-                    catch (BundleException ex)
-                    {
-                        System.err.println("Auto-deploy start: "
-                            + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : ""));
-                    }
+                    final Bundle b = (Bundle) startBundleList.get(i);
+                    tasks.add(new Runnable() {
+                        public void run()
+                        {
+                            try
+                            {
+                                b.start();
+                            }
+                            catch (BundleException ex)
+                            {
+                                System.err.println("Auto-deploy start: "
+                                    + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : ""));
+                            }
+                        }
+                    });
                 }
+                // All auto-deploy bundles share the same start level.
+                runTasks(executor, "Auto-deploy start", tasks);
             }
         }
     }
@@ -260,11 +328,12 @@ public class AutoProcessor
      * specified configuration properties.
      * </p>
      */
-    private static void processAutoProperties(Map configMap, BundleContext context)
+    private static void processAutoProperties(
+        Map configMap, final BundleContext context, ExecutorService executor)
     {
         // Retrieve the Start Level service, since it will be needed
         // to set the start level of the installed bundles.
-        StartLevel sl = (StartLevel) context.getService(
+        final StartLevel sl = (StartLevel) context.getService(
             context.getServiceReference(org.osgi.service.startlevel.StartLevel.class.getName()));
 
         // Retrieve all auto-install and auto-start properties and install
@@ -276,6 +345,10 @@ public class AutoProcessor
         // property name, where "n" is the desired start level for the list
         // of bundles. If no start level is specified, the default start
         // level is assumed.
+        List tasks = new ArrayList();
+        // Map of start level to the list of bundle locations to start,
+        // bundles sharing a start level may be started concurrently.
+        SortedMap startLocations = new TreeMap();
         for (Iterator i = configMap.keySet().iterator(); i.hasNext(); )
         {
             String key = ((String) i.next()).toLowerCase();
@@ -303,50 +376,122 @@ public class AutoProcessor
             }
 
             // Parse and install the bundles associated with the key.
-            StringTokenizer st = new StringTokenizer((String) configMap.get(key), "\" ", true);
-            for (String location = nextLocation(st); location != null; location = nextLocation(st))
+            List locations = null;
+            if (key.startsWith(AUTO_START_PROP))
             {
-                try
+                Integer level = new Integer(startLevel);
+                locations = (List) startLocations.get(level);
+                if (locations == null)
                 {
-                    Bundle b = context.installBundle(location, null);
-                    sl.setBundleStartLevel(b, startLevel);
+                    locations = new ArrayList();
+                    startLocations.put(level, locations);
                 }
-                catch (Exception ex)
+            }
+            final int bundleStartLevel = startLevel;
+            StringTokenizer st = new StringTokenizer((String) configMap.get(key), "\" ", true);
+            for (String next = nextLocation(st); next != null; next = nextLocation(st))
+            {
+                final String location = next;
+                if (locations != null)
                 {
-                    System.err.println("Auto-properties install: " + location + " ("
-                        + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : "") + ")");
+                    locations.add(location);
+                }
+                tasks.add(new Runnable() {
+                    public void run()
+                    {
+                        try
+                        {
+                            Bundle b = context.installBundle(location, null);
+                            sl.setBundleStartLevel(b, bundleStartLevel);
+                        }
+                        catch (Exception ex)
+                        {
+                            System.err.println("Auto-properties install: " + location + " ("
+                                + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : "") + ")");
 if (ex.getCause() != null)
     ex.printStackTrace();
-                }
+                        }
+                    }
+                });
             }
         }
+        runTasks(executor, "Auto-properties install", tasks);
 
-        // Now loop through the auto-start bundles and start them.
-        for (Iterator i = configMap.keySet().iterator(); i.hasNext(); )
+        // Now loop through the auto-start bundles and start them,
+        // one start level after the other.
+        for (Iterator i = startLocations.entrySet().iterator(); i.hasNext(); )
         {
-            String key = ((String) i.next()).toLowerCase();
-            if (key.startsWith(AUTO_START_PROP))
+            Map.Entry entry = (Map.Entry) i.next();
+            List locations = (List) entry.getValue();
+            tasks = new ArrayList();
+            for (int j = 0; j < locations.size(); j++)
             {
-                StringTokenizer st = new StringTokenizer((String) configMap.get(key), "\" ", true);
-                for (String location = nextLocation(st); location != null; location = nextLocation(st))
-                {
-                    // Installing twice just returns the same bundle.
-                    try
+                final String location = (String) locations.get(j);
+                tasks.add(new Runnable() {
+                    public void run()
                     {
-                        Bundle b = context.installBundle(location, null);
-                        if (b != null)
+                        // Installing twice just returns the same bundle.
+                        try
                         {
-                            b.start();
+                            Bundle b = context.installBundle(location, null);
+                            if (b != null)
+                            {
+                                b.start();
+                            }
+                        }
+                        catch (Exception ex)
+                        {
+                            System.err.println("Auto-properties start: " + location + " ("
+                                + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : "") + ")");
                         }
                     }
-                    catch (Exception ex)
-                    {
-                        System.err.println("Auto-properties start: " + location + " ("
-                            + ex + ((ex.getCause() != null) ? " - " + ex.getCause() : "") + ")");
-                    }
-                }
+                });
+            }
+            runTasks(executor, "Auto-properties start (level " + entry.getKey() + ")", tasks);
+        }
+    }
+
+    /**
+     * Runs the tasks of a phase using the executor and waits for all of them
+     * to complete, or runs them one after the other if there is no executor.
+     * The tasks are expected to report their own failures.
+    **/
+    private static void runTasks(ExecutorService executor, String phase, List tasks)
+    {
+        if ((executor == null) || tasks.isEmpty())
+        {
+            for (int i = 0; i < tasks.size(); i++)
+            {
+                ((Runnable) tasks.get(i)).run();
+            }
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List futures = new ArrayList();
+        for (int i = 0; i < tasks.size(); i++)
+        {
+            futures.add(executor.submit((Runnable) tasks.get(i)));
+        }
+        for (int i = 0; i < futures.size(); i++)
+        {
+            try
+            {
+                ((Future) futures.get(i)).get();
+            }
+            catch (InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+                System.err.println(phase + ": interrupted");
+                return;
+            }
+            catch (ExecutionException ex)
+            {
+                System.err.println(phase + ": " + ex.getCause());
             }
         }
+        System.out.println(phase + ": " + tasks.size() + " bundle(s) in "
+            + (System.currentTimeMillis() - start) + " ms");
     }
 
     private static String nextLocation(StringTokenizer st)
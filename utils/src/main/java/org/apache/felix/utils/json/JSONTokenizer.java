@@ -0,0 +1,463 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.utils.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A single pass, pull based JSON tokenizer on top of a {@link Reader}.
+ * <p>
+ * Each call to {@link #next()} reads just enough characters to return the
+ * next {@link Event}. The text of keys, strings and numbers is available
+ * through {@link #getString()} until the next event is read. Alternatively
+ * {@link #readValue()} reads a complete value into the same object model
+ * that the {@link JSONParser} produces.
+ * <p>
+ * For compatibility with the {@link JSONParser} the tokenizer accepts the
+ * literals {@code true}, {@code false} and {@code null} in any case,
+ * unescapes unknown escape sequences to the escaped character, treats all
+ * control characters as whitespace like {@link String#trim()} does, and
+ * replaces line breaks inside strings by spaces. Escaped line breaks
+ * ({@code \n}, {@code \r}) are kept.
+ */
+public class JSONTokenizer implements Closeable {
+
+    public enum Event {
+        START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, KEY_NAME,
+        VALUE_STRING, VALUE_NUMBER, VALUE_TRUE, VALUE_FALSE, VALUE_NULL
+    }
+
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int pos;
+    private int limit;
+    private long offset;
+
+    private final StringBuilder text = new StringBuilder();
+    private Event current;
+
+    private int[] stack = new int[32];
+    private int depth;
+    private boolean afterKey;
+    private boolean afterValue;
+    private boolean afterComma;
+    private boolean done;
+
+    public JSONTokenizer(Reader reader) {
+        this(reader, 8192);
+    }
+
+    public JSONTokenizer(CharSequence json) {
+        this(new StringReader(json.toString()), Math.max(16, Math.min(json.length(), 8192)));
+    }
+
+    private JSONTokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Returns whether a further event can be read. This is {@code false}
+     * once the top level value has been read completely.
+     */
+    public boolean hasNext() {
+        return !done;
+    }
+
+    /**
+     * Reads the next event.
+     *
+     * @throws IllegalArgumentException if the input is not well formed JSON
+     * @throws NoSuchElementException if the top level value has already been read
+     * @throws IOException if reading from the underlying reader fails
+     */
+    public Event next() throws IOException {
+        if (done) {
+            throw new NoSuchElementException();
+        }
+        int c = skipWhitespace();
+        if (depth == 0) {
+            return current = value(c);
+        }
+
+        if (stack[depth - 1] == OBJECT) {
+            if (afterKey) {
+                if (c != ':') {
+                    throw error("Expected ':'");
+                }
+                afterKey = false;
+                return current = value(skipWhitespace());
+            }
+            if (afterValue) {
+                afterValue = false;
+                if (c == '}') {
+                    return current = end(Event.END_OBJECT);
+                } else if (c != ',') {
+                    throw error("Expected ',' or '}'");
+                }
+                afterComma = true;
+                c = skipWhitespace();
+            }
+            if (c == '"') {
+                readString();
+                afterComma = false;
+                afterKey = true;
+                return current = Event.KEY_NAME;
+            } else if (c == '}' && !afterComma) {
+                return current = end(Event.END_OBJECT);
+            }
+            throw error("Expected object key");
+        }
+
+        if (afterValue) {
+            afterValue = false;
+            if (c == ']') {
+                return current = end(Event.END_ARRAY);
+            } else if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+            afterComma = true;
+            c = skipWhitespace();
+        }
+        if (c == ']' && !afterComma) {
+            return current = end(Event.END_ARRAY);
+        }
+        afterComma = false;
+        return current = value(c);
+    }
+
+    /**
+     * Returns the text of the current {@link Event#KEY_NAME},
+     * {@link Event#VALUE_STRING} or {@link Event#VALUE_NUMBER} event.
+     */
+    public String getString() {
+        if (current != Event.KEY_NAME && current != Event.VALUE_STRING && current != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("No text available for " + current);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Returns the value of the current {@link Event#VALUE_NUMBER} event, as
+     * a {@link Double} if it has a fraction or exponent and as a
+     * {@link Long} otherwise.
+     */
+    public Number getNumber() {
+        if (current != Event.VALUE_NUMBER) {
+            throw new IllegalStateException("No number available for " + current);
+        }
+        String number = text.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return Double.parseDouble(number);
+            }
+        }
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException nfe) {
+            return Double.parseDouble(number);
+        }
+    }
+
+    /**
+     * Returns the current event or {@code null} if no event has been read yet.
+     */
+    public Event getEvent() {
+        return current;
+    }
+
+    /**
+     * Reads the next complete value. Objects are returned as a
+     * {@link Map Map&lt;String, Object&gt;}, arrays as a {@link List}.
+     */
+    public Object readValue() throws IOException {
+        return readValue(next());
+    }
+
+    /**
+     * Reads the value starting with the given, already read event.
+     */
+    public Object readValue(Event event) throws IOException {
+        switch (event) {
+        case START_OBJECT:
+            Map<String, Object> map = new HashMap<String, Object>();
+            while (next() != Event.END_OBJECT) {
+                String key = text.toString();
+                map.put(key, readValue());
+            }
+            return map;
+        case START_ARRAY:
+            List<Object> list = new ArrayList<Object>();
+            Event e;
+            while ((e = next()) != Event.END_ARRAY) {
+                list.add(readValue(e));
+            }
+            return list;
+        case VALUE_STRING:
+            return text.toString();
+        case VALUE_NUMBER:
+            return getNumber();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return null;
+        default:
+            throw error("Unexpected " + event);
+        }
+    }
+
+    /**
+     * Skips the value starting with the given, already read event.
+     */
+    public void skipValue(Event event) throws IOException {
+        if (event == Event.START_OBJECT || event == Event.START_ARRAY) {
+            int target = depth - 1;
+            while (depth > target) {
+                next();
+            }
+        }
+    }
+
+    /**
+     * Verifies that nothing but whitespace follows the top level value.
+     */
+    public void requireEnd() throws IOException {
+        if (skipWhitespace() != -1) {
+            throw error("Unexpected content after end of document");
+        }
+    }
+
+    /**
+     * Returns the number of characters consumed so far.
+     */
+    public long getOffset() {
+        return offset + pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private Event value(int c) throws IOException {
+        switch (c) {
+        case '{':
+            push(OBJECT);
+            return Event.START_OBJECT;
+        case '[':
+            push(ARRAY);
+            return Event.START_ARRAY;
+        case '"':
+            readString();
+            valueDone();
+            return Event.VALUE_STRING;
+        case 't':
+        case 'T':
+            readLiteral("true");
+            valueDone();
+            return Event.VALUE_TRUE;
+        case 'f':
+        case 'F':
+            readLiteral("false");
+            valueDone();
+            return Event.VALUE_FALSE;
+        case 'n':
+        case 'N':
+            readLiteral("null");
+            valueDone();
+            return Event.VALUE_NULL;
+        case -1:
+            throw error("Unexpected end of document");
+        default:
+            if (c == '-' || (c >= '0' && c <= '9')) {
+                readNumber((char) c);
+                valueDone();
+                return Event.VALUE_NUMBER;
+            }
+            throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private void push(int type) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = type;
+        afterValue = false;
+        afterComma = false;
+    }
+
+    private Event end(Event event) {
+        depth--;
+        valueDone();
+        return event;
+    }
+
+    private void valueDone() {
+        if (depth == 0) {
+            done = true;
+        } else {
+            afterValue = true;
+        }
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        for (;;) {
+            if (pos == limit && !fill()) {
+                throw error("Unterminated string");
+            }
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '"' || c == '\\') {
+                    break;
+                }
+                if (c == '\n' || c == '\r') {
+                    buffer[pos] = ' ';
+                }
+                pos++;
+            }
+            text.append(buffer, start, pos - start);
+            if (pos == limit) {
+                continue;
+            }
+            if (buffer[pos++] == '"') {
+                return;
+            }
+            int c = read();
+            switch (c) {
+            case 'b':
+                text.append('\b');
+                break;
+            case 'f':
+                text.append('\f');
+                break;
+            case 'n':
+                text.append('\n');
+                break;
+            case 'r':
+                text.append('\r');
+                break;
+            case 't':
+                text.append('\t');
+                break;
+            case 'u':
+                int uc = 0;
+                for (int i = 0; i < 4; i++) {
+                    int d = Character.digit(read(), 16);
+                    if (d < 0) {
+                        throw error("Malformed unicode escape");
+                    }
+                    uc = (uc << 4) | d;
+                }
+                text.append((char) uc);
+                break;
+            case -1:
+                throw error("Unterminated string");
+            default:
+                text.append((char) c);
+            }
+        }
+    }
+
+    private void readNumber(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        for (;;) {
+            int c = peek();
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                text.append((char) c);
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (text.length() == 1 && first == '-') {
+            throw error("Malformed number");
+        }
+    }
+
+    private void readLiteral(String literal) throws IOException {
+        for (int i = 1; i < literal.length(); i++) {
+            int c = read();
+            if (c == -1 || Character.toLowerCase((char) c) != literal.charAt(i)) {
+                throw error("Expected '" + literal + "'");
+            }
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        for (;;) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[pos++];
+            if (c > ' ') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        int read;
+        while ((read = reader.read(buffer)) == 0) {
+            // a reader may return 0 characters, try again
+        }
+        if (read < 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Malformatted JSON: " + message + " at offset " + getOffset());
+    }
+}
@@ -18,9 +18,7 @@ package org.apache.felix.utils.repository;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.osgi.resource.Capability;
@@ -39,16 +37,20 @@ public class AggregateRepository implements Repository {
     public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
         Map<Requirement, Collection<Capability>> result = new HashMap<>();
         for (Requirement requirement : requirements) {
-            List<Capability> caps = new ArrayList<>();
-            for (Repository repository : repositories) {
-                Map<Requirement, Collection<Capability>> resMap =
-                        repository.findProviders(Collections.singleton(requirement));
-                Collection<Capability> res = resMap != null ? resMap.get(requirement) : null;
-                if (res != null) {
-                    caps.addAll(res);
+            result.put(requirement, new ArrayList<Capability>());
+        }
+        // ask each repository once for all requirements, so that it can
+        // evaluate them as a batch
+        for (Repository repository : repositories) {
+            Map<Requirement, Collection<Capability>> resMap = repository.findProviders(requirements);
+            if (resMap != null) {
+                for (Map.Entry<Requirement, Collection<Capability>> entry : result.entrySet()) {
+                    Collection<Capability> res = resMap.get(entry.getKey());
+                    if (res != null) {
+                        entry.getValue().addAll(res);
+                    }
                 }
             }
-            result.put(requirement, caps);
         }
         return result;
     }
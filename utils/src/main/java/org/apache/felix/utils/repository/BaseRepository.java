@@ -17,25 +17,42 @@
 package org.apache.felix.utils.repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.felix.utils.resource.CapabilitySet;
 import org.apache.felix.utils.resource.RequirementImpl;
 import org.apache.felix.utils.resource.SimpleFilter;
 import org.osgi.framework.Constants;
+import org.osgi.framework.namespace.IdentityNamespace;
+import org.osgi.framework.namespace.PackageNamespace;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
 import org.osgi.service.repository.Repository;
 
 /**
+ * A repository holding its resources in memory.
+ * <p>
+ * Capabilities are held in one {@link CapabilitySet} per namespace, indexed
+ * on the attributes requirements usually filter on, so that a lookup by
+ * package, identity or service interface does not scan all capabilities.
+ * Large collections of requirements are evaluated in parallel.
  */
 public class BaseRepository implements Repository {
 
+    /**
+     * Minimum number of requirements for which {@link #findProviders(Collection)}
+     * splits the work over several threads.
+     */
+    private static final int PARALLEL_THRESHOLD = 64;
+
     protected final List<Resource> resources;
     protected final Map<String, CapabilitySet> capSets;
 
@@ -56,7 +73,7 @@ public class BaseRepository implements Repository {
             String ns = cap.getNamespace();
             CapabilitySet cs = capSets.get(ns);
             if (cs == null) {
-                cs = new CapabilitySet(Collections.singletonList(ns));
+                cs = new CapabilitySet(getIndexedAttributes(ns));
                 capSets.put(ns, cs);
             }
             cs.addCapability(cap);
@@ -64,6 +81,34 @@ public class BaseRepository implements Repository {
         resources.add(resource);
     }
 
+    protected void removeResource(Resource resource) {
+        for (Capability cap : resource.getCapabilities(null)) {
+            CapabilitySet cs = capSets.get(cap.getNamespace());
+            if (cs != null) {
+                cs.removeCapability(cap);
+            }
+        }
+        resources.remove(resource);
+    }
+
+    /**
+     * Returns the attributes to index the capabilities of the given
+     * namespace on. Only equality filters on these attributes are
+     * answered from the index.
+     */
+    protected List<String> getIndexedAttributes(String namespace) {
+        switch (namespace) {
+        case IdentityNamespace.IDENTITY_NAMESPACE:
+            return Arrays.asList(IdentityNamespace.IDENTITY_NAMESPACE, IdentityNamespace.CAPABILITY_TYPE_ATTRIBUTE);
+        case PackageNamespace.PACKAGE_NAMESPACE:
+            return Collections.singletonList(PackageNamespace.PACKAGE_NAMESPACE);
+        case "osgi.service":
+            return Collections.singletonList(Constants.OBJECTCLASS);
+        default:
+            return Collections.singletonList(namespace);
+        }
+    }
+
     public List<Resource> getResources() {
         return resources;
     }
@@ -71,23 +116,75 @@ public class BaseRepository implements Repository {
     @Override
     public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
         Map<Requirement, Collection<Capability>> result = new HashMap<>();
-        for (Requirement requirement : requirements) {
-            CapabilitySet set = capSets.get(requirement.getNamespace());
-            if (set != null) {
-                SimpleFilter sf;
-                if (requirement instanceof RequirementImpl) {
-                    sf = ((RequirementImpl) requirement).getFilter();
-                } else {
-                    String filter = requirement.getDirectives().get(Constants.FILTER_DIRECTIVE);
-                    sf = (filter != null)
-                            ? SimpleFilter.parse(filter)
-                            : SimpleFilter.MATCH_ALL_FILTER;
+        if (requirements.size() < PARALLEL_THRESHOLD || PoolHolder.POOL.getParallelism() < 2) {
+            for (Requirement requirement : requirements) {
+                result.put(requirement, findProviders(requirement));
+            }
+        } else {
+            Requirement[] reqs = requirements.toArray(new Requirement[requirements.size()]);
+            Collection<?>[] providers = new Collection<?>[reqs.length];
+            PoolHolder.POOL.invoke(new Evaluator(reqs, providers, 0, reqs.length));
+            for (int i = 0; i < reqs.length; i++) {
+                @SuppressWarnings("unchecked")
+                Collection<Capability> caps = (Collection<Capability>) providers[i];
+                result.put(reqs[i], caps);
+            }
+        }
+        return result;
+    }
+
+    private Collection<Capability> findProviders(Requirement requirement) {
+        CapabilitySet set = capSets.get(requirement.getNamespace());
+        if (set != null) {
+            SimpleFilter sf;
+            if (requirement instanceof RequirementImpl) {
+                sf = ((RequirementImpl) requirement).getFilter();
+            } else {
+                String filter = requirement.getDirectives().get(Constants.FILTER_DIRECTIVE);
+                sf = (filter != null)
+                        ? SimpleFilter.parse(filter)
+                        : SimpleFilter.MATCH_ALL_FILTER;
+            }
+            return set.match(sf, true);
+        } else {
+            return Collections.<Capability>emptyList();
+        }
+    }
+
+    private static final class PoolHolder {
+        // created on first use, worker threads of a ForkJoinPool are daemon threads
+        static final ForkJoinPool POOL = new ForkJoinPool();
+    }
+
+    /**
+     * Evaluates a range of requirements, splitting it in halves until
+     * it is small enough to be evaluated sequentially.
+     */
+    private class Evaluator extends RecursiveAction {
+
+        private final Requirement[] requirements;
+        private final Collection<?>[] providers;
+        private final int from;
+        private final int to;
+
+        Evaluator(Requirement[] requirements, Collection<?>[] providers, int from, int to) {
+            this.requirements = requirements;
+            this.providers = providers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD / 2) {
+                for (int i = from; i < to; i++) {
+                    providers[i] = findProviders(requirements[i]);
                 }
-                result.put(requirement, set.match(sf, true));
             } else {
-                result.put(requirement, Collections.<Capability>emptyList());
+                int mid = (from + to) >>> 1;
+                invokeAll(new Evaluator(requirements, providers, from, mid),
+                        new Evaluator(requirements, providers, mid, to));
             }
         }
-        return result;
     }
 }
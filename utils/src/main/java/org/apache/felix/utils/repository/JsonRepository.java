@@ -16,6 +16,9 @@
  */
 package org.apache.felix.utils.repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
@@ -43,11 +46,29 @@ public class JsonRepository extends BaseRepository {
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public JsonRepository(String url, long expiration) {
-        loader = new UrlLoader(url, expiration) {
+        this(url, expiration, null);
+    }
+
+    /**
+     * @param snapshotDir the directory in which the parsed resources are kept
+     *                    across restarts, or {@code null}
+     */
+    public JsonRepository(String url, long expiration, File snapshotDir) {
+        loader = new UrlLoader(url, expiration, snapshotDir) {
             @Override
             protected boolean doRead(InputStream is) throws IOException {
                 return JsonRepository.this.doRead(is);
             }
+
+            @Override
+            protected void doWriteSnapshot(DataOutput out) throws IOException {
+                JsonRepository.this.doWriteSnapshot(out);
+            }
+
+            @Override
+            protected boolean doReadSnapshot(DataInput in) throws IOException {
+                return JsonRepository.this.doReadSnapshot(in);
+            }
         };
     }
 
@@ -92,6 +113,30 @@ public class JsonRepository extends BaseRepository {
         }
     }
 
+    protected void doWriteSnapshot(DataOutput out) throws IOException {
+        lock.readLock().lock();
+        try {
+            new ResourceSnapshot.Output(out).writeResources(resources);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected boolean doReadSnapshot(DataInput in) throws IOException {
+        List<Resource> snapshot = new ResourceSnapshot.Input(in).readResources();
+        lock.writeLock().lock();
+        try {
+            resources.clear();
+            capSets.clear();
+            for (Resource resource : snapshot) {
+                addResource(resource);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     protected void buildResource(String uri, Map<String, String> headerMap) throws IOException {
         try {
             Resource resource = ResourceBuilder.build(uri, headerMap);
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.utils.repository;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.felix.utils.resource.CapabilityImpl;
+import org.apache.felix.utils.resource.RequirementImpl;
+import org.apache.felix.utils.resource.ResourceImpl;
+import org.apache.felix.utils.version.VersionRange;
+import org.apache.felix.utils.version.VersionTable;
+import org.osgi.framework.Version;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+/**
+ * Binary encoding of resources, used to keep a parsed repository on disk.
+ * <p>
+ * Each distinct string is written once; later occurrences refer to the
+ * first one by index, so namespaces, attribute names and frequent values
+ * take a few bytes each and are shared again when read back. Capabilities
+ * and requirements are written as a table of namespace, directives and
+ * typed attributes.
+ * <p>
+ * Every element takes at least one byte, so lengths read back are checked
+ * against the remaining input and a corrupted length is reported as an
+ * {@link IOException} instead of a huge or negative allocation.
+ */
+final class ResourceSnapshot {
+
+    private static final int NULL = -1;
+    private static final int NEW = -2;
+
+    private static final byte STRING = 0;
+    private static final byte VERSION = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte LIST = 4;
+    private static final byte VERSION_RANGE = 5;
+
+    private ResourceSnapshot() {
+    }
+
+    static class Output {
+
+        private final DataOutput out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Output(DataOutput out) {
+            this.out = out;
+        }
+
+        void writeInt(int value) throws IOException {
+            out.writeInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                out.writeInt(index);
+            } else {
+                strings.put(value, strings.size());
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(NEW);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        void writeResources(List<Resource> resources) throws IOException {
+            out.writeInt(resources.size());
+            for (Resource resource : resources) {
+                List<Capability> caps = resource.getCapabilities(null);
+                out.writeInt(caps.size());
+                for (Capability cap : caps) {
+                    writeClause(cap.getNamespace(), cap.getDirectives(), cap.getAttributes());
+                }
+                List<Requirement> reqs = resource.getRequirements(null);
+                out.writeInt(reqs.size());
+                for (Requirement req : reqs) {
+                    writeClause(req.getNamespace(), req.getDirectives(), req.getAttributes());
+                }
+            }
+        }
+
+        private void writeClause(String namespace, Map<String, String> directives, Map<String, Object> attributes) throws IOException {
+            writeString(namespace);
+            out.writeInt(directives.size());
+            for (Map.Entry<String, String> entry : directives.entrySet()) {
+                writeString(entry.getKey());
+                writeString(entry.getValue());
+            }
+            out.writeInt(attributes.size());
+            for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value instanceof String) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Version) {
+                out.writeByte(VERSION);
+                writeString(value.toString());
+            } else if (value instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(LIST);
+                out.writeInt(list.size());
+                for (Object o : list) {
+                    writeValue(o);
+                }
+            } else if (value instanceof VersionRange) {
+                VersionRange range = (VersionRange) value;
+                out.writeByte(VERSION_RANGE);
+                out.writeBoolean(range.isOpenFloor());
+                writeString(range.getFloor() != null ? range.getFloor().toString() : null);
+                writeString(range.getCeiling() != null ? range.getCeiling().toString() : null);
+                out.writeBoolean(range.isOpenCeiling());
+            } else {
+                throw new IOException("Unsupported attribute type: " + (value != null ? value.getClass().getName() : null));
+            }
+        }
+    }
+
+    static class Input {
+
+        private final DataInput in;
+        private final List<String> strings = new ArrayList<>();
+
+        Input(DataInput in) {
+            this.in = in;
+        }
+
+        int readInt() throws IOException {
+            return in.readInt();
+        }
+
+        long readLong() throws IOException {
+            return in.readLong();
+        }
+
+        /**
+         * Reads a number of elements or bytes that follow in the input.
+         */
+        int readCount() throws IOException {
+            int count = in.readInt();
+            long remaining = in instanceof InputStream ? ((InputStream) in).available() : Integer.MAX_VALUE;
+            if (count < 0 || count > remaining) {
+                throw new IOException("Corrupted snapshot: invalid length " + count);
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int index = in.readInt();
+            if (index == NULL) {
+                return null;
+            } else if (index == NEW) {
+                byte[] bytes = new byte[readCount()];
+                in.readFully(bytes);
+                String value = new String(bytes, StandardCharsets.UTF_8);
+                strings.add(value);
+                return value;
+            } else if (index >= 0 && index < strings.size()) {
+                return strings.get(index);
+            }
+            throw new IOException("Corrupted snapshot: invalid string reference " + index);
+        }
+
+        List<Resource> readResources() throws IOException {
+            int nbResources = readCount();
+            List<Resource> resources = new ArrayList<>(nbResources);
+            for (int i = 0; i < nbResources; i++) {
+                ResourceImpl resource = new ResourceImpl();
+                int nbCaps = readCount();
+                for (int j = 0; j < nbCaps; j++) {
+                    String namespace = readString();
+                    resource.addCapability(new CapabilityImpl(resource, namespace, readDirectives(), readAttributes()));
+                }
+                int nbReqs = readCount();
+                for (int j = 0; j < nbReqs; j++) {
+                    String namespace = readString();
+                    resource.addRequirement(new RequirementImpl(resource, namespace, readDirectives(), readAttributes()));
+                }
+                resources.add(resource);
+            }
+            return resources;
+        }
+
+        private Map<String, String> readDirectives() throws IOException {
+            int size = readCount();
+            Map<String, String> directives = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                directives.put(readString(), readString());
+            }
+            return directives;
+        }
+
+        private Map<String, Object> readAttributes() throws IOException {
+            int size = readCount();
+            Map<String, Object> attributes = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                attributes.put(readString(), readValue());
+            }
+            return attributes;
+        }
+
+        private Object readValue() throws IOException {
+            byte type = in.readByte();
+            switch (type) {
+            case STRING:
+                return readString();
+            case VERSION:
+                return VersionTable.getVersion(readString());
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case LIST:
+                int size = readCount();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue());
+                }
+                return list;
+            case VERSION_RANGE:
+                boolean openFloor = in.readBoolean();
+                String floor = readString();
+                String ceiling = readString();
+                boolean openCeiling = in.readBoolean();
+                return new VersionRange(openFloor,
+                        floor != null ? VersionTable.getVersion(floor) : null,
+                        ceiling != null ? VersionTable.getVersion(ceiling) : null,
+                        openCeiling);
+            default:
+                throw new IOException("Corrupted snapshot: unknown attribute type " + type);
+            }
+        }
+    }
+
+}
@@ -17,32 +17,75 @@
 package org.apache.felix.utils.repository;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
 import java.util.zip.GZIPInputStream;
 
 import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
 import static java.net.HttpURLConnection.HTTP_OK;
 
 /**
+ * Loads the content of a URL, checking for modifications at most once per
+ * expiration period. Requests are conditional on the last modification
+ * date and the entity tag of the previously read content.
+ * <p>
+ * When a snapshot directory is given, loaders supporting snapshots keep a
+ * binary copy of the parsed content there. After a restart the snapshot is
+ * used instead of the remote content, as long as the source reports it as
+ * unchanged. Snapshots end with a CRC32 checksum of their content, and a
+ * truncated or otherwise unreadable snapshot is deleted and the url read
+ * again.
  */
 public abstract class UrlLoader {
 
     public static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    public static final String HEADER_ETAG = "ETag";
     public static final String GZIP = "gzip";
 
+    private static final int SNAPSHOT_MAGIC = 0x46534e32;
+
     private final String url;
     private final long expiration;
+    private final File snapshot;
     private long lastModified;
+    private String etag;
     private long lastChecked;
+    private boolean snapshotPending;
 
     public UrlLoader(String url, long expiration) {
+        this(url, expiration, null);
+    }
+
+    /**
+     * @param url the url to load
+     * @param expiration the time in milliseconds after which the url is checked again,
+     *                   or a negative value to never check again
+     * @param snapshotDir the directory holding snapshots, or {@code null} to not use snapshots
+     */
+    public UrlLoader(String url, long expiration, File snapshotDir) {
         this.url = url;
         this.expiration = expiration;
+        this.snapshot = snapshotDir != null ? new File(snapshotDir, getSnapshotName(url)) : null;
     }
 
     public String getUrl() {
@@ -55,6 +98,8 @@ public abstract class UrlLoader {
             if (expiration < 0 || time - lastChecked < expiration) {
                 return false;
             }
+        } else if (snapshot != null) {
+            snapshotPending = readSnapshotHeader();
         }
         try {
             URL u = new URL(url);
@@ -64,6 +109,9 @@ public abstract class UrlLoader {
                 if (lastModified > 0) {
                     con.setIfModifiedSince(lastModified);
                 }
+                if (etag != null) {
+                    con.setRequestProperty(HEADER_IF_NONE_MATCH, etag);
+                }
                 con.setRequestProperty(HEADER_ACCEPT_ENCODING, GZIP);
                 if (u.getUserInfo() != null)  {
                     String encoded = base64((u.getUserInfo()).getBytes(StandardCharsets.UTF_8));
@@ -71,8 +119,9 @@ public abstract class UrlLoader {
                 }
                 int rc = con.getResponseCode();
                 if (rc == HTTP_NOT_MODIFIED) {
+                    con.disconnect();
                     lastChecked = time;
-                    return false;
+                    return loadPendingSnapshot();
                 }
                 if (rc != HTTP_OK) {
                     throw new IOException("Unexpected http response loading " + url + " : " + rc + " " + con.getResponseMessage());
@@ -81,11 +130,16 @@ public abstract class UrlLoader {
             
             if (didNotChange(connection)) {
                 lastChecked = time;
-                return false;
+                return loadPendingSnapshot();
             }
+            snapshotPending = false;
             boolean wasRead = read(connection);
             lastModified = connection.getLastModified();
+            etag = connection.getHeaderField(HEADER_ETAG);
             lastChecked = time;
+            if (wasRead && snapshot != null) {
+                writeSnapshot();
+            }
             return wasRead;
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -123,6 +177,131 @@ public abstract class UrlLoader {
 
     protected abstract boolean doRead(InputStream is) throws IOException;
 
+    /**
+     * Writes the loaded content to a snapshot. Loaders supporting snapshots
+     * override this method together with {@link #doReadSnapshot(DataInput)}.
+     *
+     * @throws IOException if the content can not be written, in which case no snapshot is kept
+     */
+    protected void doWriteSnapshot(DataOutput out) throws IOException {
+        throw new IOException("Snapshots are not supported by " + getClass().getName());
+    }
+
+    /**
+     * Replaces the loaded content with the content of a snapshot.
+     *
+     * @return {@code true} if the content has changed
+     * @throws IOException if the snapshot can not be read, in which case the url is read instead
+     */
+    protected boolean doReadSnapshot(DataInput in) throws IOException {
+        throw new IOException("Snapshots are not supported by " + getClass().getName());
+    }
+
+    private boolean loadPendingSnapshot() {
+        if (!snapshotPending) {
+            return false;
+        }
+        snapshotPending = false;
+        try (DataInputStream in = openSnapshot()) {
+            readHeader(in);
+            return doReadSnapshot(in);
+        } catch (IOException | RuntimeException e) {
+            // unusable snapshot, read the url again instead
+            deleteSnapshot();
+            lastModified = 0;
+            etag = null;
+            lastChecked = 0;
+            return checkAndLoadCache();
+        }
+    }
+
+    private boolean readSnapshotHeader() {
+        if (!snapshot.isFile()) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshot)))) {
+            readHeader(in);
+            return true;
+        } catch (IOException e) {
+            deleteSnapshot();
+            lastModified = 0;
+            etag = null;
+            return false;
+        }
+    }
+
+    /**
+     * Reads the snapshot after checking its trailing checksum, so that a
+     * truncated or damaged file is never parsed.
+     */
+    private DataInputStream openSnapshot() throws IOException {
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        int length = bytes.length - 8;
+        if (length < 0) {
+            throw new IOException("Truncated snapshot " + snapshot);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        in.skipBytes(length);
+        if (in.readLong() != crc.getValue()) {
+            throw new IOException("Corrupted snapshot " + snapshot);
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+    }
+
+    private void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC || !url.equals(in.readUTF())) {
+            throw new IOException("Invalid snapshot " + snapshot);
+        }
+        lastModified = in.readLong();
+        etag = in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private void writeSnapshot() {
+        File temp = new File(snapshot.getPath() + ".tmp");
+        try {
+            File dir = snapshot.getParentFile();
+            if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+                return;
+            }
+            CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(temp)), new CRC32());
+            try (DataOutputStream out = new DataOutputStream(checked)) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeUTF(url);
+                out.writeLong(lastModified);
+                out.writeBoolean(etag != null);
+                if (etag != null) {
+                    out.writeUTF(etag);
+                }
+                doWriteSnapshot(out);
+                out.writeLong(checked.getChecksum().getValue());
+            }
+            Files.move(temp.toPath(), snapshot.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // the snapshot is only an optimization
+            temp.delete();
+            deleteSnapshot();
+        }
+    }
+
+    private void deleteSnapshot() {
+        snapshot.delete();
+    }
+
+    private static String getSnapshotName(String url) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest(url.getBytes(StandardCharsets.UTF_8))) {
+                sb.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return sb.append(".snapshot").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     static final String	alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
 
     protected static String base64(byte[] in) {
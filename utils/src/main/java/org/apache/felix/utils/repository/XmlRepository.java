@@ -16,13 +16,22 @@
  */
 package org.apache.felix.utils.repository;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.xml.stream.XMLStreamException;
@@ -46,24 +55,45 @@ public class XmlRepository extends BaseRepository {
 
     protected final String url;
     protected final long expiration;
+    protected final File snapshotDir;
     protected final Map<String, XmlLoader> loaders = new HashMap<>();
     protected final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     public XmlRepository(String url, long expiration) {
+        this(url, expiration, null);
+    }
+
+    /**
+     * @param snapshotDir the directory in which the parsed repository and its
+     *                    referrals are kept across restarts, or {@code null}
+     */
+    public XmlRepository(String url, long expiration, File snapshotDir) {
         this.url = url;
         this.expiration = expiration;
+        this.snapshotDir = snapshotDir;
     }
 
     @Override
     public List<Resource> getResources() {
         checkAndLoadCache();
-        return super.getResources();
+        lock.readLock().lock();
+        try {
+            // a copy, as the resources change when the repository is reloaded
+            return new ArrayList<>(super.getResources());
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     @Override
     public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
         checkAndLoadCache();
-        return super.findProviders(requirements);
+        lock.readLock().lock();
+        try {
+            return super.findProviders(requirements);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     public String getUrl() {
@@ -76,6 +106,17 @@ public class XmlRepository extends BaseRepository {
 
     @Override
     protected void addResource(Resource resource) {
+        List<Object> identity = getIdentity(resource);
+        if (!hasResource((String) identity.get(0), (String) identity.get(1), (Version) identity.get(2))) {
+            super.addResource(resource);
+        }
+    }
+
+    /**
+     * Returns the type, name and version of a resource, which identify
+     * the resource within the repository.
+     */
+    private static List<Object> getIdentity(Resource resource) {
         List<Capability> identities = resource.getCapabilities(IDENTITY_NAMESPACE);
         if (identities.isEmpty()) {
             throw new IllegalStateException("Invalid resource: a capability with 'osgi.identity' namespace is required");
@@ -91,9 +132,7 @@ public class XmlRepository extends BaseRepository {
                 || !Version.class.isInstance(vers)) {
             throw new IllegalStateException("Invalid osgi.identity capability: " + identity);
         }
-        if (!hasResource((String) type, (String) name, (Version) vers)) {
-            super.addResource(resource);
-        }
+        return Arrays.asList(type, name, vers);
     }
 
     private boolean hasResource(String type, String name, Version version) {
@@ -112,34 +151,110 @@ public class XmlRepository extends BaseRepository {
 
     protected void checkAndLoadCache() {
         if (checkAndLoadReferrals(url, Integer.MAX_VALUE)) {
+            Map<List<Object>, Resource> loaded = new LinkedHashMap<>();
+            collect(loaders.get(url).xml, Integer.MAX_VALUE, loaded);
             lock.writeLock().lock();
             try {
-                resources.clear();
-                capSets.clear();
-                populate(loaders.get(url).xml, Integer.MAX_VALUE);
+                update(loaded);
             } finally {
                 lock.writeLock().unlock();
             }
         }
     }
 
-    private void populate(StaxParser.XmlRepository xml, int hopCount) {
+    /**
+     * Collects the resources of a repository and its referrals. The first
+     * resource found for an identity wins.
+     */
+    private void collect(StaxParser.XmlRepository xml, int hopCount, Map<List<Object>, Resource> loaded) {
         if (hopCount > 0) {
             for (Resource resource : xml.resources) {
-                addResource(resource);
+                List<Object> identity = getIdentity(resource);
+                if (!loaded.containsKey(identity)) {
+                    loaded.put(identity, resource);
+                }
             }
             for (StaxParser.Referral referral : xml.referrals) {
-                populate(loaders.get(referral.url).xml, Math.min(referral.depth, hopCount - 1));
+                collect(loaders.get(referral.url).xml, Math.min(referral.depth, hopCount - 1), loaded);
+            }
+        }
+    }
+
+    /**
+     * Replaces the current resources with the loaded ones. Resources whose
+     * capabilities and requirements did not change are kept, so that only
+     * added, removed or modified resources are indexed again.
+     */
+    private void update(Map<List<Object>, Resource> loaded) {
+        Map<List<Object>, Resource> previous = new HashMap<>();
+        for (Resource resource : resources) {
+            previous.put(getIdentity(resource), resource);
+        }
+        List<Resource> ordered = new ArrayList<>(loaded.size());
+        Set<Resource> kept = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+        for (Map.Entry<List<Object>, Resource> entry : loaded.entrySet()) {
+            Resource old = previous.get(entry.getKey());
+            if (old != null && sameContent(old, entry.getValue())) {
+                ordered.add(old);
+                kept.add(old);
+            } else {
+                ordered.add(entry.getValue());
+            }
+        }
+
+        resources.clear();
+        for (Resource resource : previous.values()) {
+            if (!kept.contains(resource)) {
+                removeResource(resource);
+            }
+        }
+        for (Resource resource : ordered) {
+            if (kept.contains(resource)) {
+                resources.add(resource);
+            } else {
+                addResource(resource);
             }
         }
     }
 
+    private static boolean sameContent(Resource r1, Resource r2) {
+        List<Capability> caps1 = r1.getCapabilities(null);
+        List<Capability> caps2 = r2.getCapabilities(null);
+        if (caps1.size() != caps2.size()) {
+            return false;
+        }
+        for (int i = 0; i < caps1.size(); i++) {
+            Capability c1 = caps1.get(i);
+            Capability c2 = caps2.get(i);
+            if (!c1.getNamespace().equals(c2.getNamespace())
+                    || !c1.getAttributes().equals(c2.getAttributes())
+                    || !c1.getDirectives().equals(c2.getDirectives())) {
+                return false;
+            }
+        }
+        List<Requirement> reqs1 = r1.getRequirements(null);
+        List<Requirement> reqs2 = r2.getRequirements(null);
+        if (reqs1.size() != reqs2.size()) {
+            return false;
+        }
+        for (int i = 0; i < reqs1.size(); i++) {
+            Requirement q1 = reqs1.get(i);
+            Requirement q2 = reqs2.get(i);
+            if (!q1.getNamespace().equals(q2.getNamespace())
+                    || !q1.getAttributes().equals(q2.getAttributes())
+                    || !q1.getDirectives().equals(q2.getDirectives())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean checkAndLoadReferrals(String url, int hopCount) {
         boolean modified = false;
         if (hopCount > 0) {
             XmlLoader loader = loaders.get(url);
             if (loader == null) {
-                loader = new XmlLoader(url, expiration);
+                loader = new XmlLoader(url, expiration, snapshotDir);
                 loaders.put(url, loader);
             }
             modified = loader.checkAndLoadCache();
@@ -158,6 +273,10 @@ public class XmlRepository extends BaseRepository {
             super(url, expiration);
         }
 
+        public XmlLoader(String url, long expiration, File snapshotDir) {
+            super(url, expiration, snapshotDir);
+        }
+
         public XmlLoader(String url, long expiration, StaxParser.XmlRepository xml) {
             super(url, expiration);
             this.xml = xml;
@@ -173,6 +292,37 @@ public class XmlRepository extends BaseRepository {
                 throw new IOException("Unable to read xml repository", e);
             }
         }
+
+        @Override
+        protected void doWriteSnapshot(DataOutput out) throws IOException {
+            ResourceSnapshot.Output output = new ResourceSnapshot.Output(out);
+            output.writeString(xml.name);
+            output.writeLong(xml.increment);
+            output.writeInt(xml.referrals.size());
+            for (StaxParser.Referral referral : xml.referrals) {
+                output.writeString(referral.url);
+                output.writeInt(referral.depth);
+            }
+            output.writeResources(xml.resources);
+        }
+
+        @Override
+        protected boolean doReadSnapshot(DataInput in) throws IOException {
+            ResourceSnapshot.Input input = new ResourceSnapshot.Input(in);
+            StaxParser.XmlRepository repo = new StaxParser.XmlRepository();
+            repo.name = input.readString();
+            repo.increment = input.readLong();
+            int nbReferrals = input.readCount();
+            for (int i = 0; i < nbReferrals; i++) {
+                StaxParser.Referral referral = new StaxParser.Referral();
+                referral.url = input.readString();
+                referral.depth = input.readInt();
+                repo.referrals.add(referral);
+            }
+            repo.resources.addAll(input.readResources());
+            xml = repo;
+            return true;
+        }
     }
 
 }
@@ -160,7 +160,9 @@ public class CapabilitySet {
             // For AND we calculate the intersection of each subfilter.
             // We can short-circuit the AND operation if there are no
             // remaining capabilities.
-            List<SimpleFilter> sfs = (List<SimpleFilter>) sf.getValue();
+            // Indexed subfilters are evaluated first, as they narrow down
+            // the capabilities without looking at each of them.
+            List<SimpleFilter> sfs = indexedFirst((List<SimpleFilter>) sf.getValue());
             for (int i = 0; (caps.size() > 0) && (i < sfs.size()); i++) {
                 matches = match(caps, sfs.get(i));
                 caps = matches;
@@ -185,8 +187,15 @@ public class CapabilitySet {
             if ((sf.getOperation() == SimpleFilter.EQ) && (index != null)) {
                 Set<Capability> existingCaps = index.get(sf.getValue());
                 if (existingCaps != null) {
-                    matches.addAll(existingCaps);
-                    matches.retainAll(caps);
+                    if (caps == capSet) {
+                        matches.addAll(existingCaps);
+                    } else {
+                        for (Capability cap : existingCaps) {
+                            if (caps.contains(cap)) {
+                                matches.add(cap);
+                            }
+                        }
+                    }
                 }
             } else {
                 for (Capability cap : caps) {
@@ -203,6 +212,23 @@ public class CapabilitySet {
         return matches;
     }
 
+    private List<SimpleFilter> indexedFirst(List<SimpleFilter> sfs) {
+        List<SimpleFilter> indexed = new ArrayList<>(sfs.size());
+        List<SimpleFilter> others = new ArrayList<>(sfs.size());
+        for (SimpleFilter sf : sfs) {
+            if (sf.getOperation() == SimpleFilter.EQ && indices.containsKey(sf.getName())) {
+                indexed.add(sf);
+            } else {
+                others.add(sf);
+            }
+        }
+        if (indexed.isEmpty() || others.isEmpty()) {
+            return sfs;
+        }
+        indexed.addAll(others);
+        return indexed;
+    }
+
     public static boolean matches(Capability capability, Requirement requirement) {
         return Objects.equals(capability.getNamespace(), requirement.getNamespace())
                 && matches(capability, RequirementImpl.getFilter(requirement));
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.utils.json;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the streaming {@link JSONParser} with the previous regular
+ * expression based implementation on documents of several megabytes.
+ * <p>
+ * This is not run as part of the build. Run {@link #main(String[])} with
+ * the test classpath, or {@code org.openjdk.jmh.Main JSONParserBenchmark}
+ * to pass JMH options.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JSONParserBenchmark {
+
+    /** Number of top level entries, roughly 200 bytes each. */
+    @Param({"10000", "50000"})
+    public int entries;
+
+    /** Nesting depth of each entry. */
+    @Param({"2", "8"})
+    public int depth;
+
+    private String json;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"entry").append(i).append("\": ");
+            for (int d = 0; d < depth; d++) {
+                sb.append("{\"id\": ").append(d).append(", \"name\": \"level \\\"").append(d)
+                    .append("\\\"\", \"ratio\": 0.5, \"active\": true, \"tags\": [\"a\", \"b\", null], \"child\": ");
+            }
+            sb.append("[1, 2, 3]");
+            for (int d = 0; d < depth; d++) {
+                sb.append('}');
+            }
+        }
+        json = sb.append('}').toString();
+    }
+
+    @Benchmark
+    public Object streaming() {
+        return new JSONParser(json).getParsed();
+    }
+
+    @Benchmark
+    public Object regex() {
+        return new RegexJSONParser(json).getParsed();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JSONParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
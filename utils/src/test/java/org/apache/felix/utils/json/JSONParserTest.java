@@ -28,6 +28,7 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class JSONParserTest {
     @Test
@@ -142,4 +143,33 @@ public class JSONParserTest {
 
         assertEquals("hi ", l.get(1));
     }
+
+    @Test
+    public void testLineBreaksInStrings() {
+        String json = "{\"raw\": \"a\nb\r\nc\", \"escaped\": \"a\\nb\\r\"}";
+        Map<String, Object> m = new JSONParser(json).getParsed();
+        assertEquals("a b  c", m.get("raw"));
+        assertEquals("a\nb\r", m.get("escaped"));
+    }
+
+    @Test
+    public void testControlCharactersAsWhitespace() {
+        String json = "\u0000\f{\"a\":\u000b1,\u0001\"b\": [\u001ftrue]}\u0000";
+        Map<String, Object> m = new JSONParser(json).getParsed();
+        assertEquals(1L, m.get("a"));
+        assertEquals(Collections.singletonList(true), m.get("b"));
+    }
+
+    @Test
+    public void testTrailingContent() {
+        assertEquals(1L, new JSONParser("{\"a\": 1} \n").getParsed().get("a"));
+        for (String json : Arrays.asList("{\"a\": 1} x", "{\"a\": 1}}", "[1] [2]")) {
+            try {
+                new JSONParser(json);
+                fail("Expected failure for " + json);
+            } catch (IllegalArgumentException e) {
+                // expected, as the document does not end with the top level value
+            }
+        }
+    }
 }
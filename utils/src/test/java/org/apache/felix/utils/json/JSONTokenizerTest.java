@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.utils.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.felix.utils.json.JSONTokenizer.Event;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONTokenizerTest {
+    @Test
+    public void testEvents() throws IOException {
+        JSONTokenizer t = new JSONTokenizer("{\"a\": [1, -2.5e3, \"x\\ty\"], \"b\": {}, \"c\": [], \"d\": true, \"e\": false, \"f\": null}");
+        assertEquals(Event.START_OBJECT, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals("a", t.getString());
+        assertEquals(Event.START_ARRAY, t.next());
+        assertEquals(Event.VALUE_NUMBER, t.next());
+        assertEquals(1L, t.getNumber());
+        assertEquals(Event.VALUE_NUMBER, t.next());
+        assertEquals(-2500d, t.getNumber());
+        assertEquals(Event.VALUE_STRING, t.next());
+        assertEquals("x\ty", t.getString());
+        assertEquals(Event.END_ARRAY, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals(Event.START_OBJECT, t.next());
+        assertEquals(Event.END_OBJECT, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals(Event.START_ARRAY, t.next());
+        assertEquals(Event.END_ARRAY, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals(Event.VALUE_TRUE, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals(Event.VALUE_FALSE, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals("f", t.getString());
+        assertEquals(Event.VALUE_NULL, t.next());
+        assertTrue(t.hasNext());
+        assertEquals(Event.END_OBJECT, t.next());
+        assertFalse(t.hasNext());
+    }
+
+    @Test
+    public void testSkipValue() throws IOException {
+        JSONTokenizer t = new JSONTokenizer("{\"skip\": {\"x\": [1, {\"y\": []}]}, \"keep\": \"v\"}");
+        assertEquals(Event.START_OBJECT, t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        t.skipValue(t.next());
+        assertEquals(Event.KEY_NAME, t.next());
+        assertEquals("keep", t.getString());
+        assertEquals("v", t.readValue());
+        assertEquals(Event.END_OBJECT, t.next());
+        assertFalse(t.hasNext());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSmallReadBuffers() throws IOException {
+        // a reader returning a single character per read spreads strings and escapes over refills
+        StringReader r = new StringReader("[\"abc\\u00e9def\", 12345, {\"k\": \"v\"}]") {
+            @Override
+            public int read(char[] cbuf, int off, int len) throws IOException {
+                return super.read(cbuf, off, Math.min(len, 1));
+            }
+        };
+        List<Object> l = (List<Object>) new JSONTokenizer(r).readValue();
+        assertEquals("abc\u00e9def", l.get(0));
+        assertEquals(12345L, l.get(1));
+        assertEquals("v", ((Map<String, Object>) l.get(2)).get("k"));
+    }
+
+    @Test
+    public void testMalformed() throws IOException {
+        for (String json : Arrays.asList("{\"a\" 1}", "{\"a\": 1,}", "[1,]", "[1 2]", "{\"a\": \"x",
+                "{\"a\": tru}", "[-]", "{1: 2}", "[1]]", "{\"a\": [}")) {
+            try {
+                new JSONParser(json);
+                fail("Expected failure for " + json);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testStreamEncoding() throws IOException {
+        String json = "{\"k\": \"\u00e4\u00f6\u00fc\"}";
+        assertEquals("\u00e4\u00f6\u00fc", new JSONParser(new ByteArrayInputStream(json.getBytes("UTF-8"))).getParsed().get("k"));
+        assertEquals("\u00e4\u00f6\u00fc", new JSONParser(new ByteArrayInputStream(json.getBytes("UTF-16BE"))).getParsed().get("k"));
+        assertNull(new JSONParser(new ByteArrayInputStream("[ 1 ]".getBytes("UTF-8"))).getParsed());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testDeepNesting() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("{\"n\":");
+        }
+        sb.append("[]");
+        for (int i = 0; i < 100; i++) {
+            sb.append('}');
+        }
+        Map<String, Object> m = new JSONParser(sb).getParsed();
+        for (int i = 0; i < 99; i++) {
+            m = (Map<String, Object>) m.get("n");
+        }
+        assertEquals(Arrays.asList(), m.get("n"));
+    }
+}
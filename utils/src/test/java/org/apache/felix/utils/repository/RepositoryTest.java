@@ -18,25 +18,62 @@
  */
 package org.apache.felix.utils.repository;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
 import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.GZIPOutputStream;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.felix.utils.resource.CapabilityImpl;
+import org.apache.felix.utils.resource.RequirementImpl;
+import org.apache.felix.utils.resource.ResourceImpl;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.osgi.framework.Version;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
+import org.osgi.service.repository.Repository;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.osgi.framework.namespace.BundleNamespace.BUNDLE_NAMESPACE;
 import static org.osgi.framework.namespace.IdentityNamespace.IDENTITY_NAMESPACE;
 import static org.osgi.framework.namespace.PackageNamespace.PACKAGE_NAMESPACE;
 
 public class RepositoryTest {
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void testXml() throws Exception {
         URL url = getClass().getResource("repo.xml");
@@ -67,6 +104,254 @@ public class RepositoryTest {
         verify(repo);
     }
 
+    @Test
+    public void testFindProviders() throws Exception {
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            resources.add(createBundle("bundle" + i, "pkg" + i, "svc" + (i % 10)));
+        }
+        BaseRepository repo = new BaseRepository(resources);
+
+        // enough requirements to be evaluated in parallel
+        Resource requirer = new ResourceImpl("requirer", "osgi.bundle", Version.emptyVersion);
+        List<Requirement> requirements = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            requirements.add(new RequirementImpl(requirer, PACKAGE_NAMESPACE,
+                    "(&(osgi.wiring.package=pkg" + (i * 2) + ")(version>=1.0.0))"));
+        }
+        requirements.add(new RequirementImpl(requirer, PACKAGE_NAMESPACE, "(osgi.wiring.package=missing)"));
+        requirements.add(new RequirementImpl(requirer, "osgi.service", "(objectClass=svc3)"));
+        requirements.add(new RequirementImpl(requirer, IDENTITY_NAMESPACE, "(&(type=osgi.bundle)(osgi.identity=bundle7))"));
+
+        Map<Requirement, Collection<Capability>> result = repo.findProviders(requirements);
+        assertEquals(requirements.size(), result.size());
+        for (int i = 0; i < 500; i++) {
+            Collection<Capability> caps = result.get(requirements.get(i));
+            assertEquals(1, caps.size());
+            assertEquals(resources.get(i * 2), caps.iterator().next().getResource());
+        }
+        assertTrue(result.get(requirements.get(500)).isEmpty());
+        assertEquals(100, result.get(requirements.get(501)).size());
+        assertEquals(resources.get(7), result.get(requirements.get(502)).iterator().next().getResource());
+    }
+
+    @Test
+    public void testAggregateRepository() throws Exception {
+        Resource r1 = createBundle("bundle1", "pkg", "svc");
+        Resource r2 = createBundle("bundle2", "pkg", "svc");
+        Repository repo = new AggregateRepository(Arrays.<Repository>asList(
+                new BaseRepository(Collections.singletonList(r1)),
+                new BaseRepository(Collections.singletonList(r2))));
+
+        Resource requirer = new ResourceImpl("requirer", "osgi.bundle", Version.emptyVersion);
+        Requirement pkg = new RequirementImpl(requirer, PACKAGE_NAMESPACE, "(osgi.wiring.package=pkg)");
+        Requirement none = new RequirementImpl(requirer, PACKAGE_NAMESPACE, "(osgi.wiring.package=none)");
+        Map<Requirement, Collection<Capability>> result = repo.findProviders(Arrays.asList(pkg, none));
+        List<Capability> caps = new ArrayList<>(result.get(pkg));
+        assertEquals(2, caps.size());
+        assertSame(r1, caps.get(0).getResource());
+        assertSame(r2, caps.get(1).getResource());
+        assertTrue(result.get(none).isEmpty());
+    }
+
+    @Test
+    public void testXmlIncrementalReload() throws Exception {
+        File file = File.createTempFile("repo", ".xml");
+        file.deleteOnExit();
+        writeXml(file, 1, "1.0.0", "1.0.0", "1.0.0");
+        XmlRepository repo = new XmlRepository(file.toURI().toURL().toExternalForm(), 0);
+        List<Resource> before = new ArrayList<>(repo.getResources());
+        assertEquals(3, before.size());
+
+        // change the second resource and remove the third one
+        writeXml(file, 2, "1.0.0", "2.0.0", null);
+        file.setLastModified(file.lastModified() + 10000);
+        List<Resource> after = new ArrayList<>(repo.getResources());
+        assertEquals(2, after.size());
+        assertSame(before.get(0), after.get(0));
+        assertNotSame(before.get(1), after.get(1));
+
+        Resource requirer = new ResourceImpl("requirer", "osgi.bundle", Version.emptyVersion);
+        Requirement pkg1 = new RequirementImpl(requirer, PACKAGE_NAMESPACE, "(&(osgi.wiring.package=pkg1)(version>=2.0.0))");
+        Requirement pkg2 = new RequirementImpl(requirer, PACKAGE_NAMESPACE, "(osgi.wiring.package=pkg2)");
+        Map<Requirement, Collection<Capability>> result = repo.findProviders(Arrays.asList(pkg1, pkg2));
+        assertEquals(1, result.get(pkg1).size());
+        assertSame(after.get(1), result.get(pkg1).iterator().next().getResource());
+        assertTrue(result.get(pkg2).isEmpty());
+    }
+
+    @Test
+    public void testGetResourcesDuringReload() throws Exception {
+        File file = File.createTempFile("repo", ".xml");
+        file.deleteOnExit();
+        writeXml(file, 1, "1.0.0", "1.0.0", "1.0.0");
+        XmlRepository repo = new XmlRepository(file.toURI().toURL().toExternalForm(), 0);
+        List<Resource> resources = repo.getResources();
+        Iterator<Resource> iterator = resources.iterator();
+        Resource first = iterator.next();
+
+        writeXml(file, 2, "1.0.0", "2.0.0", null);
+        file.setLastModified(file.lastModified() + 10000);
+        assertEquals(2, repo.getResources().size());
+
+        // the resources returned before the reload are unchanged
+        assertEquals(3, resources.size());
+        assertSame(first, resources.get(0));
+        assertTrue(iterator.hasNext());
+        iterator.next();
+    }
+
+    @Test
+    public void testXmlSnapshot() throws Exception {
+        File file = tmp.newFile("repo.xml");
+        File snapshots = tmp.newFolder("snapshots");
+        try (InputStream is = getClass().getResourceAsStream("repo.xml");
+             OutputStream os = new FileOutputStream(file)) {
+            copy(is, os);
+        }
+        String url = file.toURI().toURL().toExternalForm();
+        verify(new XmlRepository(url, 0, snapshots));
+        assertEquals(1, snapshots.list().length);
+
+        // an unchanged source is not read again after a restart
+        long lastModified = file.lastModified();
+        try (OutputStream os = new FileOutputStream(file)) {
+            os.write("not xml".getBytes("UTF-8"));
+        }
+        file.setLastModified(lastModified);
+        XmlRepository repo = new XmlRepository(url, 0, snapshots);
+        verify(repo);
+        Resource requirer = new ResourceImpl("requirer", "osgi.bundle", Version.emptyVersion);
+        Requirement req = new RequirementImpl(requirer, PACKAGE_NAMESPACE, "(&(osgi.wiring.package=org.acme.pool)(version>=1.1.0))");
+        assertEquals(1, repo.findProviders(Collections.singleton(req)).get(req).size());
+    }
+
+    @Test
+    public void testJsonSnapshot() throws Exception {
+        File snapshots = tmp.newFolder("snapshots");
+        String url = getClass().getResource("repo.json").toExternalForm();
+        verify(new JsonRepository(url, 0, snapshots));
+        assertEquals(1, snapshots.list().length);
+        verify(new JsonRepository(url, 0, snapshots));
+    }
+
+    @Test
+    public void testCorruptedSnapshot() throws Exception {
+        File snapshots = tmp.newFolder("snapshots");
+        String url = getClass().getResource("repo.json").toExternalForm();
+        verify(new JsonRepository(url, 0, snapshots));
+        File snapshot = snapshots.listFiles()[0];
+        byte[] content = Files.readAllBytes(snapshot.toPath());
+
+        // truncated snapshot
+        Files.write(snapshot.toPath(), Arrays.copyOf(content, content.length / 2));
+        verify(new JsonRepository(url, 0, snapshots));
+        assertTrue(Arrays.equals(content, Files.readAllBytes(snapshot.toPath())));
+
+        // damaged snapshot
+        byte[] damaged = content.clone();
+        damaged[damaged.length / 2] ^= 0x5a;
+        Files.write(snapshot.toPath(), damaged);
+        verify(new JsonRepository(url, 0, snapshots));
+        assertTrue(Arrays.equals(content, Files.readAllBytes(snapshot.toPath())));
+    }
+
+    @Test
+    public void testSnapshotInvalidLengths() throws Exception {
+        assertInvalidSnapshot(-1);
+        assertInvalidSnapshot(Integer.MAX_VALUE);
+        assertInvalidSnapshot(1, 1, -2, Integer.MAX_VALUE);
+    }
+
+    private static void assertInvalidSnapshot(int... values) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(baos);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+        out.writeInt(0);
+        ResourceSnapshot.Input input = new ResourceSnapshot.Input(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+        try {
+            input.readResources();
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Corrupted snapshot"));
+        }
+    }
+
+    @Test
+    public void testConditionalRequests() throws Exception {
+        final byte[] content;
+        try (InputStream is = getClass().getResourceAsStream("repo.xml")) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            copy(is, baos);
+            content = baos.toByteArray();
+        }
+        final AtomicInteger downloads = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/repo.xml", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                } else {
+                    downloads.incrementAndGet();
+                    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                    exchange.sendResponseHeaders(200, content.length);
+                    exchange.getResponseBody().write(content);
+                }
+                exchange.close();
+            }
+        });
+        server.start();
+        try {
+            String url = "http://localhost:" + server.getAddress().getPort() + "/repo.xml";
+            File snapshots = tmp.newFolder("snapshots");
+            XmlRepository repo = new XmlRepository(url, 0, snapshots);
+            verify(repo);
+            verify(repo);
+            assertEquals(1, downloads.get());
+            verify(new XmlRepository(url, 0, snapshots));
+            assertEquals(1, downloads.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Resource createBundle(String name, String pkg, String service) {
+        ResourceImpl resource = new ResourceImpl(name, "osgi.bundle", Version.emptyVersion);
+        Map<String, Object> attrs = new HashMap<>();
+        attrs.put(PACKAGE_NAMESPACE, pkg);
+        attrs.put("version", new Version(1, 0, 0));
+        resource.addCapability(new CapabilityImpl(resource, PACKAGE_NAMESPACE, Collections.<String, String>emptyMap(), attrs));
+        attrs = new HashMap<>();
+        attrs.put("objectClass", Collections.singletonList(service));
+        resource.addCapability(new CapabilityImpl(resource, "osgi.service", Collections.<String, String>emptyMap(), attrs));
+        return resource;
+    }
+
+    private static void writeXml(File file, long increment, String... versions) throws IOException {
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            w.write("<repository name='test' increment='" + increment + "' xmlns='http://www.osgi.org/xmlns/repository/v1.0.0'>\n");
+            for (int i = 0; i < versions.length; i++) {
+                if (versions[i] != null) {
+                    w.write("<resource>\n"
+                            + "<capability namespace='osgi.identity'>"
+                            + "<attribute name='osgi.identity' value='bundle" + i + "'/>"
+                            + "<attribute name='version' type='Version' value='1.0.0'/>"
+                            + "<attribute name='type' value='osgi.bundle'/>"
+                            + "</capability>\n"
+                            + "<capability namespace='osgi.wiring.package'>"
+                            + "<attribute name='osgi.wiring.package' value='pkg" + i + "'/>"
+                            + "<attribute name='version' type='Version' value='" + versions[i] + "'/>"
+                            + "</capability>\n"
+                            + "</resource>\n");
+                }
+            }
+            w.write("</repository>\n");
+        }
+    }
+
     private void verify(BaseRepository repo) {
         assertNotNull(repo.getResources());
         assertEquals(1, repo.getResources().size());
@@ -42,6 +42,8 @@ import java.util.StringTokenizer;
 import java.util.TreeMap;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -95,6 +97,12 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
     // an LDAP filter, that is used to search manifest headers, see FELIX-1441
     private static final String FILTER_PARAM = "filter";
 
+    // a regular expression matched against the id, name, symbolic name, version and category of the bundles
+    private static final String QUERY_PARAM = "query";
+
+    // the number of bundles embedded in the page and loaded per request by the page
+    private static final int PAGE_SIZE = 100;
+
     private static final String FIELD_STARTLEVEL = "bundlestartlevel";
 
     private static final String FIELD_START = "bundlestart";
@@ -300,12 +308,17 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
             final String servicesRoot = getServicesRoot( request );
             try
             {
-                this.renderJSON(response, reqInfo.bundle, pluginRoot, servicesRoot, request.getLocale(), request.getParameter(FILTER_PARAM), null );
+                this.renderJSON(response, reqInfo.bundle, pluginRoot, servicesRoot, request.getLocale(), request.getParameter(FILTER_PARAM),
+                    request.getParameter(QUERY_PARAM), JsonPage.fromRequest(request), null );
             }
             catch (InvalidSyntaxException e)
             {
                 response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Invalid LDAP filter specified");
             }
+            catch (PatternSyntaxException e)
+            {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid query specified");
+            }
 
             // nothing more to do
             return;
@@ -428,7 +441,7 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
             final String servicesRoot = getServicesRoot( req );
             try
             {
-                this.renderJSON( resp, null, pluginRoot, servicesRoot, req.getLocale(), req.getParameter(FILTER_PARAM), bundleException );
+                this.renderJSON( resp, null, pluginRoot, servicesRoot, req.getLocale(), req.getParameter(FILTER_PARAM), null, JsonPage.ALL, bundleException );
             }
             catch (InvalidSyntaxException e)
             {
@@ -522,13 +535,17 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
         vars.put( "startLevel", String.valueOf(startLevel));
         vars.put( "drawDetails", reqInfo.bundleRequested ? Boolean.TRUE : Boolean.FALSE );
         vars.put( "currentBundle", (reqInfo.bundleRequested && reqInfo.bundle != null ? String.valueOf(reqInfo.bundle.getBundleId()) : "null"));
+        vars.put( "pageSize", String.valueOf(PAGE_SIZE));
 
         final String pluginRoot = ( String ) request.getAttribute( WebConsoleConstants.ATTR_PLUGIN_ROOT );
         final String servicesRoot = getServicesRoot ( request );
         StringWriter w = new StringWriter();
         try
         {
-            writeJSON(w, reqInfo.bundle, pluginRoot, servicesRoot, request.getLocale(), request.getParameter(FILTER_PARAM), null );
+            // only the first page is embedded, the page loads the remaining bundles
+            final String filter = request.getParameter(FILTER_PARAM);
+            writeJSON(w, reqInfo.bundle, pluginRoot, servicesRoot, request.getLocale(), filter, null,
+                filter == null ? new JsonPage( 0, PAGE_SIZE, null ) : JsonPage.ALL, null );
         }
         catch (InvalidSyntaxException e)
         {
@@ -540,46 +557,126 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
         response.getWriter().print(TEMPLATE_MAIN);
     }
 
-    private void renderJSON( final HttpServletResponse response, final Bundle bundle, final String pluginRoot, final String servicesRoot, final Locale locale, final String filter, final BundleException be )
+    private void renderJSON( final HttpServletResponse response, final Bundle bundle, final String pluginRoot, final String servicesRoot, final Locale locale,
+            final String filter, final String query, final JsonPage page, final BundleException be )
             throws IOException, InvalidSyntaxException
     {
         response.setContentType( "application/json" );
         response.setCharacterEncoding( "UTF-8" );
 
         final PrintWriter pw = response.getWriter();
-        writeJSON(pw, bundle, pluginRoot, servicesRoot, locale, filter, be);
+        writeJSON(pw, bundle, pluginRoot, servicesRoot, locale, filter, query, page, be);
     }
 
 
-    private void writeJSON( final Writer pw, final Bundle bundle, final String pluginRoot, final String servicesRoot, final Locale locale, final String filter, final BundleException be )
+    /**
+     * Writes the requested page of bundles. Each bundle is written as soon as
+     * its information is collected, so the listing is never held in memory.
+     */
+    private void writeJSON( final Writer pw, final Bundle bundle, final String pluginRoot, final String servicesRoot, final Locale locale,
+            final String filter, final String query, final JsonPage page, final BundleException be )
             throws IOException, InvalidSyntaxException
     {
-        final Map<String, Object> map = createObjectStructure( bundle, pluginRoot, servicesRoot, false, locale, filter, be );
+        final Bundle[] allBundles = this.getBundles();
+        final List<Object> status = getStatusLine(allBundles);
+        final String statusLine = (String) status.remove(5);
+        final Bundle[] bundles = getBundles( allBundles, bundle, locale, filter, query );
+
         final JSONWriter writer = new JSONWriter(pw);
+        writer.object();
+
+        if (null != be)
+        {
+            writer.key("error").value(getStackTrace(be));
+        }
+
+        writer.key("status").value(statusLine);
+
+        // add raw status
+        writer.key("s").value(status.toArray());
 
-        writer.value(map);
+        writer.key("total").value(bundles.length);
+        writer.key("offset").value(page.getOffset());
+
+        writer.key("data");
+        writer.array();
+        for ( int i = page.getOffset(), end = page.getEnd(bundles.length); i < end; i++ )
+        {
+            writeBundle( writer, bundles[i], bundle != null, pluginRoot, servicesRoot, locale, page );
+        }
+        writer.endArray();
+
+        writer.endObject();
+        writer.flush();
     }
 
-    private Map<String, Object> createObjectStructure( final Bundle bundle, final String pluginRoot,
-            final String servicesRoot, final boolean fullDetails, final Locale locale, final String filter, final BundleException be ) throws IOException, InvalidSyntaxException
+    private void writeBundle( final JSONWriter writer, final Bundle bundle, final boolean details, final String pluginRoot,
+            final String servicesRoot, final Locale locale, final JsonPage page ) throws IOException
+    {
+        writer.object();
+        if ( page.includes("id") )
+        {
+            writer.key("id").value(bundle.getBundleId());
+        }
+        if ( page.includes("name") )
+        {
+            writer.key("name").value(Util.getName( bundle, locale ));
+        }
+        if ( page.includes("fragment") )
+        {
+            writer.key("fragment").value(isFragmentBundle(bundle));
+        }
+        if ( page.includes("stateRaw") )
+        {
+            writer.key("stateRaw").value(bundle.getState());
+        }
+        if ( page.includes("state") )
+        {
+            writer.key("state").value(toStateString( bundle ));
+        }
+        if ( page.includes("version") )
+        {
+            writer.key("version").value(Util.getHeaderValue(bundle, Constants.BUNDLE_VERSION));
+        }
+        if ( bundle.getSymbolicName() != null && page.includes("symbolicName") )
+        {
+            writer.key("symbolicName").value(bundle.getSymbolicName());
+        }
+        if ( page.includes("category") )
+        {
+            writer.key("category").value(Util.getHeaderValue(bundle, Constants.BUNDLE_CATEGORY));
+        }
+        if ( details && page.includes("props") )
+        {
+            writer.key("props").value(bundleDetails( bundle, pluginRoot, servicesRoot, locale ));
+        }
+        writer.endObject();
+    }
+
+    /**
+     * Returns the bundles to list, sorted by name: either the requested
+     * bundle or the bundles matching the LDAP filter and the query.
+     */
+    private Bundle[] getBundles( final Bundle[] allBundles, final Bundle bundle, final Locale locale,
+            final String filter, final String query ) throws InvalidSyntaxException
     {
-        final Bundle[] allBundles = this.getBundles();
-        final List<Object> status = getStatusLine(allBundles);
-        final String statusLine = (String) status.remove(5);
-        // filter bundles by headers
-        final Bundle[] bundles;
         if (bundle != null)
         {
-            bundles = new Bundle[] { bundle };
+            return new Bundle[] { bundle };
         }
-        else if (filter != null)
+
+        // filter bundles by headers
+        final Filter f = filter != null ? getBundleContext().createFilter(filter) : null;
+        final Pattern p = query != null && query.length() > 0 ? Pattern.compile(query) : null;
+        final Bundle[] bundles;
+        if (f != null || p != null)
         {
-            Filter f = getBundleContext().createFilter(filter);
             ArrayList<Bundle> list = new ArrayList<Bundle>(allBundles.length);
             final String localeString = locale.toString();
             for (int i = 0, size = allBundles.length; i < size; i++)
             {
-                if (f.match(allBundles[i].getHeaders(localeString)))
+                if ( (f == null || f.match(allBundles[i].getHeaders(localeString)))
+                        && (p == null || matches(p, allBundles[i], locale)) )
                 {
                     list.add(allBundles[i]);
                 }
@@ -592,15 +689,39 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
         }
 
         Util.sort( bundles, locale );
+        return bundles;
+    }
+
+    private boolean matches( final Pattern p, final Bundle bundle, final Locale locale )
+    {
+        return p.matcher( String.valueOf( bundle.getBundleId() ) ).find()
+            || p.matcher( Util.getName( bundle, locale ) ).find()
+            || ( bundle.getSymbolicName() != null && p.matcher( bundle.getSymbolicName() ).find() )
+            || p.matcher( Util.getHeaderValue( bundle, Constants.BUNDLE_VERSION ) ).find()
+            || p.matcher( Util.getHeaderValue( bundle, Constants.BUNDLE_CATEGORY ) ).find();
+    }
+
+    private String getStackTrace( final BundleException be )
+    {
+        final StringWriter s = new StringWriter();
+        final Throwable t = be.getNestedException() != null ? be.getNestedException() : be;
+        t.printStackTrace( new PrintWriter(s) );
+        return s.toString();
+    }
+
+    private Map<String, Object> createObjectStructure( final Bundle bundle, final String pluginRoot,
+            final String servicesRoot, final boolean fullDetails, final Locale locale, final String filter, final BundleException be ) throws IOException, InvalidSyntaxException
+    {
+        final Bundle[] allBundles = this.getBundles();
+        final List<Object> status = getStatusLine(allBundles);
+        final String statusLine = (String) status.remove(5);
+        final Bundle[] bundles = getBundles( allBundles, bundle, locale, filter, null );
 
         final Map<String, Object> map = new LinkedHashMap<String, Object>();
 
         if (null != be)
         {
-            final StringWriter s = new StringWriter();
-            final Throwable t = be.getNestedException() != null ? be.getNestedException() : be;
-            t.printStackTrace( new PrintWriter(s) );
-            map.put("error", s.toString());
+            map.put("error", getStackTrace(be));
         }
 
         map.put("status", statusLine);
@@ -707,7 +828,7 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
 
         if ( details )
         {
-            bundleDetails( result, bundle, pluginRoot, servicesRoot, locale );
+            result.put( "props", bundleDetails( bundle, pluginRoot, servicesRoot, locale ) );
         }
 
         return result;
@@ -767,8 +888,7 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
             props.add(obj);
         }
     }
-    private final void bundleDetails( final Map<String, Object> result,
-            final Bundle bundle,
+    private final Object[] bundleDetails( final Bundle bundle,
             final String pluginRoot,
             final String servicesRoot,
             final Locale locale)
@@ -816,7 +936,7 @@ public class BundlesServlet extends SimpleWebConsolePlugin implements OsgiManage
         final String appRoot = ( pluginRoot == null ) ? "" : pluginRoot.substring( 0, pluginRoot.lastIndexOf( "/" ) );
         bundleInfoDetails( props, bundle, appRoot, locale );
 
-        result.put( "props", props.toArray(new Object[props.size()]));
+        return props.toArray(new Object[props.size()]);
     }
 
 
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.webconsole.internal.core;
+
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.felix.webconsole.WebConsoleUtil;
+
+
+/**
+ * The <code>JsonPage</code> describes the part of a JSON listing requested
+ * by a client: the index of the first entry (<code>offset</code>), the
+ * maximum number of entries (<code>limit</code>) and the names of the entry
+ * properties to write (<code>fields</code>, comma separated).
+ * <p>
+ * Missing or invalid parameters select everything, so requests without
+ * these parameters get the complete listing as before.
+ */
+final class JsonPage
+{
+    static final String OFFSET_PARAM = "offset";
+    static final String LIMIT_PARAM = "limit";
+    static final String FIELDS_PARAM = "fields";
+
+    /** the complete listing */
+    static final JsonPage ALL = new JsonPage( 0, -1, null );
+
+    private final int offset;
+    private final int limit;
+    private final Set<String> fields;
+
+
+    JsonPage( final int offset, final int limit, final Set<String> fields )
+    {
+        this.offset = Math.max( 0, offset );
+        this.limit = limit;
+        this.fields = fields;
+    }
+
+
+    static JsonPage fromRequest( final HttpServletRequest request )
+    {
+        final int offset = WebConsoleUtil.getParameterInt( request, OFFSET_PARAM, 0 );
+        final int limit = WebConsoleUtil.getParameterInt( request, LIMIT_PARAM, -1 );
+
+        Set<String> fields = null;
+        final String fieldsParam = request.getParameter( FIELDS_PARAM );
+        if ( fieldsParam != null && fieldsParam.trim().length() > 0 )
+        {
+            fields = new HashSet<String>();
+            final String[] names = fieldsParam.split( "," );
+            for ( int i = 0; i < names.length; i++ )
+            {
+                fields.add( names[i].trim() );
+            }
+        }
+        return new JsonPage( offset, limit, fields );
+    }
+
+
+    /**
+     * Returns the index of the first entry to write.
+     */
+    int getOffset()
+    {
+        return offset;
+    }
+
+
+    /**
+     * Returns the index following the last entry to write out of a listing
+     * of <code>total</code> entries.
+     */
+    int getEnd( final int total )
+    {
+        if ( limit < 0 || ( long ) offset + limit > total )
+        {
+            return total;
+        }
+        return offset + limit;
+    }
+
+
+    /**
+     * Returns <code>true</code> if the property <code>name</code> of the
+     * entries has to be written.
+     */
+    boolean includes( final String name )
+    {
+        return fields == null || fields.contains( name );
+    }
+}
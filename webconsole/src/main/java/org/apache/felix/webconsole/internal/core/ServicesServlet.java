@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Locale;
 
 import javax.servlet.ServletException;
@@ -112,6 +114,9 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
     // an LDAP filter, that is used to search services
     private static final String FILTER_PARAM = "filter";
 
+    // the number of services embedded in the page and loaded per request by the page
+    private static final int PAGE_SIZE = 500;
+
     private final String TEMPLATE;
 
     /** Default constructor */
@@ -211,14 +216,14 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
     }
 
 
-    private void renderJSON( final HttpServletResponse response, final ServiceReference service, final Locale locale )
-            throws IOException
+    private void renderJSON( final HttpServletResponse response, final ServiceReference service, final Locale locale,
+            final String filter, final JsonPage page ) throws IOException
     {
         response.setContentType( "application/json" );
         response.setCharacterEncoding( "UTF-8" );
 
         final PrintWriter pw = response.getWriter();
-        writeJSON( pw, service, locale, null);
+        writeJSON( pw, service, false, locale, filter, page );
     }
 
     private void keyVal( JSONWriter jw, String key, Object val) throws IOException
@@ -287,27 +292,46 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
     }
 
 
-    private void serviceInfo( JSONWriter jw, ServiceReference service, boolean details, final Locale locale )
+    private void serviceInfo( JSONWriter jw, ServiceReference service, boolean details, final Locale locale, final JsonPage page )
             throws IOException
     {
         jw.object();
-        jw.key( "id" );
-        jw.value( propertyAsString( service, Constants.SERVICE_ID ) );
-        jw.key( "types" );
-        jw.value( propertyAsString( service, Constants.OBJECTCLASS ) );
-        jw.key( "pid" );
-        jw.value( propertyAsString( service, Constants.SERVICE_PID ) );
-        jw.key( "ranking" );
-        final Object ranking = service.getProperty(Constants.SERVICE_RANKING);
-        if ( ranking != null )
+        if ( page.includes( "id" ) )
         {
-            jw.value( ranking.toString() );
+            jw.key( "id" );
+            jw.value( propertyAsString( service, Constants.SERVICE_ID ) );
         }
-        else
+        if ( page.includes( "types" ) )
         {
-            jw.value("");
+            jw.key( "types" );
+            jw.value( propertyAsString( service, Constants.OBJECTCLASS ) );
+        }
+        if ( page.includes( "pid" ) )
+        {
+            jw.key( "pid" );
+            jw.value( propertyAsString( service, Constants.SERVICE_PID ) );
+        }
+        if ( page.includes( "ranking" ) )
+        {
+            jw.key( "ranking" );
+            final Object ranking = service.getProperty(Constants.SERVICE_RANKING);
+            if ( ranking != null )
+            {
+                jw.value( ranking.toString() );
+            }
+            else
+            {
+                jw.value("");
+            }
+        }
+        if ( page.includes( "bundle" ) )
+        {
+            final Bundle bundle = service.getBundle();
+            if ( bundle != null )
+            {
+                bundleInfo( jw, bundle, locale );
+            }
         }
-        bundleInfo( jw, service.getBundle(), locale );
 
         if ( details )
         {
@@ -333,47 +357,66 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
     }
 
 
-    private void writeJSON(final Writer pw, final ServiceReference service, final Locale locale, final String filter) throws IOException
-    {
-        writeJSON( pw, service, false, locale, filter );
-    }
-
-
-    private void writeJSON( final Writer pw, final ServiceReference service, final boolean fullDetails, final Locale locale, final String filter )
-            throws IOException
+    /**
+     * Writes the requested page of services, ordered by service id so that
+     * consecutive pages do not overlap.
+     */
+    private void writeJSON( final Writer pw, final ServiceReference service, final boolean fullDetails, final Locale locale,
+            final String filter, final JsonPage page ) throws IOException
     {
         final ServiceReference[] allServices = this.getServices(filter);
         final String statusLine = getStatusLine( allServices );
 
         final ServiceReference[] services = ( service != null ) ? new ServiceReference[]
                 { service } : allServices;
+        if ( services.length > 1 )
+        {
+            Arrays.sort( services, SERVICE_ID_COMPARATOR );
+        }
 
-                final JSONWriter jw = new JSONWriter( pw );
+        final JSONWriter jw = new JSONWriter( pw );
 
-                jw.object();
+        jw.object();
 
-                jw.key( "status" );
-                jw.value( statusLine );
+        jw.key( "status" );
+        jw.value( statusLine );
 
-                jw.key( "serviceCount" );
-                jw.value( allServices.length );
+        jw.key( "serviceCount" );
+        jw.value( allServices.length );
 
-                jw.key( "data" );
+        jw.key( "total" );
+        jw.value( services.length );
 
-                jw.array();
+        jw.key( "offset" );
+        jw.value( page.getOffset() );
 
-                for ( int i = 0; i < services.length; i++ )
-                {
-                    serviceInfo( jw, services[i], fullDetails || service != null, locale );
-                }
+        jw.key( "data" );
 
-                jw.endArray();
+        jw.array();
 
-                jw.endObject();
+        for ( int i = page.getOffset(), end = page.getEnd( services.length ); i < end; i++ )
+        {
+            serviceInfo( jw, services[i], fullDetails || service != null, locale, page );
+        }
+
+        jw.endArray();
 
+        jw.endObject();
+        jw.flush();
     }
 
 
+    private static final Comparator<ServiceReference> SERVICE_ID_COMPARATOR = new Comparator<ServiceReference>()
+    {
+        public int compare( final ServiceReference r1, final ServiceReference r2 )
+        {
+            final long id1 = ( ( Long ) r1.getProperty( Constants.SERVICE_ID ) ).longValue();
+            final long id2 = ( ( Long ) r2.getProperty( Constants.SERVICE_ID ) ).longValue();
+            return id1 < id2 ? -1 : ( id1 == id2 ? 0 : 1 );
+        }
+    };
+
+
     /**
      * @see org.apache.felix.webconsole.AbstractWebConsolePlugin#doGet(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)
      */
@@ -390,7 +433,8 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
             }
             if ( reqInfo.extension.equals( "json" ) )
             {
-                this.renderJSON( response, reqInfo.service, request.getLocale() );
+                this.renderJSON( response, reqInfo.service, request.getLocale(), request.getParameter( FILTER_PARAM ),
+                    JsonPage.fromRequest( request ) );
 
                 // nothing more to do
                 return;
@@ -412,7 +456,8 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
         final String appRoot = ( String ) request.getAttribute( WebConsoleConstants.ATTR_APP_ROOT );
         StringWriter w = new StringWriter();
         final String filter = request.getParameter(FILTER_PARAM);
-        writeJSON(w, reqInfo.service, request.getLocale(), filter);
+        // only the first page is embedded, the page loads the remaining services
+        writeJSON(w, reqInfo.service, false, request.getLocale(), filter, new JsonPage( 0, PAGE_SIZE, null ));
 
         // prepare variables
         DefaultVariableResolver vars = ( ( DefaultVariableResolver ) WebConsoleUtil.getVariableResolver( request ) );
@@ -420,6 +465,7 @@ public class ServicesServlet extends SimpleWebConsolePlugin implements OsgiManag
         vars.put( "drawDetails", String.valueOf(reqInfo.serviceRequested));
         vars.put( "__data__", w.toString() );
         vars.put( "filter", filter == null ? "" : WebConsoleUtil.escapeHtml(filter));
+        vars.put( "pageSize", String.valueOf(PAGE_SIZE));
 
         response.getWriter().print( TEMPLATE );
     }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.felix.webconsole.internal.misc;
+
+
+import java.io.PrintWriter;
+import java.util.concurrent.Callable;
+
+import org.apache.felix.webconsole.internal.AbstractConfigurationPrinter;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.ServiceReference;
+
+
+/**
+ * This class provides the Startup Trace tab in the configuration status.
+ * It prints the framework startup timeline in the Chrome trace event format
+ * if the framework has been launched with <code>felix.startup.trace=true</code>.
+ */
+public class StartupTracePrinter extends AbstractConfigurationPrinter
+{
+
+    private static final String TITLE = "Startup Trace";
+
+    private static final String FILTER = "(felix.startup.trace=chrome)";
+
+
+    public String getTitle()
+    {
+        return TITLE;
+    }
+
+
+    public void printConfiguration( PrintWriter printWriter )
+    {
+        final BundleContext bc = getBundleContext();
+        ServiceReference[] refs = null;
+        if ( bc != null )
+        {
+            try
+            {
+                refs = bc.getServiceReferences( Callable.class.getName(), FILTER );
+            }
+            catch ( InvalidSyntaxException e )
+            {
+                // not expected, the filter is constant
+            }
+        }
+        if ( refs == null || refs.length == 0 )
+        {
+            printWriter.println( "Startup trace is not available, launch the framework with felix.startup.trace=true." );
+            return;
+        }
+
+        final Callable trace = ( Callable ) bc.getService( refs[0] );
+        if ( trace == null )
+        {
+            printWriter.println( "Startup trace is not available." );
+            return;
+        }
+        try
+        {
+            printWriter.println( trace.call() );
+        }
+        catch ( Exception e )
+        {
+            printWriter.println( "Unable to get the startup trace: " + e );
+        }
+        finally
+        {
+            bc.ungetService( refs[0] );
+        }
+    }
+
+}
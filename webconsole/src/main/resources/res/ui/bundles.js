@@ -22,6 +22,10 @@ var bundlesTemplate = false;
 var bundleOpError   = false;
 var bundleOpSuccess = false;
 
+// the bundle list is loaded page by page, pages of a replaced list are dropped
+var pageRequest = 0;
+var listFields  = 'id,name,fragment,stateRaw,version,symbolicName,category';
+
 function renderData( eventData, filter )  {
 	lastBundleData = eventData;
 	var s = eventData.s;
@@ -129,8 +133,37 @@ function entrySetupState( /* Object */ bundle, tr, id) {
 	tr.children('td:eq(4)').text( stateString(bundle) );
 }
 
-function loadData() {
-    $.get(pluginRoot + "/.json", null, renderData, "json"); 
+function loadData(params) {
+	var request = ++pageRequest;
+	params = $.extend({ 'fields' : listFields, 'limit' : pageSize }, params);
+	$.get(pluginRoot + '/.json', params, function(data) {
+		if (request != pageRequest) return;
+		renderData(data);
+		loadNextPage(params, data, request);
+	}, 'json');
+}
+
+function loadNextPage(params, data, request) {
+	var next = (data.offset || 0) + data.data.length;
+	if (drawDetails || typeof data.total == 'undefined' || next >= data.total) return;
+	$.get(pluginRoot + '/.json', $.extend({}, params, { 'offset' : next }), function(page) {
+		if (request != pageRequest) return;
+		appendData(page);
+		loadNextPage(params, page, request);
+	}, 'json');
+}
+
+function appendData(page) {
+	for ( var idx in page.data ) {
+		lastBundleData.data.push(page.data[idx]);
+		entry( page.data[idx] );
+	}
+	bundlesTable.trigger('update');
+
+	var cv = getCookie("bundlelist");
+	if (cv) {
+	    bundlesTable.trigger('sorton', [cv]);
+	}
 }
 
 function changeDataEntryState(/* long */ id, /* String */ action) {
@@ -151,6 +184,7 @@ function changeDataEntryState(/* long */ id, /* String */ action) {
 }
 
 function refreshPackages() {
+    pageRequest++;
     $.post(pluginRoot, {"action": "refreshPackages"}, renderData, "json"); 
 }
 
@@ -261,7 +295,7 @@ function renderDetailsEntry(key, value) {
 
 $(document).ready(function(){
 	$('.refreshPackages').click(refreshPackages);
-	$('.reloadButton').click(loadData);
+	$('.reloadButton').click(function() { loadData() });
 	$('.installButton').click(function() {
 		uploadDialog.dialog('open');
 		return false;
@@ -283,8 +317,7 @@ $(document).ready(function(){
 	$('.filterApply').click(function() {
 		if ($(this).hasClass('ui-state-disabled')) return;
 		var el = $(this).parent().find('input.filter');
-		var filter = el.length && el.val() ? new RegExp(el.val()) : false;
-		renderData(lastBundleData, filter);
+		loadData(el.length && el.val() ? { 'query' : el.val() } : {});
 	});
 	$('.filterForm').submit(function() {
 		$(this).find('.filterApply').click();
@@ -299,7 +332,7 @@ $(document).ready(function(){
 		if ($(this).hasClass('ui-state-disabled')) return;
 		var el = $(this).parent().find('input.filter');
 		var filter = el.val();
-		if (filter) $.get(pluginRoot + '/.json', { 'filter' : filter }, renderData, 'json');
+		if (filter) loadData({ 'filter' : filter });
 		return false;
 	});
 
@@ -332,5 +365,6 @@ $(document).ready(function(){
 	bundlesTemplate = bundlesBody.find('tr').clone();
 
 	renderData(lastBundleData);
+	loadNextPage({ 'fields' : listFields, 'limit' : pageSize }, lastBundleData, pageRequest);
 });
 
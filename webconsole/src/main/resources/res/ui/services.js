@@ -34,6 +34,22 @@ function renderData(eventData) {
 	}
 }
 
+// loads the services following the given page and appends them to the table
+function loadNextPage(page) {
+	var next = (page.offset || 0) + page.data.length;
+	if (drawDetails || typeof page.total == 'undefined' || next >= page.total) return;
+	var params = { 'offset' : next, 'limit' : pageSize, 'fields' : 'id,types,ranking,bundle' };
+	if (filter) params.filter = unescapeXML(filter);
+	$.get(pluginRoot + '/.json', params, function(data) {
+		for ( var idx in data.data) {
+			entry(data.data[idx]);
+		}
+		var table = $('#plugin_table').trigger('update');
+		table.trigger('sorton', [table[0].config.sortList]);
+		loadNextPage(data);
+	}, 'json');
+}
+
 function entry( /* Object */dataEntry) {
 	var id = dataEntry.id;
 	var name = dataEntry.id;
@@ -169,4 +185,5 @@ $(document).ready(function() {
 		sortList : [ [ 1, 0 ] ],
 		textExtraction : mixedLinksExtraction
 	});
+	loadNextPage(data);
 });
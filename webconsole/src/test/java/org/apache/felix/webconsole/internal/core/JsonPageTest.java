@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.felix.webconsole.internal.core;
+
+
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.TestCase;
+
+import org.mockito.Mockito;
+
+
+public class JsonPageTest extends TestCase
+{
+
+    public void test_no_parameters()
+    {
+        final JsonPage page = JsonPage.fromRequest( request( null, null, null ) );
+        assertEquals( 0, page.getOffset() );
+        assertEquals( 42, page.getEnd( 42 ) );
+        assertTrue( page.includes( "id" ) );
+        assertTrue( page.includes( "props" ) );
+    }
+
+
+    public void test_offset_limit()
+    {
+        final JsonPage page = JsonPage.fromRequest( request( "10", "5", null ) );
+        assertEquals( 10, page.getOffset() );
+        assertEquals( 15, page.getEnd( 42 ) );
+        assertEquals( 12, page.getEnd( 12 ) );
+
+        // past the end: nothing to write
+        assertEquals( 8, page.getEnd( 8 ) );
+    }
+
+
+    public void test_invalid_parameters()
+    {
+        final JsonPage page = JsonPage.fromRequest( request( "-3", "many", null ) );
+        assertEquals( 0, page.getOffset() );
+        assertEquals( 42, page.getEnd( 42 ) );
+
+        final JsonPage overflow = JsonPage.fromRequest( request( "10", String.valueOf( Integer.MAX_VALUE ), null ) );
+        assertEquals( 42, overflow.getEnd( 42 ) );
+    }
+
+
+    public void test_fields()
+    {
+        final JsonPage page = JsonPage.fromRequest( request( null, null, "id, name,state" ) );
+        assertTrue( page.includes( "id" ) );
+        assertTrue( page.includes( "name" ) );
+        assertTrue( page.includes( "state" ) );
+        assertFalse( page.includes( "props" ) );
+    }
+
+
+    private HttpServletRequest request( final String offset, final String limit, final String fields )
+    {
+        final HttpServletRequest request = Mockito.mock( HttpServletRequest.class );
+        Mockito.when( request.getParameter( JsonPage.OFFSET_PARAM ) ).thenReturn( offset );
+        Mockito.when( request.getParameter( JsonPage.LIMIT_PARAM ) ).thenReturn( limit );
+        Mockito.when( request.getParameter( JsonPage.FIELDS_PARAM ) ).thenReturn( fields );
+        return request;
+    }
+}